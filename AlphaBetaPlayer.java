@@ -0,0 +1,518 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * class that represents a computer player that picks its moves with an iterative-deepening alpha-beta search
+ * it follows the same rules as a human player (winNumber, the three-three rule and the four-four rule) and stops thinking
+ * when its time budget for the move runs out, playing the best move from the deepest search it finished
+ * @author Esther Shin
+ */
+
+public class AlphaBetaPlayer implements Player{
+  /*
+   * constant WIN_SCORE  the score of a position where the player to move has already won
+   */
+  static final int WIN_SCORE = 1000000;
+
+  /*
+   * constant NEIGHBOR_DISTANCE  how far (in squares) from an existing piece a move may be to be searched
+   */
+  static final int NEIGHBOR_DISTANCE = 2;
+
+  /*
+   * field rules  stores the rules the player must follow
+   */
+  private final GomokuRules rules;
+
+  /*
+   * field maxDepth  stores the deepest number of moves ahead the player will search
+   */
+  private final int maxDepth;
+
+  /*
+   * field timeBudgetMillis  stores how many milliseconds the player may think about one move (0 or less means no limit)
+   */
+  private final long timeBudgetMillis;
+
+  /*
+   * field branchLimit  stores how many of the best ordered moves are searched at each position
+   */
+  private final int branchLimit;
+
+  /*
+   * field table  stores the results of positions already searched, so positions reached again by a different order of moves are not searched again
+   */
+  private final TranspositionTable table;
+
+  /*
+   * field deadline  stores the System.nanoTime() at which the current search must stop
+   */
+  private long deadline;
+
+  /*
+   * field timeIsUp  stores whether the current search has run out of time
+   */
+  private boolean timeIsUp;
+
+  /*
+   * field stopSignal  stores a flag another thread can set to make this player stop searching, or null if there is none
+   */
+  private AtomicBoolean stopSignal;
+
+  /*
+   * field nodes  stores how many positions have been searched for the current move
+   */
+  private long nodes;
+
+  /*
+   * field completedDepth  stores the deepest search that finished for the last move chosen
+   */
+  private int completedDepth;
+
+  /*
+   * fields used while searching, kept between moves so the search does not create new arrays at every position
+   */
+  private BoardModel searchedModel;
+  private PatternEvaluator evaluator;
+  private CandidateMoves candidates;
+  private int[][] moveBuffers;
+  private int[][] scoreBuffers;
+
+  /*
+   * constructor for the AlphaBetaPlayer class
+   * @param rules  the rules the player must follow
+   * @param maxDepth  the deepest number of moves ahead to search
+   * @param timeBudgetMillis  how many milliseconds the player may think about one move (0 or less means no limit)
+   */
+  public AlphaBetaPlayer(GomokuRules rules, int maxDepth, long timeBudgetMillis){
+    this(rules, maxDepth, timeBudgetMillis, 16);
+  }
+
+  /*
+   * constructor for the AlphaBetaPlayer class
+   * @param rules  the rules the player must follow
+   * @param maxDepth  the deepest number of moves ahead to search
+   * @param timeBudgetMillis  how many milliseconds the player may think about one move (0 or less means no limit)
+   * @param branchLimit  how many of the best ordered moves are searched at each position
+   */
+  public AlphaBetaPlayer(GomokuRules rules, int maxDepth, long timeBudgetMillis, int branchLimit){
+    this(rules, maxDepth, timeBudgetMillis, branchLimit, new TranspositionTable(18));
+  }
+
+  /*
+   * constructor for the AlphaBetaPlayer class
+   * @param rules  the rules the player must follow
+   * @param maxDepth  the deepest number of moves ahead to search
+   * @param timeBudgetMillis  how many milliseconds the player may think about one move (0 or less means no limit)
+   * @param branchLimit  how many of the best ordered moves are searched at each position
+   * @param table  the transposition table to remember searched positions in (it may be shared with other players using the same rules)
+   */
+  public AlphaBetaPlayer(GomokuRules rules, int maxDepth, long timeBudgetMillis, int branchLimit, TranspositionTable table){
+    if(maxDepth < 1 || branchLimit < 1){
+      throw new IllegalArgumentException("maxDepth and branchLimit must be at least 1");
+    }
+    this.rules = rules;
+    this.maxDepth = maxDepth;
+    this.timeBudgetMillis = timeBudgetMillis;
+    this.branchLimit = branchLimit;
+    this.table = table;
+  }
+
+  /*
+   * method that gets the number of positions searched for the last move chosen
+   */
+  public long getNodes(){
+    return nodes;
+  }
+
+  /*
+   * method that gets the deepest search that finished for the last move chosen
+   */
+  public int getCompletedDepth(){
+    return completedDepth;
+  }
+
+  /*
+   * method that picks a move for a player; the board is changed while searching but is the same as before when this returns
+   * @param model  the board being played on
+   * @param color  the color of the player to move (BoardModel.BLACK or BoardModel.WHITE)
+   * @return the index (row * columns + column) of the chosen square, or -1 if there is no legal move
+   */
+  public int chooseMove(BoardModel model, int color){
+    return chooseMove(model, color, 1);
+  }
+
+  /*
+   * method that sets a flag another thread can set to make this player stop searching (used when several players search together,
+   * and by the GUI when the position changes while the player is thinking)
+   * @param stopSignal  the flag, or null for none
+   */
+  public void setStopSignal(AtomicBoolean stopSignal){
+    this.stopSignal = stopSignal;
+  }
+
+  /*
+   * method that picks a move for a player, starting the iterative deepening at a given depth
+   * @param model  the board being played on
+   * @param color  the color of the player to move
+   * @param firstDepth  the depth of the first search; helper threads start one deeper so they do not all search the same depths
+   * @return the index (row * columns + column) of the chosen square, or -1 if there is no legal move
+   */
+  int chooseMove(BoardModel model, int color, int firstDepth){
+    prepare(model);
+    nodes = 0;
+    completedDepth = 0;
+    timeIsUp = false;
+    deadline = timeBudgetMillis > 0 ? System.nanoTime() + timeBudgetMillis * 1000000L : Long.MAX_VALUE;
+
+    int[] rootMoves = moveBuffers[0];
+    int moveCount = generateMoves(model, color, 0);
+    if(moveCount == 0){
+      return -1;
+    }
+    if(moveCount == 1){
+      return rootMoves[0];
+    }
+    /*
+     * a move that wins right away needs no search
+     */
+    int columns = model.getColumns();
+    for(int i = 0; i < moveCount; i = i + 1){
+      if(rules.isWin(model, rootMoves[i] / columns, rootMoves[i] % columns, color)){
+        return rootMoves[i];
+      }
+    }
+    int rootCount = Math.min(moveCount, branchLimit);
+    int bestMove = rootMoves[0];
+    /*
+     * searches one move deeper each time, until the deepest depth is reached or the time runs out
+     */
+    for(int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth && !timeIsUp; depth = depth + 1){
+      int alpha = -WIN_SCORE - 1;
+      int depthBest = -1;
+      for(int i = 0; i < rootCount; i = i + 1){
+        int move = rootMoves[i];
+        model.place(move / columns, move % columns, color);
+        int score = -search(model, 3 - color, depth - 1, 1, -WIN_SCORE - 1, -alpha);
+        model.undo();
+        if(timeIsUp){
+          break;
+        }
+        if(score > alpha){
+          alpha = score;
+          depthBest = i;
+        }
+      }
+      if(timeIsUp || depthBest == -1){
+        break;
+      }
+      bestMove = rootMoves[depthBest];
+      completedDepth = depth;
+      /*
+       * moves the best move to the front so the next, deeper search looks at it first
+       */
+      System.arraycopy(rootMoves, 0, rootMoves, 1, depthBest);
+      rootMoves[0] = bestMove;
+      if(alpha >= WIN_SCORE - maxDepth){
+        break;
+      }
+    }
+    return bestMove;
+  }
+
+  /*
+   * method that scores a position with alpha-beta (negamax) search
+   * @param model  the board being played on
+   * @param color  the color of the player to move
+   * @param depth  how many more moves ahead to search
+   * @param ply  how many moves have been made since the root of the search
+   * @param alpha  the score the player to move is already sure of
+   * @param beta  the score the other player is already sure of
+   * @return the score of the position for the player to move
+   */
+  private int search(BoardModel model, int color, int depth, int ply, int alpha, int beta){
+    nodes = nodes + 1;
+    if((nodes & 1023) == 0 && (System.nanoTime() >= deadline || (stopSignal != null && stopSignal.get()))){
+      timeIsUp = true;
+    }
+    if(timeIsUp){
+      return 0;
+    }
+    /*
+     * a position that was already searched at least this deeply does not need to be searched again
+     */
+    long key = positionKey(model, color);
+    long entry = table.probe(key);
+    int tableMove = -1;
+    if(entry != 0){
+      tableMove = TranspositionTable.moveOf(entry);
+      if(TranspositionTable.depthOf(entry) >= depth){
+        int score = fromTable(TranspositionTable.scoreOf(entry), ply);
+        int flag = TranspositionTable.flagOf(entry);
+        if(flag == TranspositionTable.EXACT
+             || (flag == TranspositionTable.LOWER_BOUND && score >= beta)
+             || (flag == TranspositionTable.UPPER_BOUND && score <= alpha)){
+          return score;
+        }
+      }
+    }
+    int moveCount = generateMoves(model, color, ply);
+    if(moveCount == 0){
+      return 0;
+    }
+    int[] moves = moveBuffers[ply];
+    int columns = model.getColumns();
+    for(int i = 0; i < moveCount; i = i + 1){
+      if(rules.isWin(model, moves[i] / columns, moves[i] % columns, color)){
+        return WIN_SCORE - ply;
+      }
+    }
+    if(depth == 0){
+      int score = evaluate(model, color);
+      table.store(key, 0, TranspositionTable.EXACT, score, -1);
+      return score;
+    }
+    /*
+     * the best move the table remembers for this position is searched first
+     */
+    for(int i = 1; i < moveCount && tableMove != -1; i = i + 1){
+      if(moves[i] == tableMove){
+        System.arraycopy(moves, 0, moves, 1, i);
+        moves[0] = tableMove;
+        break;
+      }
+    }
+    int originalAlpha = alpha;
+    int bestMove = -1;
+    int count = Math.min(moveCount, branchLimit);
+    for(int i = 0; i < count; i = i + 1){
+      model.place(moves[i] / columns, moves[i] % columns, color);
+      int score = -search(model, 3 - color, depth - 1, ply + 1, -beta, -alpha);
+      model.undo();
+      if(timeIsUp){
+        return 0;
+      }
+      if(score > alpha){
+        alpha = score;
+        bestMove = moves[i];
+        if(alpha >= beta){
+          break;
+        }
+      }
+    }
+    int flag = TranspositionTable.EXACT;
+    if(alpha <= originalAlpha){
+      flag = TranspositionTable.UPPER_BOUND;
+    }
+    else if(alpha >= beta){
+      flag = TranspositionTable.LOWER_BOUND;
+    }
+    table.store(key, depth, flag, toTable(alpha, ply), bestMove);
+    return alpha;
+  }
+
+  /*
+   * method that gets the key a position is stored under in the table: the board's Zobrist hash, changed when white is to move
+   * @param model  the board being played on
+   * @param color  the color of the player to move
+   * @return the key of the position
+   */
+  static long positionKey(BoardModel model, int color){
+    return color == BoardModel.WHITE ? model.getHash() ^ BoardModel.WHITE_TO_MOVE_KEY : model.getHash();
+  }
+
+  /*
+   * method that changes a winning score from "moves since the root" to "moves from this position" before it is stored,
+   * so it means the same thing when the position is reached at a different depth
+   */
+  static int toTable(int score, int ply){
+    if(score >= WIN_SCORE - 1000){
+      return score + ply;
+    }
+    if(score <= -WIN_SCORE + 1000){
+      return score - ply;
+    }
+    return score;
+  }
+
+  /*
+   * method that changes a stored winning score back from "moves from this position" to "moves since the root"
+   */
+  static int fromTable(int score, int ply){
+    if(score >= WIN_SCORE - 1000){
+      return score - ply;
+    }
+    if(score <= -WIN_SCORE + 1000){
+      return score + ply;
+    }
+    return score;
+  }
+
+  /*
+   * method that fills moveBuffers[ply] with the legal moves near existing pieces (the candidates, biggest threats first when there
+   * is a pattern evaluator), with the branchLimit best of them first and in order
+   * @param model  the board being played on
+   * @param color  the color of the player to move
+   * @param ply  which buffer to fill
+   * @return the number of moves found
+   */
+  private int generateMoves(BoardModel model, int color, int ply){
+    int[] moves = moveBuffers[ply];
+    int[] scores = scoreBuffers[ply];
+    int rows = model.getRows();
+    int columns = model.getColumns();
+    if(model.getMoveCount() == 0){
+      moves[0] = (rows / 2) * columns + columns / 2;
+      return 1;
+    }
+    int found = evaluator != null ? candidates.byThreat(evaluator, color, moves) : candidates.fill(moves);
+    int count = 0;
+    for(int i = 0; i < found; i = i + 1){
+      int index = moves[i];
+      if(rules.isLegal(model, index / columns, index % columns, color)){
+        moves[count] = index;
+        scores[count] = orderScore(model, index / columns, index % columns, color);
+        count = count + 1;
+      }
+    }
+    /*
+     * insertion sort, highest ordering score first; only the first branchLimit moves are searched, so a move after them is only
+     * put in among them if it scores higher than the last of them (which then takes its place), and the rest are left as they are
+     */
+    for(int i = 1; i < count; i = i + 1){
+      int move = moves[i];
+      int score = scores[i];
+      int j = i - 1;
+      if(i >= branchLimit){
+        if(score <= scores[branchLimit - 1]){
+          continue;
+        }
+        moves[i] = moves[branchLimit - 1];
+        scores[i] = scores[branchLimit - 1];
+        j = branchLimit - 2;
+      }
+      while(j >= 0 && scores[j] < score){
+        moves[j + 1] = moves[j];
+        scores[j + 1] = scores[j];
+        j = j - 1;
+      }
+      moves[j + 1] = move;
+      scores[j + 1] = score;
+    }
+    return count;
+  }
+
+  /*
+   * method that guesses how good a move is, so better moves are searched first: long lines for either color through the square score high
+   * @param model  the board being played on
+   * @param row  the row of the square
+   * @param column  the column of the square
+   * @param color  the color of the player to move
+   * @return the ordering score of the move
+   */
+  private int orderScore(BoardModel model, int row, int column, int color){
+    if(evaluator != null){
+      int square = row * model.getColumns() + column;
+      return evaluator.cellScore(square, color) * 2 + evaluator.cellScore(square, 3 - color);
+    }
+    LineRuns lineRuns = model.getLineRuns();
+    int score = 0;
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      int own = lineRuns.lineLength(row, column, axis, color);
+      int other = lineRuns.lineLength(row, column, axis, 3 - color);
+      score = score + own * own * 2 + other * other;
+    }
+    return score;
+  }
+
+  /*
+   * method that scores a position without searching: with the pattern tables if there are tables for the winNumber, and otherwise
+   * by making every straight line of pieces worth more the longer it is and the more open ends it has
+   * @param model  the board being played on
+   * @param color  the color of the player to move
+   * @return the score of the position for the player to move
+   */
+  int evaluate(BoardModel model, int color){
+    if(evaluator != null){
+      return evaluator.evaluate(color);
+    }
+    LineRuns lineRuns = model.getLineRuns();
+    int columns = model.getColumns();
+    int winNumber = rules.getWinNumber();
+    int own = 0;
+    int other = 0;
+    /*
+     * loops through each piece on the board and scores the lines that start at it
+     */
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int stone = model.getMove(i);
+      int row = stone / columns;
+      int column = stone % columns;
+      int stoneColor = model.colorAt(row, column);
+      for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+        if(lineRuns.runLength(row, column, axis + 4, stoneColor) != 0){
+          continue;
+        }
+        int length = 1 + lineRuns.runLength(row, column, axis, stoneColor);
+        int openEnds = (lineRuns.isOpen(row, column, axis, stoneColor) ? 1 : 0)
+          + (lineRuns.isOpen(row, column, axis + 4, stoneColor) ? 1 : 0);
+        int value = lineValue(length, openEnds, winNumber);
+        if(stoneColor == color){
+          own = own + value;
+        }
+        else{
+          other = other + value;
+        }
+      }
+    }
+    return own - other - other / 4;
+  }
+
+  /*
+   * method that gets the value of one straight line of pieces
+   * @param length  the number of pieces in the line
+   * @param openEnds  how many ends of the line are empty squares (0, 1 or 2); lines longer than winNumber cannot win and are worth nothing
+   * @param winNumber  the number of pieces in a row needed to win
+   * @return the value of the line
+   */
+  private static int lineValue(int length, int openEnds, int winNumber){
+    if(openEnds == 0 || length > winNumber){
+      return 0;
+    }
+    int value = 1;
+    int missing = Math.max(winNumber - length, 0);
+    /*
+     * each piece closer to winNumber multiplies the value, so one long line is worth more than many short ones
+     */
+    for(int i = 0; i < 6 - Math.min(missing, 5); i = i + 1){
+      value = value * 8;
+    }
+    return openEnds == 2 ? value * 2 : value;
+  }
+
+  /*
+   * method that makes the search arrays big enough for a board, and moves the pattern evaluator and the candidate moves over to it
+   * @param model  the board that will be searched
+   */
+  private void prepare(BoardModel model){
+    if(searchedModel == model){
+      return;
+    }
+    if(evaluator != null){
+      searchedModel.removeListener(evaluator);
+      evaluator = null;
+    }
+    if(candidates != null){
+      searchedModel.removeListener(candidates);
+    }
+    candidates = new CandidateMoves(model, NEIGHBOR_DISTANCE);
+    model.addListener(candidates);
+    if(PatternEvaluator.supports(rules.getWinNumber())){
+      evaluator = new PatternEvaluator(model, rules.getWinNumber());
+      model.addListener(evaluator);
+    }
+    int cells = model.getRows() * model.getColumns();
+    moveBuffers = new int[maxDepth + 2][cells];
+    scoreBuffers = new int[maxDepth + 2][cells];
+    searchedModel = model;
+  }
+}
@@ -0,0 +1,205 @@
+import javafx.application.Platform;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/*
+ * class that draws a whole Gomoku board on one Canvas, in place of one Button per square: a 200x200 board is one node instead of
+ * 40,000 controls
+ * each square is drawn like the buttons were (a green square with a thin border, a black or white circle for a piece, and a short
+ * text for hints); changing a square only marks it, and the marked squares are drawn once, after the event that changed them,
+ * so a move or an undo of many moves draws just the squares that changed
+ * @author Esther Shin
+ */
+
+public class BoardCanvas extends Canvas{
+  /*
+   * constant MAX_SIZE  the most pixels the canvas may be on a side (bigger canvases are too big for the graphics card)
+   */
+  public static final int MAX_SIZE = 4096;
+
+  /*
+   * constant BORDER  the color of the lines between squares
+   */
+  private static final Color BORDER = Color.rgb(0, 80, 0);
+
+  /*
+   * fields rows and columns  store the size of the board
+   */
+  private final int rows;
+  private final int columns;
+
+  /*
+   * field cellSize  stores how many pixels a square is on a side
+   */
+  private final double cellSize;
+
+  /*
+   * field colors  stores the color of the piece on every square (BoardModel.EMPTY, BoardModel.BLACK or BoardModel.WHITE)
+   */
+  private final byte[] colors;
+
+  /*
+   * field texts  stores the text shown on every square, or null if there is none
+   */
+  private final String[] texts;
+
+  /*
+   * field dirty  stores one bit per square, set if the square has changed since it was last drawn
+   */
+  private final long[] dirty;
+
+  /*
+   * field drawScheduled  stores whether the marked squares will already be drawn after the current event
+   */
+  private boolean drawScheduled = false;
+
+  /*
+   * constructor for the BoardCanvas class; the squares are 40 pixels like the buttons, or smaller if the board would not fit in MAX_SIZE
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   */
+  public BoardCanvas(int rows, int columns){
+    this(rows, columns, Math.max(2, Math.min(40, MAX_SIZE / Math.max(rows, columns))));
+  }
+
+  /*
+   * constructor for the BoardCanvas class
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @param cellSize  how many pixels a square is on a side
+   */
+  public BoardCanvas(int rows, int columns, double cellSize){
+    super(columns * cellSize, rows * cellSize);
+    this.rows = rows;
+    this.columns = columns;
+    this.cellSize = cellSize;
+    colors = new byte[rows * columns];
+    texts = new String[rows * columns];
+    dirty = new long[(rows * columns + 63) >>> 6];
+    drawAll();
+  }
+
+  public double getCellSize(){
+    return cellSize;
+  }
+
+  /*
+   * method that finds the square under a point of the canvas
+   * @param x  the x coordinate of the point, in pixels from the left of the canvas
+   * @param y  the y coordinate of the point, in pixels from the top of the canvas
+   * @return the index (row * columns + column) of the square, or -1 if the point is not on the board
+   */
+  public int cellAt(double x, double y){
+    if(x < 0 || y < 0){
+      return -1;
+    }
+    int row = (int) (y / cellSize);
+    int column = (int) (x / cellSize);
+    if(row >= rows || column >= columns){
+      return -1;
+    }
+    return row * columns + column;
+  }
+
+  /*
+   * method that shows a piece on a square, or takes it off with BoardModel.EMPTY
+   */
+  public void setPiece(int row, int column, int color){
+    int index = row * columns + column;
+    if(colors[index] != color){
+      colors[index] = (byte) color;
+      markDirty(index);
+    }
+  }
+
+  /*
+   * method that shows a text on a square, or takes it off with "" or null
+   */
+  public void setText(int row, int column, String text){
+    int index = row * columns + column;
+    if(text != null && text.isEmpty()){
+      text = null;
+    }
+    if(text == null ? texts[index] != null : !text.equals(texts[index])){
+      texts[index] = text;
+      markDirty(index);
+    }
+  }
+
+  /*
+   * method that marks a square to be drawn, and makes sure the marked squares are drawn after the current event
+   */
+  private void markDirty(int index){
+    dirty[index >>> 6] = dirty[index >>> 6] | (1L << index);
+    if(!drawScheduled){
+      drawScheduled = true;
+      Platform.runLater(this::drawDirty);
+    }
+  }
+
+  /*
+   * method that draws the squares that have changed
+   */
+  private void drawDirty(){
+    long start = MoveMetrics.start();
+    RenderEvent event = MoveMetrics.beginRender();
+    drawScheduled = false;
+    GraphicsContext graphics = getGraphicsContext2D();
+    int drawn = 0;
+    for(int word = 0; word < dirty.length; word = word + 1){
+      long rest = dirty[word];
+      dirty[word] = 0L;
+      while(rest != 0){
+        int index = (word << 6) + Long.numberOfTrailingZeros(rest);
+        drawCell(graphics, index / columns, index % columns);
+        rest = rest & (rest - 1);
+        drawn = drawn + 1;
+      }
+    }
+    MoveMetrics.rendered(event, start, drawn);
+  }
+
+  /*
+   * method that draws every square
+   */
+  public void drawAll(){
+    GraphicsContext graphics = getGraphicsContext2D();
+    graphics.setFill(BORDER);
+    graphics.fillRect(0, 0, getWidth(), getHeight());
+    for(int row = 0; row < rows; row = row + 1){
+      for(int column = 0; column < columns; column = column + 1){
+        drawCell(graphics, row, column);
+      }
+    }
+  }
+
+  /*
+   * method that draws one square: the green square, then the piece and the text on it
+   */
+  private void drawCell(GraphicsContext graphics, int row, int column){
+    int index = row * columns + column;
+    double x = column * cellSize;
+    double y = row * cellSize;
+    double line = cellSize >= 8 ? 0.75 : 0;
+    graphics.setFill(BORDER);
+    graphics.fillRect(x, y, cellSize, cellSize);
+    graphics.setFill(Color.GREEN);
+    graphics.fillRect(x + line, y + line, cellSize - 2 * line, cellSize - 2 * line);
+    if(colors[index] != BoardModel.EMPTY){
+      double inset = cellSize / 16;
+      graphics.setFill(colors[index] == BoardModel.BLACK ? Color.BLACK : Color.WHITE);
+      graphics.fillOval(x + inset, y + inset, cellSize - 2 * inset, cellSize - 2 * inset);
+    }
+    if(texts[index] != null && cellSize >= 12){
+      graphics.setFill(colors[index] == BoardModel.BLACK ? Color.WHITE : Color.BLACK);
+      graphics.setFont(Font.font(cellSize / 3.5));
+      graphics.setTextAlign(TextAlignment.CENTER);
+      graphics.setTextBaseline(VPos.CENTER);
+      graphics.fillText(texts[index], x + cellSize / 2, y + cellSize / 2, cellSize - 2);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ * interface for something that keeps its own incremental state about a board (see BoardModel.addListener)
+ * the methods are called after the board has changed, by the thread that changed it
+ * @author Esther Shin
+ */
+
+public interface BoardListener{
+  /*
+   * method that is called after a piece is placed
+   * @param row  the row of the piece
+   * @param column  the column of the piece
+   * @param color  the color of the piece (BoardModel.BLACK or BoardModel.WHITE)
+   */
+  void piecePlaced(int row, int column, int color);
+
+  /*
+   * method that is called after a piece is taken back
+   * @param row  the row the piece was on
+   * @param column  the column the piece was on
+   * @param color  the color of the piece
+   */
+  void pieceRemoved(int row, int column, int color);
+
+  /*
+   * method that is called after every piece is removed from the board
+   */
+  void boardCleared();
+}
@@ -0,0 +1,354 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * class that stores the state of a Gomoku board without any JavaFX objects, so that the rules can be checked headlessly
+ * each color has its own bitboard (an array of longs) with one bit for every intersection of a rows x columns board
+ * @author Esther Shin
+ */
+
+public class BoardModel{
+  /*
+   * constant EMPTY  represents an intersection that has no piece on it
+   */
+  public static final int EMPTY = 0;
+
+  /*
+   * constant BLACK  represents an intersection that has a black piece on it
+   */
+  public static final int BLACK = 1;
+
+  /*
+   * constant WHITE  represents an intersection that has a white piece on it
+   */
+  public static final int WHITE = 2;
+
+  /*
+   * constant WHITE_TO_MOVE_KEY  a random number that is mixed into a hash to tell apart the same position with white instead of black to move
+   */
+  public static final long WHITE_TO_MOVE_KEY = 0x6A09E667F3BCC909L;
+
+  /*
+   * field rows  stores the number of rows on the board
+   */
+  private final int rows;
+
+  /*
+   * field columns  stores the number of columns on the board
+   */
+  private final int columns;
+
+  /*
+   * field blackBits  stores one bit per intersection, set if a black piece is on that intersection
+   */
+  private final long[] blackBits;
+
+  /*
+   * field whiteBits  stores one bit per intersection, set if a white piece is on that intersection
+   */
+  private final long[] whiteBits;
+
+  /*
+   * field moves  stores the index (row * columns + column) of every piece placed, in the order they were placed
+   */
+  private final int[] moves;
+
+  /*
+   * field moveCount  stores how many pieces are currently on the board
+   */
+  private int moveCount = 0;
+
+  /*
+   * field lineRuns  stores the length of the lines of pieces next to every intersection, kept up to date as pieces are placed and taken back
+   */
+  private final LineRuns lineRuns;
+
+  /*
+   * field zobristKeys  stores a random number for every (intersection, color) pair; the hash of a position is all the numbers
+   * of its pieces xor-ed together, so it can be updated with one xor when a piece is placed or taken back
+   */
+  private final long[] zobristKeys;
+
+  /*
+   * field listeners  stores the listeners that are told about every change to the board
+   */
+  private BoardListener[] listeners = new BoardListener[0];
+
+  /*
+   * field sharedKeys  stores the keys every board uses: a board with n intersections uses the first 2n of them, so boards do not
+   * each make their own (which matters when thousands of boards are in memory at once)
+   */
+  private static long[] sharedKeys = new long[0];
+
+  /*
+   * field hash  stores the Zobrist hash of the pieces currently on the board
+   */
+  private long hash = 0L;
+
+  /*
+   * field scanSteps  stores how many squares (or runs of squares) the rules have read on this board, for MoveMetrics; a board is only
+   * used by one thread at a time (searches on other threads use copies), so a plain field is enough
+   */
+  private long scanSteps = 0L;
+
+  /*
+   * constructor for the BoardModel class
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   */
+  public BoardModel(int rows, int columns){
+    if(rows < 1 || columns < 1){
+      throw new IllegalArgumentException("Board must have at least one row and one column");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    blackBits = new long[(rows * columns + 63) >>> 6];
+    whiteBits = new long[(rows * columns + 63) >>> 6];
+    moves = new int[rows * columns];
+    lineRuns = new LineRuns(this);
+    zobristKeys = keysFor(rows * columns * 2);
+  }
+
+  /*
+   * method that gets the shared keys, making more of them if there are fewer than a board needs
+   * the keys come from a fixed seed so the same position always has the same hash, on every run and every machine
+   * @param count  how many keys the board needs
+   * @return an array with at least count keys
+   */
+  private static synchronized long[] keysFor(int count){
+    if(sharedKeys.length < count){
+      long[] keys = new long[Math.max(count, sharedKeys.length * 2)];
+      SplittableRandom random = new SplittableRandom(0x9E3779B97F4A7C15L);
+      for(int i = 0; i < keys.length; i = i + 1){
+        keys[i] = random.nextLong();
+      }
+      sharedKeys = keys;
+    }
+    return sharedKeys;
+  }
+
+  /*
+   * method that gets the value of rows
+   */
+  public int getRows(){
+    return rows;
+  }
+
+  /*
+   * method that gets the value of columns
+   */
+  public int getColumns(){
+    return columns;
+  }
+
+  /*
+   * method that gets the line lengths that are kept for this board
+   */
+  public LineRuns getLineRuns(){
+    return lineRuns;
+  }
+
+  /*
+   * method that gets the Zobrist hash of the pieces currently on the board
+   */
+  public long getHash(){
+    return hash;
+  }
+
+  /*
+   * method that gets how many squares the rules have read on this board (only counted while MoveMetrics is enabled)
+   */
+  public long getScanSteps(){
+    return scanSteps;
+  }
+
+  /*
+   * method that adds to the number of squares the rules have read on this board
+   */
+  void addScanSteps(int squares){
+    scanSteps = scanSteps + squares;
+  }
+
+  /*
+   * method that gets the Zobrist key of one piece
+   * @param index  the index (row * columns + column) of the intersection
+   * @param color  the color of the piece (BLACK or WHITE)
+   * @return the random number that is xor-ed into the hash when that piece is on the board
+   */
+  public long zobristKey(int index, int color){
+    return zobristKeys[index * 2 + color - 1];
+  }
+
+  /*
+   * method that gets the number of pieces currently on the board
+   */
+  public int getMoveCount(){
+    return moveCount;
+  }
+
+  /*
+   * method that gets a piece that is on the board, in the order the pieces were placed
+   * @param number  which piece to get (0 is the first piece placed)
+   * @return the index (row * columns + column) of the intersection the piece is on
+   */
+  public int getMove(int number){
+    if(number < 0 || number >= moveCount){
+      throw new IndexOutOfBoundsException("There is no move number " + number);
+    }
+    return moves[number];
+  }
+
+  /*
+   * method that determines whether a row and column are inside the board
+   * @param row  the row to check
+   * @param column  the column to check
+   * @return true if the row and column are on the board, false if they are not
+   */
+  public boolean isOnBoard(int row, int column){
+    return row >= 0 && row < rows && column >= 0 && column < columns;
+  }
+
+  /*
+   * method that gets the color of the piece on an intersection
+   * @param row  the row of the intersection
+   * @param column  the column of the intersection
+   * @return EMPTY, BLACK or WHITE
+   */
+  public int colorAt(int row, int column){
+    int index = row * columns + column;
+    long mask = 1L << index;
+    if((blackBits[index >>> 6] & mask) != 0){
+      return BLACK;
+    }
+    else if((whiteBits[index >>> 6] & mask) != 0){
+      return WHITE;
+    }
+    return EMPTY;
+  }
+
+  /*
+   * method that determines whether an intersection has no piece on it
+   * @param row  the row of the intersection
+   * @param column  the column of the intersection
+   * @return true if the intersection is empty, false if it is not
+   */
+  public boolean isEmpty(int row, int column){
+    int index = row * columns + column;
+    return ((blackBits[index >>> 6] | whiteBits[index >>> 6]) & (1L << index)) == 0;
+  }
+
+  /*
+   * method that copies the bitboard of a color (bit index % 64 of word index / 64 is set if that color has a piece on the square)
+   * @param color  BLACK or WHITE
+   * @param out  the array to copy it to, with room for (rows * columns + 63) / 64 words
+   */
+  public void copyBits(int color, long[] out){
+    System.arraycopy(color == BLACK ? blackBits : whiteBits, 0, out, 0, blackBits.length);
+  }
+
+  /*
+   * method that places a piece on an empty intersection
+   * @param row  the row of the intersection
+   * @param column  the column of the intersection
+   * @param color  the color of the piece (BLACK or WHITE)
+   */
+  public void place(int row, int column, int color){
+    if(!isOnBoard(row, column)){
+      throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is not on the board");
+    }
+    if(!isEmpty(row, column)){
+      throw new IllegalStateException("(" + row + ", " + column + ") already has a piece on it");
+    }
+    int index = row * columns + column;
+    if(color == BLACK){
+      blackBits[index >>> 6] |= 1L << index;
+    }
+    else if(color == WHITE){
+      whiteBits[index >>> 6] |= 1L << index;
+    }
+    else{
+      throw new IllegalArgumentException("Invalid color: " + color);
+    }
+    moves[moveCount] = index;
+    moveCount = moveCount + 1;
+    hash = hash ^ zobristKey(index, color);
+    lineRuns.piecePlaced(row, column, color);
+    for(BoardListener listener : listeners){
+      listener.piecePlaced(row, column, color);
+    }
+  }
+
+  /*
+   * method that takes back the most recently placed piece
+   * @return the index (row * columns + column) of the intersection that was cleared, or -1 if the board is empty
+   */
+  public int undo(){
+    if(moveCount == 0){
+      return -1;
+    }
+    moveCount = moveCount - 1;
+    int index = moves[moveCount];
+    int row = index / columns;
+    int column = index % columns;
+    int color = colorAt(row, column);
+    blackBits[index >>> 6] &= ~(1L << index);
+    whiteBits[index >>> 6] &= ~(1L << index);
+    hash = hash ^ zobristKey(index, color);
+    lineRuns.pieceRemoved(row, column, color);
+    for(BoardListener listener : listeners){
+      listener.pieceRemoved(row, column, color);
+    }
+    return index;
+  }
+
+  /*
+   * method that makes a separate board with the same pieces, placed in the same order
+   * @return the copy of the board
+   */
+  public BoardModel copy(){
+    BoardModel copy = new BoardModel(rows, columns);
+    for(int i = 0; i < moveCount; i = i + 1){
+      copy.place(moves[i] / columns, moves[i] % columns, colorAt(moves[i] / columns, moves[i] % columns));
+    }
+    return copy;
+  }
+
+  /*
+   * method that removes every piece from the board
+   */
+  public void clear(){
+    Arrays.fill(blackBits, 0L);
+    Arrays.fill(whiteBits, 0L);
+    moveCount = 0;
+    hash = 0L;
+    lineRuns.clear();
+    for(BoardListener listener : listeners){
+      listener.boardCleared();
+    }
+  }
+
+  /*
+   * method that adds a listener that is told about every piece placed or taken back from now on (a copy of the board does not get it)
+   * @param listener  the listener
+   */
+  public void addListener(BoardListener listener){
+    listeners = Arrays.copyOf(listeners, listeners.length + 1);
+    listeners[listeners.length - 1] = listener;
+  }
+
+  /*
+   * method that removes a listener, if it was added
+   * @param listener  the listener
+   */
+  public void removeListener(BoardListener listener){
+    for(int i = 0; i < listeners.length; i = i + 1){
+      if(listeners[i] == listener){
+        BoardListener[] fewer = new BoardListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, fewer, 0, i);
+        System.arraycopy(listeners, i + 1, fewer, i, listeners.length - i - 1);
+        listeners = fewer;
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * class with the symmetries of a board, used to treat a position and its mirror images and rotations as the same position
+ * a square board has 8 symmetries and any other board has 4; symmetry number s is made of three steps, done in this order:
+ * swap rows and columns if bit 4 is set (square boards only), flip the rows if bit 1 is set, flip the columns if bit 2 is set
+ * @author Esther Shin
+ */
+
+public class BoardSymmetry{
+  /*
+   * constructor for the BoardSymmetry class; it only has static methods, so it is never made
+   */
+  private BoardSymmetry(){
+  }
+
+  /*
+   * method that gets how many symmetries a board has
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @return 8 if the board is square, 4 if it is not
+   */
+  public static int count(int rows, int columns){
+    return rows == columns ? 8 : 4;
+  }
+
+  /*
+   * method that moves a square of the board by a symmetry
+   * @param symmetry  the symmetry (0 to count - 1; 0 leaves every square where it is)
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @param index  the square, as row * columns + column
+   * @return the square it is moved to, as row * columns + column
+   */
+  public static int transform(int symmetry, int rows, int columns, int index){
+    int row = index / columns;
+    int column = index % columns;
+    if((symmetry & 4) != 0){
+      int swap = row;
+      row = column;
+      column = swap;
+    }
+    if((symmetry & 1) != 0){
+      row = rows - 1 - row;
+    }
+    if((symmetry & 2) != 0){
+      column = columns - 1 - column;
+    }
+    return row * columns + column;
+  }
+
+  /*
+   * method that moves a square back to where it was before a symmetry moved it
+   * @param symmetry  the symmetry that moved it
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @param index  the moved square, as row * columns + column
+   * @return the square it came from, as row * columns + column
+   */
+  public static int inverse(int symmetry, int rows, int columns, int index){
+    int row = index / columns;
+    int column = index % columns;
+    if((symmetry & 1) != 0){
+      row = rows - 1 - row;
+    }
+    if((symmetry & 2) != 0){
+      column = columns - 1 - column;
+    }
+    if((symmetry & 4) != 0){
+      int swap = row;
+      row = column;
+      column = swap;
+    }
+    return row * columns + column;
+  }
+
+  /*
+   * method that gets the Zobrist hash the position on a board would have after it is moved by a symmetry
+   * @param model  the board
+   * @param color  the color of the player to move (BoardModel.BLACK or BoardModel.WHITE)
+   * @param symmetry  the symmetry
+   * @return the hash, with BoardModel.WHITE_TO_MOVE_KEY mixed in if white is to move
+   */
+  public static long hashUnder(BoardModel model, int color, int symmetry){
+    int rows = model.getRows();
+    int columns = model.getColumns();
+    long hash = color == BoardModel.WHITE ? BoardModel.WHITE_TO_MOVE_KEY : 0L;
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int index = model.getMove(i);
+      hash = hash ^ model.zobristKey(transform(symmetry, rows, columns, index), model.colorAt(index / columns, index % columns));
+    }
+    return hash;
+  }
+
+  /*
+   * method that gets the symmetry that moves a position to its canonical form: the one of its images with the smallest hash
+   * @param model  the board
+   * @param color  the color of the player to move
+   * @return the first symmetry that gives the smallest hash
+   */
+  public static int canonicalSymmetry(BoardModel model, int color){
+    int best = 0;
+    long bestHash = hashUnder(model, color, 0);
+    for(int symmetry = 1; symmetry < count(model.getRows(), model.getColumns()); symmetry = symmetry + 1){
+      long hash = hashUnder(model, color, symmetry);
+      if(hash < bestHash){
+        bestHash = hash;
+        best = symmetry;
+      }
+    }
+    return best;
+  }
+
+  /*
+   * method that gets the hash of the canonical form of a position, which is the same for the position and all of its images
+   * @param model  the board
+   * @param color  the color of the player to move
+   * @return the smallest hash of all the images of the position
+   */
+  public static long canonicalHash(BoardModel model, int color){
+    return hashUnder(model, color, canonicalSymmetry(model, color));
+  }
+
+  /*
+   * method that gets the square a move is on in the canonical form of a position; if the position is its own image under
+   * more than one symmetry, the smallest of the squares the move can be moved to is used, so the same move always gets the same square
+   * @param model  the board, before the move
+   * @param color  the color of the player to move
+   * @param move  the move, as row * columns + column
+   * @return the square of the move in the canonical form, as row * columns + column
+   */
+  public static int canonicalMove(BoardModel model, int color, int move){
+    int rows = model.getRows();
+    int columns = model.getColumns();
+    long bestHash = hashUnder(model, color, 0);
+    int bestMove = move;
+    for(int symmetry = 1; symmetry < count(rows, columns); symmetry = symmetry + 1){
+      long hash = hashUnder(model, color, symmetry);
+      int moved = transform(symmetry, rows, columns, move);
+      if(hash < bestHash || (hash == bestHash && moved < bestMove)){
+        bestHash = hash;
+        bestMove = moved;
+      }
+    }
+    return bestMove;
+  }
+}
@@ -0,0 +1,229 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/*
+ * class that checks BoardSymmetry and the opening book that uses it, without a window:
+ * every symmetry must move the squares of a board one to one and keep neighbors next to each other, inverse must undo transform,
+ * every image of a random position must have the same canonical hash and canonical moves, and a book built from random games
+ * must give back each game's next move in every image of its positions
+ * run it with key=value arguments, for example:
+ *   java BoardSymmetryCheck games=300 seed=12
+ * it prints a line for each part and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class BoardSymmetryCheck{
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that checks transform and inverse on every square of a board of one size
+   */
+  private static void checkSquares(int rows, int columns){
+    int squares = rows * columns;
+    for(int symmetry = 0; symmetry < BoardSymmetry.count(rows, columns); symmetry = symmetry + 1){
+      boolean[] hit = new boolean[squares];
+      for(int index = 0; index < squares; index = index + 1){
+        int moved = BoardSymmetry.transform(symmetry, rows, columns, index);
+        if(moved < 0 || moved >= squares || hit[moved]){
+          fail(rows + "x" + columns + " symmetry " + symmetry + " moves " + index + " to " + moved + ", off the board or taken twice");
+          return;
+        }
+        hit[moved] = true;
+        if(symmetry == 0 && moved != index){
+          fail(rows + "x" + columns + " symmetry 0 moves " + index);
+        }
+        if(BoardSymmetry.inverse(symmetry, rows, columns, moved) != index || BoardSymmetry.transform(symmetry, rows, columns,
+                                                                              BoardSymmetry.inverse(symmetry, rows, columns, index)) != index){
+          fail(rows + "x" + columns + " symmetry " + symmetry + " is not undone by inverse at " + index);
+        }
+        /*
+         * a square and the one after it in a row must still be next to each other, so lines stay lines
+         */
+        if((index + 1) % columns != 0){
+          int next = BoardSymmetry.transform(symmetry, rows, columns, index + 1);
+          int rowStep = Math.abs(next / columns - moved / columns);
+          int columnStep = Math.abs(next % columns - moved % columns);
+          if(rowStep + columnStep != 1){
+            fail(rows + "x" + columns + " symmetry " + symmetry + " splits " + index + " from " + (index + 1));
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   * method that makes the image of a board under a symmetry, with its pieces placed in the same order
+   */
+  private static BoardModel image(BoardModel model, int symmetry){
+    int rows = model.getRows();
+    int columns = model.getColumns();
+    BoardModel image = new BoardModel(rows, columns);
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int index = model.getMove(i);
+      int moved = BoardSymmetry.transform(symmetry, rows, columns, index);
+      image.place(moved / columns, moved % columns, model.colorAt(index / columns, index % columns));
+    }
+    return image;
+  }
+
+  /*
+   * method that checks the hashes and canonical moves of every image of a position
+   */
+  private static void checkPosition(BoardModel model, int color, int move, String where){
+    int rows = model.getRows();
+    int columns = model.getColumns();
+    long canonical = BoardSymmetry.canonicalHash(model, color);
+    int canonicalMove = BoardSymmetry.canonicalMove(model, color, move);
+    for(int symmetry = 0; symmetry < BoardSymmetry.count(rows, columns); symmetry = symmetry + 1){
+      BoardModel image = image(model, symmetry);
+      if(BoardSymmetry.hashUnder(model, color, symmetry) != BoardSymmetry.hashUnder(image, color, 0)){
+        fail(where + ": hashUnder symmetry " + symmetry + " is not the hash of the image");
+      }
+      if(BoardSymmetry.canonicalHash(image, color) != canonical){
+        fail(where + ": image " + symmetry + " has a different canonical hash");
+      }
+      if(BoardSymmetry.canonicalMove(image, color, BoardSymmetry.transform(symmetry, rows, columns, move)) != canonicalMove){
+        fail(where + ": image " + symmetry + " has a different canonical move");
+      }
+    }
+  }
+
+  /*
+   * method that plays a random game to the end of the board or maxMoves moves
+   */
+  private static BoardModel randomGame(SplittableRandom random, int rows, int columns, int maxMoves){
+    BoardModel model = new BoardModel(rows, columns);
+    int moves = Math.min(maxMoves, rows * columns);
+    for(int i = 0; i < moves; i = i + 1){
+      int square;
+      do{
+        square = random.nextInt(rows * columns);
+      }
+      while(!model.isEmpty(square / columns, square % columns));
+      model.place(square / columns, square % columns, i % 2 + 1);
+    }
+    return model;
+  }
+
+  /*
+   * method that builds a book from random games and looks up each game's moves in every image of its positions
+   */
+  private static void checkBook(SplittableRandom random, int rows, int columns, int games) throws IOException{
+    int maxPly = 6;
+    BoardModel[] played = new BoardModel[games];
+    OpeningBookBuilder builder = new OpeningBookBuilder(rows, columns, maxPly);
+    for(int game = 0; game < games; game = game + 1){
+      /*
+       * the games start with a few openings so that positions come up again, in different images
+       */
+      played[game] = image(randomGame(new SplittableRandom(random.nextInt(8)), rows, columns, 2), random.nextInt(BoardSymmetry.count(rows, columns)));
+      BoardModel rest = randomGame(random, rows, columns, maxPly);
+      for(int i = 0; i < rest.getMoveCount() && played[game].getMoveCount() < maxPly; i = i + 1){
+        int move = rest.getMove(i);
+        if(played[game].isEmpty(move / columns, move % columns)){
+          played[game].place(move / columns, move % columns, played[game].getMoveCount() % 2 + 1);
+        }
+      }
+      builder.addGame(played[game], GameRecordWriter.DRAW);
+    }
+    Path path = Files.createTempFile("symmetry", ".book");
+    try{
+      builder.write(path, 1);
+      try(OpeningBook book = new OpeningBook(path)){
+        int[] moves = new int[rows * columns];
+        for(BoardModel game : played){
+          BoardModel model = new BoardModel(rows, columns);
+          for(int ply = 0; ply < game.getMoveCount(); ply = ply + 1){
+            int move = game.getMove(ply);
+            int color = game.colorAt(move / columns, move % columns);
+            for(int symmetry = 0; symmetry < BoardSymmetry.count(rows, columns); symmetry = symmetry + 1){
+              BoardModel image = image(model, symmetry);
+              int count = book.lookup(image, color, moves, null);
+              /*
+               * a position that is its own image gives one of the squares its move can be moved to, so moves are compared canonically
+               */
+              int wanted = BoardSymmetry.canonicalMove(image, color, BoardSymmetry.transform(symmetry, rows, columns, move));
+              boolean found = false;
+              for(int i = 0; i < count; i = i + 1){
+                found = found || BoardSymmetry.canonicalMove(image, color, moves[i]) == wanted;
+              }
+              if(!found){
+                fail(rows + "x" + columns + " book: ply " + ply + " image " + symmetry + " does not have the move played");
+              }
+            }
+            model.place(move / columns, move % columns, color);
+          }
+        }
+      }
+    }
+    finally{
+      Files.deleteIfExists(path);
+    }
+  }
+
+  public static void main(String[] args) throws IOException{
+    int games = 300;
+    long seed = 12;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("games")){
+          games = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    int[][] sizes = {{1, 1}, {1, 7}, {7, 1}, {4, 6}, {6, 4}, {7, 7}, {15, 15}, {19, 19}, {10, 13}};
+    for(int[] size : sizes){
+      checkSquares(size[0], size[1]);
+    }
+    System.out.println("transform and inverse on " + sizes.length + " board sizes: " + (failures == 0 ? "ok" : failures + " failures"));
+    int before = failures;
+    SplittableRandom random = new SplittableRandom(seed);
+    for(int game = 0; game < games; game = game + 1){
+      int[] size = sizes[3 + random.nextInt(sizes.length - 3)];
+      BoardModel model = randomGame(random, size[0], size[1], random.nextInt(size[0] * size[1]));
+      int color = model.getMoveCount() % 2 + 1;
+      if(model.getMoveCount() < size[0] * size[1]){
+        int move;
+        do{
+          move = random.nextInt(size[0] * size[1]);
+        }
+        while(!model.isEmpty(move / size[1], move % size[1]));
+        checkPosition(model, color, move, size[0] + "x" + size[1] + " game " + game);
+      }
+    }
+    System.out.println("canonical hashes and moves of " + games + " positions: " + (failures == before ? "ok" : (failures - before) + " failures"));
+    before = failures;
+    checkBook(random, 15, 15, games);
+    checkBook(random, 10, 13, games);
+    System.out.println("book lookups in every image: " + (failures == before ? "ok" : (failures - before) + " failures"));
+    System.out.println(failures == 0 ? "ok" : "FAIL: " + failures + " failures");
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,283 @@
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+/*
+ * class that shows part of a SparseBoard in a window-sized canvas, which can be moved around (dragging with the mouse) and zoomed
+ * (the mouse wheel, keeping the square under the mouse in place)
+ * only the squares that can be seen are drawn: the grid lines for them, and the pieces of the tiles they are in, looked up one tile
+ * at a time, so drawing takes the same time on a 19x19 board and on a board with no edges
+ * @author Esther Shin
+ */
+
+public class BoardViewport extends Pane{
+  /*
+   * interface for what happens when a square is clicked (a click, not the end of a drag)
+   */
+  public interface SquareClickHandler{
+    void squareClicked(int row, int column);
+  }
+
+  /*
+   * constants for the smallest and biggest size of a square, in pixels
+   */
+  public static final double MIN_CELL_SIZE = 2;
+  public static final double MAX_CELL_SIZE = 80;
+
+  /*
+   * constant DRAG_DISTANCE  how many pixels the mouse must move while pressed for a press to be a drag instead of a click
+   */
+  private static final double DRAG_DISTANCE = 4;
+
+  /*
+   * constants for the colors the board is drawn in
+   */
+  private static final Color OFF_BOARD = Color.rgb(0, 50, 0);
+  private static final Color LINE = Color.rgb(0, 80, 0);
+  private static final Color LAST_MOVE = Color.RED;
+
+  /*
+   * field board  stores the board that is shown
+   */
+  private final SparseBoard board;
+
+  /*
+   * field canvas  stores the canvas the board is drawn on, always the size of the viewport
+   */
+  private final Canvas canvas = new Canvas();
+
+  /*
+   * fields originRow and originColumn  store which point of the board is at the top left corner of the viewport, in squares
+   * (so they are usually not whole numbers)
+   */
+  private double originRow = 0;
+  private double originColumn = 0;
+
+  /*
+   * field cellSize  stores how many pixels a square is on a side
+   */
+  private double cellSize = 40;
+
+  /*
+   * fields used while the mouse is pressed: where it was last, and whether it has moved far enough to be a drag
+   */
+  private double lastX;
+  private double lastY;
+  private double dragDistance;
+
+  /*
+   * field clickHandler  stores what happens when a square is clicked, or null if nothing does
+   */
+  private SquareClickHandler clickHandler;
+
+  /*
+   * field drawScheduled  stores whether the viewport will already be drawn after the current event
+   */
+  private boolean drawScheduled = false;
+
+  /*
+   * constructor for the BoardViewport class
+   * @param board  the board to show
+   * @param width  how wide the viewport wants to be, in pixels
+   * @param height  how tall the viewport wants to be, in pixels
+   */
+  public BoardViewport(SparseBoard board, double width, double height){
+    this.board = board;
+    getChildren().add(canvas);
+    setPrefSize(width, height);
+    canvas.widthProperty().bind(widthProperty());
+    canvas.heightProperty().bind(heightProperty());
+    canvas.widthProperty().addListener((property, oldWidth, newWidth) -> redraw());
+    canvas.heightProperty().addListener((property, oldHeight, newHeight) -> redraw());
+
+    setOnMousePressed(event -> {
+      lastX = event.getX();
+      lastY = event.getY();
+      dragDistance = 0;
+    });
+    setOnMouseDragged(event -> {
+      dragDistance = dragDistance + Math.abs(event.getX() - lastX) + Math.abs(event.getY() - lastY);
+      pan(event.getX() - lastX, event.getY() - lastY);
+      lastX = event.getX();
+      lastY = event.getY();
+    });
+    setOnMouseClicked(event -> {
+      if(event.getButton() == MouseButton.PRIMARY && dragDistance < DRAG_DISTANCE && clickHandler != null){
+        int row = rowAt(event.getY());
+        int column = columnAt(event.getX());
+        if(board.isOnBoard(row, column)){
+          clickHandler.squareClicked(row, column);
+        }
+      }
+    });
+    setOnScroll(event -> {
+      if(event.getDeltaY() != 0){
+        zoom(event.getDeltaY() > 0 ? 1.25 : 0.8, event.getX(), event.getY());
+      }
+    });
+  }
+
+  public void setClickHandler(SquareClickHandler clickHandler){
+    this.clickHandler = clickHandler;
+  }
+
+  public double getCellSize(){
+    return cellSize;
+  }
+
+  /*
+   * method that gets the row of the square under a point of the viewport
+   * @param y  the y coordinate of the point, in pixels from the top of the viewport
+   */
+  public int rowAt(double y){
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.floor(originRow + y / cellSize)));
+  }
+
+  /*
+   * method that gets the column of the square under a point of the viewport
+   * @param x  the x coordinate of the point, in pixels from the left of the viewport
+   */
+  public int columnAt(double x){
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.floor(originColumn + x / cellSize)));
+  }
+
+  /*
+   * method that moves the board in the viewport
+   * @param dx  how many pixels to move it right
+   * @param dy  how many pixels to move it down
+   */
+  public void pan(double dx, double dy){
+    originColumn = originColumn - dx / cellSize;
+    originRow = originRow - dy / cellSize;
+    redraw();
+  }
+
+  /*
+   * method that makes the squares bigger or smaller, keeping the point of the board under a point of the viewport where it is
+   * @param factor  how many times bigger the squares get (less than 1 makes them smaller)
+   * @param x  the x coordinate of the point that stays in place
+   * @param y  the y coordinate of the point that stays in place
+   */
+  public void zoom(double factor, double x, double y){
+    double row = originRow + y / cellSize;
+    double column = originColumn + x / cellSize;
+    cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, cellSize * factor));
+    originRow = row - y / cellSize;
+    originColumn = column - x / cellSize;
+    redraw();
+  }
+
+  /*
+   * method that moves the board so a square is in the middle of the viewport
+   */
+  public void centerOn(int row, int column){
+    double width = getWidth() > 0 ? getWidth() : getPrefWidth();
+    double height = getHeight() > 0 ? getHeight() : getPrefHeight();
+    originRow = row + 0.5 - height / 2 / cellSize;
+    originColumn = column + 0.5 - width / 2 / cellSize;
+    redraw();
+  }
+
+  /*
+   * method that makes sure the viewport is drawn again after the current event (however many times it is asked for)
+   */
+  public void redraw(){
+    if(!drawScheduled){
+      drawScheduled = true;
+      Platform.runLater(this::draw);
+    }
+  }
+
+  /*
+   * method that draws the part of the board that can be seen
+   */
+  private void draw(){
+    long start = MoveMetrics.start();
+    RenderEvent event = MoveMetrics.beginRender();
+    drawScheduled = false;
+    int drawn = drawVisible();
+    MoveMetrics.rendered(event, start, drawn);
+  }
+
+  /*
+   * method that draws the squares that can be seen and the pieces on them
+   * @return the number of squares drawn
+   */
+  private int drawVisible(){
+    GraphicsContext graphics = canvas.getGraphicsContext2D();
+    double width = canvas.getWidth();
+    double height = canvas.getHeight();
+    graphics.setFill(OFF_BOARD);
+    graphics.fillRect(0, 0, width, height);
+    /*
+     * the squares that can be seen, kept on the board (worked out in long so a board with no edges does not wrap around)
+     */
+    long firstRow = (long) Math.floor(originRow);
+    long lastRow = (long) Math.floor(originRow + height / cellSize);
+    long firstColumn = (long) Math.floor(originColumn);
+    long lastColumn = (long) Math.floor(originColumn + width / cellSize);
+    firstRow = Math.max(firstRow, board.getRows() == 0 ? Integer.MIN_VALUE : 0);
+    lastRow = Math.min(lastRow, board.getRows() == 0 ? Integer.MAX_VALUE : board.getRows() - 1);
+    firstColumn = Math.max(firstColumn, board.getColumns() == 0 ? Integer.MIN_VALUE : 0);
+    lastColumn = Math.min(lastColumn, board.getColumns() == 0 ? Integer.MAX_VALUE : board.getColumns() - 1);
+    if(firstRow > lastRow || firstColumn > lastColumn){
+      return 0;
+    }
+    graphics.setFill(Color.GREEN);
+    graphics.fillRect(xOf(firstColumn), yOf(firstRow), (lastColumn - firstColumn + 1) * cellSize, (lastRow - firstRow + 1) * cellSize);
+    if(cellSize >= 6){
+      graphics.setStroke(LINE);
+      graphics.setLineWidth(1);
+      for(long row = firstRow; row <= lastRow + 1; row = row + 1){
+        graphics.strokeLine(xOf(firstColumn), yOf(row), xOf(lastColumn + 1), yOf(row));
+      }
+      for(long column = firstColumn; column <= lastColumn + 1; column = column + 1){
+        graphics.strokeLine(xOf(column), yOf(firstRow), xOf(column), yOf(lastRow + 1));
+      }
+    }
+    /*
+     * draws the pieces of every tile that can be seen
+     */
+    double inset = cellSize / 16;
+    for(long tileRow = firstRow >> SparseBoard.TILE_BITS; tileRow <= lastRow >> SparseBoard.TILE_BITS; tileRow = tileRow + 1){
+      for(long tileColumn = firstColumn >> SparseBoard.TILE_BITS; tileColumn <= lastColumn >> SparseBoard.TILE_BITS; tileColumn = tileColumn + 1){
+        byte[] tile = board.tile((int) tileRow, (int) tileColumn);
+        if(tile == null){
+          continue;
+        }
+        for(int square = 0; square < tile.length; square = square + 1){
+          if(tile[square] != BoardModel.EMPTY){
+            long row = (tileRow << SparseBoard.TILE_BITS) + (square >> SparseBoard.TILE_BITS);
+            long column = (tileColumn << SparseBoard.TILE_BITS) + (square & (SparseBoard.TILE_SIZE - 1));
+            graphics.setFill(tile[square] == BoardModel.BLACK ? Color.BLACK : Color.WHITE);
+            graphics.fillOval(xOf(column) + inset, yOf(row) + inset, cellSize - 2 * inset, cellSize - 2 * inset);
+          }
+        }
+      }
+    }
+    /*
+     * marks the last move with a small dot, so it can be found when zoomed out
+     */
+    if(board.getMoveCount() > 0){
+      int last = board.getMoveCount() - 1;
+      double dot = Math.max(2, cellSize / 5);
+      graphics.setFill(LAST_MOVE);
+      graphics.fillOval(xOf(board.getMoveColumn(last)) + (cellSize - dot) / 2, yOf(board.getMoveRow(last)) + (cellSize - dot) / 2, dot, dot);
+    }
+    return (int) ((lastRow - firstRow + 1) * (lastColumn - firstColumn + 1));
+  }
+
+  /*
+   * methods that get the pixel where a column or a row of the board starts in the viewport
+   */
+  private double xOf(long column){
+    return (column - originColumn) * cellSize;
+  }
+
+  private double yOf(long row){
+    return (row - originRow) * cellSize;
+  }
+}
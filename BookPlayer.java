@@ -0,0 +1,98 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * class that represents a computer player that plays from an opening book while the position is in it, and lets another player
+ * choose the move once the game leaves the book
+ * a book move is picked at random with a chance in proportion to its weight, so the computer does not always play the same opening
+ * @author Esther Shin
+ */
+
+public class BookPlayer implements Player{
+  /*
+   * constant MAX_BOOK_MOVES  the most book moves that are looked at in one position
+   */
+  private static final int MAX_BOOK_MOVES = 32;
+
+  /*
+   * field rules  stores the rules the player must follow
+   */
+  private final GomokuRules rules;
+
+  /*
+   * field book  stores the opening book
+   */
+  private final OpeningBook book;
+
+  /*
+   * field fallback  stores the player that chooses the moves that are not in the book
+   */
+  private final Player fallback;
+
+  /*
+   * field random  stores the random number generator the book moves are picked with
+   */
+  private final SplittableRandom random;
+
+  /*
+   * fields that store the book moves of the position being looked at and their weights
+   */
+  private final int[] moves = new int[MAX_BOOK_MOVES];
+  private final int[] weights = new int[MAX_BOOK_MOVES];
+
+  /*
+   * constructor for the BookPlayer class
+   * @param rules  the rules the player must follow
+   * @param book  the opening book
+   * @param fallback  the player that chooses the moves that are not in the book
+   * @param seed  the seed for the random number generator
+   */
+  public BookPlayer(GomokuRules rules, OpeningBook book, Player fallback, long seed){
+    this.rules = rules;
+    this.book = book;
+    this.fallback = fallback;
+    this.random = new SplittableRandom(seed);
+  }
+
+  /*
+   * method that picks a move: a legal book move if the position is in the book, or else the fallback player's move
+   * @param model  the board being played on
+   * @param color  the color of the player to move
+   * @return the index (row * columns + column) of the chosen square, or -1 if there is no legal move
+   */
+  public int chooseMove(BoardModel model, int color){
+    int count = book.lookup(model, color, moves, weights);
+    long total = 0;
+    for(int i = 0; i < count; i = i + 1){
+      int move = moves[i];
+      if(!rules.isLegal(model, move / model.getColumns(), move % model.getColumns(), color)){
+        weights[i] = 0;
+      }
+      total = total + weights[i];
+    }
+    if(total > 0){
+      long pick = random.nextLong(total);
+      for(int i = 0; i < count; i = i + 1){
+        pick = pick - weights[i];
+        if(pick < 0){
+          return moves[i];
+        }
+      }
+    }
+    return fallback.chooseMove(model, color);
+  }
+
+  /*
+   * method that sets a flag another thread can set to make the fallback player stop thinking (a book move needs no thinking)
+   */
+  public void setStopSignal(AtomicBoolean stopSignal){
+    fallback.setStopSignal(stopSignal);
+  }
+
+  /*
+   * method that stops the threads of the player used out of the book
+   */
+  public void shutdown(){
+    fallback.shutdown();
+  }
+}
@@ -0,0 +1,235 @@
+import java.util.Arrays;
+
+/*
+ * class that keeps the squares worth looking at on a board: the empty squares within a distance of any piece (the same square
+ * area around each piece that AlphaBetaPlayer used to collect at every position)
+ * for every square it keeps how many pieces are within the distance, and a bit per square that is set when the square is empty
+ * and that number is not 0, so a move only changes the (2 * distance + 1) squared squares around it and taking a move back undoes
+ * exactly that; going through the candidates skips 64 squares at a time where there are none, so on a big board that is mostly
+ * empty the work depends on how many pieces there are, not on the size of the board
+ * @author Esther Shin
+ */
+
+public class CandidateMoves implements BoardListener{
+  /*
+   * constant PRIORITIES  how many threat priorities there are (see priority)
+   */
+  private static final int PRIORITIES = 2 * PatternEvaluator.FIVE + 2;
+
+  /*
+   * field model  stores the board the candidates are kept for
+   */
+  private final BoardModel model;
+
+  /*
+   * field distance  stores how far (in squares, along rows, columns or diagonals) from a piece a square may be to be a candidate
+   */
+  private final int distance;
+
+  /*
+   * field nearCounts  stores, for every square, how many pieces are within distance of it
+   */
+  private final int[] nearCounts;
+
+  /*
+   * field bits  stores one bit per square, set if the square is a candidate
+   */
+  private final long[] bits;
+
+  /*
+   * field size  stores how many squares are candidates
+   */
+  private int size = 0;
+
+  /*
+   * field bucketStarts  stores where each priority starts in the output of byThreat, kept so it does not make a new array every time
+   */
+  private final int[] bucketStarts = new int[PRIORITIES + 1];
+
+  /*
+   * constructor for the CandidateMoves class; it reads the pieces already on the board, but must be added to the board as a
+   * listener (BoardModel.addListener) to follow the moves after that
+   * @param model  the board to keep the candidates of
+   * @param distance  how far from a piece a square may be to be a candidate (at least 1)
+   */
+  public CandidateMoves(BoardModel model, int distance){
+    if(distance < 1){
+      throw new IllegalArgumentException("distance must be at least 1");
+    }
+    this.model = model;
+    this.distance = distance;
+    nearCounts = new int[model.getRows() * model.getColumns()];
+    bits = new long[(nearCounts.length + 63) >>> 6];
+    rebuild();
+  }
+
+  public int getDistance(){
+    return distance;
+  }
+
+  /*
+   * method that gets how many squares are candidates
+   */
+  public int size(){
+    return size;
+  }
+
+  /*
+   * method that determines whether a square is a candidate
+   * @param index  the square, as row * columns + column
+   */
+  public boolean isCandidate(int index){
+    return (bits[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /*
+   * method that gets the first candidate at or after a square, so the candidates can be gone through in order like:
+   * for(int i = candidates.next(0); i != -1; i = candidates.next(i + 1))
+   * @param from  the square to start at, as row * columns + column
+   * @return the candidate, or -1 if there are no more
+   */
+  public int next(int from){
+    if(from >= nearCounts.length){
+      return -1;
+    }
+    int word = from >>> 6;
+    long rest = bits[word] & (-1L << from);
+    while(rest == 0){
+      word = word + 1;
+      if(word == bits.length){
+        return -1;
+      }
+      rest = bits[word];
+    }
+    return (word << 6) + Long.numberOfTrailingZeros(rest);
+  }
+
+  /*
+   * method that gets a candidate by its place in order of the squares, counting the candidates 64 squares at a time, so a random
+   * candidate can be picked without putting them all in an array
+   * @param n  the place of the candidate (0 is the first, and it must be less than size())
+   * @return the candidate, as row * columns + column
+   */
+  public int nth(int n){
+    int word = 0;
+    int rest = n;
+    while(Long.bitCount(bits[word]) <= rest){
+      rest = rest - Long.bitCount(bits[word]);
+      word = word + 1;
+    }
+    long wordBits = bits[word];
+    for(int i = 0; i < rest; i = i + 1){
+      wordBits = wordBits & (wordBits - 1);
+    }
+    return (word << 6) + Long.numberOfTrailingZeros(wordBits);
+  }
+
+  /*
+   * method that puts every candidate in an array, in order of their squares
+   * @param out  the array to put them in (it must have room for size() squares)
+   * @return the number of candidates
+   */
+  public int fill(int[] out){
+    int count = 0;
+    for(int word = 0; word < bits.length; word = word + 1){
+      long rest = bits[word];
+      while(rest != 0){
+        out[count] = (word << 6) + Long.numberOfTrailingZeros(rest);
+        count = count + 1;
+        rest = rest & (rest - 1);
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that puts every candidate in an array, the biggest threats first: a square that wins for the player to move, then one that
+   * stops the other player winning, then the player's open fours, the other player's open fours, and so on down to squares that make
+   * nothing for either player; squares with the same priority stay in order of their squares
+   * it is a counting sort, so it takes two passes over the candidates however many there are
+   * @param evaluator  the pattern evaluator of the same board, which says what playing each square makes
+   * @param color  the color of the player to move
+   * @param out  the array to put them in (it must have room for size() squares)
+   * @return the number of candidates
+   */
+  public int byThreat(PatternEvaluator evaluator, int color, int[] out){
+    Arrays.fill(bucketStarts, 0);
+    for(int square = next(0); square != -1; square = next(square + 1)){
+      int bucket = PRIORITIES - 1 - priority(evaluator, square, color);
+      bucketStarts[bucket + 1] = bucketStarts[bucket + 1] + 1;
+    }
+    for(int bucket = 1; bucket <= PRIORITIES; bucket = bucket + 1){
+      bucketStarts[bucket] = bucketStarts[bucket] + bucketStarts[bucket - 1];
+    }
+    for(int square = next(0); square != -1; square = next(square + 1)){
+      int bucket = PRIORITIES - 1 - priority(evaluator, square, color);
+      out[bucketStarts[bucket]] = square;
+      bucketStarts[bucket] = bucketStarts[bucket] + 1;
+    }
+    return size;
+  }
+
+  /*
+   * method that gets the threat priority of a square, from 0 to PRIORITIES - 1: what it makes for the player to move ranks just above
+   * the same thing for the other player
+   */
+  private static int priority(PatternEvaluator evaluator, int square, int color){
+    return Math.max(2 * evaluator.cellType(square, color) + 1, 2 * evaluator.cellType(square, 3 - color));
+  }
+
+  public void piecePlaced(int row, int column, int color){
+    change(row, column, 1);
+  }
+
+  public void pieceRemoved(int row, int column, int color){
+    change(row, column, -1);
+  }
+
+  public void boardCleared(){
+    rebuild();
+  }
+
+  /*
+   * method that adds or takes away one piece from the counts of the squares around it, and brings their bits up to date
+   * @param amount  1 if the piece was placed, -1 if it was taken back
+   */
+  private void change(int row, int column, int amount){
+    int columns = model.getColumns();
+    for(int r = Math.max(0, row - distance); r <= Math.min(model.getRows() - 1, row + distance); r = r + 1){
+      for(int c = Math.max(0, column - distance); c <= Math.min(columns - 1, column + distance); c = c + 1){
+        int index = r * columns + c;
+        nearCounts[index] = nearCounts[index] + amount;
+        setBit(index, nearCounts[index] > 0 && model.isEmpty(r, c));
+      }
+    }
+  }
+
+  /*
+   * method that sets or clears the bit of a square, keeping size up to date
+   */
+  private void setBit(int index, boolean candidate){
+    long mask = 1L << index;
+    boolean was = (bits[index >>> 6] & mask) != 0;
+    if(candidate && !was){
+      bits[index >>> 6] = bits[index >>> 6] | mask;
+      size = size + 1;
+    }
+    else if(!candidate && was){
+      bits[index >>> 6] = bits[index >>> 6] & ~mask;
+      size = size - 1;
+    }
+  }
+
+  /*
+   * method that works out every count and bit from the pieces on the board
+   */
+  private void rebuild(){
+    Arrays.fill(nearCounts, 0);
+    Arrays.fill(bits, 0L);
+    size = 0;
+    int columns = model.getColumns();
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      change(model.getMove(i) / columns, model.getMove(i) % columns, 1);
+    }
+  }
+}
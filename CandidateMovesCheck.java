@@ -0,0 +1,194 @@
+import java.util.SplittableRandom;
+
+/*
+ * class that checks CandidateMoves without a window: after random place/undo/clear sequences on boards of many sizes (including
+ * ones whose squares do not fill the last 64-square word) the candidates kept move by move must be exactly the empty squares within
+ * the distance of a piece, found by looking at the board, and every way of going through them must give the same squares
+ * run it with key=value arguments, for example:
+ *   java CandidateMovesCheck games=300 seed=5
+ * it prints a line when it is done and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class CandidateMovesCheck{
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that determines by looking at the board whether a square is empty and within distance of a piece
+   */
+  private static boolean shouldBeCandidate(BoardModel model, int index, int distance){
+    int row = index / model.getColumns();
+    int column = index % model.getColumns();
+    if(!model.isEmpty(row, column)){
+      return false;
+    }
+    for(int r = row - distance; r <= row + distance; r = r + 1){
+      for(int c = column - distance; c <= column + distance; c = c + 1){
+        if(model.isOnBoard(r, c) && !model.isEmpty(r, c)){
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /*
+   * method that compares the candidates with the board and the ways of going through them with each other
+   */
+  private static void compare(BoardModel model, CandidateMoves candidates, PatternEvaluator evaluator, String where){
+    int squares = model.getRows() * model.getColumns();
+    int distance = candidates.getDistance();
+    int[] expected = new int[squares];
+    int count = 0;
+    for(int index = 0; index < squares; index = index + 1){
+      boolean wanted = shouldBeCandidate(model, index, distance);
+      if(wanted != candidates.isCandidate(index)){
+        fail(where + ": square " + index + " is " + (wanted ? "not " : "") + "a candidate");
+        return;
+      }
+      if(wanted){
+        expected[count] = index;
+        count = count + 1;
+      }
+    }
+    if(candidates.size() != count){
+      fail(where + ": size() is " + candidates.size() + ", not " + count);
+      return;
+    }
+    int[] filled = new int[squares];
+    if(candidates.fill(filled) != count){
+      fail(where + ": fill gave a different number of candidates");
+    }
+    int n = 0;
+    for(int index = candidates.next(0); index != -1; index = candidates.next(index + 1)){
+      if(n >= count || index != expected[n] || filled[n] != expected[n] || candidates.nth(n) != expected[n]){
+        fail(where + ": candidate " + n + " is not the same by next, fill and nth");
+        return;
+      }
+      n = n + 1;
+    }
+    if(n != count){
+      fail(where + ": next went through " + n + " candidates, not " + count);
+    }
+    if(new CandidateMoves(model.copy(), distance).size() != count){
+      fail(where + ": candidates made fresh from a copy of the board differ");
+    }
+    /*
+     * byThreat must give the same squares, biggest threats first and in order of their squares within a priority
+     */
+    if(evaluator != null){
+      int color = model.getMoveCount() % 2 + 1;
+      int[] sorted = new int[squares];
+      if(candidates.byThreat(evaluator, color, sorted) != count){
+        fail(where + ": byThreat gave a different number of candidates");
+        return;
+      }
+      boolean[] seen = new boolean[squares];
+      for(int i = 0; i < count; i = i + 1){
+        if(!candidates.isCandidate(sorted[i]) || seen[sorted[i]]){
+          fail(where + ": byThreat gave " + sorted[i] + ", which is not a candidate or came twice");
+          return;
+        }
+        seen[sorted[i]] = true;
+        if(i > 0){
+          int before = priority(evaluator, sorted[i - 1], color);
+          int now = priority(evaluator, sorted[i], color);
+          if(now > before || (now == before && sorted[i] < sorted[i - 1])){
+            fail(where + ": byThreat is out of order at " + i);
+            return;
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   * method that gets the threat priority of a square the way byThreat ranks it: what it makes for the player to move ranks just
+   * above the same thing for the other player
+   */
+  private static int priority(PatternEvaluator evaluator, int square, int color){
+    return Math.max(2 * evaluator.cellType(square, color) + 1, 2 * evaluator.cellType(square, 3 - color));
+  }
+
+  public static void main(String[] args){
+    int games = 300;
+    long seed = 5;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("games")){
+          games = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    long compared = 0;
+    for(int game = 0; game < games; game = game + 1){
+      int rows = 1 + random.nextInt(40);
+      int columns = 1 + random.nextInt(70);
+      int distance = 1 + random.nextInt(3);
+      BoardModel model = new BoardModel(rows, columns);
+      /*
+       * some boards already have pieces on them when the candidates are made
+       */
+      for(int i = random.nextInt(4); i > 0; i = i - 1){
+        int index = random.nextInt(rows * columns);
+        if(model.isEmpty(index / columns, index % columns)){
+          model.place(index / columns, index % columns, i % 2 + 1);
+        }
+      }
+      CandidateMoves candidates = new CandidateMoves(model, distance);
+      model.addListener(candidates);
+      PatternEvaluator evaluator = null;
+      if(random.nextInt(2) == 0){
+        evaluator = new PatternEvaluator(model, 3 + random.nextInt(3));
+        model.addListener(evaluator);
+      }
+      for(int step = 0; step < 400; step = step + 1){
+        int action = random.nextInt(10);
+        if(action < 6){
+          int index = random.nextInt(rows * columns);
+          if(model.isEmpty(index / columns, index % columns)){
+            model.place(index / columns, index % columns, 1 + random.nextInt(2));
+          }
+        }
+        else if(action < 9){
+          model.undo();
+        }
+        else if(random.nextInt(20) == 0){
+          model.clear();
+        }
+        if(step % 7 == 0){
+          compare(model, candidates, evaluator, rows + "x" + columns + " distance " + distance + " game " + game + " step " + step);
+          compared = compared + 1;
+        }
+      }
+    }
+    System.out.println(games + " games, " + compared + " positions compared: " + (failures == 0 ? "ok" : failures + " failures"));
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
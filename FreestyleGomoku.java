@@ -0,0 +1,194 @@
+import javafx.application.Application;
+import javafx.scene.Scene;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.Stage;
+import java.util.Arrays;
+
+/*
+ * class that represents a game of Gomoku on a board that can be huge or have no edges at all (freestyle Gomoku on an "infinite"
+ * board), for two people at one computer
+ * the board is a SparseBoard, so it only uses memory for the parts that have been played on, and it is shown in a BoardViewport
+ * run it like: java FreestyleGomoku --winNumber=5 --rows=0 --columns=0 (0 means no edge, which is the default); --renju=true plays
+ * with the Renju rules
+ * drag with the mouse to move the board and use the mouse wheel to zoom; the arrow keys move it too, + and - zoom, Home goes back
+ * to the last move, and Ctrl+Z and Ctrl+Y take back and play again moves like in Gomoku
+ * @author Esther Shin
+ */
+
+public class FreestyleGomoku extends Application{
+  /*
+   * constant PAN_PIXELS  how many pixels an arrow key moves the board
+   */
+  private static final double PAN_PIXELS = 80;
+
+  /*
+   * field board  stores the pieces played
+   */
+  private SparseBoard board;
+
+  /*
+   * field rules  stores the rules of the game
+   */
+  private GomokuRules rules;
+
+  /*
+   * field viewport  stores the part of the window the board is shown in
+   */
+  private BoardViewport viewport;
+
+  /*
+   * fields for the moves that were taken back, the last one taken back on top, so they can be played again
+   */
+  private int[] redoRows = new int[64];
+  private int[] redoColumns = new int[64];
+  private int redoCount = 0;
+
+  /*
+   * field wonAt  stores how many moves were on the board when the game was won, or -1 if it has not been won
+   */
+  private int wonAt = -1;
+
+  /*
+   * method that builds and shows the window
+   * @param primaryStage  the window
+   */
+  public void start(Stage primaryStage){
+    int winNumber = Integer.parseInt(getParameters().getNamed().getOrDefault("winNumber", "5"));
+    int rows = Integer.parseInt(getParameters().getNamed().getOrDefault("rows", "0"));
+    int columns = Integer.parseInt(getParameters().getNamed().getOrDefault("columns", "0"));
+    board = new SparseBoard(rows, columns);
+    rules = new GomokuRules(winNumber);
+    if(Boolean.parseBoolean(getParameters().getNamed().getOrDefault("renju", "false"))){
+      if(RenjuRules.supports(winNumber)){
+        rules = new RenjuRules(winNumber);
+      }
+      else{
+        System.out.println("Error: Renju rules need a winNumber from 3 to " + RenjuRules.MAX_WIN_NUMBER + ", playing Gomoku");
+      }
+    }
+
+    viewport = new BoardViewport(board, 800, 800);
+    viewport.setClickHandler(this::playMove);
+    viewport.centerOn(rows == 0 ? 0 : rows / 2, columns == 0 ? 0 : columns / 2);
+    Scene scene = new Scene(viewport);
+    scene.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+      if(event.isShortcutDown() && event.getCode() == KeyCode.Z && !event.isShiftDown()){
+        undoMove();
+      }
+      else if(event.isShortcutDown() && (event.getCode() == KeyCode.Y || event.getCode() == KeyCode.Z)){
+        redoMove();
+      }
+      else if(event.getCode() == KeyCode.LEFT){
+        viewport.pan(PAN_PIXELS, 0);
+      }
+      else if(event.getCode() == KeyCode.RIGHT){
+        viewport.pan(-PAN_PIXELS, 0);
+      }
+      else if(event.getCode() == KeyCode.UP){
+        viewport.pan(0, PAN_PIXELS);
+      }
+      else if(event.getCode() == KeyCode.DOWN){
+        viewport.pan(0, -PAN_PIXELS);
+      }
+      else if(event.getCode() == KeyCode.PLUS || event.getCode() == KeyCode.EQUALS || event.getCode() == KeyCode.ADD){
+        viewport.zoom(1.25, viewport.getWidth() / 2, viewport.getHeight() / 2);
+      }
+      else if(event.getCode() == KeyCode.MINUS || event.getCode() == KeyCode.SUBTRACT){
+        viewport.zoom(0.8, viewport.getWidth() / 2, viewport.getHeight() / 2);
+      }
+      else if(event.getCode() == KeyCode.HOME && board.getMoveCount() > 0){
+        viewport.centerOn(board.getMoveRow(board.getMoveCount() - 1), board.getMoveColumn(board.getMoveCount() - 1));
+      }
+      else{
+        return;
+      }
+      event.consume();
+    });
+
+    primaryStage.setScene(scene);
+    primaryStage.setTitle("Gomoku");
+    primaryStage.show();
+  }
+
+  /*
+   * main method: runs the GUI
+   * @param args  the named parameters described above
+   */
+  public static void main(String[] args){
+    Application.launch(args);
+  }
+
+  /*
+   * method that gets the color of the player whose turn it is: black on an empty board, and after that the color that did not make the last move
+   */
+  private int currentColor(){
+    if(board.getMoveCount() == 0){
+      return BoardModel.BLACK;
+    }
+    return 3 - board.colorAt(board.getMoveRow(board.getMoveCount() - 1), board.getMoveColumn(board.getMoveCount() - 1));
+  }
+
+  /*
+   * method that plays a move for the player whose turn it is, if the move follows the rules and the game is not over
+   * @param row  the row of the square to play on
+   * @param column  the column of the square to play on
+   * @return true if the move was played, false if it was not allowed
+   */
+  public boolean playMove(int row, int column){
+    int color = currentColor();
+    if(wonAt != -1 || !board.isLegal(rules, row, column, color)){
+      System.out.println("You cannot make this move");
+      return false;
+    }
+    boolean win = board.isWin(rules, row, column, color);
+    board.place(row, column, color);
+    redoCount = 0;
+    if(win){
+      wonAt = board.getMoveCount();
+      System.out.println(color == BoardModel.BLACK ? "Black is the winner!" : "White is the winner!");
+    }
+    viewport.redraw();
+    return true;
+  }
+
+  /*
+   * method that takes back the last move and puts it on the redo stack
+   */
+  public void undoMove(){
+    if(board.getMoveCount() == 0){
+      return;
+    }
+    int last = board.getMoveCount() - 1;
+    if(redoCount == redoRows.length){
+      redoRows = Arrays.copyOf(redoRows, redoCount * 2);
+      redoColumns = Arrays.copyOf(redoColumns, redoCount * 2);
+    }
+    redoRows[redoCount] = board.getMoveRow(last);
+    redoColumns[redoCount] = board.getMoveColumn(last);
+    redoCount = redoCount + 1;
+    board.undo();
+    if(wonAt > board.getMoveCount()){
+      wonAt = -1;
+    }
+    viewport.redraw();
+  }
+
+  /*
+   * method that plays again the last move that was taken back
+   */
+  public void redoMove(){
+    if(redoCount == 0){
+      return;
+    }
+    redoCount = redoCount - 1;
+    int row = redoRows[redoCount];
+    int column = redoColumns[redoCount];
+    int color = currentColor();
+    if(board.isWin(rules, row, column, color)){
+      wonAt = board.getMoveCount() + 1;
+    }
+    board.place(row, column, color);
+    viewport.redraw();
+  }
+}
@@ -0,0 +1,594 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/*
+ * class that keeps the games of a GameServer on the disk, so they come back after the server stops or crashes: every change to a
+ * game is written to a journal before the client is told about it, and every so often a snapshot of all the games is written so
+ * only the end of the journal has to be read again when the server starts
+ * the journals of all the games are one stream of records, so that one write and one fsync puts the changes of many games on the
+ * disk (a group commit): the records go in a buffer, and a committer thread writes and fsyncs the buffer, waiting commitMillis
+ * first so more records go in each fsync; every record gets the next log sequence number (lsn)
+ * adding a record takes no lock, so the games of a server do not wait for each other to add their moves: a record takes its lsn
+ * with a compare-and-set and is copied into the slot of a ring buffer for that lsn, and the committer takes the records out of
+ * the ring in lsn order as soon as each one is marked as there (a game only waits if the ring is full, or in awaitDurable)
+ * the files are in one directory: journal-N holds the records from lsn N (N is 16 hex digits) until the next journal file, and
+ * snapshot-N holds every game as it was once all the records before lsn N were in it; a snapshot starts a new journal file, and
+ * once it is on the disk the older snapshots and journal files are deleted
+ * a journal record is 32 bytes, all numbers big-endian:
+ *   lsn (8 bytes), game id (8 bytes), type (4 bytes), value (4 bytes: the square of a MOVE, UNDO or REDO as row * columns + column,
+ *   or rows * 65536 + columns for NEW), extra (4 bytes: the winNumber for NEW), CRC-32 of the 28 bytes before it (4 bytes)
+ * a record with the wrong lsn or CRC (the end of a write that was cut short) ends the journal
+ * a snapshot is the letters GMKS, a version (4 bytes, 1), its lsn (8 bytes), the highest game id used so far (8 bytes), then every
+ * game as GameSession.writeTo writes it (starting with a 1 byte) and a 0 byte at the end; it is written to a temporary file and
+ * renamed when it is complete, so there is never a half-written snapshot
+ * each game's snapshot has the lsn of its last record, and while the journal is read again the records of a game up to that lsn
+ * are skipped, so games that changed while the snapshot was being written still come back right
+ * those records may not have reached the journal before a crash, so after recover the lsns go on from past the highest lsn in the
+ * snapshot as well as past the journal; otherwise the lsns would be given out again, and the new records of a game would be
+ * skipped as already in its snapshot the next time
+ * @author Esther Shin
+ */
+
+public class GameJournal implements Closeable{
+  /*
+   * constants for the types of records
+   */
+  public static final int NEW = 1;
+  public static final int MOVE = 2;
+  public static final int UNDO = 3;
+  public static final int REDO = 4;
+  public static final int CLOSE = 5;
+
+  /*
+   * constants for the file layouts
+   */
+  static final int RECORD_SIZE = 32;
+  static final int SNAPSHOT_MAGIC = 0x474D4B53;
+  static final int VERSION = 1;
+
+  /*
+   * constant RING_RECORDS  how many records the ring buffer holds (a power of two)
+   */
+  static final int RING_RECORDS = 1 << 14;
+
+  /*
+   * constant CLOSED  the bit of nextLsn that is set while the journal does not take records
+   */
+  static final long CLOSED = 1L << 62;
+
+  /*
+   * field directory  stores the directory the journal and snapshot files are in
+   */
+  private final Path directory;
+
+  /*
+   * field commitMillis  stores how long the committer waits after the first record of a commit before it writes and fsyncs
+   * (0 means straight away, so only the records that came while the last fsync ran go together)
+   */
+  private final long commitMillis;
+
+  /*
+   * field snapshotRecords  stores how many records are written between snapshots, which is the most records read again on a restart
+   */
+  private final long snapshotRecords;
+
+  /*
+   * field sessions  stores the games of the server, which the snapshots are made of
+   */
+  private Map<Long, GameSession> sessions;
+
+  /*
+   * fields for the journal file being written and how long it is (only the committer thread uses them after recover)
+   */
+  private FileChannel current;
+  private long currentSize = 0;
+
+  /*
+   * fields for the records waiting to be written: ring holds the record of lsn n (without its CRC) in slot n % RING_RECORDS, and
+   * published holds n once that record is all there, which is what lets the committer read it
+   */
+  private final ByteBuffer ring = ByteBuffer.allocate(RING_RECORDS * RECORD_SIZE);
+  private final AtomicLongArray published = new AtomicLongArray(RING_RECORDS);
+
+  /*
+   * field writing  stores the records the committer is writing, with their CRCs (only the committer thread uses it)
+   */
+  private final ByteBuffer writing = ByteBuffer.allocate(RING_RECORDS * RECORD_SIZE);
+
+  /*
+   * field crc  stores the checksum used for the records, by the committer as it takes them out of the ring and while recovering
+   */
+  private final CRC32 crc = new CRC32();
+
+  /*
+   * field nextLsn  stores the lsn the next record gets, with the CLOSED bit set before recover and after close
+   */
+  private final AtomicLong nextLsn = new AtomicLong(CLOSED);
+
+  /*
+   * fields for the lsn the committer takes out of the ring next (the slots before it can be used again), the last lsn that is on
+   * the disk, and the lsn of the last snapshot
+   */
+  private volatile long takenLsn = 0;
+  private volatile long durableLsn = -1;
+  private long snapshotLsn = 0;
+
+  /*
+   * field replayLsn  stores the lsn of the next record while recover reads the journal again
+   */
+  private long replayLsn = 0;
+
+  /*
+   * field maxId  stores the highest game id in a NEW record so far, so a restarted server does not use an id again
+   */
+  private final AtomicLong maxId = new AtomicLong();
+
+  /*
+   * field committerWaiting  stores whether the committer is parked until a record is added (or the journal is closed)
+   */
+  private volatile boolean committerWaiting = false;
+
+  /*
+   * field commits  stores how many fsyncs of the journal there have been, to see how many records go in each
+   */
+  private long commits = 0;
+
+  /*
+   * fields for whether records are taken (from recover until close), whether close is waiting for the committer, and what went
+   * wrong if the committer could not write
+   */
+  private boolean open = false;
+  private volatile boolean closing = false;
+  private volatile IOException failure;
+
+  /*
+   * field committer  stores the thread that writes and fsyncs the records
+   */
+  private Thread committer;
+
+  /*
+   * constructor for the GameJournal class; nothing is read or written until recover is called
+   * @param directory  the directory of the journal and snapshot files (it is made if it is not there)
+   * @param commitMillis  how long to gather records before each fsync
+   * @param snapshotRecords  how many records to write between snapshots
+   */
+  public GameJournal(Path directory, long commitMillis, long snapshotRecords){
+    if(commitMillis < 0 || snapshotRecords < 1){
+      throw new IllegalArgumentException("commitMillis must be at least 0 and snapshotRecords at least 1");
+    }
+    this.directory = directory;
+    this.commitMillis = commitMillis;
+    this.snapshotRecords = snapshotRecords;
+  }
+
+  /*
+   * method that gets the highest game id used so far
+   */
+  public long getMaxId(){
+    return maxId.get();
+  }
+
+  /*
+   * method that gets the lsn of the last record added, or -1 if there is none
+   */
+  public long getLastLsn(){
+    return (nextLsn.get() & ~CLOSED) - 1;
+  }
+
+  /*
+   * method that gets how many fsyncs of the journal there have been
+   */
+  public synchronized long getCommitCount(){
+    return commits;
+  }
+
+  /*
+   * method that puts the games back as they were when the server stopped: the last snapshot is read, then the records after it,
+   * and from then on the journal takes records; the games are put in the map the server keeps them in, which the snapshots are
+   * made of from then on
+   * @param games  the map to put the games in, by id
+   * @throws IOException if the files cannot be read, or they are not a journal
+   */
+  public void recover(Map<Long, GameSession> games) throws IOException{
+    sessions = games;
+    Files.createDirectories(directory);
+    List<Long> snapshots = new ArrayList<Long>();
+    List<Long> journals = new ArrayList<Long>();
+    try(DirectoryStream<Path> files = Files.newDirectoryStream(directory)){
+      for(Path file : files){
+        String name = file.getFileName().toString();
+        if(name.endsWith(".tmp")){
+          Files.delete(file);
+        }
+        else if(name.startsWith("snapshot-")){
+          snapshots.add(Long.parseUnsignedLong(name.substring(9), 16));
+        }
+        else if(name.startsWith("journal-")){
+          journals.add(Long.parseUnsignedLong(name.substring(8), 16));
+        }
+      }
+    }
+    Collections.sort(snapshots);
+    Collections.sort(journals);
+    long start = 0;
+    long snapshotEnd = 0;
+    if(!snapshots.isEmpty()){
+      start = snapshots.get(snapshots.size() - 1);
+      snapshotEnd = readSnapshot(directory.resolve(fileName("snapshot-", start)), start) + 1;
+    }
+    replayLsn = start;
+    for(int i = 0; i < journals.size(); i = i + 1){
+      long first = journals.get(i);
+      /*
+       * the lsns before snapshotEnd that are not in the journal were only ever in the snapshot (the server crashed before writing
+       * them), and the journal started after the last recover goes on from snapshotEnd, so that gap is expected
+       */
+      if(first > Math.max(replayLsn, snapshotEnd)){
+        throw new IOException("The journal is missing the records from " + replayLsn + " to " + first);
+      }
+      replayLsn = Math.max(replayLsn, first);
+      replay(directory.resolve(fileName("journal-", first)), first);
+    }
+    long lsn = Math.max(replayLsn, snapshotEnd);
+    durableLsn = lsn - 1;
+    snapshotLsn = start;
+    takenLsn = lsn;
+    for(int i = 0; i < RING_RECORDS; i = i + 1){
+      published.set(i, -1);
+    }
+    current = FileChannel.open(directory.resolve(fileName("journal-", lsn)), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                               StandardOpenOption.TRUNCATE_EXISTING);
+    syncDirectory();
+    synchronized(this){
+      open = true;
+    }
+    nextLsn.set(lsn);
+    committer = new Thread(this::commitLoop, "gomoku-journal");
+    committer.setDaemon(true);
+    committer.start();
+  }
+
+  /*
+   * method that gets the name of a journal or snapshot file
+   */
+  private static String fileName(String prefix, long lsn){
+    return prefix + String.format("%016x", lsn);
+  }
+
+  /*
+   * method that reads a snapshot into the map of games
+   * @return the highest lsn of a game in the snapshot, or the lsn before the snapshot's if no game has a higher one
+   */
+  private long readSnapshot(Path path, long lsn) throws IOException{
+    try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))){
+      if(in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION || in.readLong() != lsn){
+        throw new IOException(path + " is not a journal snapshot");
+      }
+      maxId.set(in.readLong());
+      long last = lsn - 1;
+      while(in.readByte() == 1){
+        GameSession session = GameSession.readFrom(in, this);
+        sessions.put(session.getId(), session);
+        last = Math.max(last, session.getLastLsn());
+      }
+      return last;
+    }
+  }
+
+  /*
+   * method that does again the records of a journal file from replayLsn on, up to the first record that is not whole or not right
+   * @param path  the file
+   * @param first  the lsn of its first record
+   */
+  private void replay(Path path, long first) throws IOException{
+    byte[] bytes = new byte[RECORD_SIZE];
+    ByteBuffer record = ByteBuffer.wrap(bytes);
+    try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))){
+      for(long lsn = first; true; lsn = lsn + 1){
+        try{
+          in.readFully(bytes);
+        }
+        catch(EOFException e){
+          return;
+        }
+        crc.reset();
+        crc.update(bytes, 0, RECORD_SIZE - 4);
+        if(record.getLong(0) != lsn || record.getInt(RECORD_SIZE - 4) != (int) crc.getValue()){
+          return;
+        }
+        if(lsn >= replayLsn){
+          apply(lsn, record.getLong(8), record.getInt(16), record.getInt(20), record.getInt(24));
+          replayLsn = lsn + 1;
+        }
+      }
+    }
+  }
+
+  /*
+   * method that does again one record, unless the game's snapshot already has it
+   */
+  private void apply(long lsn, long id, int type, int value, int extra){
+    GameSession session = sessions.get(id);
+    if(type == NEW){
+      if(session == null || session.getLastLsn() < lsn){
+        session = new GameSession(id, value >>> 16, value & 0xFFFF, extra, this);
+        session.replay(NEW, 0, lsn);
+        sessions.put(id, session);
+      }
+      maxId.accumulateAndGet(id, Math::max);
+    }
+    else if(session != null && session.getLastLsn() < lsn){
+      if(type == CLOSE){
+        sessions.remove(id);
+      }
+      else{
+        session.replay(type, value, lsn);
+      }
+    }
+  }
+
+  /*
+   * method that adds a record; it is not on the disk until awaitDurable for its lsn returns
+   * @param id  the game
+   * @param type  NEW, MOVE, UNDO, REDO or CLOSE
+   * @param value  the square, or the rows and columns for NEW
+   * @param extra  the winNumber for NEW
+   * @return the lsn of the record, or -1 if the journal is not taking records (before recover or after close)
+   */
+  public long append(long id, int type, int value, int extra){
+    long lsn = nextLsn.get();
+    while((lsn & CLOSED) == 0 && !nextLsn.compareAndSet(lsn, lsn + 1)){
+      lsn = nextLsn.get();
+    }
+    if((lsn & CLOSED) != 0){
+      return -1;
+    }
+    /*
+     * waits while the slot still holds a record the committer has not taken out (only when the disk is far behind)
+     */
+    while(lsn - takenLsn >= RING_RECORDS){
+      if(failure != null){
+        return -1;
+      }
+      LockSupport.parkNanos(10000);
+    }
+    int slot = (int) (lsn & (RING_RECORDS - 1));
+    int at = slot * RECORD_SIZE;
+    ring.putLong(at, lsn).putLong(at + 8, id).putInt(at + 16, type).putInt(at + 20, value).putInt(at + 24, extra);
+    if(type == NEW){
+      maxId.accumulateAndGet(id, Math::max);
+    }
+    published.set(slot, lsn);
+    if(committerWaiting){
+      LockSupport.unpark(committer);
+    }
+    return lsn;
+  }
+
+  /*
+   * method that waits until a record and every record before it are on the disk
+   * @param lsn  the lsn of the record (-1 returns straight away)
+   * @throws IOException if the journal could not be written, or the thread was interrupted while it waited
+   */
+  public void awaitDurable(long lsn) throws IOException{
+    if(durableLsn >= lsn){
+      return;
+    }
+    synchronized(this){
+      while(durableLsn < lsn && failure == null){
+        try{
+          wait();
+        }
+        catch(InterruptedException e){
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for the journal");
+        }
+      }
+    }
+    if(durableLsn < lsn){
+      throw new IOException("The journal cannot be written: " + failure.getMessage(), failure);
+    }
+  }
+
+  /*
+   * method that the committer thread runs: it waits for records, gathers more for commitMillis, writes them all and fsyncs, then tells
+   * the threads waiting for them; after every snapshotRecords records it makes a snapshot; it stops once it is closing and has
+   * written everything
+   */
+  private void commitLoop(){
+    try{
+      long next = takenLsn;
+      while(true){
+        if(!waitForRecord(next)){
+          return;
+        }
+        if(commitMillis > 0 && !closing){
+          Thread.sleep(commitMillis);
+        }
+        /*
+         * takes out every record that is there, in lsn order, up to the first one that is not all there yet
+         */
+        int slot = (int) (next & (RING_RECORDS - 1));
+        while(published.get(slot) == next){
+          ring.get(slot * RECORD_SIZE, writing.array(), writing.position(), RECORD_SIZE - 4);
+          crc.reset();
+          crc.update(writing.array(), writing.position(), RECORD_SIZE - 4);
+          writing.position(writing.position() + RECORD_SIZE - 4);
+          writing.putInt((int) crc.getValue());
+          next = next + 1;
+          slot = (int) (next & (RING_RECORDS - 1));
+        }
+        takenLsn = next;
+        long last = next - 1;
+        boolean snapshotDue = next - snapshotLsn >= snapshotRecords;
+        writing.flip();
+        while(writing.hasRemaining()){
+          currentSize = currentSize + current.write(writing, currentSize);
+        }
+        writing.clear();
+        current.force(false);
+        durableLsn = last;
+        synchronized(this){
+          commits = commits + 1;
+          notifyAll();
+        }
+        if(snapshotDue){
+          snapshot(last + 1);
+        }
+      }
+    }
+    catch(IOException e){
+      synchronized(this){
+        failure = e;
+        notifyAll();
+      }
+    }
+    catch(InterruptedException e){
+      synchronized(this){
+        failure = new InterruptedIOException("The journal committer was interrupted");
+        notifyAll();
+      }
+    }
+  }
+
+  /*
+   * method that parks the committer until the record with an lsn is there
+   * @return true once it is, or false if the journal is closing and every record before that lsn has been taken out
+   */
+  private boolean waitForRecord(long lsn){
+    int slot = (int) (lsn & (RING_RECORDS - 1));
+    while(published.get(slot) != lsn){
+      /*
+       * when closing, nextLsn has the CLOSED bit and no more lsns are given out, so the records before it are all there soon
+       */
+      if(closing && lsn >= (nextLsn.get() & ~CLOSED)){
+        return false;
+      }
+      committerWaiting = true;
+      if(published.get(slot) != lsn && !closing){
+        LockSupport.park(this);
+      }
+      else if(published.get(slot) != lsn){
+        Thread.onSpinWait();
+      }
+      committerWaiting = false;
+    }
+    return true;
+  }
+
+  /*
+   * method that makes a snapshot of every game, once every record before lsn start is on the disk and the records from start on
+   * have not been written yet; it starts a new journal file at start, and deletes the files the snapshot makes unneeded
+   * the games keep changing while it runs: each one is locked only while it is written, and one closed after the records before
+   * start is left out even if it was not taken out of the map yet
+   */
+  private void snapshot(long start) throws IOException{
+    FileChannel old = current;
+    current = FileChannel.open(directory.resolve(fileName("journal-", start)), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                               StandardOpenOption.TRUNCATE_EXISTING);
+    currentSize = 0;
+    old.close();
+    Path temporary = directory.resolve(fileName("snapshot-", start) + ".tmp");
+    try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))){
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(start);
+      out.writeLong(getMaxId());
+      for(GameSession session : sessions.values()){
+        session.writeTo(out);
+      }
+      out.writeByte(0);
+    }
+    try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)){
+      channel.force(true);
+    }
+    Files.move(temporary, directory.resolve(fileName("snapshot-", start)), StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();
+    synchronized(this){
+      snapshotLsn = start;
+    }
+    try(DirectoryStream<Path> files = Files.newDirectoryStream(directory)){
+      for(Path file : files){
+        String name = file.getFileName().toString();
+        if((name.startsWith("snapshot-") && Long.parseUnsignedLong(name.substring(9), 16) < start)
+             || (name.startsWith("journal-") && Long.parseUnsignedLong(name.substring(8), 16) < start)){
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  /*
+   * method that makes sure the files made or renamed in the directory stay there after a crash, on systems where a directory
+   * can be opened and fsynced (on the others the rename is still all or nothing)
+   */
+  private void syncDirectory(){
+    try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)){
+      channel.force(true);
+    }
+    catch(IOException e){
+      /*
+       * this system cannot fsync a directory
+       */
+    }
+  }
+
+  /*
+   * method that stops taking records, waits for the committer to write the ones it has, and makes a last snapshot, so the next
+   * recover has no records to read again
+   * @throws IOException if the journal could not be written
+   */
+  public void close() throws IOException{
+    synchronized(this){
+      if(!open){
+        return;
+      }
+      open = false;
+      nextLsn.getAndUpdate(lsn -> lsn | CLOSED);
+      closing = true;
+    }
+    LockSupport.unpark(committer);
+    boolean interrupted = false;
+    while(committer.isAlive()){
+      try{
+        committer.join();
+      }
+      catch(InterruptedException e){
+        interrupted = true;
+      }
+    }
+    if(interrupted){
+      Thread.currentThread().interrupt();
+    }
+    try{
+      if(failure != null){
+        throw new IOException("The journal cannot be written: " + failure.getMessage(), failure);
+      }
+      snapshot(getLastLsn() + 1);
+    }
+    finally{
+      current.close();
+    }
+  }
+}
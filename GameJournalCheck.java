@@ -0,0 +1,378 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/*
+ * class that checks GameJournal without a server: random games are made, played, taken back and closed through GameSession, as a
+ * GameServer does, and the games a journal recovers must be the games as they were
+ * a copy of the files taken once every record is on the disk stands for a crash (with half a record at the end of the journal, as
+ * if a write was cut short); a snapshot is made to look like one written just before a crash, with records in it that never reached
+ * the journal, and the lsns after recover must go on past it so that a move made then is not lost the next time; and several
+ * threads change their games at once while snapshots are made, waiting for each change to be on the disk as the server does
+ * run it with key=value arguments, for example:
+ *   java GameJournalCheck changes=3000 threads=4 seed=25
+ * it prints a line for each part and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class GameJournalCheck{
+  /*
+   * constant NO_SNAPSHOTS  a number of records between snapshots that is never reached, so the files only change when records come
+   */
+  private static final long NO_SNAPSHOTS = Long.MAX_VALUE / 2;
+
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static synchronized void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that makes random changes to games the way a server does: a game is put in the map before it is written as made, and
+   * taken out of the map before it is written as closed
+   * @param mine  the games these changes may touch
+   * @param durable  whether to wait for each change to be on the disk
+   */
+  private static void randomChanges(Map<Long, GameSession> games, List<GameSession> mine, GameJournal journal, SplittableRandom random,
+                                    AtomicLong nextId, int changes, boolean durable) throws IOException{
+    for(int change = 0; change < changes; change = change + 1){
+      int action = random.nextInt(40);
+      GameSession session;
+      if(mine.isEmpty() || action == 0){
+        int size = 7 + random.nextInt(4);
+        session = new GameSession(nextId.getAndIncrement(), size, size, 4 + random.nextInt(2), journal);
+        games.put(session.getId(), session);
+        session.created();
+        mine.add(session);
+      }
+      else{
+        int at = random.nextInt(mine.size());
+        session = mine.get(at);
+        if(action == 1){
+          games.remove(session.getId());
+          session.closed();
+          mine.set(at, mine.get(mine.size() - 1));
+          mine.remove(mine.size() - 1);
+        }
+        else if(action < 30){
+          session.play(random.nextInt(session.getRows()), random.nextInt(session.getColumns()));
+        }
+        else if(action < 36){
+          session.undo();
+        }
+        else{
+          session.redo();
+        }
+      }
+      if(durable){
+        journal.awaitDurable(session.getLastLsn());
+      }
+    }
+  }
+
+  /*
+   * method that describes every game in a map, by id
+   */
+  private static Map<Long, String> describeAll(Map<Long, GameSession> games){
+    Map<Long, String> described = new TreeMap<Long, String>();
+    for(GameSession session : games.values()){
+      described.put(session.getId(), session.describe());
+    }
+    return described;
+  }
+
+  /*
+   * method that compares recovered games with the games as they were
+   */
+  private static void compare(Map<Long, String> expected, Map<Long, GameSession> recovered, String where){
+    if(recovered.size() != expected.size()){
+      fail(where + ": " + recovered.size() + " games came back, not " + expected.size());
+    }
+    for(Map.Entry<Long, String> entry : expected.entrySet()){
+      GameSession session = recovered.get(entry.getKey());
+      if(session == null){
+        fail(where + ": game " + entry.getKey() + " did not come back");
+      }
+      else if(!session.describe().equals(entry.getValue())){
+        fail(where + ": game " + entry.getKey() + " came back as " + session.describe() + ", not " + entry.getValue());
+      }
+    }
+  }
+
+  /*
+   * method that gets the directory of a journal as a crash would leave it: a copy of its files
+   */
+  private static Path crashImage(Path directory) throws IOException{
+    Path image = Files.createTempDirectory("journal-crash");
+    try(Stream<Path> files = Files.list(directory)){
+      for(Path file : (Iterable<Path>) files::iterator){
+        Files.copy(file, image.resolve(file.getFileName()));
+      }
+    }
+    return image;
+  }
+
+  /*
+   * method that deletes a directory of journal files
+   */
+  private static void delete(Path directory) throws IOException{
+    if(directory == null || !Files.exists(directory)){
+      return;
+    }
+    try(Stream<Path> files = Files.list(directory)){
+      for(Path file : (Iterable<Path>) files::iterator){
+        Files.deleteIfExists(file);
+      }
+    }
+    Files.deleteIfExists(directory);
+  }
+
+  /*
+   * method that gets the file of the last journal or snapshot in a directory
+   */
+  private static Path last(Path directory, String prefix) throws IOException{
+    Path found = null;
+    try(Stream<Path> files = Files.list(directory)){
+      for(Path file : (Iterable<Path>) files::iterator){
+        String name = file.getFileName().toString();
+        if(name.startsWith(prefix) && !name.endsWith(".tmp") && (found == null || name.compareTo(found.getFileName().toString()) > 0)){
+          found = file;
+        }
+      }
+    }
+    return found;
+  }
+
+  /*
+   * method that checks recovering from copies of the files taken after a crash, with half a record at the end of the journal, and
+   * going on from there; then a clean close and recovering from its snapshot
+   */
+  private static void checkCrash(SplittableRandom random, int changes) throws IOException{
+    Path directory = Files.createTempDirectory("journal");
+    Path image = null;
+    Path secondImage = null;
+    try{
+      AtomicLong nextId = new AtomicLong(1);
+      GameJournal journal = new GameJournal(directory, 0, NO_SNAPSHOTS);
+      Map<Long, GameSession> games = new ConcurrentHashMap<Long, GameSession>();
+      journal.recover(games);
+      randomChanges(games, new ArrayList<GameSession>(), journal, random, nextId, changes, false);
+      long lastLsn = journal.getLastLsn();
+      journal.awaitDurable(lastLsn);
+      Map<Long, String> expected = describeAll(games);
+      image = crashImage(directory);
+      journal.close();
+      /*
+       * half a record at the end of the journal, with the lsn that comes next, is a write cut short by the crash
+       */
+      try(FileChannel channel = FileChannel.open(last(image, "journal-"), StandardOpenOption.WRITE, StandardOpenOption.APPEND)){
+        channel.write(ByteBuffer.allocate(GameJournal.RECORD_SIZE / 2).putLong(0, lastLsn + 1));
+      }
+      journal = new GameJournal(image, 0, NO_SNAPSHOTS);
+      Map<Long, GameSession> recovered = new ConcurrentHashMap<Long, GameSession>();
+      journal.recover(recovered);
+      compare(expected, recovered, "after a crash");
+      if(journal.getLastLsn() != lastLsn || journal.getMaxId() != nextId.get() - 1){
+        fail("after a crash the last lsn is " + journal.getLastLsn() + " and the highest id " + journal.getMaxId() + ", not " + lastLsn
+             + " and " + (nextId.get() - 1));
+      }
+      /*
+       * the recovered games go on, and come back again after a second crash, past the half record in the old journal file
+       */
+      randomChanges(recovered, new ArrayList<GameSession>(recovered.values()), journal, random, nextId, changes / 2, false);
+      journal.awaitDurable(journal.getLastLsn());
+      expected = describeAll(recovered);
+      secondImage = crashImage(image);
+      journal.close();
+      journal = new GameJournal(secondImage, 0, NO_SNAPSHOTS);
+      Map<Long, GameSession> again = new ConcurrentHashMap<Long, GameSession>();
+      journal.recover(again);
+      compare(expected, again, "after a second crash");
+      journal.close();
+      /*
+       * close made a snapshot, so the next recover reads no records
+       */
+      journal = new GameJournal(secondImage, 0, NO_SNAPSHOTS);
+      Map<Long, GameSession> closed = new ConcurrentHashMap<Long, GameSession>();
+      journal.recover(closed);
+      compare(expected, closed, "after a clean close");
+      journal.close();
+    }
+    finally{
+      delete(directory);
+      delete(image);
+      delete(secondImage);
+    }
+  }
+
+  /*
+   * method that checks the lsns after recovering from a snapshot that has records the journal does not: close writes snapshot-S, and
+   * it is renamed snapshot-(S - 2) with a journal-(S - 2) that is empty, as if the server crashed once the snapshot was on the disk
+   * but before the last two records (a new game and its first move) were; a move played after recover must come back the next time
+   */
+  private static void checkSnapshotAhead(SplittableRandom random, int changes) throws IOException{
+    Path directory = Files.createTempDirectory("journal");
+    Path image = null;
+    try{
+      AtomicLong nextId = new AtomicLong(1);
+      GameJournal journal = new GameJournal(directory, 0, NO_SNAPSHOTS);
+      Map<Long, GameSession> games = new ConcurrentHashMap<Long, GameSession>();
+      journal.recover(games);
+      randomChanges(games, new ArrayList<GameSession>(), journal, random, nextId, changes, false);
+      GameSession session = new GameSession(nextId.getAndIncrement(), 9, 9, 5, journal);
+      games.put(session.getId(), session);
+      session.created();
+      session.play(4, 4);
+      long start = journal.getLastLsn() + 1;
+      journal.close();
+      Map<Long, String> expected = describeAll(games);
+      long moved = start - 2;
+      Files.move(directory.resolve(String.format("snapshot-%016x", start)), directory.resolve(String.format("snapshot-%016x", moved)));
+      try(FileChannel channel = FileChannel.open(directory.resolve(String.format("snapshot-%016x", moved)), StandardOpenOption.WRITE)){
+        channel.write(ByteBuffer.allocate(8).putLong(0, moved), 8);
+      }
+      Files.delete(directory.resolve(String.format("journal-%016x", start)));
+      Files.createFile(directory.resolve(String.format("journal-%016x", moved)));
+      journal = new GameJournal(directory, 0, NO_SNAPSHOTS);
+      Map<Long, GameSession> recovered = new ConcurrentHashMap<Long, GameSession>();
+      journal.recover(recovered);
+      compare(expected, recovered, "from a snapshot ahead of the journal");
+      if(journal.getLastLsn() + 1 < start){
+        fail("after recovering from a snapshot ahead of the journal the next lsn is " + (journal.getLastLsn() + 1) + ", not past "
+             + (start - 1));
+      }
+      session = recovered.get(session.getId());
+      if(session != null){
+        session.play(4, 5);
+        journal.awaitDurable(session.getLastLsn());
+        expected = describeAll(recovered);
+        image = crashImage(directory);
+        journal.close();
+        journal = new GameJournal(image, 0, NO_SNAPSHOTS);
+        Map<Long, GameSession> again = new ConcurrentHashMap<Long, GameSession>();
+        journal.recover(again);
+        compare(expected, again, "after a move played on a game from a snapshot ahead of the journal");
+        journal.close();
+      }
+    }
+    finally{
+      delete(directory);
+      delete(image);
+    }
+  }
+
+  /*
+   * method that checks threads changing their own games at once, each change waited for, while snapshots are made every
+   * snapshotRecords records, then a clean close and recover
+   */
+  private static void checkThreads(long seed, int changes, int threads, long commitMillis, long snapshotRecords) throws IOException{
+    Path directory = Files.createTempDirectory("journal");
+    try{
+      GameJournal journal = new GameJournal(directory, commitMillis, snapshotRecords);
+      Map<Long, GameSession> games = new ConcurrentHashMap<Long, GameSession>();
+      journal.recover(games);
+      AtomicLong nextId = new AtomicLong(1);
+      SplittableRandom random = new SplittableRandom(seed);
+      Thread[] workers = new Thread[threads];
+      for(int i = 0; i < threads; i = i + 1){
+        SplittableRandom own = random.split();
+        workers[i] = new Thread(() -> {
+          try{
+            randomChanges(games, new ArrayList<GameSession>(), journal, own, nextId, changes / threads, true);
+          }
+          catch(IOException e){
+            fail("commitMillis " + commitMillis + ": " + e.getMessage());
+          }
+        });
+        workers[i].start();
+      }
+      for(Thread worker : workers){
+        try{
+          worker.join();
+        }
+        catch(InterruptedException e){
+          Thread.currentThread().interrupt();
+          fail("interrupted while the threads changed their games");
+        }
+      }
+      long records = journal.getLastLsn() + 1;
+      long commits = journal.getCommitCount();
+      journal.close();
+      Map<Long, String> expected = describeAll(games);
+      GameJournal reopened = new GameJournal(directory, commitMillis, snapshotRecords);
+      Map<Long, GameSession> recovered = new ConcurrentHashMap<Long, GameSession>();
+      reopened.recover(recovered);
+      compare(expected, recovered, threads + " threads with commitMillis " + commitMillis);
+      if(reopened.getMaxId() != nextId.get() - 1){
+        fail(threads + " threads with commitMillis " + commitMillis + ": the highest id is " + reopened.getMaxId() + ", not " + (nextId.get() - 1));
+      }
+      reopened.close();
+      System.out.println("  commitMillis " + commitMillis + ": " + records + " records in " + commits + " fsyncs, " + expected.size() + " games open");
+    }
+    finally{
+      delete(directory);
+    }
+  }
+
+  public static void main(String[] args) throws IOException{
+    int changes = 3000;
+    int threads = 4;
+    long seed = 25;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("changes")){
+          changes = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("threads")){
+          threads = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    checkCrash(random, changes);
+    System.out.println("crash with a cut-off record, a second crash and a clean close: " + (failures == 0 ? "ok" : failures + " failures"));
+    int before = failures;
+    checkSnapshotAhead(random, changes);
+    System.out.println("lsns after a snapshot ahead of the journal: " + (failures == before ? "ok" : (failures - before) + " failures"));
+    before = failures;
+    System.out.println(threads + " threads with snapshots:");
+    checkThreads(random.nextLong(), changes, threads, 0, 200);
+    checkThreads(random.nextLong(), changes, threads, 2, 200);
+    System.out.println(threads + " threads with snapshots: " + (failures == before ? "ok" : (failures - before) + " failures"));
+    System.out.println(failures == 0 ? "ok" : "FAIL: " + failures + " failures");
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,655 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/*
+ * class that reads games written in a text notation, one game at a time, from a stream of any size
+ * it works like a cursor: next() reads the next game straight onto a BoardModel that is reused from game to game, and the text
+ * is parsed a character at a time out of one buffer, so no objects are made per move and a whole collection is read in constant memory
+ * three notations are understood:
+ *   SGF    Smart Game Format (GM[4]), for example (;GM[4]SZ[15];B[hh];W[ih]); only the main line of a game with variations is read
+ *   PSQ    the Piskvork format: a "Piskvorky 20x20, ..." line, then one "x,y,time" line per move (1 based), ended by any other line
+ *   RENJU  one game per line as a list of moves like "h8 i9 j10", the column as a letter and the row counted up from the bottom
+ *          (it does not give the board size, so it is read onto the default board, which must be the size it was written from)
+ * isAlternating() tells whether a game is only moves, black first and the players taking turns; SGF setup stones (AB and AW)
+ * and a player moving twice in a row are read as they are, with their colors, but make it false
+ * @author Esther Shin
+ */
+
+public class GameNotationReader{
+  /*
+   * constants for the notations
+   */
+  public static final int SGF = 0;
+  public static final int PSQ = 1;
+  public static final int RENJU = 2;
+
+  /*
+   * constant PSQ_HEADER  the word every PSQ game starts with
+   */
+  private static final String PSQ_HEADER = "Piskvorky";
+
+  /*
+   * field in  stores the text being read
+   */
+  private final Reader in;
+
+  /*
+   * field format  stores which notation the text is in
+   */
+  private final int format;
+
+  /*
+   * fields for the size of the board for games that do not give one (RENJU games, and SGF games with no SZ)
+   */
+  private final int defaultRows;
+  private final int defaultColumns;
+
+  /*
+   * fields for the part of the text that has been read but not parsed yet
+   */
+  private final char[] buffer = new char[8192];
+  private int position;
+  private int limit;
+
+  /*
+   * field line  stores the line being parsed, for error messages
+   */
+  private int line = 1;
+
+  /*
+   * field value  stores the text of the SGF property value being parsed (values that do not fit are cut off)
+   */
+  private final char[] value = new char[32];
+  private int valueLength;
+
+  /*
+   * field model  stores the board the current game was read onto, or null before the first next()
+   */
+  private BoardModel model;
+
+  /*
+   * field result  stores the result of the current game
+   */
+  private int result;
+
+  /*
+   * field alternating  stores whether the current game so far is only moves, black first and the players taking turns
+   */
+  private boolean alternating;
+
+  /*
+   * constructor for the GameNotationReader class
+   * @param in  the text to read
+   * @param format  SGF, PSQ or RENJU
+   * @param defaultSize  the number of rows and columns of the board for games that do not give one
+   */
+  public GameNotationReader(Reader in, int format, int defaultSize){
+    this(in, format, defaultSize, defaultSize);
+  }
+
+  /*
+   * constructor for the GameNotationReader class
+   * @param in  the text to read
+   * @param format  SGF, PSQ or RENJU
+   * @param defaultRows  the number of rows of the board for games that do not give a size
+   * @param defaultColumns  the number of columns of the board for games that do not give a size
+   */
+  public GameNotationReader(Reader in, int format, int defaultRows, int defaultColumns){
+    if(format < SGF || format > RENJU){
+      throw new IllegalArgumentException("Invalid format: " + format);
+    }
+    this.in = in;
+    this.format = format;
+    this.defaultRows = defaultRows;
+    this.defaultColumns = defaultColumns;
+  }
+
+  /*
+   * constructor for the GameNotationReader class, for games on a 15x15 board when they do not give a size
+   * @param in  the text to read
+   * @param format  SGF, PSQ or RENJU
+   */
+  public GameNotationReader(Reader in, int format){
+    this(in, format, 15);
+  }
+
+  /*
+   * method that picks the notation of a file from the end of its name (.sgf, .psq, anything else is RENJU)
+   * @param fileName  the name of the file
+   * @return SGF, PSQ or RENJU
+   */
+  public static int formatOf(String fileName){
+    String lower = fileName.toLowerCase();
+    if(lower.endsWith(".sgf")){
+      return SGF;
+    }
+    else if(lower.endsWith(".psq")){
+      return PSQ;
+    }
+    return RENJU;
+  }
+
+  /*
+   * method that reads the next game
+   * @return true if there is a next game, false at the end of the text
+   * @throws IOException if the text cannot be read, or the game is not written correctly (the error gives the line)
+   */
+  public boolean next() throws IOException{
+    if(format == SGF){
+      return nextSgf();
+    }
+    else if(format == PSQ){
+      return nextPsq();
+    }
+    return nextRenju();
+  }
+
+  /*
+   * method that gets the board with the current game on it; the same board is used again for the next game if it has the same size
+   */
+  public BoardModel getModel(){
+    return model;
+  }
+
+  /*
+   * method that gets the result of the current game: GameRecordWriter.UNFINISHED if it is not given, GameRecordWriter.DRAW, or
+   * BoardModel.BLACK or BoardModel.WHITE for the winner (only SGF games give a result)
+   */
+  public int getResult(){
+    return result;
+  }
+
+  /*
+   * method that tells whether the current game is only moves, black first and the players taking turns, so that it can be played
+   * by the rules or stored where the colors are not kept
+   * @return false if it has SGF setup stones (AB or AW) or a player moves twice in a row
+   */
+  public boolean isAlternating(){
+    return alternating;
+  }
+
+  /*
+   * method that gets the next character without using it up
+   * @return the character, or -1 at the end of the text
+   */
+  private int peek() throws IOException{
+    if(position == limit){
+      limit = in.read(buffer, 0, buffer.length);
+      position = 0;
+      if(limit <= 0){
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[position];
+  }
+
+  /*
+   * method that gets the next character and uses it up
+   * @return the character, or -1 at the end of the text
+   */
+  private int read() throws IOException{
+    int c = peek();
+    if(c != -1){
+      position = position + 1;
+      if(c == '\n'){
+        line = line + 1;
+      }
+    }
+    return c;
+  }
+
+  /*
+   * method that gets an empty board for a new game, reusing the last one if it is the same size
+   */
+  private void startGame(int rows, int columns) throws IOException{
+    if(rows < 1 || columns < 1){
+      throw new IOException("Line " + line + ": invalid board size " + rows + "x" + columns);
+    }
+    if(model == null || model.getRows() != rows || model.getColumns() != columns){
+      model = new BoardModel(rows, columns);
+    }
+    else{
+      model.clear();
+    }
+    result = GameRecordWriter.UNFINISHED;
+    alternating = true;
+  }
+
+  /*
+   * method that places a piece of the current game
+   */
+  private void play(int row, int column, int color) throws IOException{
+    if(!model.isOnBoard(row, column) || !model.isEmpty(row, column)){
+      throw new IOException("Line " + line + ": (" + row + ", " + column + ") is not an empty square on the board");
+    }
+    if(color != (model.getMoveCount() % 2 == 0 ? BoardModel.BLACK : BoardModel.WHITE)){
+      alternating = false;
+    }
+    model.place(row, column, color);
+  }
+
+  /*
+   * method that reads a number of digits that may come next
+   * @return the number, or -1 if the next character is not a digit
+   */
+  private int readNumber() throws IOException{
+    int c = peek();
+    if(c < '0' || c > '9'){
+      return -1;
+    }
+    int number = 0;
+    while(c >= '0' && c <= '9'){
+      number = number * 10 + (c - '0');
+      read();
+      c = peek();
+    }
+    return number;
+  }
+
+  /*
+   * method that uses up the rest of the line, including the end of the line
+   */
+  private void skipLine() throws IOException{
+    int c = read();
+    while(c != -1 && c != '\n'){
+      c = read();
+    }
+  }
+
+  /*
+   * method that uses up spaces and tabs (not the end of the line)
+   */
+  private void skipSpaces() throws IOException{
+    int c = peek();
+    while(c == ' ' || c == '\t' || c == '\r'){
+      read();
+      c = peek();
+    }
+  }
+
+  /*
+   * method that reads the next SGF game (everything from a '(' to the ')' that matches it)
+   */
+  private boolean nextSgf() throws IOException{
+    int c = read();
+    while(c != -1 && c != '('){
+      c = read();
+    }
+    if(c == -1){
+      return false;
+    }
+    boolean started = false;
+    int rows = defaultRows;
+    int columns = defaultColumns;
+    int gameResult = GameRecordWriter.UNFINISHED;
+    /*
+     * depth is how many '(' are open; mainDepth is the depth of the variation being followed, which is always the first one,
+     * and once it is closed (mainEnded) the rest of the game is only skipped
+     */
+    int depth = 1;
+    int mainDepth = 1;
+    boolean mainEnded = false;
+    while(depth > 0){
+      c = read();
+      if(c == -1){
+        throw new IOException("Line " + line + ": the game is not closed with ')'");
+      }
+      else if(c == '('){
+        if(!mainEnded && depth == mainDepth){
+          mainDepth = mainDepth + 1;
+        }
+        depth = depth + 1;
+      }
+      else if(c == ')'){
+        if(depth == mainDepth){
+          mainEnded = true;
+        }
+        depth = depth - 1;
+      }
+      else if(c == '['){
+        skipValue();
+      }
+      else if(c >= 'A' && c <= 'Z'){
+        /*
+         * a property: its name (only the capital letters count, so old names like AddBlack still work), then its values
+         */
+        int name = c;
+        c = peek();
+        while((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')){
+          if(c <= 'Z'){
+            name = (name << 8) | c;
+          }
+          read();
+          c = peek();
+        }
+        boolean follow = !mainEnded && depth == mainDepth;
+        c = skipWhitespace();
+        while(c == '['){
+          read();
+          if(!follow){
+            skipValue();
+          }
+          else if(name == 'B' || name == 'W' || name == (('A' << 8) | 'B') || name == (('A' << 8) | 'W')){
+            if(!started){
+              startGame(rows, columns);
+              started = true;
+            }
+            readValue();
+            if(name != 'B' && name != 'W' && valueLength > 0){
+              alternating = false;
+            }
+            playSgfPoints(name == 'B' || name == (('A' << 8) | 'B') ? BoardModel.BLACK : BoardModel.WHITE);
+          }
+          else if(name == (('S' << 8) | 'Z')){
+            readValue();
+            int colon = 0;
+            while(colon < valueLength && value[colon] != ':'){
+              colon = colon + 1;
+            }
+            columns = parseValueNumber(0, colon);
+            rows = colon < valueLength ? parseValueNumber(colon + 1, valueLength) : columns;
+            if(started && (model.getRows() != rows || model.getColumns() != columns)){
+              throw new IOException("Line " + line + ": SZ comes after the first move");
+            }
+          }
+          else if(name == (('R' << 8) | 'E')){
+            readValue();
+            gameResult = resultOf();
+          }
+          else{
+            skipValue();
+          }
+          c = skipWhitespace();
+        }
+      }
+    }
+    if(!started){
+      startGame(rows, columns);
+    }
+    result = gameResult;
+    return true;
+  }
+
+  /*
+   * method that uses up whitespace
+   * @return the next character, which is not used up
+   */
+  private int skipWhitespace() throws IOException{
+    int c = peek();
+    while(c == ' ' || c == '\t' || c == '\r' || c == '\n'){
+      read();
+      c = peek();
+    }
+    return c;
+  }
+
+  /*
+   * method that uses up the rest of an SGF value, up to and including its ']'
+   */
+  private void skipValue() throws IOException{
+    int c = read();
+    while(c != ']'){
+      if(c == -1){
+        throw new IOException("Line " + line + ": a value is not closed with ']'");
+      }
+      if(c == '\\'){
+        read();
+      }
+      c = read();
+    }
+  }
+
+  /*
+   * method that reads the rest of an SGF value, up to and including its ']', into value
+   */
+  private void readValue() throws IOException{
+    valueLength = 0;
+    int c = read();
+    while(c != ']'){
+      if(c == -1){
+        throw new IOException("Line " + line + ": a value is not closed with ']'");
+      }
+      if(c == '\\'){
+        c = read();
+      }
+      if(valueLength < value.length && c != ' ' && c != '\n' && c != '\r' && c != '\t'){
+        value[valueLength] = (char) c;
+        valueLength = valueLength + 1;
+      }
+      c = read();
+    }
+  }
+
+  /*
+   * method that gets the game result written in value by an RE property: B+... or W+... for a win, 0 or Draw for a draw, and
+   * anything else (Void, ?, nothing) for a game without a result
+   */
+  private int resultOf(){
+    if(valueLength == 0){
+      return GameRecordWriter.UNFINISHED;
+    }
+    else if(value[0] == 'B'){
+      return BoardModel.BLACK;
+    }
+    else if(value[0] == 'W'){
+      return BoardModel.WHITE;
+    }
+    else if(value[0] == '0' || value[0] == 'D'){
+      return GameRecordWriter.DRAW;
+    }
+    return GameRecordWriter.UNFINISHED;
+  }
+
+  /*
+   * method that gets the number written in part of value
+   */
+  private int parseValueNumber(int from, int to) throws IOException{
+    int number = 0;
+    for(int i = from; i < to; i = i + 1){
+      if(value[i] < '0' || value[i] > '9'){
+        throw new IOException("Line " + line + ": " + new String(value, 0, valueLength) + " is not a board size");
+      }
+      number = number * 10 + (value[i] - '0');
+    }
+    return number;
+  }
+
+  /*
+   * method that gets the number an SGF coordinate letter stands for (a to z are 0 to 25, A to Z are 26 to 51)
+   * @return the number, or -1 if it is not a letter
+   */
+  private static int sgfCoordinate(char letter){
+    if(letter >= 'a' && letter <= 'z'){
+      return letter - 'a';
+    }
+    else if(letter >= 'A' && letter <= 'Z'){
+      return letter - 'A' + 26;
+    }
+    return -1;
+  }
+
+  /*
+   * method that places the pieces in value, which is either one point ("hh") or a rectangle of points ("aa:cc");
+   * an empty value, or the point "tt" on a board that does not have it, is a pass and places nothing
+   */
+  private void playSgfPoints(int color) throws IOException{
+    if(valueLength == 0){
+      return;
+    }
+    if(valueLength != 2 && valueLength != 5){
+      throw new IOException("Line " + line + ": " + new String(value, 0, valueLength) + " is not a point");
+    }
+    int column = sgfCoordinate(value[0]);
+    int row = sgfCoordinate(value[1]);
+    if(valueLength == 2 && value[0] == 't' && value[1] == 't' && !model.isOnBoard(row, column)){
+      return;
+    }
+    int lastColumn = column;
+    int lastRow = row;
+    if(valueLength == 5){
+      lastColumn = sgfCoordinate(value[3]);
+      lastRow = sgfCoordinate(value[4]);
+    }
+    for(int r = Math.min(row, lastRow); r <= Math.max(row, lastRow); r = r + 1){
+      for(int col = Math.min(column, lastColumn); col <= Math.max(column, lastColumn); col = col + 1){
+        play(r, col, color);
+      }
+    }
+  }
+
+  /*
+   * method that reads the next PSQ game: the lines before its "Piskvorky" line are skipped, and it ends at the first line that is not a move
+   */
+  private boolean nextPsq() throws IOException{
+    while(true){
+      skipWhitespace();
+      if(peek() == -1){
+        return false;
+      }
+      if(matchPsqHeader()){
+        break;
+      }
+      skipLine();
+    }
+    /*
+     * the header goes on like " 20x20, 11:11, 0": the width and height are the first two numbers
+     */
+    int c = peek();
+    while(c != -1 && c != '\n' && (c < '0' || c > '9')){
+      read();
+      c = peek();
+    }
+    int columns = readNumber();
+    if(peek() == 'x' || peek() == 'X'){
+      read();
+    }
+    int rows = readNumber();
+    if(columns == -1 || rows == -1){
+      throw new IOException("Line " + line + ": the Piskvorky line has no board size");
+    }
+    skipLine();
+    startGame(rows, columns);
+    int color = BoardModel.BLACK;
+    while(true){
+      skipSpaces();
+      int x = readNumber();
+      if(x == -1){
+        break;
+      }
+      skipSpaces();
+      if(read() != ','){
+        throw new IOException("Line " + line + ": a move must look like x,y,time");
+      }
+      skipSpaces();
+      int y = readNumber();
+      if(y == -1){
+        throw new IOException("Line " + line + ": a move must look like x,y,time");
+      }
+      skipLine();
+      play(y - 1, x - 1, color);
+      color = 3 - color;
+    }
+    return true;
+  }
+
+  /*
+   * method that uses up the start of a line if it is the word "Piskvorky"
+   * @return true if it was, false if the line starts some other way (what was read of it is used up)
+   */
+  private boolean matchPsqHeader() throws IOException{
+    for(int i = 0; i < PSQ_HEADER.length(); i = i + 1){
+      if(peek() != PSQ_HEADER.charAt(i)){
+        return false;
+      }
+      read();
+    }
+    return true;
+  }
+
+  /*
+   * method that reads the next RENJU game: the next line with at least one move on it
+   * a move is a column letter straight followed by a row number; anything else (move numbers, dots, commas, spaces, and words
+   * such as a title) is skipped
+   */
+  private boolean nextRenju() throws IOException{
+    boolean started = false;
+    int c = read();
+    while(c != -1){
+      if(c == '\n'){
+        if(started){
+          return true;
+        }
+      }
+      else if(isLetter(c) && isLetter(peek())){
+        /*
+         * a word, not a move: its letters are skipped (a number straight after it is skipped like any other number)
+         */
+        while(isLetter(peek())){
+          read();
+        }
+      }
+      else if(isLetter(c)){
+        int column = Character.toLowerCase((char) c) - 'a';
+        int number = readNumber();
+        if(number != -1){
+          if(!started){
+            startGame(defaultRows, defaultColumns);
+            started = true;
+          }
+          play(defaultRows - number, column, model.getMoveCount() % 2 == 0 ? BoardModel.BLACK : BoardModel.WHITE);
+        }
+      }
+      else if(c >= '0' && c <= '9'){
+        readNumber();
+      }
+      c = read();
+    }
+    return started;
+  }
+
+  /*
+   * method that tells whether a character (or -1 for the end of the text) is a letter from a to z or A to Z
+   */
+  private static boolean isLetter(int c){
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  /*
+   * main method: copies every game of a text collection into a game-record file (see GameRecordWriter), reading it in constant memory;
+   * games that are not isAlternating() are left out and counted, since they are positions rather than games played by the rules
+   * @param args  the collection (its notation comes from the end of its name), the game-record file, and optionally the winNumber (5)
+   */
+  public static void main(String[] args) throws IOException{
+    if(args.length < 2){
+      System.out.println("Error: give the collection to read and the game-record file to write");
+      return;
+    }
+    int winNumber = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    long games = 0;
+    long moves = 0;
+    long skipped = 0;
+    long start = System.nanoTime();
+    try(Reader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+        GameRecordWriter writer = new GameRecordWriter(Paths.get(args[1]))){
+      GameNotationReader reader = new GameNotationReader(in, formatOf(args[0]));
+      while(reader.next()){
+        if(!reader.isAlternating()){
+          skipped = skipped + 1;
+        }
+        else{
+          writer.writeGame(reader.getModel(), winNumber, reader.getResult());
+          games = games + 1;
+          moves = moves + reader.getModel().getMoveCount();
+        }
+      }
+    }
+    System.out.println(games + " games, " + moves + " moves in " + (System.nanoTime() - start) / 1000000 + " ms");
+    if(skipped > 0){
+      System.out.println(skipped + " games left out because they have setup stones or a player moving twice in a row");
+    }
+  }
+}
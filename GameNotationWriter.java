@@ -0,0 +1,190 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/*
+ * class that writes games in one of the text notations GameNotationReader reads (SGF, PSQ or RENJU)
+ * the characters go straight into a buffered writer, so no text is built up per move
+ * PSQ and RENJU do not give the color of a move (black moves first and the players take turns), so a game with setup stones or a
+ * player moving twice in a row can only be written as SGF
+ * @author Esther Shin
+ */
+
+public class GameNotationWriter implements Closeable{
+  /*
+   * field out  stores where the text goes
+   */
+  private final Writer out;
+
+  /*
+   * field format  stores which notation to write
+   */
+  private final int format;
+
+  /*
+   * field digits  stores the digits of a number while it is being written
+   */
+  private final char[] digits = new char[10];
+
+  /*
+   * constructor for the GameNotationWriter class
+   * @param out  where the text goes
+   * @param format  GameNotationReader.SGF, GameNotationReader.PSQ or GameNotationReader.RENJU
+   */
+  public GameNotationWriter(Writer out, int format){
+    if(format < GameNotationReader.SGF || format > GameNotationReader.RENJU){
+      throw new IllegalArgumentException("Invalid format: " + format);
+    }
+    this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    this.format = format;
+  }
+
+  /*
+   * method that writes the game on a board
+   * @param model  the board, with the moves of the game on it in order
+   * @param result  GameRecordWriter.UNFINISHED, GameRecordWriter.DRAW, or BoardModel.BLACK or BoardModel.WHITE for the winner (only
+   * SGF keeps it)
+   * @throws IOException if the text cannot be written
+   * @throws IllegalArgumentException if the notation cannot hold the game
+   */
+  public void writeGame(BoardModel model, int result) throws IOException{
+    if(format != GameNotationReader.SGF && !isAlternating(model)){
+      throw new IllegalArgumentException((format == GameNotationReader.PSQ ? "PSQ" : "RENJU")
+                                           + " cannot write a game in which black does not move first and the players do not take turns");
+    }
+    if(format == GameNotationReader.SGF){
+      writeSgf(model, result);
+    }
+    else if(format == GameNotationReader.PSQ){
+      writePsq(model);
+    }
+    else{
+      writeRenju(model);
+    }
+  }
+
+  /*
+   * method that writes a game as SGF: (;GM[4]FF[4]SZ[15]RE[B+];B[hh];W[ih]...)
+   */
+  private void writeSgf(BoardModel model, int result) throws IOException{
+    if(model.getRows() > 52 || model.getColumns() > 52){
+      throw new IllegalArgumentException("SGF cannot write a board bigger than 52x52");
+    }
+    out.write("(;GM[4]FF[4]SZ[");
+    writeNumber(model.getColumns());
+    if(model.getRows() != model.getColumns()){
+      out.write(':');
+      writeNumber(model.getRows());
+    }
+    out.write(']');
+    if(result == BoardModel.BLACK){
+      out.write("RE[B+]");
+    }
+    else if(result == BoardModel.WHITE){
+      out.write("RE[W+]");
+    }
+    else if(result == GameRecordWriter.DRAW){
+      out.write("RE[0]");
+    }
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int move = model.getMove(i);
+      int row = move / model.getColumns();
+      int column = move % model.getColumns();
+      out.write(model.colorAt(row, column) == BoardModel.BLACK ? ";B[" : ";W[");
+      out.write(sgfLetter(column));
+      out.write(sgfLetter(row));
+      out.write(']');
+    }
+    out.write(")\n");
+  }
+
+  /*
+   * method that tells whether black made the first move on a board and the players took turns
+   */
+  static boolean isAlternating(BoardModel model){
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int move = model.getMove(i);
+      if(model.colorAt(move / model.getColumns(), move % model.getColumns()) != (i % 2 == 0 ? BoardModel.BLACK : BoardModel.WHITE)){
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * method that gets the SGF letter for a number (0 to 25 are a to z, 26 to 51 are A to Z)
+   */
+  private static char sgfLetter(int number){
+    return number < 26 ? (char) ('a' + number) : (char) ('A' + number - 26);
+  }
+
+  /*
+   * method that writes a game as PSQ: the Piskvorky line, one "x,y,0" line per move (1 based), then -1
+   */
+  private void writePsq(BoardModel model) throws IOException{
+    out.write("Piskvorky ");
+    writeNumber(model.getColumns());
+    out.write('x');
+    writeNumber(model.getRows());
+    out.write(", 11:11, 0\n");
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int move = model.getMove(i);
+      writeNumber(move % model.getColumns() + 1);
+      out.write(',');
+      writeNumber(move / model.getColumns() + 1);
+      out.write(",0\n");
+    }
+    out.write("-1\n");
+  }
+
+  /*
+   * method that writes a game as RENJU: its moves on one line, like "h8 i9 j10", with the rows counted up from the bottom; the board
+   * size is not written, so the game must be read back with a GameNotationReader whose default rows and columns are the board's
+   */
+  private void writeRenju(BoardModel model) throws IOException{
+    if(model.getColumns() > 26){
+      throw new IllegalArgumentException("RENJU cannot write a board with more than 26 columns");
+    }
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int move = model.getMove(i);
+      if(i > 0){
+        out.write(' ');
+      }
+      out.write('a' + move % model.getColumns());
+      writeNumber(model.getRows() - move / model.getColumns());
+    }
+    out.write('\n');
+  }
+
+  /*
+   * method that writes a number that is 0 or more without making a String
+   */
+  private void writeNumber(int number) throws IOException{
+    int length = 0;
+    do{
+      digits[length] = (char) ('0' + number % 10);
+      number = number / 10;
+      length = length + 1;
+    }while(number > 0);
+    for(int i = length - 1; i >= 0; i = i - 1){
+      out.write(digits[i]);
+    }
+  }
+
+  /*
+   * method that writes out everything given so far
+   * @throws IOException if it cannot be written
+   */
+  public void flush() throws IOException{
+    out.flush();
+  }
+
+  /*
+   * method that writes out everything given so far and closes the writer
+   * @throws IOException if it cannot be closed
+   */
+  public void close() throws IOException{
+    out.close();
+  }
+}
@@ -0,0 +1,227 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * class that scans a game-record file (see GameRecordWriter for the format) through memory-mapped windows of the file
+ * it works like a cursor: next() moves to the next game, and the getters read that game straight out of the mapped file,
+ * so no objects are made per game and a whole archive can be streamed in constant memory
+ * @author Esther Shin
+ */
+
+public class GameRecordReader implements Closeable{
+  /*
+   * constant DEFAULT_WINDOW  how many bytes of the file are mapped at once (256 MB)
+   */
+  static final long DEFAULT_WINDOW = 256L << 20;
+
+  /*
+   * field channel  stores the file being read
+   */
+  private final FileChannel channel;
+
+  /*
+   * field fileSize  stores the size of the file in bytes
+   */
+  private final long fileSize;
+
+  /*
+   * field windowSize  stores how many bytes are mapped at once
+   */
+  private final long windowSize;
+
+  /*
+   * field window  stores the part of the file that is mapped
+   */
+  private MappedByteBuffer window;
+
+  /*
+   * field windowStart  stores where in the file the mapped part starts
+   */
+  private long windowStart;
+
+  /*
+   * field recordStart  stores where in the file the current record starts, or -1 before the first next()
+   */
+  private long recordStart = -1;
+
+  /*
+   * field recordOffset  stores where in the window the current record starts
+   */
+  private int recordOffset;
+
+  /*
+   * fields for the current record's header
+   */
+  private int rows;
+  private int columns;
+  private int winNumber;
+  private int result;
+  private int moveCount;
+  private int moveSize;
+
+  /*
+   * constructor for the GameRecordReader class
+   * @param path  the file to read
+   * @throws IOException if the file cannot be opened, or it is not a game-record file
+   */
+  public GameRecordReader(Path path) throws IOException{
+    this(path, DEFAULT_WINDOW);
+  }
+
+  /*
+   * constructor for the GameRecordReader class
+   * @param path  the file to read
+   * @param windowSize  how many bytes of the file to map at once (at least as big as the biggest record)
+   * @throws IOException if the file cannot be opened, or it is not a game-record file
+   */
+  public GameRecordReader(Path path, long windowSize) throws IOException{
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    fileSize = channel.size();
+    this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+    if(fileSize < GameRecordWriter.FILE_HEADER_SIZE){
+      channel.close();
+      throw new IOException(path + " is not a game-record file");
+    }
+    map(0);
+    if(window.getInt(0) != GameRecordWriter.MAGIC || window.get(4) != GameRecordWriter.VERSION){
+      channel.close();
+      throw new IOException(path + " is not a game-record file");
+    }
+  }
+
+  /*
+   * method that maps the window of the file starting at a position
+   * @param start  where in the file the window starts
+   */
+  private void map(long start) throws IOException{
+    long size = Math.min(windowSize, fileSize - start);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    windowStart = start;
+  }
+
+  /*
+   * method that makes sure a stretch of the file is inside the mapped window, moving the window to start at from if it is not
+   * @param from  where in the file the stretch starts
+   * @param length  how long the stretch is
+   */
+  private void ensureMapped(long from, long length) throws IOException{
+    if(from < windowStart || from + length > windowStart + window.capacity()){
+      if(length > windowSize){
+        throw new IOException("A record of " + length + " bytes is bigger than the mapped window");
+      }
+      map(from);
+    }
+  }
+
+  /*
+   * method that moves to the next game in the file
+   * @return true if there is a next game, false at the end of the file
+   * @throws IOException if the file cannot be read or the record is cut off
+   */
+  public boolean next() throws IOException{
+    long start = recordStart == -1 ? GameRecordWriter.FILE_HEADER_SIZE
+      : recordStart + GameRecordWriter.RECORD_HEADER_SIZE + (long) moveCount * moveSize;
+    if(start >= fileSize){
+      return false;
+    }
+    if(start + GameRecordWriter.RECORD_HEADER_SIZE > fileSize){
+      throw new IOException("The last record is cut off at byte " + start);
+    }
+    ensureMapped(start, GameRecordWriter.RECORD_HEADER_SIZE);
+    int offset = (int) (start - windowStart);
+    int nextRows = window.getShort(offset) & 0xFFFF;
+    int nextColumns = window.getShort(offset + 2) & 0xFFFF;
+    int nextMoveCount = window.getInt(offset + 6);
+    int nextMoveSize = GameRecordWriter.moveSize(nextRows, nextColumns);
+    long length = GameRecordWriter.RECORD_HEADER_SIZE + (long) nextMoveCount * nextMoveSize;
+    if(nextMoveCount < 0 || start + length > fileSize){
+      throw new IOException("The record at byte " + start + " is cut off");
+    }
+    ensureMapped(start, length);
+    recordStart = start;
+    recordOffset = (int) (start - windowStart);
+    rows = nextRows;
+    columns = nextColumns;
+    winNumber = window.get(recordOffset + 4) & 0xFF;
+    result = window.get(recordOffset + 5) & 0xFF;
+    moveCount = nextMoveCount;
+    moveSize = nextMoveSize;
+    return true;
+  }
+
+  public int getRows(){
+    return rows;
+  }
+
+  public int getColumns(){
+    return columns;
+  }
+
+  public int getWinNumber(){
+    return winNumber;
+  }
+
+  /*
+   * method that gets the result of the current game: GameRecordWriter.UNFINISHED, GameRecordWriter.DRAW, or BoardModel.BLACK or
+   * BoardModel.WHITE for the winner
+   */
+  public int getResult(){
+    return result;
+  }
+
+  public int getMoveCount(){
+    return moveCount;
+  }
+
+  /*
+   * method that gets one move of the current game
+   * @param number  which move (0 is the first)
+   * @return the move as row * columns + column
+   */
+  public int getMove(int number){
+    return moveWord(number) & (moveSize == 2 ? 0x7FFF : 0x7FFFFFFF);
+  }
+
+  /*
+   * method that gets the color that played one move of the current game
+   * @param number  which move (0 is the first)
+   * @return BoardModel.BLACK or BoardModel.WHITE
+   */
+  public int getColor(int number){
+    return moveWord(number) >>> (moveSize * 8 - 1) == 1 ? BoardModel.WHITE : BoardModel.BLACK;
+  }
+
+  /*
+   * method that reads the bytes of one move of the current game, with the color bit still in them
+   */
+  private int moveWord(int number){
+    if(number < 0 || number >= moveCount){
+      throw new IndexOutOfBoundsException("There is no move number " + number);
+    }
+    int at = recordOffset + GameRecordWriter.RECORD_HEADER_SIZE + number * moveSize;
+    return moveSize == 2 ? window.getShort(at) & 0xFFFF : window.getInt(at);
+  }
+
+  /*
+   * method that plays the current game onto a board (which must be empty and the right size), every move in the color that played it
+   * @param model  the board to play the moves on
+   */
+  public void replayOnto(BoardModel model){
+    for(int i = 0; i < moveCount; i = i + 1){
+      int move = getMove(i);
+      model.place(move / columns, move % columns, getColor(i));
+    }
+  }
+
+  /*
+   * method that closes the file
+   * @throws IOException if it cannot be closed
+   */
+  public void close() throws IOException{
+    channel.close();
+  }
+}
@@ -0,0 +1,171 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * class that appends finished games to a binary game-record file, which GameRecordReader can scan without making objects
+ * the file starts with an 8 byte header: the letters GMKR, a version byte (2) and 3 unused bytes
+ * then every game is one record, all numbers big-endian:
+ *   rows (2 bytes), columns (2 bytes), winNumber (1 byte), result (1 byte: 0 unfinished, 1 black won, 2 white won, 3 draw),
+ *   number of moves (4 bytes), then every move as row * columns + column with its top bit set if white played it, in 2 bytes
+ *   if the board has at most 32768 squares and 4 bytes if it is bigger
+ * the color of every move is kept, so games with setup stones or a player moving twice in a row read back as they were written
+ * @author Esther Shin
+ */
+
+public class GameRecordWriter implements Closeable{
+  /*
+   * constants for the file header
+   */
+  static final int MAGIC = 0x474D4B52;
+  static final int VERSION = 2;
+  static final int FILE_HEADER_SIZE = 8;
+
+  /*
+   * constants for the result of a game that is neither won by BoardModel.BLACK nor by BoardModel.WHITE
+   */
+  static final int UNFINISHED = 0;
+  static final int DRAW = 3;
+
+  /*
+   * constant RECORD_HEADER_SIZE  the number of bytes before the moves of a record
+   */
+  static final int RECORD_HEADER_SIZE = 10;
+
+  /*
+   * field channel  stores the file being written to
+   */
+  private final FileChannel channel;
+
+  /*
+   * field buffer  stores the bytes of the record being written; it grows if a record does not fit
+   */
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+
+  /*
+   * constructor for the GameRecordWriter class; a new file gets a header, an existing one is added to
+   * @param path  the file to write to
+   * @throws IOException if the file cannot be opened, or it is not a game-record file
+   */
+  public GameRecordWriter(Path path) throws IOException{
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    if(channel.size() == 0){
+      ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+      header.putInt(MAGIC).put((byte) VERSION).put((byte) 0).put((byte) 0).put((byte) 0).flip();
+      while(header.hasRemaining()){
+        channel.write(header);
+      }
+    }
+    else{
+      ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+      channel.read(header, 0);
+      header.flip();
+      if(header.remaining() < FILE_HEADER_SIZE || header.getInt() != MAGIC || header.get() != VERSION){
+        channel.close();
+        throw new IOException(path + " is not a game-record file");
+      }
+    }
+    channel.position(channel.size());
+  }
+
+  /*
+   * method that gets the number of bytes each move takes on a board
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @return 2 or 4
+   */
+  static int moveSize(int rows, int columns){
+    return rows * columns <= 32768 ? 2 : 4;
+  }
+
+  /*
+   * method that appends one game in which black moved first and the players took turns
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @param winNumber  the number of pieces in a row needed to win
+   * @param result  UNFINISHED, DRAW, or BoardModel.BLACK or BoardModel.WHITE for the winner
+   * @param moves  the moves of the game in order, as row * columns + column
+   * @param moveCount  how many moves in the array to write
+   * @throws IOException if the record cannot be written
+   */
+  public void writeGame(int rows, int columns, int winNumber, int result, int[] moves, int moveCount) throws IOException{
+    writeGame(rows, columns, winNumber, result, moves, null, moveCount);
+  }
+
+  /*
+   * method that appends one game
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @param winNumber  the number of pieces in a row needed to win
+   * @param result  UNFINISHED, DRAW, or BoardModel.BLACK or BoardModel.WHITE for the winner
+   * @param moves  the moves of the game in order, as row * columns + column
+   * @param colors  the color that played each move, or null if black moved first and the players took turns
+   * @param moveCount  how many moves in the arrays to write
+   * @throws IOException if the record cannot be written
+   */
+  public synchronized void writeGame(int rows, int columns, int winNumber, int result, int[] moves, int[] colors, int moveCount)
+    throws IOException{
+    if(rows > 0xFFFF || columns > 0xFFFF || winNumber > 0xFF){
+      throw new IllegalArgumentException("Board or winNumber is too big for a game record");
+    }
+    if(result < UNFINISHED || result > DRAW){
+      throw new IllegalArgumentException("There is no game result " + result);
+    }
+    int moveSize = moveSize(rows, columns);
+    int size = RECORD_HEADER_SIZE + moveCount * moveSize;
+    if(buffer.capacity() < size){
+      buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) * 2);
+    }
+    buffer.clear();
+    buffer.putShort((short) rows).putShort((short) columns).put((byte) winNumber).put((byte) result).putInt(moveCount);
+    for(int i = 0; i < moveCount; i = i + 1){
+      boolean white = colors == null ? i % 2 == 1 : colors[i] == BoardModel.WHITE;
+      if(moveSize == 2){
+        buffer.putShort((short) (white ? moves[i] | 0x8000 : moves[i]));
+      }
+      else{
+        buffer.putInt(white ? moves[i] | 0x80000000 : moves[i]);
+      }
+    }
+    buffer.flip();
+    while(buffer.hasRemaining()){
+      channel.write(buffer);
+    }
+  }
+
+  /*
+   * method that appends the game that is on a board
+   * @param model  the board, with the moves of the game on it in order
+   * @param winNumber  the number of pieces in a row needed to win
+   * @param result  UNFINISHED, DRAW, or BoardModel.BLACK or BoardModel.WHITE for the winner
+   * @throws IOException if the record cannot be written
+   */
+  public void writeGame(BoardModel model, int winNumber, int result) throws IOException{
+    int[] moves = new int[model.getMoveCount()];
+    int[] colors = new int[moves.length];
+    for(int i = 0; i < moves.length; i = i + 1){
+      moves[i] = model.getMove(i);
+      colors[i] = model.colorAt(moves[i] / model.getColumns(), moves[i] % model.getColumns());
+    }
+    writeGame(model.getRows(), model.getColumns(), winNumber, result, moves, colors, moves.length);
+  }
+
+  /*
+   * method that makes sure everything written so far is on the disk
+   * @throws IOException if it cannot be
+   */
+  public synchronized void flush() throws IOException{
+    channel.force(false);
+  }
+
+  /*
+   * method that closes the file
+   * @throws IOException if it cannot be closed
+   */
+  public synchronized void close() throws IOException{
+    channel.close();
+  }
+}
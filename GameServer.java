@@ -0,0 +1,381 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * class that hosts many games of Gomoku at once over TCP, so the game can run as a backend instead of as one window
+ * every connection gets its own thread (a virtual thread when the Java it runs on has them); the games are kept in a
+ * concurrent map and each game locks only itself, so there is no lock shared by all moves
+ * the protocol is one command per line, and one answer line per command that starts with OK or ERR:
+ *   NEW [winNumber] | NEW rows columns | NEW winNumber rows columns   makes a game, with the same sizes and defaults as Gomoku's
+ *                                                                    parameters; answers OK id rows columns winNumber
+ *   MOVE id row column    plays for the player whose turn it is; answers OK PLAYED, OK WON, or ERR with the reason
+ *   UNDO id | REDO id     takes back the last move, or plays again the last move taken back; answers OK and the square
+ *                         (row * columns + column), or ERR if there is none
+ *   STATE id              answers OK and the game as GameSession.describe() gives it
+ *   CLOSE id              ends a game
+ *   QUIT                  answers OK BYE and closes the connection
+ * a game lasts until it is closed or the connection that made it closes
+ * with journal=directory the games are kept in a GameJournal: an answer is only sent once the changes before it are on the disk, and
+ * the games that were open when the server stopped come back when it starts again (with no connection that owns them, so they
+ * last until they are closed)
+ * the journal takes the records of all the games without a lock (see GameJournal), so journaling does not bring back a lock shared
+ * by all moves; the games only wait together for the fsync their answers need
+ * run it like: java GameServer port=9595 maxGames=100000 maxSize=100 journal=games commitMillis=2 snapshotRecords=100000
+ * @author Esther Shin
+ */
+
+public class GameServer{
+  /*
+   * constant QUIT_ANSWER  the answer to QUIT, after which the connection is closed
+   */
+  private static final String QUIT_ANSWER = "OK BYE";
+
+  /*
+   * field serverSocket  stores the socket connections are accepted on
+   */
+  private final ServerSocket serverSocket;
+
+  /*
+   * field sessions  stores every game being played, by id
+   */
+  private final Map<Long, GameSession> sessions = new ConcurrentHashMap<Long, GameSession>();
+
+  /*
+   * field nextId  stores the id the next game gets
+   */
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  /*
+   * field gameCount  stores how many games are being played, so no more than maxGames are made
+   */
+  private final AtomicInteger gameCount = new AtomicInteger();
+
+  /*
+   * fields for the limits on the games: how many there may be at once, and how many rows or columns a board may have
+   */
+  private final int maxGames;
+  private final int maxSize;
+
+  /*
+   * field connections  stores the threads the connections are handled on
+   */
+  private final ExecutorService connections;
+
+  /*
+   * field journal  stores the journal the games are kept in, or null if they are only in memory
+   */
+  private final GameJournal journal;
+
+  /*
+   * constructor for the GameServer class; the server listens on the port straight away, but only accepts connections once serve() runs
+   * @param port  the port to listen on (0 picks a free port)
+   * @param maxGames  the most games there may be at once
+   * @param maxSize  the most rows or columns a board may have
+   * @throws IOException if the port cannot be listened on
+   */
+  public GameServer(int port, int maxGames, int maxSize) throws IOException{
+    this(port, maxGames, maxSize, null);
+  }
+
+  /*
+   * constructor for the GameServer class that keeps its games in a journal; the games in the journal are put back before it listens
+   * @param journal  the journal (not recovered yet), or null for none
+   * @throws IOException if the journal cannot be read or the port cannot be listened on
+   */
+  public GameServer(int port, int maxGames, int maxSize, GameJournal journal) throws IOException{
+    this.maxGames = maxGames;
+    this.maxSize = journal == null ? maxSize : Math.min(maxSize, 65535);
+    this.journal = journal;
+    if(journal != null){
+      journal.recover(sessions);
+      nextId.set(journal.getMaxId() + 1);
+      gameCount.set(sessions.size());
+    }
+    serverSocket = new ServerSocket();
+    serverSocket.setReuseAddress(true);
+    serverSocket.bind(new InetSocketAddress(port), 4096);
+    connections = newConnectionExecutor();
+  }
+
+  /*
+   * method that makes the executor the connections run on: one virtual thread per connection if this Java has them (21 and later),
+   * or else one platform thread per connection with a small stack, so thousands of connections still fit
+   */
+  static ExecutorService newConnectionExecutor(){
+    try{
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    }
+    catch(ReflectiveOperationException | UnsupportedOperationException e){
+      return Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(null, runnable, "gomoku-connection", 256 * 1024);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /*
+   * method that gets the port the server listens on
+   */
+  public int getPort(){
+    return serverSocket.getLocalPort();
+  }
+
+  /*
+   * method that gets how many games are being played
+   */
+  public int getGameCount(){
+    return gameCount.get();
+  }
+
+  /*
+   * method that accepts connections until the server is closed; it does not return before then
+   */
+  public void serve(){
+    while(!serverSocket.isClosed()){
+      try{
+        Socket socket = serverSocket.accept();
+        connections.execute(() -> handle(socket));
+      }
+      catch(IOException e){
+        if(!serverSocket.isClosed()){
+          System.out.println("Error: cannot accept a connection: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  /*
+   * method that stops accepting connections and closes the ones that are open, then closes the journal
+   */
+  public void close() throws IOException{
+    serverSocket.close();
+    connections.shutdownNow();
+    if(journal != null){
+      journal.close();
+    }
+  }
+
+  /*
+   * method that answers the commands of one connection until it closes, then ends the games it made
+   * @param socket  the connection
+   */
+  private void handle(Socket socket){
+    List<Long> owned = new ArrayList<Long>();
+    try(Socket connection = socket;
+        BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))){
+      connection.setTcpNoDelay(true);
+      String line = in.readLine();
+      while(line != null){
+        String answer = execute(line, owned);
+        out.write(answer);
+        out.write('\n');
+        if(answer.equals(QUIT_ANSWER)){
+          break;
+        }
+        /*
+         * answers are only sent once there are no more commands waiting, so a client that sends several commands at once gets
+         * all the answers in one packet (and waits for one group commit of the journal, not one per command)
+         */
+        if(!in.ready()){
+          flush(out);
+        }
+        line = in.readLine();
+      }
+      flush(out);
+    }
+    catch(SocketException e){
+      /*
+       * the client went away; its games are ended below
+       */
+    }
+    catch(IOException e){
+      System.out.println("Error: connection failed: " + e.getMessage());
+    }
+    finally{
+      /*
+       * when the whole server is closing, the games are left as they are, so a journal keeps them for the next start
+       */
+      for(Long id : serverSocket.isClosed() ? new ArrayList<Long>() : owned){
+        GameSession session = sessions.remove(id);
+        if(session != null){
+          session.closed();
+          gameCount.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  /*
+   * method that sends the answers written so far, once every journal record made before them is on the disk
+   */
+  private void flush(BufferedWriter out) throws IOException{
+    if(journal != null){
+      journal.awaitDurable(journal.getLastLsn());
+    }
+    out.flush();
+  }
+
+  /*
+   * method that carries out one command
+   * @param line  the command
+   * @param owned  the ids of the games the connection made; NEW adds to it and CLOSE takes away from it
+   * @return the answer
+   */
+  String execute(String line, List<Long> owned){
+    String[] words = line.trim().split("\\s+");
+    String command = words[0].toUpperCase();
+    try{
+      if(command.equals("MOVE") && words.length == 4){
+        GameSession session = sessions.get(Long.parseLong(words[1]));
+        if(session == null){
+          return "ERR There is no game " + words[1];
+        }
+        int result = session.play(Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+        if(result == MoveHistory.PLAYED){
+          return "OK PLAYED";
+        }
+        else if(result == MoveHistory.WON){
+          return "OK WON";
+        }
+        else if(result == MoveHistory.GAME_OVER){
+          return "ERR The game is over";
+        }
+        return "ERR You cannot make this move";
+      }
+      else if(command.equals("NEW") && words.length <= 4){
+        return newGame(words, owned);
+      }
+      else if((command.equals("UNDO") || command.equals("REDO")) && words.length == 2){
+        GameSession session = sessions.get(Long.parseLong(words[1]));
+        if(session == null){
+          return "ERR There is no game " + words[1];
+        }
+        int square = command.equals("UNDO") ? session.undo() : session.redo();
+        return square == -1 ? "ERR There is no move to " + command.toLowerCase() : "OK " + square;
+      }
+      else if(command.equals("STATE") && words.length == 2){
+        GameSession session = sessions.get(Long.parseLong(words[1]));
+        return session == null ? "ERR There is no game " + words[1] : "OK " + session.describe();
+      }
+      else if(command.equals("CLOSE") && words.length == 2){
+        Long id = Long.valueOf(words[1]);
+        GameSession session = sessions.remove(id);
+        if(session == null){
+          return "ERR There is no game " + words[1];
+        }
+        session.closed();
+        gameCount.decrementAndGet();
+        owned.remove(id);
+        return "OK";
+      }
+      else if(command.equals("QUIT")){
+        return QUIT_ANSWER;
+      }
+    }
+    catch(NumberFormatException e){
+      return "ERR Not a number: " + e.getMessage();
+    }
+    return "ERR Unknown command: " + line;
+  }
+
+  /*
+   * method that makes a game from a NEW command; like Gomoku's parameters, no numbers means a 19x19 board with 5 in a row to win,
+   * one number is the winNumber, two are the rows and columns, and three are the winNumber, rows and columns
+   */
+  private String newGame(String[] words, List<Long> owned){
+    int rows = 19;
+    int columns = 19;
+    int winNumber = 5;
+    if(words.length == 2){
+      winNumber = Integer.parseInt(words[1]);
+    }
+    else if(words.length == 3){
+      rows = Integer.parseInt(words[1]);
+      columns = Integer.parseInt(words[2]);
+    }
+    else if(words.length == 4){
+      winNumber = Integer.parseInt(words[1]);
+      rows = Integer.parseInt(words[2]);
+      columns = Integer.parseInt(words[3]);
+    }
+    if(rows < 1 || columns < 1 || rows > maxSize || columns > maxSize || winNumber < 1){
+      return "ERR Invalid board size or winNumber";
+    }
+    if(gameCount.incrementAndGet() > maxGames){
+      gameCount.decrementAndGet();
+      return "ERR Too many games";
+    }
+    long id = nextId.getAndIncrement();
+    GameSession session = new GameSession(id, rows, columns, winNumber, journal);
+    /*
+     * the game is locked until its NEW record is in the journal, so no move of it can be written to the journal before that
+     */
+    synchronized(session){
+      sessions.put(id, session);
+      session.created();
+    }
+    owned.add(id);
+    return "OK " + id + " " + rows + " " + columns + " " + winNumber;
+  }
+
+  /*
+   * main method: runs a server with the key=value arguments port (9595), maxGames (100000), maxSize (100), and journal (none),
+   * commitMillis (2) and snapshotRecords (100000) for keeping the games in a GameJournal
+   */
+  public static void main(String[] args) throws IOException{
+    Map<String, String> options = new HashMap<String, String>();
+    for(String arg : args){
+      int equals = arg.indexOf('=');
+      if(equals == -1){
+        System.out.println("Error: arguments must look like key=value, not " + arg);
+        return;
+      }
+      options.put(arg.substring(0, equals), arg.substring(equals + 1));
+    }
+    GameJournal journal = null;
+    if(options.containsKey("journal")){
+      journal = new GameJournal(Paths.get(options.get("journal")), Long.parseLong(options.getOrDefault("commitMillis", "2")),
+                                Long.parseLong(options.getOrDefault("snapshotRecords", "100000")));
+    }
+    long start = System.nanoTime();
+    GameServer server = new GameServer(Integer.parseInt(options.getOrDefault("port", "9595")),
+                                       Integer.parseInt(options.getOrDefault("maxGames", "100000")),
+                                       Integer.parseInt(options.getOrDefault("maxSize", "100")), journal);
+    if(journal != null){
+      System.out.println(server.getGameCount() + " games recovered in " + (System.nanoTime() - start) / 1000000 + " ms");
+      GameServer running = server;
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try{
+          running.close();
+        }
+        catch(IOException e){
+          System.out.println("Error: cannot close the journal: " + e.getMessage());
+        }
+      }));
+    }
+    System.out.println("Listening on port " + server.getPort());
+    server.serve();
+  }
+}
@@ -0,0 +1,248 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/*
+ * class that represents one game of Gomoku without a window: its own board, rules, whose turn it is and whether it is over,
+ * like the fields of Gomoku but for one of the many games a GameServer hosts
+ * every method locks only this game, so moves in different games never wait for each other
+ * with a GameJournal, every change is written to the journal while the game is locked, so the journal has the changes of a game
+ * in the order they were made
+ * @author Esther Shin
+ */
+
+public class GameSession{
+  /*
+   * field id  stores the number the server knows the game by
+   */
+  private final long id;
+
+  /*
+   * field history  stores the board of the game and its moves, which also give whose turn it is and whether the game is over
+   */
+  private final MoveHistory history;
+
+  /*
+   * field journal  stores the journal the changes are written to, or null if they are not
+   */
+  private final GameJournal journal;
+
+  /*
+   * field lastLsn  stores the number of the last journal record of this game, or -1 if it has none
+   */
+  private long lastLsn = -1;
+
+  /*
+   * field isClosed  stores whether the game was ended, so a snapshot that is being written leaves it out
+   */
+  private boolean isClosed = false;
+
+  /*
+   * constructor for the GameSession class
+   * @param id  the number the server knows the game by
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @param winNumber  the number of pieces in a row needed to win
+   */
+  public GameSession(long id, int rows, int columns, int winNumber){
+    this(id, rows, columns, winNumber, null);
+  }
+
+  /*
+   * constructor for the GameSession class that writes its changes to a journal; the journal only gets the game once created() is called
+   * @param journal  the journal, or null for none
+   */
+  public GameSession(long id, int rows, int columns, int winNumber, GameJournal journal){
+    this.id = id;
+    this.history = new MoveHistory(new BoardModel(rows, columns), new GomokuRules(winNumber));
+    this.journal = journal;
+  }
+
+  public long getId(){
+    return id;
+  }
+
+  public int getRows(){
+    return history.getModel().getRows();
+  }
+
+  public int getColumns(){
+    return history.getModel().getColumns();
+  }
+
+  public int getWinNumber(){
+    return history.getRules().getWinNumber();
+  }
+
+  /*
+   * method that plays a move for the player whose turn it is (see MoveHistory.play)
+   * @param row  the row of the square to play on
+   * @param column  the column of the square to play on
+   * @return MoveHistory.PLAYED, MoveHistory.WON, MoveHistory.NOT_ALLOWED or MoveHistory.GAME_OVER
+   */
+  public synchronized int play(int row, int column){
+    int result = history.play(row, column);
+    if(journal != null && (result == MoveHistory.PLAYED || result == MoveHistory.WON)){
+      lastLsn = journal.append(id, GameJournal.MOVE, row * getColumns() + column, 0);
+    }
+    return result;
+  }
+
+  /*
+   * method that takes back the last move
+   * @return the index (row * columns + column) of the square that was cleared, or -1 if there is no move to take back
+   */
+  public synchronized int undo(){
+    int square = history.undo();
+    if(journal != null && square != -1){
+      lastLsn = journal.append(id, GameJournal.UNDO, square, 0);
+    }
+    return square;
+  }
+
+  /*
+   * method that plays again the last move that was taken back
+   * @return the index (row * columns + column) of the square it is played on, or -1 if there is no move to play again
+   */
+  public synchronized int redo(){
+    int square = history.redo();
+    if(journal != null && square != -1){
+      lastLsn = journal.append(id, GameJournal.REDO, square, 0);
+    }
+    return square;
+  }
+
+  /*
+   * method that gets the color of the player whose turn it is
+   * @return BoardModel.BLACK or BoardModel.WHITE
+   */
+  public synchronized int currentColor(){
+    return history.currentColor();
+  }
+
+  public synchronized boolean isGameOver(){
+    return history.isGameOver();
+  }
+
+  public synchronized int getWinner(){
+    return history.getWinner();
+  }
+
+  /*
+   * method that describes the game in one line: rows, columns, winNumber, the color to move, the winner (0 if none),
+   * whether it is over (0 or 1), the number of moves and then every move as row * columns + column
+   */
+  public synchronized String describe(){
+    BoardModel model = history.getModel();
+    StringBuilder line = new StringBuilder();
+    line.append(model.getRows()).append(' ').append(model.getColumns()).append(' ').append(getWinNumber()).append(' ')
+      .append(history.currentColor()).append(' ').append(history.getWinner()).append(' ').append(history.isGameOver() ? 1 : 0)
+      .append(' ').append(model.getMoveCount());
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      line.append(' ').append(model.getMove(i));
+    }
+    return line.toString();
+  }
+
+  /*
+   * method that writes that the game was made to the journal; the server calls it once the game can be found by its id
+   */
+  public synchronized void created(){
+    if(journal != null){
+      lastLsn = journal.append(id, GameJournal.NEW, (getRows() << 16) | getColumns(), getWinNumber());
+    }
+  }
+
+  /*
+   * method that writes that the game was ended to the journal; the server calls it once the game can no longer be found by its id
+   */
+  public synchronized void closed(){
+    isClosed = true;
+    if(journal != null){
+      lastLsn = journal.append(id, GameJournal.CLOSE, 0, 0);
+    }
+  }
+
+  /*
+   * method that gets the number of the last journal record of this game, or -1 if it has none
+   */
+  public synchronized long getLastLsn(){
+    return lastLsn;
+  }
+
+  /*
+   * method that does again a change read from the journal, without writing it to the journal again
+   * @param type  GameJournal.MOVE, GameJournal.UNDO or GameJournal.REDO
+   * @param square  the square of the change, as row * columns + column
+   * @param lsn  the number of the journal record
+   */
+  synchronized void replay(int type, int square, long lsn){
+    if(type == GameJournal.MOVE){
+      history.play(square / getColumns(), square % getColumns());
+    }
+    else if(type == GameJournal.UNDO){
+      history.undo();
+    }
+    else if(type == GameJournal.REDO){
+      history.redo();
+    }
+    lastLsn = lsn;
+  }
+
+  /*
+   * method that writes the game for a GameJournal snapshot, unless it has been closed: a 1 byte, then id (8 bytes), rows, columns
+   * and winNumber (4 bytes each), the number of the last journal record (8 bytes), when the game was won (4 bytes, see
+   * MoveHistory.getWonAt), the number of moves and the moves, then the number of moves on the redo stack and those moves (4 bytes
+   * each, as (row * columns + column) * 4 + color)
+   * @return whether the game was written
+   */
+  synchronized boolean writeTo(DataOutputStream out) throws IOException{
+    if(isClosed){
+      return false;
+    }
+    BoardModel model = history.getModel();
+    out.writeByte(1);
+    out.writeLong(id);
+    out.writeInt(getRows());
+    out.writeInt(getColumns());
+    out.writeInt(getWinNumber());
+    out.writeLong(lastLsn);
+    out.writeInt(history.getWonAt());
+    out.writeInt(model.getMoveCount());
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int index = model.getMove(i);
+      out.writeInt(index * 4 + model.colorAt(index / model.getColumns(), index % model.getColumns()));
+    }
+    out.writeInt(history.getRedoCount());
+    for(int i = 0; i < history.getRedoCount(); i = i + 1){
+      out.writeInt(history.getRedoMove(i));
+    }
+    return true;
+  }
+
+  /*
+   * method that reads a game written by writeTo, after its 1 byte
+   * @param in  the snapshot
+   * @param journal  the journal the game writes its changes to from now on
+   * @return the game
+   * @throws IOException if the snapshot cannot be read
+   */
+  static GameSession readFrom(DataInputStream in, GameJournal journal) throws IOException{
+    long id = in.readLong();
+    int rows = in.readInt();
+    int columns = in.readInt();
+    GameSession session = new GameSession(id, rows, columns, in.readInt(), journal);
+    session.lastLsn = in.readLong();
+    int wonAt = in.readInt();
+    int[] moves = new int[in.readInt()];
+    for(int i = 0; i < moves.length; i = i + 1){
+      moves[i] = in.readInt();
+    }
+    int[] redo = new int[in.readInt()];
+    for(int i = 0; i < redo.length; i = i + 1){
+      redo[i] = in.readInt();
+    }
+    session.history.restore(moves, moves.length, redo, redo.length, wonAt);
+    return session;
+  }
+}
@@ -10,10 +10,30 @@ import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill; 
 import javafx.geometry.Insets; 
 import javafx.scene.layout.CornerRadii;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.application.Platform;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /*
  * class that represents/is the Gomoku game
+ * everything that reads or changes the game (the rules, the computer player's thinking, the hints) runs on one worker thread, one
+ * click or key at a time in the order they happened, so the window never waits for it; what it changes on the board is shown with
+ * Platform.runLater, and taking back or playing again a move stops the computer player if it is thinking about the old position
  * @author Esther Shin 
  */
 
@@ -28,6 +48,110 @@ public class Gomoku extends Application{
    */
   private PieceLocation[][] board;
   
+  /*
+   * field boardCanvas  stores the canvas the board is drawn on, or null if the board is a grid of buttons (given with --view=buttons)
+   */
+  private BoardCanvas boardCanvas;
+  
+  /*
+   * field worker  stores the thread the game runs on (see the class comment)
+   */
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "gomoku-worker");
+    thread.setDaemon(true);
+    return thread;
+  });
+  
+  /*
+   * field positionVersion  stores how many times a move has been taken back or played again from the window; a computer move
+   * thought about before the last of those is thrown away
+   */
+  private final AtomicLong positionVersion = new AtomicLong();
+  
+  /*
+   * field taskVersion  stores the positionVersion when the worker task that is running was asked for (only used by the worker)
+   */
+  private long taskVersion = 0;
+  
+  /*
+   * field searchStop  stores the flag that stops the computer player's current thinking, or null if it is not thinking
+   */
+  private volatile AtomicBoolean searchStop;
+  
+  /*
+   * field model  stores the actual state of the game (which piece is on which square); the buttons in board (or the canvas) are only a view of it
+   */
+  private BoardModel model;
+  
+  /*
+   * field history  stores the moves played on model and the moves taken back, so moves can be undone and redone
+   */
+  private MoveHistory history;
+  
+  /*
+   * field rules  stores the rules of the game (winNumber, the three-three rule and the four-four rule) for the model
+   */
+  private GomokuRules rules;
+  
+  /*
+   * field computerPlayer  stores the computer player, or null if both players are people
+   */
+  private Player computerPlayer;
+  
+  /*
+   * field computerColor  stores the color the computer player plays (BoardModel.BLACK or BoardModel.WHITE)
+   */
+  private int computerColor = BoardModel.EMPTY;
+  
+  /*
+   * field recordWriter  stores where finished games are saved (given with --record=file), or null if they are not saved
+   */
+  private GameRecordWriter recordWriter;
+  
+  /*
+   * field book  stores the opening book given with --book=file, or null if there is none
+   */
+  private OpeningBook book;
+  
+  /*
+   * field positions  stores the position database given with --positions=file, or null if there is none
+   */
+  private PositionDatabase positions;
+  
+  /*
+   * fields that store the squares showing a book hint (or the statistics of a move), and their number, so the hints can be taken off again
+   */
+  private int[] hintMoves = new int[32];
+  private int hintCount = 0;
+  
+  /*
+   * field hintCounts  stores the book weights of the hints, or the wins, draws and losses of each move in the position database,
+   * while the hints are being shown (3 for each square of hintMoves, made again only when hintMoves is)
+   */
+  private int[] hintCounts = new int[3 * 32];
+  
+  /*
+   * field renjuRules  stores the rules when Renju is played (given with --renju=true), or null if it is not
+   */
+  private RenjuRules renjuRules;
+  
+  /*
+   * field threatMap  stores what playing every square would make, worked out again after each move for the marks on the board
+   */
+  private ThreatMap threatMap;
+  
+  /*
+   * field showThreats  stores whether the squares where the player to move would make a five or a four are marked (given with
+   * --threatHints=true)
+   */
+  private boolean showThreats;
+  
+  /*
+   * fields that store the squares marked as forbidden or as threats, and their number, so the marks can be taken off again
+   */
+  private int[] markedMoves;
+  private int markedCount = 0;
+  
   /* 
    * field isBlackTurn  stores whether or not it is the black piece player's turn to play
    */
@@ -69,11 +193,11 @@ public class Gomoku extends Application{
    * @param primaryStage The window (in this case a Gomoku board) that is desired to be shown on the screen 
    */ 
   public void start(Stage primaryStage){
-    getParameters().getRaw();
+    List<String> parameters = getParameters().getUnnamed();
     /*
      * makes the board a certain size and the winNumber a certain int if no parameters are inputted
      */
-    if(getParameters().getRaw().size() == 0){
+    if(parameters.size() == 0){
       board = new PieceLocation[19][19];
       winNumber = 5;
       //System.out.println("19x19 grid, 5 in a row to win");
@@ -81,404 +205,339 @@ public class Gomoku extends Application{
     /*
      * makes the board a certain size and the winNumber a certain int if one parameter is inputted
      */
-    else if(getParameters().getRaw().size() == 1){
+    else if(parameters.size() == 1){
       board = new PieceLocation[19][19];
-      winNumber = Integer.parseInt(getParameters().getRaw().get(0));
+      winNumber = Integer.parseInt(parameters.get(0));
       //System.out.println("19x19 grid, input number in a row to win");
     }
     /*
      * makes the board a certain size and the winNumber a certain int if two parameters are inputted
      */
-    else if(getParameters().getRaw().size() == 2){
-      board = new PieceLocation[Integer.parseInt(getParameters().getRaw().get(0))][Integer.parseInt(getParameters().getRaw().get(1))];
+    else if(parameters.size() == 2){
+      board = new PieceLocation[Integer.parseInt(parameters.get(0))][Integer.parseInt(parameters.get(1))];
       winNumber = 5;
       //System.out.println("input grid size, 5 in a row to win");
     }
     /*
      * makes the board a certain size and the winNumber a certain int if three parameters are inputted
      */
-    else if(getParameters().getRaw().size() == 3){
-      board = new PieceLocation[Integer.parseInt(getParameters().getRaw().get(1))][Integer.parseInt(getParameters().getRaw().get(2))];
-      winNumber = Integer.parseInt(getParameters().getRaw().get(0));
+    else if(parameters.size() == 3){
+      board = new PieceLocation[Integer.parseInt(parameters.get(1))][Integer.parseInt(parameters.get(2))];
+      winNumber = Integer.parseInt(parameters.get(0));
       //System.out.println("input grid size, input in a row to win");
     }
     else{
       System.out.println("Error: Invalid number of inputs, please try again");
     }
-    
-    GridPane gridPane = new GridPane();
-    Scene scene = new Scene(gridPane);  
-    
+    model = new BoardModel(board.length, board[0].length);
+    threatMap = new ThreatMap(board.length, board[0].length);
+    markedMoves = new int[board.length * board[0].length];
+    showThreats = Boolean.parseBoolean(getParameters().getNamed().getOrDefault("threatHints", "false"));
     /*
-     * loops through each row of the board in order to create a button for each row
+     * plays with the Renju rules if --renju=true is given: black may not make an overline, a double four or a double three
+     * (the squares where the player to move may not play are marked either way)
      */
-    for (int row = 0; row < board.length; row = row + 1){
-      /*
-       * loops through each column of the board and creates a button in each row of each column
-       */
-      for (int column = 0; column < board[row].length; column = column + 1){
-        board[row][column] = new PieceLocation(row, column);
-        gridPane.add(board[row][column], column, row);
-        board[row][column].setMinSize(40,40);
-        board[row][column].setOnAction(new ButtonClick());
-        board[row][column].setBackground(noExistingButton);
+    if(Boolean.parseBoolean(getParameters().getNamed().getOrDefault("renju", "false"))){
+      if(RenjuRules.supports(winNumber)){
+        renjuRules = new RenjuRules(winNumber);
+      }
+      else{
+        System.out.println("Error: Renju rules need a winNumber from 3 to " + RenjuRules.MAX_WIN_NUMBER + ", playing Gomoku");
       }
     }
+    rules = renjuRules != null ? renjuRules : new GomokuRules(winNumber);
+    history = new MoveHistory(model, rules);
     
-    primaryStage.setScene(scene);
-    primaryStage.setTitle("Gomoku");
-    primaryStage.show();               
-  }
-  
-  /*
-   * method that determines how many pieces (of the same color) are in a straight line
-   * @param board  the current Gomoku board that is being played on 
-   * @param currentRow  the current row that the currently played piece is on
-   * @param currentColumn  the current column that the currently played piece is on 
-   * @param direction  the direction in which to search how many of the same pieces are in a straight line 
-   * @return the int value that is the number of pieces (that are of the same color) in a straight line 
-   */
-  public int numberInLine(PieceLocation[][] board, int currentRow, int currentColumn, String direction){
     /*
-     * numberOfPiecesInStraightLine: stores how many pieces of the same color are in a straight line; starts at 1 sinceit includes the current played piece
+     * adds a computer player if one is asked for with --computer=black or --computer=white; --depth and --thinkMillis 
+     * set how many moves ahead it searches and how long it may think about each move, and --threads sets how many threads it searches with;
+     * --engine=mcts makes it a Monte Carlo tree search player instead of alpha-beta (better on big boards, and it does not use --depth)
      */
-    int numberOfPiecesInStraightLine = 1;
-    /*
-     * notInARow: stores whether or not pieces of the same color are in a row
-     */
-    boolean notInARow = false;
-    if(direction.equals("north")){
-      /*
-       * loops through each row above the currently played piece
-       */
-      for(int row = currentRow-1; row > -1 && notInARow == false; row = row - 1){
-        if(!isBlackTurn && board[row][currentColumn].getBackground() == whiteButton){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else if(isBlackTurn && board[row][currentColumn].getBackground() == blackButton){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else {
-          notInARow = true;
-        }
+    String computer = getParameters().getNamed().get("computer");
+    if(computer != null && !computer.equalsIgnoreCase("black") && !computer.equalsIgnoreCase("white")){
+      System.out.println("Error: --computer must be black or white, not " + computer + ", playing without a computer player");
+      computer = null;
+    }
+    if(computer != null){
+      computerColor = computer.equalsIgnoreCase("black") ? BoardModel.BLACK : BoardModel.WHITE;
+      int depth = Integer.parseInt(getParameters().getNamed().getOrDefault("depth", "6"));
+      long thinkMillis = Long.parseLong(getParameters().getNamed().getOrDefault("thinkMillis", "1000"));
+      int threads = Integer.parseInt(getParameters().getNamed().getOrDefault("threads", "1"));
+      if(getParameters().getNamed().getOrDefault("engine", "alphabeta").equalsIgnoreCase("mcts")){
+        computerPlayer = new MctsPlayer(rules, threads, thinkMillis);
       }
-    }
-    else if(direction.equals("east")){
-      /*
-       * loops through each column to the right of the currently played piece
-       */
-      for(int column = currentColumn + 1; column < board.length && notInARow == false; column = column + 1){
-        if(!isBlackTurn && board[currentRow][column].getBackground() == whiteButton){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else if(isBlackTurn && board[currentRow][column].getBackground() == blackButton){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else {
-          notInARow = true;
-        }
+      else if(threads > 1){
+        computerPlayer = new ParallelSearch(rules, threads, depth, thinkMillis, 20);
       }
-    }
-    else if(direction.equals("south")){
-      /*
-       * loops through each row below the currently played piece
-       */
-      for(int row = currentRow + 1; row < board.length && notInARow == false; row = row + 1){
-        if(!isBlackTurn && board[row][currentColumn].getBackground().equals(whiteButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else if(isBlackTurn && board[row][currentColumn].getBackground().equals(blackButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else {
-          notInARow = true;
-        }
+      else{
+        computerPlayer = new AlphaBetaPlayer(rules, depth, thinkMillis);
       }
     }
-    else if(direction.equals("west")){
-      /*
-       * loops through each column to the left of the currently played piece
-       */
-      for(int column = currentColumn - 1; column > -1 && notInARow == false; column = column - 1){
-        if(!isBlackTurn && board[currentRow][column].getBackground().equals(whiteButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else if(isBlackTurn && board[currentRow][column].getBackground().equals(blackButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else {
-          notInARow = true;
+    
+    /*
+     * opens the opening book given with --book=file: the computer player plays from it while the game is in it,
+     * and the book moves for the player to move are shown on the board as hints
+     */
+    String bookFile = getParameters().getNamed().get("book");
+    if(bookFile != null){
+      try{
+        book = new OpeningBook(Paths.get(bookFile));
+        if(computerPlayer != null){
+          computerPlayer = new BookPlayer(rules, book, computerPlayer, System.nanoTime());
         }
       }
-    }
-    else if(direction.equals("northeast")){
-      /*
-       * loops through each row above and each column to the right of the currently played piece
-       */
-      for(int row = currentRow - 1, column = currentColumn + 1; row > -1 && column < board.length && notInARow == false; row = row - 1, column = column + 1){
-        if(!isBlackTurn && board[row][column].getBackground().equals(whiteButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else if(isBlackTurn && board[row][column].getBackground().equals(blackButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else {
-          notInARow = true;
-        }
+      catch(IOException e){
+        System.out.println("Error: cannot open the opening book " + bookFile + ": " + e.getMessage());
       }
     }
-    else if(direction.equals("southeast")){
-      /*
-       * loops through each row below and each column to the right of the currently played piece
-       */
-      for(int row = currentRow + 1, column = currentColumn + 1; row < board.length && column < board.length && notInARow == false; row = row + 1, column = column + 1){
-        if(!isBlackTurn && board[row][column].getBackground().equals(whiteButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else if(isBlackTurn && board[row][column].getBackground().equals(blackButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else {
-          notInARow = true;
-        }
+    
+    /*
+     * opens the position database given with --positions=file (made by PositionDatabase.main): when there is no opening book,
+     * every move of the position that is in the database shows how often the player to move won with it and in how many games
+     */
+    String positionsFile = getParameters().getNamed().get("positions");
+    if(positionsFile != null){
+      try{
+        if(!Files.exists(Paths.get(positionsFile))){
+          throw new IOException("there is no such file");
+        }
+        positions = new PositionDatabase(Paths.get(positionsFile), model.getRows(), model.getColumns());
+        hintMoves = new int[model.getRows() * model.getColumns()];
+        hintCounts = new int[3 * hintMoves.length];
       }
-    }
-    else if(direction.equals("southwest")){
-      /*
-       * loops through each row below and each column to the left of the currently played piece
-       */
-      for(int row = currentRow + 1, column = currentColumn - 1; row < board.length && column > -1 && notInARow == false; row = row + 1, column = column - 1){
-        if(!isBlackTurn && board[row][column].getBackground().equals(whiteButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else if(isBlackTurn && board[row][column].getBackground().equals(blackButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else {
-          notInARow = true;
-        }
+      catch(IOException e){
+        System.out.println("Error: cannot open the position database " + positionsFile + ": " + e.getMessage());
       }
     }
-    else if(direction.equals("northwest")){
+    
+    /*
+     * draws the board on one canvas, or with --view=buttons makes a button for every square like before (only the buttons are
+     * put in the board array; with the canvas it stays empty and only gives the size of the board)
+     */
+    Scene scene;
+    if(getParameters().getNamed().getOrDefault("view", "canvas").equalsIgnoreCase("buttons")){
+      GridPane gridPane = new GridPane();
+      scene = new Scene(gridPane);
+      ButtonClick buttonClick = new ButtonClick();
       /*
-       * loops through each row above and each column to the left of the currently played piece
+       * loops through each row of the board in order to create a button for each row
        */
-      for(int row = currentRow - 1, column = currentColumn - 1; row > -1 && column > -1 && notInARow == false; row = row - 1, column = column - 1){
-        if(!isBlackTurn && board[row][column].getBackground().equals(whiteButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else if(isBlackTurn && board[row][column].getBackground().equals(blackButton)){
-          numberOfPiecesInStraightLine = numberOfPiecesInStraightLine + 1;
-        }
-        else {
-          notInARow = true;
+      for (int row = 0; row < board.length; row = row + 1){
+        /*
+         * loops through each column of the board and creates a button in each row of each column
+         */
+        for (int column = 0; column < board[row].length; column = column + 1){
+          board[row][column] = new PieceLocation(row, column);
+          gridPane.add(board[row][column], column, row);
+          board[row][column].setMinSize(40,40);
+          board[row][column].setOnAction(buttonClick);
+          board[row][column].setBackground(noExistingButton);
         }
       }
     }
     else{
-      return -1;
+      boardCanvas = new BoardCanvas(board.length, board[0].length);
+      boardCanvas.setOnMouseClicked(event -> {
+        int index = boardCanvas.cellAt(event.getX(), event.getY());
+        if(event.getButton() == MouseButton.PRIMARY && index != -1){
+          squareClicked(index / model.getColumns(), index % model.getColumns());
+        }
+      });
+      ScrollPane scrollPane = new ScrollPane(boardCanvas);
+      scrollPane.setPrefViewportWidth(Math.min(boardCanvas.getWidth(), 800));
+      scrollPane.setPrefViewportHeight(Math.min(boardCanvas.getHeight(), 800));
+      scene = new Scene(scrollPane);
     }
-    return numberOfPiecesInStraightLine;
-  }
-  
-  /*
-   * method that determines whether or not a square on the board is empty
-   * @param board  the current Gomoku board that is being played on 
-   * @param currentRow  the current row that the currently played piece is on
-   * @param currentColumn  the current column that the currently played piece is on 
-   * @param direction  the direction in which to search how many of the same pieces are in a straight line 
-   * @return the boolean value stating whether or not a square on the board is empty (true if empty, false if not empty) 
-   */
-  public boolean isOpen(PieceLocation[][] board, int currentRow, int currentColumn, String direction){
+    
     /*
-     * isEmptySquare: stores whether or not a board square is empty or not
+     * Ctrl+Z (Cmd+Z on a Mac) takes back a move, and Ctrl+Y or Ctrl+Shift+Z plays it again
      */
-    boolean isEmptySquare = false;
-    if(direction.equals("north")){
-      /*
-       * loops through each row above the currently played piece
-       */
-      for(int row = currentRow-1; row > -1 && isEmptySquare == false; row = row - 1){
-        if(!isBlackTurn && !board[row][currentColumn].getBackground().equals(whiteButton)){
-          if (board[row][currentColumn].getBackground().equals(blackButton)){
-            return false;
-          }
-          else {
-            return true;
-          }
-        }
-        else if(isBlackTurn && !board[row][currentColumn].getBackground().equals(blackButton)){
-          if(board[row][currentColumn].getBackground().equals(whiteButton)){
-            return false;
-          }
-          else{
-            return true;
-          }
-        }
+    scene.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+      if(event.isShortcutDown() && event.getCode() == KeyCode.Z && !event.isShiftDown()){
+        runOnWorker(this::undoMove, true);
+        event.consume();
       }
-    }
-    else if(direction.equals("east")){
-      /*
-       * loops through each column to the right of the currently played piece
-       */
-      for(int column = currentColumn + 1; column < board.length && isEmptySquare == false; column = column + 1){
-        if(!isBlackTurn && !board[currentRow][column].getBackground().equals(whiteButton)){
-          if (board[currentRow][column].getBackground().equals(blackButton)){
-            return false;
-          }
-          else {
-            return true;
-          }
-        }
-        else if(isBlackTurn && !board[currentRow][column].getBackground().equals(blackButton)){
-          if(board[currentRow][column].getBackground().equals(whiteButton)){
-            return false;
-          }
-          else{
-            return true;
-          }
-        }
+      else if(event.isShortcutDown() && (event.getCode() == KeyCode.Y || event.getCode() == KeyCode.Z)){
+        runOnWorker(this::redoMove, true);
+        event.consume();
       }
-    }
-    else if(direction.equals("south")){
-      /*
-       * loops through each row below the currently played piece
-       */
-      for(int row = currentRow + 1; row < board.length && isEmptySquare == false; row = row + 1){
-        if(!isBlackTurn && !board[row][currentColumn].getBackground().equals(whiteButton)){
-          if (board[row][currentColumn].getBackground().equals(blackButton)){
-            return false;
-          }
-          else {
-            return true;
-          }
-        }
-        else if(isBlackTurn && !board[row][currentColumn].getBackground().equals(blackButton)){
-          if(board[row][currentColumn].getBackground().equals(whiteButton)){
-            return false;
-          }
-          else{
-            return true;
-          }
-        }
+    });
+    
+    /*
+     * saves every finished game to the file given with --record=file; a game that is not over when the window closes is saved as unfinished
+     */
+    String recordFile = getParameters().getNamed().get("record");
+    if(recordFile != null){
+      try{
+        recordWriter = new GameRecordWriter(Paths.get(recordFile));
       }
-    }
-    else if(direction.equals("west")){
-      /*
-       * loops through each column to the left of the currently played piece
-       */
-      for(int column = currentColumn - 1; column > -1 && isEmptySquare == false; column = column - 1){
-        if(!isBlackTurn && !board[currentRow][column].getBackground().equals(whiteButton)){
-          if (board[currentRow][column].getBackground().equals(blackButton)){
-            return false;
-          }
-          else {
-            return true;
-          }
-        }
-        else if(isBlackTurn && !board[currentRow][column].getBackground().equals(blackButton)){
-          if(board[currentRow][column].getBackground().equals(whiteButton)){
-            return false;
-          }
-          else{
-            return true;
-          }
-        }
+      catch(IOException e){
+        System.out.println("Error: cannot record games to " + recordFile + ": " + e.getMessage());
       }
     }
-    else if(direction.equals("northeast")){
-      /*
-       * loops through each row above and each column to the right of the currently played piece
-       */
-      for(int row = currentRow - 1, column = currentColumn + 1; row > -1 && column < board.length && isEmptySquare == false; row = row - 1, column = column + 1){
-        if(!isBlackTurn && !board[row][column].getBackground().equals(whiteButton)){
-          if (board[row][column].getBackground().equals(blackButton)){
-            return false;
-          }
-          else {
-            return true;
-          }
-        }
-        else if(isBlackTurn && !board[row][column].getBackground().equals(blackButton)){
-          if(board[row][column].getBackground().equals(whiteButton)){
-            return false;
-          }
-          else{
-            return true;
-          }
-        }
-      }
+    /*
+     * starts from the first game in the file given with --load=file (SGF, PSQ or RENJU, picked from the end of the file name),
+     * and writes the game to the file given with --save=file when the window closes
+     */
+    String loadFile = getParameters().getNamed().get("load");
+    if(loadFile != null){
+      loadGame(loadFile);
     }
-    else if(direction.equals("southeast")){
-      /*
-       * loops through each row below and each column to the right of the currently played piece
-       */
-      for(int row = currentRow + 1, column = currentColumn + 1; row < board.length && column < board.length && isEmptySquare == false; row = row + 1, column = column + 1){
-        if(!isBlackTurn && !board[row][column].getBackground().equals(whiteButton)){
-          if (board[row][column].getBackground().equals(blackButton)){
-            return false;
-          }
-          else {
-            return true;
-          }
+    String saveFile = getParameters().getNamed().get("save");
+    primaryStage.setOnCloseRequest(event -> {
+      Future<?> closing = runOnWorker(() -> {
+        if(!gameIsOver && model.getMoveCount() > 0){
+          recordGame(gameResult());
         }
-        else if(isBlackTurn && !board[row][column].getBackground().equals(blackButton)){
-          if(board[row][column].getBackground().equals(whiteButton)){
-            return false;
-          }
-          else{
-            return true;
-          }
+        closeRecord();
+        if(saveFile != null){
+          saveGame(saveFile);
         }
-      }
-    }
-    else if(direction.equals("northwest")){
-       /*
-       * loops through each row above and each column to the left of the currently played piece
-       */
-      for(int row = currentRow - 1, column = currentColumn - 1; row > -1 && column > -1 && isEmptySquare == false; row = row - 1, column = column - 1){
-        if(!isBlackTurn && !board[row][column].getBackground().equals(whiteButton)){
-          if (board[row][column].getBackground().equals(blackButton)){
-            return false;
+        if(book != null){
+          try{
+            book.close();
           }
-          else {
-            return true;
+          catch(IOException e){
+            System.out.println("Error: cannot close the opening book: " + e.getMessage());
           }
         }
-        else if(isBlackTurn && !board[row][column].getBackground().equals(blackButton)){
-          if(board[row][column].getBackground().equals(whiteButton)){
-            return false;
+        if(positions != null){
+          try{
+            positions.close();
           }
-          else{
-            return true;
+          catch(IOException e){
+            System.out.println("Error: cannot close the position database: " + e.getMessage());
           }
         }
-      }
-    }
-    else if(direction.equals("southwest")){
+      }, true);
       /*
-       * loops through each row below and each column to the left of the currently played piece
+       * waits for the game to be saved before the window closes
        */
-      for(int row = currentRow + 1, column = currentColumn - 1; row < board.length && column > -1 && isEmptySquare == false; row = row + 1, column = column - 1){
-        if(!isBlackTurn && !board[row][column].getBackground().equals(whiteButton)){
-          if (board[row][column].getBackground().equals(blackButton)){
-            return false;
-          }
-          else {
-            return true;
-          }
-        }
-        else if(isBlackTurn && !board[row][column].getBackground().equals(blackButton)){
-          if(board[row][column].getBackground().equals(whiteButton)){
-            return false;
-          }
-          else{
-            return true;
-          }
-        }
+      try{
+        closing.get();
+      }
+      catch(InterruptedException e){
+        Thread.currentThread().interrupt();
+      }
+      catch(ExecutionException e){
+        System.out.println("Error: cannot save the game: " + e.getCause());
+      }
+      worker.shutdown();
+      if(computerPlayer != null){
+        computerPlayer.shutdown();
+      }
+    });
+    
+    primaryStage.setScene(scene);
+    primaryStage.setTitle("Gomoku");
+    primaryStage.show();               
+    runOnWorker(() -> {
+      playComputerMove();
+      showBookHints();
+      showMarks();
+    }, false);
+  }
+  
+  /*
+   * method that asks the worker thread to run a task after the ones it was already asked to run
+   * @param task  the task
+   * @param changesPosition  whether the task takes back or plays again moves, so the computer player should stop thinking about the
+   * position it is thinking about (and its move is thrown away)
+   * @return the Future of the task
+   */
+  private Future<?> runOnWorker(Runnable task, boolean changesPosition){
+    long version = changesPosition ? positionVersion.incrementAndGet() : positionVersion.get();
+    AtomicBoolean stop = searchStop;
+    if(changesPosition && stop != null){
+      stop.set(true);
+    }
+    return worker.submit(() -> {
+      taskVersion = version;
+      try{
+        task.run();
       }
+      catch(RuntimeException e){
+        System.out.println("Error: " + e.getMessage());
+      }
+    });
+  }
+  
+  /*
+   * method that runs a change to the window on the JavaFX Application Thread (right away if it is already on it)
+   */
+  private static void runOnFx(Runnable change){
+    if(Platform.isFxApplicationThread()){
+      change.run();
+    }
+    else{
+      Platform.runLater(change);
     }
-    return false;
+  }
+  
+  /*
+   * method that determines how many pieces (of the same color) are in a straight line
+   * @param board  the current Gomoku board that is being played on 
+   * @param currentRow  the current row that the currently played piece is on
+   * @param currentColumn  the current column that the currently played piece is on 
+   * @param direction  the direction in which to search how many of the same pieces are in a straight line 
+   * @return the int value that is the number of pieces (that are of the same color) in a straight line, or -1 if the direction is not valid
+   */
+  public int numberInLine(PieceLocation[][] board, int currentRow, int currentColumn, String direction){
+    int directionIndex = LineRuns.directionOf(direction);
+    if(directionIndex == -1){
+      return -1;
+    }
+    return numberInLine(board, currentRow, currentColumn, directionIndex);
+  }
+  
+  /*
+   * method that determines how many pieces (of the same color) are in a straight line
+   * @param board  the current Gomoku board that is being played on 
+   * @param currentRow  the current row that the currently played piece is on
+   * @param currentColumn  the current column that the currently played piece is on 
+   * @param direction  the direction constant (LineRuns.NORTH to LineRuns.NORTHWEST) in which to search
+   * @return the int value that is the number of pieces (that are of the same color) in a straight line; starts at 1 since it includes the current played piece
+   */
+  public int numberInLine(PieceLocation[][] board, int currentRow, int currentColumn, int direction){
+    return 1 + LineRuns.scan(model, currentRow, currentColumn, direction, currentColor(), columnLimit(board));
+  }
+  
+  /*
+   * method that determines whether or not a square on the board is empty
+   * @param board  the current Gomoku board that is being played on 
+   * @param currentRow  the current row that the currently played piece is on
+   * @param currentColumn  the current column that the currently played piece is on 
+   * @param direction  the direction in which to search how many of the same pieces are in a straight line 
+   * @return the boolean value stating whether or not a square on the board is empty (true if empty, false if not empty) 
+   */
+  public boolean isOpen(PieceLocation[][] board, int currentRow, int currentColumn, String direction){
+    int directionIndex = LineRuns.directionOf(direction);
+    if(directionIndex == -1){
+      return false;
+    }
+    return isOpen(board, currentRow, currentColumn, directionIndex);
+  }
+  
+  /*
+   * method that determines whether or not the square past the straight line of pieces in a direction is empty
+   * @param board  the current Gomoku board that is being played on 
+   * @param currentRow  the current row that the currently played piece is on
+   * @param currentColumn  the current column that the currently played piece is on 
+   * @param direction  the direction constant (LineRuns.NORTH to LineRuns.NORTHWEST) in which to search
+   * @return the boolean value stating whether or not a square on the board is empty (true if empty, false if not empty) 
+   */
+  public boolean isOpen(PieceLocation[][] board, int currentRow, int currentColumn, int direction){
+    return LineRuns.scanIsOpen(model, currentRow, currentColumn, direction, currentColor(), columnLimit(board));
+  }
+  
+  /*
+   * method that gets the first column past the right edge for the straight line searches; like the original searches this uses 
+   * the number of rows (board.length), but never goes past the real number of columns
+   * @param board  the current Gomoku board that is being played on 
+   * @return the column that a search to the right stops at
+   */
+  private int columnLimit(PieceLocation[][] board){
+    return Math.min(board.length, model.getColumns());
   }
   
   /*
@@ -489,51 +548,10 @@ public class Gomoku extends Application{
    * @return the boolean value stating whether or not the three-three rule is being followed (true if rule is being followed, false if rule is not being followed) 
    */
   public boolean threeThreeRuleFollowed(PieceLocation[][] board, int currentRow, int currentColumn){
-    /*
-     * totalThrees: stores the number of groups of three pieces in a row with empty spaces on either end 
-     */
-    int totalThrees = 0;
-    /*
-     * if the number of pieces in a straight line north and south of the currently played piece equals one minus the winNumber 
-     * AND both ends of each straight line pieces are open, then increment the number of rows that are have three pieces in a row 
-     */
-    if (numberInLine(board, currentRow, currentColumn, "north") + 
-        numberInLine(board, currentRow, currentColumn, "south") == winNumber - 1 
-       && isOpen(board, currentRow, currentColumn, "north") 
-          && isOpen(board, currentRow, currentColumn, "south")){
-      totalThrees++;
-    }
-    /*
-     * if the number of pieces in a straight line northeast and southwest of the currently played piece equals one minus the winNumber 
-     * AND both ends of each straight line pieces are open, then increment the number of rows that are have three pieces in a row 
-     */
-    if (numberInLine(board, currentRow, currentColumn, "northeast") + 
-        numberInLine(board, currentRow, currentColumn, "southwest") == winNumber - 1
-       && isOpen(board, currentRow, currentColumn, "northeast") 
-          && isOpen(board, currentRow, currentColumn, "southwest")){
-      totalThrees++;
-    }
-    /*
-     * if the number of pieces in a straight line east and west of the currently played piece equals one minus the winNumber 
-     * AND both ends of each straight line pieces are open, then increment the number of rows that are have three pieces in a row 
-     */
-    if (numberInLine(board, currentRow, currentColumn, "east") + 
-        numberInLine(board, currentRow, currentColumn, "west") == winNumber - 1
-       && isOpen(board, currentRow, currentColumn, "east") 
-          && isOpen(board, currentRow, currentColumn, "west")){
-      totalThrees++;
-    }
-    /*
-     * if the number of pieces in a straight line southeast and northwest of the currently played piece equals one minus the winNumber 
-     * AND both ends of each straight line pieces are open, then increment the number of rows that are have three pieces in a row 
-     */
-    if (numberInLine(board, currentRow, currentColumn, "southeast") + 
-        numberInLine(board, currentRow, currentColumn, "northwest") == winNumber - 1
-       && isOpen(board, currentRow, currentColumn, "southeast") 
-          && isOpen(board, currentRow, currentColumn, "northwest")){
-      totalThrees++;
-    }
-    return !(totalThrees > 1); 
+    long start = MoveMetrics.start();
+    boolean followed = rules.threeThreeRuleFollowed(model, currentRow, currentColumn, currentColor());
+    MoveMetrics.stop(MoveMetrics.THREE_THREE, start);
+    return followed;
   }
   
   /*
@@ -544,43 +562,24 @@ public class Gomoku extends Application{
    * @return the boolean value stating whether or not the four-four rule is being followed (true if rule is being followed, false if rule is not being followed) 
    */
   public boolean fourFourRuleFollowed(PieceLocation[][] board, int currentRow, int currentColumn){
-    /*
-     * totalFoursOnceMoveIsMade: stores the number of groups of four pieces in a row 
-     */
-    int totalFoursOnceMoveIsMade = 0;
-    /*
-     * if the number of pieces in a straight line north and south of the currently played piece equals the winNumber, 
-     * then increment the number of rows that are have four pieces in a row 
-     */
-    if (numberInLine(board, currentRow, currentColumn, "north") + 
-        numberInLine(board, currentRow, currentColumn, "south") == winNumber){
-      totalFoursOnceMoveIsMade++;
-    }
-    /*
-     * if the number of pieces in a straight line northeast and southwest of the currently played piece equals the winNumber, 
-     * then increment the number of rows that are have four pieces in a row 
-     */
-    if (numberInLine(board, currentRow, currentColumn, "northeast") + 
-        numberInLine(board, currentRow, currentColumn, "southwest") == winNumber){
-      totalFoursOnceMoveIsMade++;
-    }
-    /*
-     * if the number of pieces in a straight line east and west of the currently played piece equals the winNumber, 
-     * then increment the number of rows that are have four pieces in a row 
-     */
-    if (numberInLine(board, currentRow, currentColumn, "east") + 
-        numberInLine(board, currentRow, currentColumn, "west") == winNumber){
-      totalFoursOnceMoveIsMade++;
-    }
-    /*
-     * if the number of pieces in a straight line southeast and northwest of the currently played piece equals the winNumber, 
-     * then increment the number of rows that are have four pieces in a row 
-     */
-    if (numberInLine(board, currentRow, currentColumn, "southeast") + 
-        numberInLine(board, currentRow, currentColumn, "northwest") == winNumber){
-      totalFoursOnceMoveIsMade++;
-    }
-    return !(totalFoursOnceMoveIsMade > 1); 
+    long start = MoveMetrics.start();
+    boolean followed = rules.fourFourRuleFollowed(model, currentRow, currentColumn, currentColor());
+    MoveMetrics.stop(MoveMetrics.FOUR_FOUR, start);
+    return followed;
+  }
+  
+  /*
+   * method that prevents the creation of a straight line of more pieces than winNumber, which only the Renju rules forbid (for black)
+   * @param board  the current Gomoku board that is being played on 
+   * @param currentRow  the current row that the currently played piece is on
+   * @param currentColumn  the current column that the currently played piece is on  
+   * @return the boolean value stating whether or not the overline rule is being followed (true if rule is being followed, false if rule is not being followed) 
+   */
+  public boolean overlineRuleFollowed(PieceLocation[][] board, int currentRow, int currentColumn){
+    long start = MoveMetrics.start();
+    boolean followed = rules.overlineRuleFollowed(model, currentRow, currentColumn, currentColor());
+    MoveMetrics.stop(MoveMetrics.OVERLINE, start);
+    return followed;
   }
   
   /*
@@ -591,91 +590,382 @@ public class Gomoku extends Application{
    * @return the boolean value stating whether or not the currently played piece is the winning move (if a piece makes the winning move, it prints out who the winner is) 
    */
   public boolean isAWin(PieceLocation[][] board, int currentRow, int currentColumn){
-    if(isBlackTurn == true){
-      /*
-      * if the number of pieces in a straight line north and south of the currently played piece equals the winNumber, 
-      * then print out black as the winner and the game is over 
-      */
-      if (numberInLine(board, currentRow, currentColumn, "north") + 
-          numberInLine(board, currentRow, currentColumn, "south") == winNumber + 1){
+    /*
+     * if the number of pieces in a straight line along any axis through the currently played piece equals the winNumber, 
+     * then print out the current player as the winner and the game is over 
+     */
+    long start = MoveMetrics.start();
+    boolean win = rules.isWin(model, currentRow, currentColumn, currentColor());
+    MoveMetrics.stop(MoveMetrics.WIN_CHECK, start);
+    if (win){
+      if(isBlackTurn == true){
         System.out.println("Black is the winner!");
-        gameIsOver = true;
       }
-      /*
-      * if the number of pieces in a straight line northeast and southwest of the currently played piece equals the winNumber, 
-      * then print out black as the winner and the game is over 
-      */
-      if (numberInLine(board, currentRow, currentColumn, "northeast") + 
-        numberInLine(board, currentRow, currentColumn, "southwest") == winNumber + 1){
-        System.out.println("Black is the winner!");
-        gameIsOver = true;
+      else{
+        System.out.println("White is the winner!");
       }
-      /*
-      * if the number of pieces in a straight line east and west of the currently played piece equals the winNumber, 
-      * then print out black as the winner and the game is over 
-      */
-      if (numberInLine(board, currentRow, currentColumn, "east") + 
-        numberInLine(board, currentRow, currentColumn, "west") == winNumber + 1){
-        System.out.println("Black is the winner!");
-        gameIsOver = true;
+      gameIsOver = true;
+    }
+    return true;  
+  }
+  
+  /*
+   * method that gets the color of the player whose turn it is
+   * @return BoardModel.BLACK if it is the black piece player's turn, BoardModel.WHITE if it is the white piece player's turn
+   */
+  private int currentColor(){
+    return isBlackTurn ? BoardModel.BLACK : BoardModel.WHITE;
+  }
+  
+  /*
+   * main method: runs the GUI and makes the board appear (depending on the inputs)
+   * @param args  String that determines the number of pieces in a row needed to win and the size of the board (row by column), depending on the number of input(s)
+   */
+  public static void main(String[] args){
+    Application.launch(args); 
+  }
+  
+  /*
+   * method that plays a move for the player whose turn it is, if the square is empty, the four-four rule, the three-three rule 
+   * and the overline rule have not been broken, and the game is not over
+   * @param row  the row of the square to play on
+   * @param column  the column of the square to play on
+   * @return true if the move was played, false if it was not allowed
+   */
+  public boolean playMove(int row, int column){
+    long start = MoveMetrics.start();
+    MoveEvent event = MoveMetrics.beginMove();
+    long stepsBefore = model.getScanSteps();
+    int color = currentColor();
+    if(model.isEmpty(row,column) && fourFourRuleFollowed(board,row,column) && 
+       threeThreeRuleFollowed(board,row,column) && overlineRuleFollowed(board,row,column) && !gameIsOver){
+      isAWin(board,row,column);
+      MoveMetrics.moveChecked(event, start, model, stepsBefore, row, column, color, true, gameIsOver);
+      if(isBlackTurn == true){
+        history.place(row, column, BoardModel.BLACK, gameIsOver);
+        showPiece(row, column, BoardModel.BLACK);
+        isBlackTurn = false;
       }
-      /*
-      * if the number of pieces in a straight line southeast and northwest of the currently played piece equals the winNumber, 
-      * then print out black as the winner and the game is over 
-      */
-      if (numberInLine(board, currentRow, currentColumn, "southeast") + 
-        numberInLine(board, currentRow, currentColumn, "northwest") == winNumber + 1){
-        System.out.println("Black is the winner!");
-        gameIsOver = true;
+      else{
+        history.place(row, column, BoardModel.WHITE, gameIsOver);
+        showPiece(row, column, BoardModel.WHITE);
+        isBlackTurn = true;
       }
+      if(gameIsOver){
+        recordGame(color);
+      }
+      showBookHints();
+      showMarks();
+      return true;
     }
-    else{
-      /*
-      * if the number of pieces in a straight line north and south of the currently played piece equals the winNumber, 
-      * then print out white as the winner and the game is over 
-      */
-      if (numberInLine(board, currentRow, currentColumn, "north") + 
-          numberInLine(board, currentRow, currentColumn, "south") == winNumber + 1){
-        System.out.println("White is the winner!");
-        gameIsOver = true;
+    MoveMetrics.moveChecked(event, start, model, stepsBefore, row, column, color, false, false);
+    System.out.println("You cannot make this move");
+    return false;
+  }
+  
+  /*
+   * method that saves the game on the board to the record file, if games are being recorded
+   * @param result  GameRecordWriter.UNFINISHED, GameRecordWriter.DRAW, or BoardModel.BLACK or BoardModel.WHITE for the winner
+   */
+  private void recordGame(int result){
+    if(recordWriter != null){
+      try{
+        recordWriter.writeGame(model, winNumber, result);
       }
-      /*
-      * if the number of pieces in a straight line northeast and southwest of the currently played piece equals the winNumber, 
-      * then print out white as the winner and the game is over 
-      */
-      if (numberInLine(board, currentRow, currentColumn, "northeast") + 
-        numberInLine(board, currentRow, currentColumn, "southwest") == winNumber + 1){
-        System.out.println("White is the winner!");
-        gameIsOver = true;
+      catch(IOException e){
+        System.out.println("Error: cannot record the game: " + e.getMessage());
       }
-      /*
-      * if the number of pieces in a straight line east and west of the currently played piece equals the winNumber, 
-      * then print out white as the winner and the game is over 
-      */
-      if (numberInLine(board, currentRow, currentColumn, "east") + 
-        numberInLine(board, currentRow, currentColumn, "west") == winNumber + 1){
-        System.out.println("White is the winner!");
-        gameIsOver = true;
+    }
+  }
+  
+  /*
+   * method that closes the record file, if games are being recorded
+   */
+  private void closeRecord(){
+    if(recordWriter != null){
+      try{
+        recordWriter.close();
       }
-      /*
-      * if the number of pieces in a straight line southeast and northwest of the currently played piece equals the winNumber, 
-      * then print out white as the winner and the game is over 
-      */
-      if (numberInLine(board, currentRow, currentColumn, "southeast") + 
-        numberInLine(board, currentRow, currentColumn, "northwest") == winNumber + 1){
-        System.out.println("White is the winner!");
-        gameIsOver = true;
+      catch(IOException e){
+        System.out.println("Error: cannot close the record file: " + e.getMessage());
       }
+      recordWriter = null;
     }
-    return true;  
   }
   
   /*
-   * main method: runs the GUI and makes the board appear (depending on the inputs)
-   * @param args  String that determines the number of pieces in a row needed to win and the size of the board (row by column), depending on the number of input(s)
+   * method that puts the first game of a text file (SGF, PSQ or RENJU) on the board; the moves are placed as they are written,
+   * without checking the rules, and the player who did not make the last move is next
+   * @param file  the file to load
    */
-  public static void main(String[] args){
-    Application.launch(args); 
+  private void loadGame(String file){
+    try(Reader in = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)){
+      GameNotationReader reader = new GameNotationReader(in, GameNotationReader.formatOf(file), model.getRows(), model.getColumns());
+      if(!reader.next()){
+        System.out.println("Error: there is no game in " + file);
+        return;
+      }
+      BoardModel loaded = reader.getModel();
+      if(loaded.getRows() != model.getRows() || loaded.getColumns() != model.getColumns()){
+        System.out.println("Error: the game in " + file + " is on a " + loaded.getRows() + "x" + loaded.getColumns() + " board");
+        return;
+      }
+      int color = BoardModel.WHITE;
+      for(int i = 0; i < loaded.getMoveCount(); i = i + 1){
+        int row = loaded.getMove(i) / loaded.getColumns();
+        int column = loaded.getMove(i) % loaded.getColumns();
+        color = loaded.colorAt(row, column);
+        boolean won = reader.getResult() == BoardModel.BLACK || reader.getResult() == BoardModel.WHITE;
+        history.place(row, column, color, i == loaded.getMoveCount() - 1 && won);
+        showPiece(row, column, color);
+      }
+      isBlackTurn = color == BoardModel.WHITE;
+      gameIsOver = history.isGameOver();
+    }
+    catch(IOException e){
+      System.out.println("Error: cannot load " + file + ": " + e.getMessage());
+    }
+  }
+  
+  /*
+   * method that gets the result of the game on the board, from the move history rather than whose turn it is, so a full board is a draw
+   * @return BoardModel.BLACK or BoardModel.WHITE for the winner, GameRecordWriter.DRAW, or GameRecordWriter.UNFINISHED
+   */
+  private int gameResult(){
+    int winner = history.getWinner();
+    if(winner != BoardModel.EMPTY){
+      return winner;
+    }
+    return history.isGameOver() ? GameRecordWriter.DRAW : GameRecordWriter.UNFINISHED;
+  }
+  
+  /*
+   * method that writes the game on the board to a text file (SGF, PSQ or RENJU, picked from the end of the file name)
+   * @param file  the file to write
+   */
+  private void saveGame(String file){
+    if(GameNotationReader.formatOf(file) != GameNotationReader.SGF && !GameNotationWriter.isAlternating(model)){
+      System.out.println("Error: cannot save the game to " + file + ": only SGF can hold a game in which the players do not take turns");
+      return;
+    }
+    try(Writer out = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8);
+        GameNotationWriter writer = new GameNotationWriter(out, GameNotationReader.formatOf(file))){
+      writer.writeGame(model, gameResult());
+    }
+    catch(IOException e){
+      System.out.println("Error: cannot save the game to " + file + ": " + e.getMessage());
+    }
+  }
+  
+  /*
+   * method that shows the opening book moves for the player to move on the board, as each move's share of the book weight, or
+   * with no book the moves the position database has for the position, as the share of points the player to move got with
+   * each (a draw is half a point) over the number of games; the hints of the last position are taken off first
+   */
+  private void showBookHints(){
+    for(int i = 0; i < hintCount; i = i + 1){
+      showText(hintMoves[i] / model.getColumns(), hintMoves[i] % model.getColumns(), "");
+    }
+    hintCount = 0;
+    if(gameIsOver){
+      return;
+    }
+    if(book != null){
+      hintCount = book.lookup(model, currentColor(), hintMoves, hintCounts);
+      long total = 0;
+      for(int i = 0; i < hintCount; i = i + 1){
+        total = total + hintCounts[i];
+      }
+      for(int i = 0; i < hintCount; i = i + 1){
+        showText(hintMoves[i] / model.getColumns(), hintMoves[i] % model.getColumns(), (long) hintCounts[i] * 100 / total + "%");
+      }
+    }
+    else if(positions != null){
+      hintCount = positions.lookup(model, currentColor(), hintMoves, hintCounts);
+      for(int i = 0; i < hintCount; i = i + 1){
+        long games = (long) hintCounts[3 * i] + hintCounts[3 * i + 1] + hintCounts[3 * i + 2];
+        long score = (2L * hintCounts[3 * i] + hintCounts[3 * i + 1]) * 50 / games;
+        showText(hintMoves[i] / model.getColumns(), hintMoves[i] % model.getColumns(), score + "%\n" + games);
+      }
+    }
+  }
+  
+  /*
+   * method that marks the squares where the player to move may not play (with a cross) and, with --threatHints=true, the squares
+   * where they would make a five, an open four or a four; the marks of the last position are taken off first, and a square
+   * showing a book hint keeps it
+   */
+  private void showMarks(){
+    int columns = model.getColumns();
+    for(int i = 0; i < markedCount; i = i + 1){
+      if(!isHint(markedMoves[i])){
+        showText(markedMoves[i] / columns, markedMoves[i] % columns, "");
+      }
+    }
+    markedCount = 0;
+    if(gameIsOver){
+      return;
+    }
+    int color = currentColor();
+    threatMap.compute(model, rules);
+    markedCount = threatMap.forbiddenSquares(color, markedMoves);
+    for(int i = 0; i < markedCount; i = i + 1){
+      showText(markedMoves[i] / columns, markedMoves[i] % columns, "\u00d7");
+    }
+    if(!showThreats){
+      return;
+    }
+    for(int square = 0; square < markedMoves.length; square = square + 1){
+      int threat = threatMap.threatAt(square, color);
+      if(threat >= ThreatMap.FOUR && !threatMap.isForbidden(color, square) && !isHint(square)){
+        markedMoves[markedCount] = square;
+        markedCount = markedCount + 1;
+        showText(square / columns, square % columns, threat == ThreatMap.FIVE ? "5" : threat == ThreatMap.OPEN_FOUR ? "4+" : "4");
+      }
+    }
+  }
+  
+  /*
+   * method that determines whether a square is showing a book hint
+   */
+  private boolean isHint(int square){
+    for(int i = 0; i < hintCount; i = i + 1){
+      if(hintMoves[i] == square){
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  /*
+   * method that takes back the last move; against a computer player, moves are taken back until it is the person's turn again
+   * the turn, whether the game is over and the book hints all come back to what they were before the move
+   */
+  public void undoMove(){
+    if(!history.canUndo()){
+      return;
+    }
+    do{
+      int index = history.undo();
+      showPiece(index / model.getColumns(), index % model.getColumns(), BoardModel.EMPTY);
+    }while(computerPlayer != null && history.canUndo() && history.currentColor() == computerColor);
+    afterHistoryChange();
+  }
+  
+  /*
+   * method that plays again the last move that was taken back; against a computer player, moves are played again until it is
+   * the person's turn
+   */
+  public void redoMove(){
+    if(!history.canRedo()){
+      return;
+    }
+    do{
+      int index = history.redo();
+      int row = index / model.getColumns();
+      int column = index % model.getColumns();
+      showPiece(row, column, model.colorAt(row, column));
+    }while(computerPlayer != null && history.canRedo() && history.currentColor() == computerColor);
+    afterHistoryChange();
+  }
+  
+  /*
+   * method that brings the turn, gameIsOver and the book hints up to date with the history after an undo or a redo,
+   * and lets the computer player move if it is its turn
+   */
+  private void afterHistoryChange(){
+    isBlackTurn = history.currentColor() == BoardModel.BLACK;
+    gameIsOver = history.isGameOver();
+    showBookHints();
+    showMarks();
+    if(!history.canRedo()){
+      playComputerMove();
+    }
+  }
+  
+  /*
+   * method that shows a piece on a square of the board, or takes it off with BoardModel.EMPTY, on the canvas or on the square's button
+   */
+  private void showPiece(int row, int column, int color){
+    runOnFx(() -> {
+      if(boardCanvas != null){
+        boardCanvas.setPiece(row, column, color);
+      }
+      else if(color == BoardModel.EMPTY){
+        board[row][column].setBackground(noExistingButton);
+      }
+      else{
+        board[row][column].setBackground(color == BoardModel.BLACK ? blackButton : whiteButton);
+      }
+    });
+  }
+  
+  /*
+   * method that shows a text on a square of the board (a hint or a mark), or takes it off with ""
+   */
+  private void showText(int row, int column, String text){
+    runOnFx(() -> {
+      if(boardCanvas != null){
+        boardCanvas.setText(row, column, text);
+      }
+      else{
+        board[row][column].setText(text);
+      }
+    });
+  }
+  
+  /*
+   * method that is called on the JavaFX Application Thread when a square is clicked: a click while the computer player is thinking
+   * is ignored, and any other click is played on the worker thread
+   */
+  private void squareClicked(int row, int column){
+    if(searchStop == null){
+      runOnWorker(() -> clickSquare(row, column), false);
+    }
+  }
+  
+  /*
+   * method that plays a square the player clicked, for the player whose turn it is, then lets the computer player answer;
+   * a click while it is the computer player's turn is ignored
+   * @param row  the row of the square
+   * @param column  the column of the square
+   */
+  public void clickSquare(int row, int column){
+    if(computerPlayer != null && currentColor() == computerColor){
+      return;
+    }
+    if(playMove(row, column)){
+      playComputerMove();
+    }
+  }
+  
+  /*
+   * method that lets the computer player make its move, if there is a computer player, it is its turn and the game is not over
+   */
+  public void playComputerMove(){
+    if(computerPlayer != null && !gameIsOver && currentColor() == computerColor){
+      AtomicBoolean stop = new AtomicBoolean(false);
+      searchStop = stop;
+      try{
+        /*
+         * a move is not thought about if a move has been taken back or played again since this task was asked for (the task for that
+         * is waiting, and will let the computer player move if it should), and it is thrown away if that happens while thinking
+         */
+        if(positionVersion.get() != taskVersion){
+          return;
+        }
+        computerPlayer.setStopSignal(stop);
+        long start = MoveMetrics.start();
+        int move = computerPlayer.chooseMove(model, computerColor);
+        MoveMetrics.stop(MoveMetrics.COMPUTER_MOVE, start);
+        if(move != -1 && positionVersion.get() == taskVersion){
+          playMove(move / model.getColumns(), move % model.getColumns());
+        }
+      }
+      finally{
+        searchStop = null;
+      }
+    }
   }
   
   /*
@@ -684,26 +974,7 @@ public class Gomoku extends Application{
   public class ButtonClick implements EventHandler<ActionEvent>{
     public void handle(ActionEvent e){
       PieceLocation b = (PieceLocation) e.getSource();
-      
-      /*
-       * if the background is green, the four-four rule and the three-three rule have not been broken, a win has not been made, and the game is not over, 
-       * then let the game be played the each button click alternate between black and white buttons
-       */
-      if(b.getBackground() == noExistingButton && fourFourRuleFollowed(board,b.getRow(),b.getColumn()) && 
-         threeThreeRuleFollowed(board,b.getRow(),b.getColumn()) && !gameIsOver){
-         isAWin(board,b.getRow(),b.getColumn());
-        if(isBlackTurn == true){
-          b.setBackground(blackButton);
-          isBlackTurn = false;
-        }
-        else{
-          b.setBackground(whiteButton);
-          isBlackTurn = true;
-        }
-      }
-      else{
-        System.out.println("You cannot make this move");
-      }
+      squareClicked(b.getRow(), b.getColumn());
     }
   }
   /*
@@ -0,0 +1,125 @@
+/*
+ * class that holds the rules of Gomoku (winning, the three-three rule and the four-four rule) so they can be checked on a BoardModel
+ * without a JavaFX window, by the game itself and by computer players
+ * @author Esther Shin
+ */
+
+public class GomokuRules{
+  /*
+   * field winNumber  represents/stores the number of pieces in a row needed to win a game
+   */
+  private final int winNumber;
+
+  /*
+   * constructor for the GomokuRules class
+   * @param winNumber  the number of pieces in a row needed to win a game
+   */
+  public GomokuRules(int winNumber){
+    this.winNumber = winNumber;
+  }
+
+  /*
+   * method that gets the value of winNumber
+   */
+  public int getWinNumber(){
+    return winNumber;
+  }
+
+  /*
+   * method that determines whether placing a piece on an empty square would make a straight line of exactly winNumber pieces
+   * @param model  the board being played on
+   * @param row  the row the piece would be placed on
+   * @param column  the column the piece would be placed on
+   * @param color  the color of the piece (BoardModel.BLACK or BoardModel.WHITE)
+   * @return true if the move wins the game, false if it does not
+   */
+  public boolean isWin(BoardModel model, int row, int column, int color){
+    LineRuns lineRuns = model.getLineRuns();
+    /*
+     * loops through the four axes (north-south, northeast-southwest, east-west, southeast-northwest)
+     */
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      if(lineRuns.lineLength(row, column, axis, color) == winNumber){
+        MoveMetrics.scanned(model, 2 * (axis + 1));
+        return true;
+      }
+    }
+    MoveMetrics.scanned(model, 8);
+    return false;
+  }
+
+  /*
+   * method that determines whether placing a piece would follow the three-three rule (not making two or more lines of winNumber - 2
+   * pieces with empty squares at both ends at the same time)
+   * @param model  the board being played on
+   * @param row  the row the piece would be placed on
+   * @param column  the column the piece would be placed on
+   * @param color  the color of the piece
+   * @return true if the rule is being followed, false if it is not
+   */
+  public boolean threeThreeRuleFollowed(BoardModel model, int row, int column, int color){
+    LineRuns lineRuns = model.getLineRuns();
+    int totalThrees = 0;
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      if(lineRuns.lineLength(row, column, axis, color) == winNumber - 2
+           && lineRuns.isOpen(row, column, axis, color)
+           && lineRuns.isOpen(row, column, axis + 4, color)){
+        totalThrees++;
+      }
+    }
+    /*
+     * each line length reads two runs of pieces, and each open end one more (counted as if both ends were always read)
+     */
+    MoveMetrics.scanned(model, 16);
+    return !(totalThrees > 1);
+  }
+
+  /*
+   * method that determines whether placing a piece would follow the four-four rule (not making two or more lines of winNumber - 1
+   * pieces at the same time)
+   * @param model  the board being played on
+   * @param row  the row the piece would be placed on
+   * @param column  the column the piece would be placed on
+   * @param color  the color of the piece
+   * @return true if the rule is being followed, false if it is not
+   */
+  public boolean fourFourRuleFollowed(BoardModel model, int row, int column, int color){
+    LineRuns lineRuns = model.getLineRuns();
+    int totalFours = 0;
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      if(lineRuns.lineLength(row, column, axis, color) == winNumber - 1){
+        totalFours++;
+      }
+    }
+    MoveMetrics.scanned(model, 8);
+    return !(totalFours > 1);
+  }
+
+  /*
+   * method that determines whether placing a piece would follow the overline rule (not making a line longer than winNumber);
+   * in Gomoku such a line is simply not a win, so the rule is never broken here (RenjuRules forbids it for black)
+   * @param model  the board being played on
+   * @param row  the row the piece would be placed on
+   * @param column  the column the piece would be placed on
+   * @param color  the color of the piece
+   * @return true if the rule is being followed, false if it is not
+   */
+  public boolean overlineRuleFollowed(BoardModel model, int row, int column, int color){
+    return true;
+  }
+
+  /*
+   * method that determines whether a piece may be placed on a square (the square is empty and no rule is broken)
+   * @param model  the board being played on
+   * @param row  the row the piece would be placed on
+   * @param column  the column the piece would be placed on
+   * @param color  the color of the piece
+   * @return true if the move is allowed, false if it is not
+   */
+  public boolean isLegal(BoardModel model, int row, int column, int color){
+    return model.isEmpty(row, column)
+      && fourFourRuleFollowed(model, row, column, color)
+      && threeThreeRuleFollowed(model, row, column, color)
+      && overlineRuleFollowed(model, row, column, color);
+  }
+}
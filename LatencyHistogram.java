@@ -0,0 +1,148 @@
+import java.util.Arrays;
+
+/*
+ * class that counts how long things took, in nanoseconds, in log-linear buckets (like HdrHistogram): every power of two is split into
+ * 32 equal buckets, so any recorded value is off by at most about 3%, and recording is just an array increment
+ * a histogram is not thread-safe; give each thread its own and add them together at the end
+ * @author Esther Shin
+ */
+
+public class LatencyHistogram{
+  /*
+   * constant SUB_BUCKET_BITS  each power of two is split into 2 to the power of SUB_BUCKET_BITS buckets
+   */
+  static final int SUB_BUCKET_BITS = 5;
+
+  /*
+   * constant SUB_BUCKETS  the number of buckets in each power of two
+   */
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /*
+   * field counts  stores how many values fell in each bucket
+   */
+  private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+
+  /*
+   * field total  stores how many values have been recorded
+   */
+  private long total;
+
+  /*
+   * field max  stores the largest value recorded
+   */
+  private long max;
+
+  /*
+   * field sum  stores the sum of all values recorded
+   */
+  private long sum;
+
+  /*
+   * method that records one value
+   * @param nanos  the value to record (negative values are recorded as 0)
+   */
+  public void record(long nanos){
+    if(nanos < 0){
+      nanos = 0;
+    }
+    counts[bucketOf(nanos)]++;
+    total = total + 1;
+    sum = sum + nanos;
+    if(nanos > max){
+      max = nanos;
+    }
+  }
+
+  /*
+   * method that adds every value recorded in another histogram to this one
+   * @param other  the other histogram
+   */
+  public void add(LatencyHistogram other){
+    for(int i = 0; i < counts.length; i = i + 1){
+      counts[i] = counts[i] + other.counts[i];
+    }
+    total = total + other.total;
+    sum = sum + other.sum;
+    max = Math.max(max, other.max);
+  }
+
+  /*
+   * method that removes every recorded value
+   */
+  public void reset(){
+    Arrays.fill(counts, 0L);
+    total = 0;
+    sum = 0;
+    max = 0;
+  }
+
+  /*
+   * method that gets how many values have been recorded
+   */
+  public long getCount(){
+    return total;
+  }
+
+  /*
+   * method that gets the largest value recorded
+   */
+  public long getMax(){
+    return max;
+  }
+
+  /*
+   * method that gets the average of the values recorded
+   */
+  public double getMean(){
+    return total == 0 ? 0 : (double) sum / total;
+  }
+
+  /*
+   * method that gets a percentile of the recorded values
+   * @param percentile  the percentile, from 0 to 100
+   * @return the largest value of the bucket the percentile falls in (never more than the largest value recorded), or 0 if nothing was recorded
+   */
+  public long getPercentile(double percentile){
+    if(total == 0){
+      return 0;
+    }
+    long rank = (long) Math.ceil(percentile / 100.0 * total);
+    if(rank < 1){
+      rank = 1;
+    }
+    long seen = 0;
+    for(int i = 0; i < counts.length; i = i + 1){
+      seen = seen + counts[i];
+      if(seen >= rank){
+        return Math.min(bucketTop(i), max);
+      }
+    }
+    return max;
+  }
+
+  /*
+   * method that gets the bucket a value falls in: values below SUB_BUCKETS get their own bucket, bigger ones share a bucket with
+   * the values that have the same highest SUB_BUCKET_BITS + 1 bits
+   */
+  static int bucketOf(long value){
+    if(value < SUB_BUCKETS){
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int sub = (int) (value >>> exponent) - SUB_BUCKETS;
+    return (exponent + 1) * SUB_BUCKETS + sub;
+  }
+
+  /*
+   * method that gets the largest value that falls in a bucket
+   */
+  static long bucketTop(int bucket){
+    if(bucket < SUB_BUCKETS){
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS - 1;
+    long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << exponent) - 1;
+  }
+}
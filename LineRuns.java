@@ -0,0 +1,214 @@
+import java.util.Arrays;
+
+/*
+ * class that keeps, for every intersection, how many pieces of each color are in a straight line next to it in each of the eight directions
+ * the counts are updated locally whenever a piece is placed or taken back, so the rules never have to walk to the edge of the board
+ * @author Esther Shin
+ */
+
+public class LineRuns{
+  /*
+   * constants for the eight directions; a direction and the one four places after it point opposite ways, so 0-3 are also the four axes
+   */
+  public static final int NORTH = 0;
+  public static final int NORTHEAST = 1;
+  public static final int EAST = 2;
+  public static final int SOUTHEAST = 3;
+  public static final int SOUTH = 4;
+  public static final int SOUTHWEST = 5;
+  public static final int WEST = 6;
+  public static final int NORTHWEST = 7;
+
+  /*
+   * field ROW_STEP  stores how much the row changes when moving one square in each direction
+   */
+  static final int[] ROW_STEP = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+  /*
+   * field COLUMN_STEP  stores how much the column changes when moving one square in each direction
+   */
+  static final int[] COLUMN_STEP = {0, 1, 1, 1, 0, -1, -1, -1};
+
+  /*
+   * field DIRECTION_NAMES  stores the name of each direction, in the same order as the direction constants
+   */
+  static final String[] DIRECTION_NAMES = {"north", "northeast", "east", "southeast", "south", "southwest", "west", "northwest"};
+
+  /*
+   * field model  stores the board whose lines are being tracked
+   */
+  private final BoardModel model;
+
+  /*
+   * field runs  stores runs[(color - 1) * 8 + direction][row * columns + column], the number of pieces of that color
+   * in a straight line starting at the next square in that direction (not counting the square itself)
+   */
+  private final int[][] runs;
+
+  /*
+   * constructor for the LineRuns class
+   * @param model  the board whose lines are being tracked (must be empty)
+   */
+  public LineRuns(BoardModel model){
+    this.model = model;
+    runs = new int[16][model.getRows() * model.getColumns()];
+  }
+
+  /*
+   * method that gets how many pieces of a color are in a straight line next to a square, not counting the square itself
+   * @param row  the row of the square
+   * @param column  the column of the square
+   * @param direction  the direction to look in (NORTH to NORTHWEST)
+   * @param color  the color of the pieces (BoardModel.BLACK or BoardModel.WHITE)
+   * @return the number of pieces of that color in a row, starting next to the square
+   */
+  public int runLength(int row, int column, int direction, int color){
+    return runs[(color - 1) * 8 + direction][row * model.getColumns() + column];
+  }
+
+  /*
+   * method that gets how many pieces of a color would be in a straight line along an axis if the square had a piece of that color
+   * @param row  the row of the square
+   * @param column  the column of the square
+   * @param axis  the axis to look along (NORTH, NORTHEAST, EAST or SOUTHEAST)
+   * @param color  the color of the pieces
+   * @return the length of the line through the square, counting the square itself
+   */
+  public int lineLength(int row, int column, int axis, int color){
+    return runLength(row, column, axis, color) + runLength(row, column, axis + 4, color) + 1;
+  }
+
+  /*
+   * method that determines whether the square just past a line of pieces is empty
+   * @param row  the row of the square the line starts next to
+   * @param column  the column of the square the line starts next to
+   * @param direction  the direction the line goes in
+   * @param color  the color of the pieces in the line
+   * @return true if the square after the line is on the board and empty, false if it is off the board or has the other color on it
+   */
+  public boolean isOpen(int row, int column, int direction, int color){
+    int distance = runLength(row, column, direction, color) + 1;
+    int endRow = row + ROW_STEP[direction] * distance;
+    int endColumn = column + COLUMN_STEP[direction] * distance;
+    return model.isOnBoard(endRow, endColumn) && model.isEmpty(endRow, endColumn);
+  }
+
+  /*
+   * method that gets the direction constant for a direction name such as "north" or "southwest"
+   * @param name  the name of the direction
+   * @return the direction constant, or -1 if the name is not a direction
+   */
+  public static int directionOf(String name){
+    for(int direction = 0; direction < 8; direction = direction + 1){
+      if(DIRECTION_NAMES[direction].equals(name)){
+        return direction;
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * method that walks from a square in one direction and counts the pieces of a color in a straight line, not counting the square itself
+   * this is the one loop behind every direction, so it does not create any objects or compare any Strings
+   * @param model  the board to look at
+   * @param row  the row of the square to start from
+   * @param column  the column of the square to start from
+   * @param direction  the direction to walk in (NORTH to NORTHWEST)
+   * @param color  the color of the pieces to count
+   * @param columnLimit  the first column past the right edge when walking to the right
+   * @return the number of pieces of that color in a row, starting next to the square
+   */
+  public static int scan(BoardModel model, int row, int column, int direction, int color, int columnLimit){
+    int rowStep = ROW_STEP[direction];
+    int columnStep = COLUMN_STEP[direction];
+    int rowLimit = model.getRows();
+    int count = 0;
+    for(int r = row + rowStep, c = column + columnStep; r > -1 && r < rowLimit && c > -1 && c < columnLimit 
+          && model.colorAt(r, c) == color; r = r + rowStep, c = c + columnStep){
+      count = count + 1;
+    }
+    return count;
+  }
+
+  /*
+   * method that walks from a square in one direction over the pieces of a color and determines whether the square after them is empty
+   * @param model  the board to look at
+   * @param row  the row of the square to start from
+   * @param column  the column of the square to start from
+   * @param direction  the direction to walk in (NORTH to NORTHWEST)
+   * @param color  the color of the pieces to walk over
+   * @param columnLimit  the first column past the right edge when walking to the right
+   * @return true if the square after the pieces is on the board and empty, false if it is off the board or has the other color on it
+   */
+  public static boolean scanIsOpen(BoardModel model, int row, int column, int direction, int color, int columnLimit){
+    int distance = scan(model, row, column, direction, color, columnLimit) + 1;
+    int endRow = row + ROW_STEP[direction] * distance;
+    int endColumn = column + COLUMN_STEP[direction] * distance;
+    return endRow > -1 && endRow < model.getRows() && endColumn > -1 && endColumn < columnLimit 
+      && model.isEmpty(endRow, endColumn);
+  }
+
+  /*
+   * method that updates the runs after a piece has been placed on a square
+   * @param row  the row the piece was placed on
+   * @param column  the column the piece was placed on
+   * @param color  the color of the piece
+   */
+  void piecePlaced(int row, int column, int color){
+    /*
+     * for each direction, every square behind the new piece whose line reaches it now also reaches past it
+     */
+    for(int direction = 0; direction < 8; direction = direction + 1){
+      updateBehind(row, column, direction, color, runLength(row, column, direction, color) + 1);
+    }
+  }
+
+  /*
+   * method that updates the runs after a piece has been taken off a square (the square must already be empty in the model)
+   * @param row  the row the piece was taken from
+   * @param column  the column the piece was taken from
+   * @param color  the color of the piece
+   */
+  void pieceRemoved(int row, int column, int color){
+    /*
+     * for each direction, every square behind the removed piece whose line reached it now stops there
+     */
+    for(int direction = 0; direction < 8; direction = direction + 1){
+      updateBehind(row, column, direction, color, 0);
+    }
+  }
+
+  /*
+   * method that walks backwards from a square over the pieces of one color, giving each the new length of its line in a direction
+   * @param row  the row of the square that changed
+   * @param column  the column of the square that changed
+   * @param direction  the direction whose runs are being updated
+   * @param color  the color whose runs are being updated
+   * @param length  the new run length of the square just behind the one that changed
+   */
+  private void updateBehind(int row, int column, int direction, int color, int length){
+    int[] directionRuns = runs[(color - 1) * 8 + direction];
+    int columns = model.getColumns();
+    int rowStep = ROW_STEP[direction];
+    int columnStep = COLUMN_STEP[direction];
+    /*
+     * loops through each square behind the changed square until one that does not have a piece of this color has been updated
+     */
+    for(int r = row - rowStep, c = column - columnStep; model.isOnBoard(r, c); r = r - rowStep, c = c - columnStep){
+      directionRuns[r * columns + c] = length;
+      if(model.colorAt(r, c) != color){
+        return;
+      }
+      length = length + 1;
+    }
+  }
+
+  /*
+   * method that resets every run to zero, for when the board is cleared
+   */
+  void clear(){
+    for(int[] directionRuns : runs){
+      Arrays.fill(directionRuns, 0);
+    }
+  }
+}
@@ -0,0 +1,750 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * class that represents a computer player that uses Monte Carlo tree search (UCT): it plays many quick games (playouts) from the
+ * position with a rollout policy, and grows a tree of the moves that did best in them, so it does not need an evaluation of the board
+ * and works the same on a big board or with any winNumber
+ * several threads grow the same tree at once (tree parallel search): a thread going down the tree adds a virtual loss to each move it
+ * picks, so the other threads try different moves until its playout is counted
+ * the tree is kept in arrays of numbers that are made once, with one slot per node, so thinking about a move makes no objects for the
+ * garbage collector; when the arrays are full the tree stops growing and the playouts go on from its leaves
+ * @author Esther Shin
+ */
+
+public class MctsPlayer implements Player{
+  /*
+   * interface for how the moves of a playout are picked
+   */
+  public interface RolloutPolicy{
+    /*
+     * method that picks the next move of a playout
+     * @param model  the board of the playout
+     * @param rules  the rules of the game
+     * @param candidates  the empty squares near pieces on the board (they are not all legal)
+     * @param color  the color of the player to move
+     * @param random  the random number generator of the thread
+     * @return the square, as row * columns + column, or -1 to end the playout as a draw
+     */
+    int nextMove(BoardModel model, GomokuRules rules, CandidateMoves candidates, int color, SplittableRandom random);
+  }
+
+  /*
+   * constant RANDOM  a rollout policy that plays a random legal candidate
+   */
+  public static final RolloutPolicy RANDOM = MctsPlayer::randomMove;
+
+  /*
+   * constant TACTICAL  a rollout policy that wins when it can, stops the other player winning when it has to, and otherwise plays
+   * a random legal candidate (slower than RANDOM, but its playouts end the way real games would)
+   */
+  public static final RolloutPolicy TACTICAL = MctsPlayer::tacticalMove;
+
+  /*
+   * constant DEFAULT_MAX_NODES  how many nodes the tree has room for unless another number is given
+   */
+  public static final int DEFAULT_MAX_NODES = 1 << 20;
+
+  /*
+   * constants for what firstChild holds for a node that has no children: not added yet, being added by a thread, a move that won
+   * the game, a position with no legal moves (a draw), and a node whose children did not fit in the arrays
+   */
+  private static final int UNEXPANDED = 0;
+  private static final int EXPANDING = -1;
+  private static final int WON = -2;
+  private static final int DRAWN = -3;
+  private static final int NO_ROOM = -4;
+
+  /*
+   * constant VIRTUAL_LOSS  how many lost playouts a move counts as while a thread's playout through it is not finished
+   */
+  private static final int VIRTUAL_LOSS = 3;
+
+  /*
+   * constant EXPAND_VISITS  how many playouts go through a leaf before its children are added (so the tree does not fill up with
+   * nodes that are only visited once); the visits of a leaf being reached include the virtual loss of the thread reaching it
+   */
+  private static final int EXPAND_VISITS = 2;
+
+  /*
+   * constant EXPLORATION  how much UCT tries moves that have had few playouts, next to moves that have done well
+   */
+  private static final double EXPLORATION = 1.0;
+
+  /*
+   * constant PRIOR_WEIGHT  how much a child's place in the ordering adds to its UCT value (progressive bias: the first child gets
+   * PRIOR_WEIGHT / (visits + 1), the second half of that, and so on, so it matters less as playouts come in)
+   */
+  private static final double PRIOR_WEIGHT = 1.0;
+
+  /*
+   * constant BRANCH_LIMIT  the most children a node gets (the moves that make or stop the longest lines)
+   */
+  private static final int BRANCH_LIMIT = 24;
+
+  /*
+   * constant BLOCK_SCORE  the ordering score of a square where the other player would win, which must be played
+   */
+  private static final int BLOCK_SCORE = Integer.MAX_VALUE;
+
+  /*
+   * constant PLAYOUT_MOVES  the most moves a playout makes before it is counted as a draw
+   */
+  private static final int PLAYOUT_MOVES = 120;
+
+  /*
+   * field rules  stores the rules the player must follow
+   */
+  private final GomokuRules rules;
+
+  /*
+   * field policy  stores how the moves of the playouts are picked
+   */
+  private final RolloutPolicy policy;
+
+  /*
+   * field timeBudgetMillis  stores how many milliseconds the player may think about one move (0 or less means no limit)
+   */
+  private final long timeBudgetMillis;
+
+  /*
+   * field maxPlayouts  stores how many playouts the player makes for one move (0 or less means no limit)
+   */
+  private final long maxPlayouts;
+
+  /*
+   * field maxNodes  stores how many nodes the tree has room for
+   */
+  private final int maxNodes;
+
+  /*
+   * fields that store the tree, one slot per node (node 0 is the position being thought about): the move that leads to the node,
+   * where its children start (or one of the constants above) and how many there are, how many playouts went through it (with the
+   * virtual losses of the playouts that are not finished) and their score, in half points for the player who made the move
+   * (2 for a win, 1 for a draw); a node's children are next to each other, and move and childCounts are written before
+   * firstChild, which makes them visible to the other threads
+   */
+  private final int[] moves;
+  private final int[] childCounts;
+  private final AtomicIntegerArray firstChild;
+  private final AtomicIntegerArray visits;
+  private final AtomicLongArray scores;
+
+  /*
+   * field nodeCount  stores how many slots of the tree are used
+   */
+  private final AtomicInteger nodeCount = new AtomicInteger(0);
+
+  /*
+   * field playouts  stores how many playouts have been made for the move being thought about
+   */
+  private final AtomicLong playouts = new AtomicLong(0);
+
+  /*
+   * field workers  stores what each thread needs to make playouts (its own copy of the board)
+   */
+  private final Worker[] workers;
+
+  /*
+   * field pool  stores the threads that help the calling thread, or null if it thinks alone
+   */
+  private final ForkJoinPool pool;
+
+  /*
+   * fields for the move being thought about: the color to move, when to stop thinking, and the flag that stops it early
+   */
+  private int rootColor;
+  private long deadline;
+  private AtomicBoolean stopSignal;
+
+  /*
+   * field elapsedNanos  stores how long the last move took to choose, in nanoseconds
+   */
+  private long elapsedNanos;
+
+  /*
+   * constructor for the MctsPlayer class, with the TACTICAL rollout policy and room for DEFAULT_MAX_NODES nodes
+   * @param rules  the rules the player must follow
+   * @param threads  how many threads think at once
+   * @param timeBudgetMillis  how many milliseconds to think about one move
+   */
+  public MctsPlayer(GomokuRules rules, int threads, long timeBudgetMillis){
+    this(rules, threads, timeBudgetMillis, 0, DEFAULT_MAX_NODES, TACTICAL, System.nanoTime());
+  }
+
+  /*
+   * constructor for the MctsPlayer class
+   * @param rules  the rules the player must follow
+   * @param threads  how many threads think at once
+   * @param timeBudgetMillis  how many milliseconds to think about one move (0 or less means no limit)
+   * @param maxPlayouts  how many playouts to make for one move (0 or less means no limit, but there must be a limit of one kind)
+   * @param maxNodes  how many nodes the tree has room for
+   * @param policy  how the moves of the playouts are picked
+   * @param seed  the seed for the random number generators
+   */
+  public MctsPlayer(GomokuRules rules, int threads, long timeBudgetMillis, long maxPlayouts, int maxNodes, RolloutPolicy policy,
+                    long seed){
+    if(threads < 1){
+      throw new IllegalArgumentException("threads must be at least 1");
+    }
+    if(timeBudgetMillis <= 0 && maxPlayouts <= 0){
+      throw new IllegalArgumentException("there must be a time budget or a playout limit");
+    }
+    if(maxNodes <= BRANCH_LIMIT){
+      throw new IllegalArgumentException("maxNodes must be more than " + BRANCH_LIMIT);
+    }
+    this.rules = rules;
+    this.policy = policy;
+    this.timeBudgetMillis = timeBudgetMillis;
+    this.maxPlayouts = maxPlayouts;
+    this.maxNodes = maxNodes;
+    moves = new int[maxNodes];
+    childCounts = new int[maxNodes];
+    firstChild = new AtomicIntegerArray(maxNodes);
+    visits = new AtomicIntegerArray(maxNodes);
+    scores = new AtomicLongArray(maxNodes);
+    SplittableRandom random = new SplittableRandom(seed);
+    workers = new Worker[threads];
+    for(int i = 0; i < threads; i = i + 1){
+      workers[i] = new Worker(random.split());
+    }
+    pool = threads > 1 ? new ForkJoinPool(threads - 1) : null;
+  }
+
+  /*
+   * method that gets how many playouts were made for the last move
+   */
+  public long getPlayouts(){
+    return playouts.get();
+  }
+
+  /*
+   * method that gets how many playouts per second all the threads made together for the last move
+   */
+  public long getPlayoutsPerSecond(){
+    return elapsedNanos == 0 ? 0 : playouts.get() * 1000000000L / elapsedNanos;
+  }
+
+  /*
+   * method that gets how many nodes the tree had for the last move
+   */
+  public int getTreeSize(){
+    return Math.min(nodeCount.get(), maxNodes);
+  }
+
+  public void setStopSignal(AtomicBoolean stopSignal){
+    this.stopSignal = stopSignal;
+  }
+
+  /*
+   * method that stops the helper threads; the player cannot be used after this
+   */
+  public void shutdown(){
+    if(pool != null){
+      pool.shutdownNow();
+    }
+  }
+
+  /*
+   * method that picks a move for a player: the move the most playouts went through; the board is not changed
+   * @param model  the board being played on
+   * @param color  the color of the player to move (BoardModel.BLACK or BoardModel.WHITE)
+   * @return the index (row * columns + column) of the chosen square, or -1 if there is no legal move
+   */
+  public int chooseMove(BoardModel model, int color){
+    long start = System.nanoTime();
+    for(Worker worker : workers){
+      worker.copy(model);
+    }
+    /*
+     * empties the tree, then adds the moves of the position to it; when there is only one (a win, a square that has to be blocked
+     * or the first move of the game) it is played without thinking
+     */
+    int used = Math.min(nodeCount.get(), maxNodes);
+    for(int node = 0; node < used; node = node + 1){
+      firstChild.set(node, UNEXPANDED);
+      visits.set(node, 0);
+      scores.set(node, 0L);
+    }
+    nodeCount.set(1);
+    playouts.set(0);
+    rootColor = color;
+    expand(workers[0], 0, color);
+    int first = firstChild.get(0);
+    if(first < 0){
+      elapsedNanos = System.nanoTime() - start;
+      return -1;
+    }
+    if(childCounts[0] == 1){
+      elapsedNanos = System.nanoTime() - start;
+      return moves[first];
+    }
+
+    deadline = timeBudgetMillis > 0 ? start + timeBudgetMillis * 1000000L : Long.MAX_VALUE;
+    ForkJoinTask<?>[] helpers = new ForkJoinTask<?>[workers.length - 1];
+    for(int i = 1; i < workers.length; i = i + 1){
+      helpers[i - 1] = pool.submit(workers[i]);
+    }
+    try{
+      workers[0].run();
+    }
+    finally{
+      for(ForkJoinTask<?> helper : helpers){
+        helper.join();
+      }
+    }
+
+    int best = first;
+    for(int child = first + 1; child < first + childCounts[0]; child = child + 1){
+      if(visits.get(child) > visits.get(best)){
+        best = child;
+      }
+    }
+    elapsedNanos = System.nanoTime() - start;
+    return moves[best];
+  }
+
+  /*
+   * method that determines whether the threads should stop thinking
+   */
+  private boolean timeToStop(){
+    return (stopSignal != null && stopSignal.get()) || System.nanoTime() >= deadline
+      || (maxPlayouts > 0 && playouts.get() >= maxPlayouts);
+  }
+
+  /*
+   * method that adds the children of a node: the legal moves near the pieces, the BRANCH_LIMIT that make or stop the biggest
+   * threats; only a move that wins, if there is one, and otherwise only the squares where the other player would win, if there are
+   * any (and when there is a pattern evaluator, only the answers to an open four that can be made, see keepForcing)
+   * @param worker  the thread adding them, whose boards are at the node's position
+   * @param node  the node
+   * @param color  the color to move at the node
+   */
+  private void expand(Worker worker, int node, int color){
+    BoardModel board = worker.board;
+    int columns = board.getColumns();
+    int[] squares = worker.squares;
+    int[] orderScores = worker.orderScores;
+    int count = 0;
+    int win = -1;
+    if(board.getMoveCount() == 0){
+      squares[0] = (board.getRows() / 2) * columns + columns / 2;
+      count = 1;
+    }
+    else{
+      int found = worker.candidates.fill(squares);
+      for(int i = 0; i < found && win == -1; i = i + 1){
+        int square = squares[i];
+        int row = square / columns;
+        int column = square % columns;
+        if(rules.isLegal(board, row, column, color)){
+          if(rules.isWin(board, row, column, color)){
+            win = square;
+          }
+          squares[count] = square;
+          orderScores[count] = orderScore(worker, row, column, color);
+          count = count + 1;
+        }
+      }
+      if(win != -1){
+        squares[0] = win;
+        count = 1;
+      }
+    }
+    if(count == 0){
+      firstChild.set(node, DRAWN);
+      return;
+    }
+    count = sortMoves(squares, orderScores, count);
+    if(orderScores[0] == BLOCK_SCORE && win == -1){
+      int blocks = 1;
+      while(blocks < count && orderScores[blocks] == BLOCK_SCORE){
+        blocks = blocks + 1;
+      }
+      count = blocks;
+    }
+    else if(worker.evaluator != null && win == -1){
+      count = keepForcing(worker.evaluator, squares, count, color);
+    }
+
+    int first;
+    do{
+      first = nodeCount.get();
+      if(first + count > maxNodes){
+        firstChild.set(node, NO_ROOM);
+        return;
+      }
+    } while(!nodeCount.compareAndSet(first, first + count));
+    for(int i = 0; i < count; i = i + 1){
+      moves[first + i] = squares[i];
+    }
+    if(win != -1){
+      firstChild.set(first, WON);
+    }
+    childCounts[node] = count;
+    firstChild.set(node, first);
+  }
+
+  /*
+   * method that sorts moves by their ordering scores, highest first, and keeps only the first BRANCH_LIMIT of them (an insertion
+   * sort that only puts a move in among the first BRANCH_LIMIT if it scores higher than the last of them, like AlphaBetaPlayer)
+   * @return how many moves are kept
+   */
+  private static int sortMoves(int[] squares, int[] orderScores, int count){
+    if(count == 1){
+      orderScores[0] = 0;
+      return 1;
+    }
+    for(int i = 1; i < count; i = i + 1){
+      int square = squares[i];
+      int score = orderScores[i];
+      int j = i - 1;
+      if(i >= BRANCH_LIMIT){
+        if(score <= orderScores[BRANCH_LIMIT - 1]){
+          continue;
+        }
+        j = BRANCH_LIMIT - 2;
+      }
+      while(j >= 0 && orderScores[j] < score){
+        squares[j + 1] = squares[j];
+        orderScores[j + 1] = orderScores[j];
+        j = j - 1;
+      }
+      squares[j + 1] = square;
+      orderScores[j + 1] = score;
+    }
+    return Math.min(count, BRANCH_LIMIT);
+  }
+
+  /*
+   * method that keeps only the moves that answer a threat, if there is one: when the player to move can make an open four, only
+   * the moves that make one (they win unless the other player has a four to make first, which the tree finds), and when the other
+   * player can make an open four, only the moves that stop it by taking one of its squares or the squares of its fours, or that make
+   * a four (which must be answered first)
+   * @param evaluator  the pattern evaluator of the board at the node's position
+   * @param squares  the moves, in order
+   * @param count  how many moves there are
+   * @param color  the color to move
+   * @return how many moves are kept (they stay in order at the start of squares)
+   */
+  private static int keepForcing(PatternEvaluator evaluator, int[] squares, int count, int color){
+    boolean ownOpenFour = false;
+    boolean otherOpenFour = false;
+    for(int i = 0; i < count; i = i + 1){
+      ownOpenFour = ownOpenFour || evaluator.cellType(squares[i], color) == PatternEvaluator.OPEN_FOUR;
+      otherOpenFour = otherOpenFour || evaluator.cellType(squares[i], 3 - color) == PatternEvaluator.OPEN_FOUR;
+    }
+    if(!ownOpenFour && !otherOpenFour){
+      return count;
+    }
+    int kept = 0;
+    for(int i = 0; i < count; i = i + 1){
+      int own = evaluator.cellType(squares[i], color);
+      int other = evaluator.cellType(squares[i], 3 - color);
+      if(ownOpenFour ? own == PatternEvaluator.OPEN_FOUR : own >= PatternEvaluator.FOUR || other >= PatternEvaluator.FOUR){
+        squares[kept] = squares[i];
+        kept = kept + 1;
+      }
+    }
+    return kept;
+  }
+
+  /*
+   * method that guesses how good a move is: BLOCK_SCORE if the other player would win there, and otherwise the pattern scores of
+   * the square for both players if there is a pattern evaluator, or more for longer lines of either color through the square if
+   * there is not (the player's own count double)
+   */
+  private int orderScore(Worker worker, int row, int column, int color){
+    BoardModel board = worker.board;
+    if(rules.isWin(board, row, column, 3 - color)){
+      return BLOCK_SCORE;
+    }
+    if(worker.evaluator != null){
+      int square = row * board.getColumns() + column;
+      return worker.evaluator.cellScore(square, color) * 2 + worker.evaluator.cellScore(square, 3 - color);
+    }
+    LineRuns lineRuns = board.getLineRuns();
+    int score = 0;
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      int own = lineRuns.lineLength(row, column, axis, color);
+      int other = lineRuns.lineLength(row, column, axis, 3 - color);
+      score = score + 2 * own * own + other * other;
+    }
+    return score;
+  }
+
+  /*
+   * method that picks the child of a node with the best UCT value (children no playout has gone through yet come first, in order)
+   */
+  private int select(int node, int first){
+    double logVisits = Math.log(visits.get(node) + 1);
+    int best = first;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for(int child = first; child < first + childCounts[node]; child = child + 1){
+      int childVisits = visits.get(child);
+      if(childVisits == 0){
+        return child;
+      }
+      double value = scores.get(child) / (2.0 * childVisits) + EXPLORATION * Math.sqrt(logVisits / childVisits)
+        + PRIOR_WEIGHT / ((child - first + 1) * (childVisits + 1.0));
+      if(value > bestValue){
+        bestValue = value;
+        best = child;
+      }
+    }
+    return best;
+  }
+
+  /*
+   * method that picks a random legal candidate: a few random candidates are tried first, and if none of them is legal every one is
+   * checked (the RANDOM rollout policy)
+   */
+  private static int randomMove(BoardModel model, GomokuRules rules, CandidateMoves candidates, int color, SplittableRandom random){
+    int size = candidates.size();
+    if(size == 0){
+      return -1;
+    }
+    int columns = model.getColumns();
+    for(int attempt = 0; attempt < 8; attempt = attempt + 1){
+      int square = candidates.nth(random.nextInt(size));
+      if(rules.isLegal(model, square / columns, square % columns, color)){
+        return square;
+      }
+    }
+    for(int square = candidates.next(0); square != -1; square = candidates.next(square + 1)){
+      if(rules.isLegal(model, square / columns, square % columns, color)){
+        return square;
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * method that wins when it can, stops the other player winning when it has to, and otherwise plays a random legal candidate (the
+   * TACTICAL rollout policy)
+   * a square that wins must finish a line of the winner's pieces, and when both players play like this every such line has gone
+   * through the winner's last move since the other player last had to block, so only the squares along the lines through the last
+   * move of each player are looked at, not every candidate
+   */
+  private static int tacticalMove(BoardModel model, GomokuRules rules, CandidateMoves candidates, int color, SplittableRandom random){
+    int moveCount = model.getMoveCount();
+    if(moveCount >= 2){
+      int win = winningSquare(model, rules, model.getMove(moveCount - 2), color, color);
+      if(win != -1){
+        return win;
+      }
+    }
+    if(moveCount >= 1){
+      int block = winningSquare(model, rules, model.getMove(moveCount - 1), 3 - color, color);
+      if(block != -1){
+        return block;
+      }
+    }
+    if(moveCount >= 1 && random.nextBoolean()){
+      int columns = model.getColumns();
+      int last = model.getMove(moveCount - 1);
+      for(int attempt = 0; attempt < 4; attempt = attempt + 1){
+        int row = last / columns + random.nextInt(5) - 2;
+        int column = last % columns + random.nextInt(5) - 2;
+        if(model.isOnBoard(row, column) && model.isEmpty(row, column) && rules.isLegal(model, row, column, color)){
+          return row * columns + column;
+        }
+      }
+    }
+    return randomMove(model, rules, candidates, color, random);
+  }
+
+  /*
+   * method that finds a square along the lines through a piece where a player would win
+   * @param model  the board
+   * @param rules  the rules of the game
+   * @param from  the square of the piece, as row * columns + column
+   * @param winner  the color that would win there (it must be the color of the piece)
+   * @param color  the color to move, which must be allowed to play the square
+   * @return the square, or -1 if there is none
+   */
+  private static int winningSquare(BoardModel model, GomokuRules rules, int from, int winner, int color){
+    int columns = model.getColumns();
+    int row = from / columns;
+    int column = from % columns;
+    if(model.colorAt(row, column) != winner){
+      return -1;
+    }
+    int reach = rules.getWinNumber();
+    for(int direction = LineRuns.NORTH; direction <= LineRuns.NORTHWEST; direction = direction + 1){
+      for(int distance = 1; distance <= reach; distance = distance + 1){
+        int r = row + LineRuns.ROW_STEP[direction] * distance;
+        int c = column + LineRuns.COLUMN_STEP[direction] * distance;
+        if(!model.isOnBoard(r, c)){
+          break;
+        }
+        if(model.isEmpty(r, c) && rules.isWin(model, r, c, winner) && rules.isLegal(model, r, c, color)){
+          return r * columns + c;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * class that makes playouts on one thread, on its own copy of the board
+   */
+  private class Worker implements Runnable{
+    /*
+     * field random  stores the random number generator of the thread
+     */
+    private final SplittableRandom random;
+
+    /*
+     * fields for the thread's copy of the board and its candidate moves, made again only when the size of the board changes
+     */
+    private BoardModel board;
+    private CandidateMoves candidates;
+
+    /*
+     * fields for a second copy of the board that only follows the moves in the tree, not the playouts, with a pattern evaluator to
+     * put the children of a node in order (keeping the evaluator up to date would make every playout move many times slower);
+     * they are null if there are no pattern tables for the winNumber
+     */
+    private BoardModel treeBoard;
+    private PatternEvaluator evaluator;
+
+    /*
+     * fields that store the nodes gone through by a playout, and the moves being put in order when a node's children are added
+     */
+    private int[] path;
+    private int[] squares;
+    private int[] orderScores;
+
+    Worker(SplittableRandom random){
+      this.random = random;
+    }
+
+    /*
+     * method that puts the pieces of a board on the thread's copy, in the same order
+     */
+    void copy(BoardModel model){
+      if(board == null || board.getRows() != model.getRows() || board.getColumns() != model.getColumns()){
+        board = new BoardModel(model.getRows(), model.getColumns());
+        candidates = new CandidateMoves(board, AlphaBetaPlayer.NEIGHBOR_DISTANCE);
+        board.addListener(candidates);
+        int cells = model.getRows() * model.getColumns();
+        path = new int[cells + 2];
+        squares = new int[cells];
+        orderScores = new int[cells];
+        if(PatternEvaluator.supports(rules.getWinNumber())){
+          treeBoard = new BoardModel(model.getRows(), model.getColumns());
+          evaluator = new PatternEvaluator(treeBoard, rules.getWinNumber());
+          treeBoard.addListener(evaluator);
+        }
+      }
+      board.clear();
+      if(treeBoard != null){
+        treeBoard.clear();
+      }
+      int columns = model.getColumns();
+      for(int i = 0; i < model.getMoveCount(); i = i + 1){
+        int move = model.getMove(i);
+        int color = model.colorAt(move / columns, move % columns);
+        board.place(move / columns, move % columns, color);
+        if(treeBoard != null){
+          treeBoard.place(move / columns, move % columns, color);
+        }
+      }
+    }
+
+    /*
+     * method that makes playouts until it is time to stop
+     */
+    public void run(){
+      while(!timeToStop()){
+        playout();
+        playouts.incrementAndGet();
+      }
+    }
+
+    /*
+     * method that makes one playout: goes down the tree by UCT (adding the children of the leaf it reaches, if it has had enough
+     * playouts), plays the rest of the game with the rollout policy, then counts the result in every node it went through
+     */
+    private void playout(){
+      int columns = board.getColumns();
+      int node = 0;
+      int depth = 0;
+      int color = rootColor;
+      int winner = BoardModel.EMPTY;
+      boolean finished = false;
+      path[0] = 0;
+      while(true){
+        int first = firstChild.get(node);
+        if(first == WON){
+          winner = 3 - color;
+          finished = true;
+          break;
+        }
+        if(first == DRAWN){
+          finished = true;
+          break;
+        }
+        if(first == UNEXPANDED && visits.get(node) >= EXPAND_VISITS + VIRTUAL_LOSS && firstChild.compareAndSet(node, UNEXPANDED, EXPANDING)){
+          expand(this, node, color);
+          continue;
+        }
+        if(first <= 0){
+          break;
+        }
+        int child = select(node, first);
+        visits.addAndGet(child, VIRTUAL_LOSS);
+        board.place(moves[child] / columns, moves[child] % columns, color);
+        if(treeBoard != null){
+          treeBoard.place(moves[child] / columns, moves[child] % columns, color);
+        }
+        depth = depth + 1;
+        path[depth] = child;
+        node = child;
+        color = 3 - color;
+      }
+
+      int played = 0;
+      if(!finished){
+        while(played < PLAYOUT_MOVES){
+          int square = policy.nextMove(board, rules, candidates, color, random);
+          if(square == -1){
+            break;
+          }
+          boolean win = rules.isWin(board, square / columns, square % columns, color);
+          board.place(square / columns, square % columns, color);
+          played = played + 1;
+          if(win){
+            winner = color;
+            break;
+          }
+          color = 3 - color;
+        }
+      }
+      for(int i = 0; i < played + depth; i = i + 1){
+        board.undo();
+      }
+      for(int i = 0; treeBoard != null && i < depth; i = i + 1){
+        treeBoard.undo();
+      }
+
+      /*
+       * the player who made the move of node path[i] is rootColor for odd i and the other color for even i
+       */
+      visits.incrementAndGet(0);
+      for(int i = 1; i <= depth; i = i + 1){
+        int mover = (i & 1) == 1 ? rootColor : 3 - rootColor;
+        int points = winner == BoardModel.EMPTY ? 1 : winner == mover ? 2 : 0;
+        scores.addAndGet(path[i], points);
+        visits.addAndGet(path[i], 1 - VIRTUAL_LOSS);
+      }
+    }
+  }
+}
@@ -0,0 +1,200 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * class that checks MctsPlayer without a window:
+ * on drawn positions it must win at once, stop a four, make an open four from an open three and stop the other player's open three;
+ * on random positions (with GomokuRules and RenjuRules, one thread and several) it must pick a legal square and leave the board as it
+ * was, stop at its playout limit, keep its tree within its room, and give up the move at once when its stop signal is set
+ * the searches use a playout limit and a fixed seed instead of a time budget, so a run does the same work on any machine
+ * run it with key=value arguments, for example:
+ *   java MctsPlayerCheck positions=40 playouts=3000 seed=22
+ * it prints a line for each part and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class MctsPlayerCheck{
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that puts a drawn position on a 15x15 board, its top left corner at (4, 4): X is black, O is white, anything else is empty
+   */
+  private static BoardModel draw(String... picture){
+    BoardModel model = new BoardModel(15, 15);
+    for(int row = 0; row < picture.length; row = row + 1){
+      for(int column = 0; column < picture[row].length(); column = column + 1){
+        char c = picture[row].charAt(column);
+        if(c == 'X' || c == 'O'){
+          model.place(4 + row, 4 + column, c == 'X' ? BoardModel.BLACK : BoardModel.WHITE);
+        }
+      }
+    }
+    return model;
+  }
+
+  /*
+   * method that gets a player that thinks for a number of playouts
+   */
+  private static MctsPlayer player(GomokuRules rules, int threads, long playouts, int maxNodes, long seed){
+    return new MctsPlayer(rules, threads, 0, playouts, maxNodes, MctsPlayer.TACTICAL, seed);
+  }
+
+  /*
+   * method that checks the moves of drawn positions
+   */
+  private static void checkTactics(GomokuRules rules, long playouts, long seed){
+    MctsPlayer player = player(rules, 1, playouts, MctsPlayer.DEFAULT_MAX_NODES, seed);
+    BoardModel model = draw(".......",
+                            ".XXXX..",
+                            ".OOO...",
+                            "....O..");
+    int move = player.chooseMove(model, BoardModel.BLACK);
+    model.place(move / 15, move % 15, BoardModel.BLACK);
+    if(!rules.isWin(model, move / 15, move % 15, BoardModel.BLACK)){
+      fail("black does not win with its four");
+    }
+    model.undo();
+    move = player.chooseMove(model, BoardModel.WHITE);
+    if(move != 5 * 15 + 4 && move != 5 * 15 + 9){
+      fail("white plays " + move + " instead of stopping the four");
+    }
+    /*
+     * an open three: black makes an open four, which wins; white must stop it from becoming one
+     */
+    model = draw(".......",
+                 "..XXX..",
+                 ".......",
+                 "..O.O..");
+    PatternEvaluator evaluator = new PatternEvaluator(model, rules.getWinNumber());
+    model.addListener(evaluator);
+    move = player.chooseMove(model, BoardModel.BLACK);
+    if(evaluator.cellType(move, BoardModel.BLACK) < PatternEvaluator.OPEN_FOUR){
+      fail("black does not make an open four from its open three");
+    }
+    move = player.chooseMove(model, BoardModel.WHITE);
+    model.place(move / 15, move % 15, BoardModel.WHITE);
+    if(evaluator.countOf(PatternEvaluator.OPEN_FOUR, BoardModel.BLACK) > 0){
+      fail("white leaves black an open four");
+    }
+    model.undo();
+  }
+
+  /*
+   * method that plays a random position and checks one move of a player on it
+   */
+  private static void checkRandom(GomokuRules rules, SplittableRandom random, int threads, long playouts, int maxNodes, String where){
+    int size = 7 + random.nextInt(12);
+    BoardModel model = new BoardModel(size, size);
+    int pieces = random.nextInt(size * size / 3);
+    for(int i = 0; i < pieces; i = i + 1){
+      int row = random.nextInt(size);
+      int column = random.nextInt(size);
+      int color = model.getMoveCount() % 2 + 1;
+      /*
+       * no piece is placed that would end the game, so the position is still being played
+       */
+      if(model.isEmpty(row, column) && rules.isLegal(model, row, column, color)){
+        model.place(row, column, color);
+        if(rules.isWin(model, row, column, color)){
+          model.undo();
+        }
+      }
+    }
+    int color = model.getMoveCount() % 2 + 1;
+    long hash = model.getHash();
+    int moveCount = model.getMoveCount();
+    MctsPlayer player = player(rules, threads, playouts, maxNodes, random.nextLong());
+    try{
+      int move = player.chooseMove(model, color);
+      if(model.getHash() != hash || model.getMoveCount() != moveCount){
+        fail(where + ": chooseMove changed the board");
+      }
+      if(move < 0 || move >= size * size || !rules.isLegal(model, move / size, move % size, color)){
+        fail(where + ": " + move + " is not a legal move for color " + color);
+      }
+      if(player.getTreeSize() > maxNodes){
+        fail(where + ": the tree has " + player.getTreeSize() + " nodes, more than " + maxNodes);
+      }
+      /*
+       * a position with one move to play is answered without playouts; otherwise every thread stops soon after the limit
+       */
+      if(player.getPlayouts() != 0 && (player.getPlayouts() < playouts || player.getPlayouts() >= playouts + threads)){
+        fail(where + ": " + player.getPlayouts() + " playouts with a limit of " + playouts + " and " + threads + " threads");
+      }
+      AtomicBoolean stop = new AtomicBoolean(true);
+      player.setStopSignal(stop);
+      long start = System.nanoTime();
+      move = player.chooseMove(model, color);
+      if((System.nanoTime() - start) / 1000000L > 1000){
+        fail(where + ": a move with the stop signal set took more than a second");
+      }
+      if(move < 0 || !rules.isLegal(model, move / size, move % size, color)){
+        fail(where + ": " + move + " is not a legal move with the stop signal set");
+      }
+    }
+    finally{
+      player.shutdown();
+    }
+  }
+
+  public static void main(String[] args){
+    int positions = 40;
+    long playouts = 3000;
+    long seed = 22;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("positions")){
+          positions = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("playouts")){
+          playouts = Long.parseLong(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    GomokuRules[] rules = {new GomokuRules(5), new RenjuRules(5)};
+    for(GomokuRules rule : rules){
+      checkTactics(rule, playouts, seed);
+    }
+    System.out.println("drawn positions: " + (failures == 0 ? "ok" : failures + " failures"));
+    int before = failures;
+    SplittableRandom random = new SplittableRandom(seed);
+    for(int position = 0; position < positions; position = position + 1){
+      GomokuRules rule = rules[position % 2];
+      int threads = 1 + random.nextInt(3);
+      /*
+       * every fourth search has a tree with little room, so it runs out of nodes
+       */
+      int maxNodes = position % 4 == 3 ? 200 : MctsPlayer.DEFAULT_MAX_NODES;
+      checkRandom(rule, random, threads, playouts, maxNodes, "position " + position + " (" + rule.getClass().getName() + ", " + threads
+                  + " threads, room for " + maxNodes + " nodes)");
+    }
+    System.out.println("random positions: " + positions + ", " + (failures == before ? "ok" : (failures - before) + " failures"));
+    System.out.println(failures == 0 ? "ok" : "FAIL: " + failures + " failures");
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
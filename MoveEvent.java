@@ -0,0 +1,38 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * class that is the JFR event for one move being checked (and played, if it is allowed); its duration is the time the check took
+ * it is only recorded while a flight recording is running, for example with java -XX:StartFlightRecording=filename=moves.jfr
+ * @author Esther Shin
+ */
+
+@Name("gomoku.Move")
+@Label("Gomoku Move")
+@Category("Gomoku")
+@Description("A move being checked against the rules and played")
+public class MoveEvent extends Event{
+  @Label("Row")
+  int row;
+
+  @Label("Column")
+  int column;
+
+  @Label("Color")
+  @Description("1 for black, 2 for white")
+  int color;
+
+  @Label("Played")
+  @Description("Whether the move was allowed and played")
+  boolean played;
+
+  @Label("Win")
+  boolean win;
+
+  @Label("Squares Read")
+  @Description("How many squares (or runs of squares) the rules read to check the move")
+  long scanSteps;
+}
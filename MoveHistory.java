@@ -0,0 +1,233 @@
+/*
+ * class that keeps the history of a game on a board, so moves can be taken back and played again in constant time
+ * the moves that were played are the board's own move list, and the moves that were taken back are kept on a redo stack here;
+ * whose turn it is and whether the game is over are worked out from the history instead of being stored, so taking back or
+ * playing again a move always leaves them right, and the line runs of the board are kept up to date by place and undo
+ * searchers can still place and undo pieces on the board while they think: that does not touch the redo stack
+ * @author Esther Shin
+ */
+
+public class MoveHistory{
+  /*
+   * constants for what happened when a move was tried
+   */
+  public static final int PLAYED = 0;
+  public static final int WON = 1;
+  public static final int NOT_ALLOWED = 2;
+  public static final int GAME_OVER = 3;
+
+  /*
+   * field model  stores the board of the game
+   */
+  private final BoardModel model;
+
+  /*
+   * field rules  stores the rules of the game
+   */
+  private final GomokuRules rules;
+
+  /*
+   * field redoMoves  stores the moves that were taken back, the last one taken back on top, each as (row * columns + column) * 4 + color
+   */
+  private final int[] redoMoves;
+
+  /*
+   * field redoCount  stores how many moves are on the redo stack
+   */
+  private int redoCount = 0;
+
+  /*
+   * field wonAt  stores how many moves were on the board when the game was won, or -1 if it has not been won
+   * (the winning move is always the last move, so the game is over exactly when the board has that many moves)
+   */
+  private int wonAt = -1;
+
+  /*
+   * constructor for the MoveHistory class
+   * @param model  the board of the game, which may already have moves on it
+   * @param rules  the rules of the game
+   */
+  public MoveHistory(BoardModel model, GomokuRules rules){
+    this.model = model;
+    this.rules = rules;
+    this.redoMoves = new int[model.getRows() * model.getColumns()];
+  }
+
+  public BoardModel getModel(){
+    return model;
+  }
+
+  public GomokuRules getRules(){
+    return rules;
+  }
+
+  /*
+   * method that gets the color of the player whose turn it is: black on an empty board, and after that the color that did not make the last move
+   * @return BoardModel.BLACK or BoardModel.WHITE
+   */
+  public int currentColor(){
+    if(model.getMoveCount() == 0){
+      return BoardModel.BLACK;
+    }
+    int last = model.getMove(model.getMoveCount() - 1);
+    return 3 - model.colorAt(last / model.getColumns(), last % model.getColumns());
+  }
+
+  /*
+   * method that determines whether the game is over: the last move won it, or the board is full
+   */
+  public boolean isGameOver(){
+    return model.getMoveCount() == wonAt || model.getMoveCount() == model.getRows() * model.getColumns();
+  }
+
+  /*
+   * method that gets the winner
+   * @return the color of the player who made the winning move, or BoardModel.EMPTY if the game has not been won
+   */
+  public int getWinner(){
+    return model.getMoveCount() == wonAt ? 3 - currentColor() : BoardModel.EMPTY;
+  }
+
+  /*
+   * method that plays a move for the player whose turn it is, with the same checks as Gomoku.playMove: the square must be empty,
+   * the four-four rule and the three-three rule must not be broken, and the game must not be over
+   * @param row  the row of the square to play on
+   * @param column  the column of the square to play on
+   * @return PLAYED, WON if the move won the game, NOT_ALLOWED if the move breaks a rule, or GAME_OVER if the game was already over
+   */
+  public int play(int row, int column){
+    if(isGameOver()){
+      return GAME_OVER;
+    }
+    long start = MoveMetrics.start();
+    MoveEvent event = MoveMetrics.beginMove();
+    long stepsBefore = model.getScanSteps();
+    int color = currentColor();
+    if(!model.isOnBoard(row, column) || !rules.isLegal(model, row, column, color)){
+      MoveMetrics.moveChecked(event, start, model, stepsBefore, row, column, color, false, false);
+      return NOT_ALLOWED;
+    }
+    long winStart = MoveMetrics.start();
+    boolean win = rules.isWin(model, row, column, color);
+    MoveMetrics.stop(MoveMetrics.WIN_CHECK, winStart);
+    place(row, column, color, win);
+    MoveMetrics.moveChecked(event, start, model, stepsBefore, row, column, color, true, win);
+    return win ? WON : PLAYED;
+  }
+
+  /*
+   * method that puts a move in the history that has already been checked (used when the rules are checked somewhere else, like the GUI);
+   * playing a new move empties the redo stack
+   * @param row  the row of the square to play on
+   * @param column  the column of the square to play on
+   * @param color  the color of the piece
+   * @param win  whether the move wins the game
+   */
+  public void place(int row, int column, int color, boolean win){
+    model.place(row, column, color);
+    redoCount = 0;
+    if(win){
+      wonAt = model.getMoveCount();
+    }
+    else if(wonAt >= model.getMoveCount()){
+      wonAt = -1;
+    }
+  }
+
+  public boolean canUndo(){
+    return model.getMoveCount() > 0;
+  }
+
+  public boolean canRedo(){
+    return redoCount > 0;
+  }
+
+  /*
+   * method that takes back the last move and puts it on the redo stack
+   * @return the index (row * columns + column) of the square that was cleared, or -1 if there is no move to take back
+   */
+  public int undo(){
+    if(model.getMoveCount() == 0){
+      return -1;
+    }
+    int index = model.getMove(model.getMoveCount() - 1);
+    int color = model.colorAt(index / model.getColumns(), index % model.getColumns());
+    model.undo();
+    redoMoves[redoCount] = index * 4 + color;
+    redoCount = redoCount + 1;
+    return index;
+  }
+
+  /*
+   * method that plays again the last move that was taken back
+   * @return the index (row * columns + column) of the square it is played on, or -1 if there is no move to play again
+   */
+  public int redo(){
+    if(redoCount == 0){
+      return -1;
+    }
+    redoCount = redoCount - 1;
+    int index = redoMoves[redoCount] >>> 2;
+    model.place(index / model.getColumns(), index % model.getColumns(), redoMoves[redoCount] & 3);
+    return index;
+  }
+
+  /*
+   * method that gets the color of the move redo() would play
+   * @return BoardModel.BLACK or BoardModel.WHITE, or BoardModel.EMPTY if there is no move to play again
+   */
+  public int redoColor(){
+    return redoCount == 0 ? BoardModel.EMPTY : redoMoves[redoCount - 1] & 3;
+  }
+
+  public int getRedoCount(){
+    return redoCount;
+  }
+
+  /*
+   * method that gets a move on the redo stack
+   * @param number  which move (0 is the bottom of the stack, the one redo() plays last)
+   * @return the move, as (row * columns + column) * 4 + color
+   */
+  public int getRedoMove(int number){
+    if(number < 0 || number >= redoCount){
+      throw new IndexOutOfBoundsException("There is no redo move number " + number);
+    }
+    return redoMoves[number];
+  }
+
+  /*
+   * method that gets how many moves were on the board when the game was won, or -1 if it has not been won
+   */
+  public int getWonAt(){
+    return wonAt;
+  }
+
+  /*
+   * method that puts back a history that was saved with the getters above, without checking the rules again
+   * @param moves  the moves on the board in order, each as (row * columns + column) * 4 + color
+   * @param moveCount  how many moves there are in moves
+   * @param redo  the redo stack, bottom first, in the same form
+   * @param redoMoveCount  how many moves there are in redo
+   * @param wonAt  what getWonAt gave
+   */
+  public void restore(int[] moves, int moveCount, int[] redo, int redoMoveCount, int wonAt){
+    clear();
+    for(int i = 0; i < moveCount; i = i + 1){
+      int index = moves[i] >>> 2;
+      model.place(index / model.getColumns(), index % model.getColumns(), moves[i] & 3);
+    }
+    System.arraycopy(redo, 0, redoMoves, 0, redoMoveCount);
+    redoCount = redoMoveCount;
+    this.wonAt = wonAt;
+  }
+
+  /*
+   * method that takes every move off the board and empties the redo stack
+   */
+  public void clear(){
+    model.clear();
+    redoCount = 0;
+    wonAt = -1;
+  }
+}
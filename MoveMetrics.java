@@ -0,0 +1,422 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/*
+ * class that measures where the time goes when moves are checked and played: a LatencyHistogram for each stage (checking a move,
+ * each rule, the win check, drawing the board, the computer player's thinking), how many moves were played and how many were
+ * not allowed, and how many squares (or runs of squares) the rules read for each move
+ * the numbers can be read through JMX (as gomoku:type=MoveMetrics, see MoveMetricsMXBean) and each move and each drawing is also a
+ * JFR event (MoveEvent and RenderEvent) when a flight recording is running
+ * it is on unless the program is started with -Dgomoku.metrics=false; ENABLED is a constant, so when it is off every method here
+ * is empty once compiled and costs nothing, and no events are made
+ * the histograms are split into stripes, and each thread records into the stripe its identity hash picks, so the threads of a
+ * GameServer do not all wait on the same lock; reading a histogram adds the stripes together
+ * @author Esther Shin
+ */
+
+public final class MoveMetrics{
+  /*
+   * constant ENABLED  whether anything is measured (see the class comment)
+   */
+  public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("gomoku.metrics", "true"));
+
+  /*
+   * constants for the stages that are timed
+   */
+  public static final int VALIDATE = 0;
+  public static final int FOUR_FOUR = 1;
+  public static final int THREE_THREE = 2;
+  public static final int OVERLINE = 3;
+  public static final int WIN_CHECK = 4;
+  public static final int RENDER = 5;
+  public static final int COMPUTER_MOVE = 6;
+
+  /*
+   * constant STAGE_NAMES  the name of each stage, by its number
+   */
+  static final String[] STAGE_NAMES = {"validate", "fourFour", "threeThree", "overline", "winCheck", "render", "computerMove"};
+
+  /*
+   * constant STRIPES  the number of stripes, a power of two at least twice the number of processors
+   */
+  static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1);
+
+  /*
+   * field stripes  stores the histograms of each stripe; a stripe is locked while it is used, since moves can be checked on many
+   * threads at once (by a GameServer)
+   */
+  private static final Stripe[] stripes = new Stripe[STRIPES];
+
+  /*
+   * fields moveProbe and renderProbe  store events that are never committed, only asked whether their kind of event is being
+   * recorded, so that no event is made for a move or a drawing when it would not be
+   */
+  private static final MoveEvent moveProbe = ENABLED ? new MoveEvent() : null;
+  private static final RenderEvent renderProbe = ENABLED ? new RenderEvent() : null;
+
+  /*
+   * fields that count the moves played and the moves that were not allowed
+   */
+  private static final LongAdder movesPlayed = new LongAdder();
+  private static final LongAdder movesRejected = new LongAdder();
+
+  /*
+   * fields that count the positions the parallel searches looked at and the time they took, in nanoseconds
+   */
+  private static final LongAdder searchNodes = new LongAdder();
+  private static final LongAdder searchNanos = new LongAdder();
+
+  static{
+    for(int i = 0; i < stripes.length; i = i + 1){
+      stripes[i] = new Stripe();
+    }
+    if(ENABLED){
+      try{
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("gomoku:type=MoveMetrics"));
+      }
+      catch(JMException e){
+        System.out.println("Error: cannot register the move metrics with JMX: " + e.getMessage());
+      }
+    }
+  }
+
+  /*
+   * constructor for the MoveMetrics class, which is never made (everything is static)
+   */
+  private MoveMetrics(){
+  }
+
+  /*
+   * class that holds one stripe: the time taken by each stage, in nanoseconds, and how many squares the rules read for each move
+   * checked (a LatencyHistogram is used for the counts, which are not nanoseconds but are spread out the same way)
+   */
+  private static final class Stripe{
+    final LatencyHistogram[] histograms = new LatencyHistogram[STAGE_NAMES.length];
+    final LatencyHistogram scanSteps = new LatencyHistogram();
+
+    Stripe(){
+      for(int i = 0; i < histograms.length; i = i + 1){
+        histograms[i] = new LatencyHistogram();
+      }
+    }
+  }
+
+  /*
+   * method that gets the stripe the current thread records into
+   */
+  private static Stripe stripe(){
+    int hash = System.identityHashCode(Thread.currentThread());
+    return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+  }
+
+  /*
+   * method that gets the time a stage starts at, to give to stop
+   * @return System.nanoTime(), or 0 if nothing is measured
+   */
+  public static long start(){
+    return ENABLED ? System.nanoTime() : 0;
+  }
+
+  /*
+   * method that records how long a stage took
+   * @param stage  the stage (VALIDATE to COMPUTER_MOVE)
+   * @param start  what start returned when the stage started
+   */
+  public static void stop(int stage, long start){
+    if(ENABLED){
+      long nanos = System.nanoTime() - start;
+      Stripe stripe = stripe();
+      synchronized(stripe){
+        stripe.histograms[stage].record(nanos);
+      }
+    }
+  }
+
+  /*
+   * method that begins the JFR event for a move being checked, to give to moveChecked
+   * @return the event, or null if nothing is measured or moves are not being recorded
+   */
+  public static MoveEvent beginMove(){
+    if(ENABLED && moveProbe.isEnabled()){
+      MoveEvent event = new MoveEvent();
+      event.begin();
+      return event;
+    }
+    return null;
+  }
+
+  /*
+   * method that begins the JFR event for a drawing of the board, to give to rendered
+   * @return the event, or null if nothing is measured or drawings are not being recorded
+   */
+  public static RenderEvent beginRender(){
+    if(ENABLED && renderProbe.isEnabled()){
+      RenderEvent event = new RenderEvent();
+      event.begin();
+      return event;
+    }
+    return null;
+  }
+
+  /*
+   * method that counts squares the rules read on a board
+   * @param model  the board the rules are looking at
+   * @param squares  how many squares (or runs of squares) were read
+   */
+  public static void scanned(BoardModel model, int squares){
+    if(ENABLED){
+      model.addScanSteps(squares);
+    }
+  }
+
+  /*
+   * method that records that a move was checked, in the VALIDATE histogram, the move counters and as a JFR event
+   * @param event  what beginMove returned when the move started to be checked
+   * @param start  what start returned then
+   * @param model  the board the move was checked on
+   * @param stepsBefore  what model.getScanSteps() returned then
+   * @param row  the row of the move
+   * @param column  the column of the move
+   * @param color  the color of the player who made it
+   * @param played  whether the move was allowed and played
+   * @param win  whether the move won the game
+   */
+  public static void moveChecked(MoveEvent event, long start, BoardModel model, long stepsBefore, int row, int column, int color,
+                                 boolean played, boolean win){
+    if(ENABLED){
+      long nanos = System.nanoTime() - start;
+      long steps = model.getScanSteps() - stepsBefore;
+      if(played){
+        movesPlayed.increment();
+      }
+      else{
+        movesRejected.increment();
+      }
+      Stripe stripe = stripe();
+      synchronized(stripe){
+        stripe.histograms[VALIDATE].record(nanos);
+        stripe.scanSteps.record(steps);
+      }
+      if(event == null){
+        return;
+      }
+      event.end();
+      if(event.shouldCommit()){
+        event.row = row;
+        event.column = column;
+        event.color = color;
+        event.played = played;
+        event.win = win;
+        event.scanSteps = steps;
+        event.commit();
+      }
+    }
+  }
+
+  /*
+   * method that records one move chosen by a search
+   * @param nodes  how many positions the search looked at
+   * @param nanos  how long it took
+   */
+  public static void searched(long nodes, long nanos){
+    if(ENABLED){
+      searchNodes.add(nodes);
+      searchNanos.add(nanos);
+    }
+  }
+
+  /*
+   * method that records a drawing of the board, in the RENDER histogram and as a JFR event (JavaFX draws the canvas later, on its
+   * own thread, so this is the time taken to say what to draw)
+   * @param event  what beginRender returned when the drawing started
+   * @param start  what start returned then
+   * @param squares  how many squares were drawn
+   */
+  public static void rendered(RenderEvent event, long start, int squares){
+    if(ENABLED){
+      stop(RENDER, start);
+      if(event == null){
+        return;
+      }
+      event.end();
+      if(event.shouldCommit()){
+        event.squares = squares;
+        event.commit();
+      }
+    }
+  }
+
+  /*
+   * method that gets a copy of the histogram of a stage
+   * @param stage  the stage (VALIDATE to COMPUTER_MOVE)
+   */
+  public static LatencyHistogram getHistogram(int stage){
+    LatencyHistogram copy = new LatencyHistogram();
+    for(Stripe stripe : stripes){
+      synchronized(stripe){
+        copy.add(stripe.histograms[stage]);
+      }
+    }
+    return copy;
+  }
+
+  /*
+   * method that gets a copy of the histogram of squares read per move
+   */
+  public static LatencyHistogram getScanStepHistogram(){
+    LatencyHistogram copy = new LatencyHistogram();
+    for(Stripe stripe : stripes){
+      synchronized(stripe){
+        copy.add(stripe.scanSteps);
+      }
+    }
+    return copy;
+  }
+
+  public static long getMovesPlayed(){
+    return movesPlayed.sum();
+  }
+
+  public static long getMovesRejected(){
+    return movesRejected.sum();
+  }
+
+  public static long getSearchNodes(){
+    return searchNodes.sum();
+  }
+
+  /*
+   * method that gets how many positions the searches looked at per second of searching
+   */
+  public static double getSearchNodesPerSecond(){
+    long nanos = searchNanos.sum();
+    return nanos == 0 ? 0 : searchNodes.sum() * 1e9 / nanos;
+  }
+
+  /*
+   * method that forgets everything measured so far
+   */
+  public static void reset(){
+    for(Stripe stripe : stripes){
+      synchronized(stripe){
+        for(LatencyHistogram histogram : stripe.histograms){
+          histogram.reset();
+        }
+        stripe.scanSteps.reset();
+      }
+    }
+    movesPlayed.reset();
+    movesRejected.reset();
+    searchNodes.reset();
+    searchNanos.reset();
+  }
+
+  /*
+   * method that describes everything measured, one stage per line, in microseconds
+   */
+  public static String report(){
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("moves played=%d not allowed=%d, squares read per move: mean=%.1f p99=%d max=%d%n",
+                                getMovesPlayed(), getMovesRejected(), getScanStepHistogram().getMean(),
+                                getScanStepHistogram().getPercentile(99), getScanStepHistogram().getMax()));
+    if(getSearchNodes() > 0){
+      report.append(String.format("search nodes=%d nodes/sec=%.0f%n", getSearchNodes(), getSearchNodesPerSecond()));
+    }
+    for(int stage = 0; stage < STAGE_NAMES.length; stage = stage + 1){
+      LatencyHistogram histogram = getHistogram(stage);
+      if(histogram.getCount() > 0){
+        report.append(String.format("%-12s count=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus%n", STAGE_NAMES[stage],
+                                    histogram.getCount(), histogram.getMean() / 1000.0, histogram.getPercentile(50) / 1000.0,
+                                    histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0));
+      }
+    }
+    return report.toString();
+  }
+
+  /*
+   * class that shows the numbers through JMX
+   */
+  private static class Bean implements MoveMetricsMXBean{
+    public String[] getStageNames(){
+      return STAGE_NAMES.clone();
+    }
+
+    public long[] getCounts(){
+      long[] counts = new long[STAGE_NAMES.length];
+      for(int stage = 0; stage < counts.length; stage = stage + 1){
+        counts[stage] = getHistogram(stage).getCount();
+      }
+      return counts;
+    }
+
+    public double[] getMeanMicros(){
+      double[] means = new double[STAGE_NAMES.length];
+      for(int stage = 0; stage < means.length; stage = stage + 1){
+        means[stage] = getHistogram(stage).getMean() / 1000.0;
+      }
+      return means;
+    }
+
+    public double[] getP50Micros(){
+      return percentileMicros(50);
+    }
+
+    public double[] getP99Micros(){
+      return percentileMicros(99);
+    }
+
+    public double[] getP999Micros(){
+      return percentileMicros(99.9);
+    }
+
+    public double[] getMaxMicros(){
+      double[] maxes = new double[STAGE_NAMES.length];
+      for(int stage = 0; stage < maxes.length; stage = stage + 1){
+        maxes[stage] = getHistogram(stage).getMax() / 1000.0;
+      }
+      return maxes;
+    }
+
+    private double[] percentileMicros(double percentile){
+      double[] values = new double[STAGE_NAMES.length];
+      for(int stage = 0; stage < values.length; stage = stage + 1){
+        values[stage] = getHistogram(stage).getPercentile(percentile) / 1000.0;
+      }
+      return values;
+    }
+
+    public long getMovesPlayed(){
+      return MoveMetrics.getMovesPlayed();
+    }
+
+    public long getMovesRejected(){
+      return MoveMetrics.getMovesRejected();
+    }
+
+    public long getSearchNodes(){
+      return MoveMetrics.getSearchNodes();
+    }
+
+    public double getSearchNodesPerSecond(){
+      return MoveMetrics.getSearchNodesPerSecond();
+    }
+
+    public double getMeanScanSteps(){
+      return getScanStepHistogram().getMean();
+    }
+
+    public long getMaxScanSteps(){
+      return getScanStepHistogram().getMax();
+    }
+
+    public String getReport(){
+      return report();
+    }
+
+    public void reset(){
+      MoveMetrics.reset();
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * interface for what MoveMetrics shows through JMX (in jconsole or VisualVM, under gomoku:type=MoveMetrics)
+ * the arrays have one value per stage, in the order of getStageNames
+ * @author Esther Shin
+ */
+
+public interface MoveMetricsMXBean{
+  String[] getStageNames();
+
+  long[] getCounts();
+
+  double[] getMeanMicros();
+
+  double[] getP50Micros();
+
+  double[] getP99Micros();
+
+  double[] getP999Micros();
+
+  double[] getMaxMicros();
+
+  long getMovesPlayed();
+
+  long getMovesRejected();
+
+  long getSearchNodes();
+
+  double getSearchNodesPerSecond();
+
+  double getMeanScanSteps();
+
+  long getMaxScanSteps();
+
+  String getReport();
+
+  /*
+   * method that forgets everything measured so far
+   */
+  void reset();
+}
@@ -0,0 +1,151 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * class that looks up moves in an opening book file (made by OpeningBookBuilder) without loading it: the file is memory-mapped and
+ * a lookup is a binary search of it
+ * the book is keyed by the canonical hash of a position (see BoardSymmetry), so a position and its mirror images and rotations share
+ * their moves; the moves are stored on the canonical form and moved back onto the real board when they are looked up
+ * the file starts with a 16 byte header: the letters GMKB, a version byte (1), 3 unused bytes, rows (2 bytes), columns (2 bytes) and
+ * the number of entries (4 bytes); then every entry is 16 bytes, all numbers big-endian:
+ *   canonical hash (8 bytes), move on the canonical form as row * columns + column (4 bytes), weight (4 bytes)
+ * the entries are sorted by hash, and the entries of one hash by weight, highest first
+ * @author Esther Shin
+ */
+
+public class OpeningBook implements Closeable{
+  /*
+   * constants for the file layout
+   */
+  static final int MAGIC = 0x474D4B42;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int ENTRY_SIZE = 16;
+
+  /*
+   * field channel  stores the book file
+   */
+  private final FileChannel channel;
+
+  /*
+   * field entries  stores the mapped file
+   */
+  private final MappedByteBuffer entries;
+
+  /*
+   * fields for the board size the book is for and how many entries it has
+   */
+  private final int rows;
+  private final int columns;
+  private final int size;
+
+  /*
+   * constructor for the OpeningBook class
+   * @param path  the book file
+   * @throws IOException if the file cannot be opened, or it is not an opening book
+   */
+  public OpeningBook(Path path) throws IOException{
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    long fileSize = channel.size();
+    if(fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE){
+      channel.close();
+      throw new IOException(path + " is not an opening book");
+    }
+    entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+    rows = entries.getShort(8) & 0xFFFF;
+    columns = entries.getShort(10) & 0xFFFF;
+    size = entries.getInt(12);
+    if(entries.getInt(0) != MAGIC || entries.get(4) != VERSION || size < 0 || HEADER_SIZE + (long) size * ENTRY_SIZE != fileSize){
+      channel.close();
+      throw new IOException(path + " is not an opening book");
+    }
+  }
+
+  public int getRows(){
+    return rows;
+  }
+
+  public int getColumns(){
+    return columns;
+  }
+
+  /*
+   * method that gets how many entries (position and move pairs) the book has
+   */
+  public int size(){
+    return size;
+  }
+
+  /*
+   * method that gets the hash of an entry
+   */
+  private long hashAt(int entry){
+    return entries.getLong(HEADER_SIZE + entry * ENTRY_SIZE);
+  }
+
+  /*
+   * method that finds the first entry of a hash with a binary search
+   * @param hash  the canonical hash of a position
+   * @return the number of the first entry with that hash, or -1 if the position is not in the book
+   */
+  private int find(long hash){
+    int low = 0;
+    int high = size;
+    while(low < high){
+      int middle = (low + high) >>> 1;
+      if(hashAt(middle) < hash){
+        low = middle + 1;
+      }
+      else{
+        high = middle;
+      }
+    }
+    return low < size && hashAt(low) == hash ? low : -1;
+  }
+
+  /*
+   * method that gets the book moves for a position, highest weight first
+   * @param model  the board
+   * @param color  the color of the player to move
+   * @param moves  gets the moves, as row * columns + column on the real board
+   * @param weights  gets the weight of each move (it may be null)
+   * @return how many moves were put in moves (0 if the position is not in the book or the board is not the book's size)
+   */
+  public int lookup(BoardModel model, int color, int[] moves, int[] weights){
+    if(model.getRows() != rows || model.getColumns() != columns){
+      return 0;
+    }
+    int symmetry = BoardSymmetry.canonicalSymmetry(model, color);
+    int entry = find(BoardSymmetry.hashUnder(model, color, symmetry));
+    if(entry == -1){
+      return 0;
+    }
+    long hash = hashAt(entry);
+    int count = 0;
+    while(entry < size && count < moves.length && hashAt(entry) == hash){
+      int offset = HEADER_SIZE + entry * ENTRY_SIZE;
+      int move = BoardSymmetry.inverse(symmetry, rows, columns, entries.getInt(offset + 8));
+      if(move >= 0 && move < rows * columns && model.isEmpty(move / columns, move % columns)){
+        moves[count] = move;
+        if(weights != null){
+          weights[count] = entries.getInt(offset + 12);
+        }
+        count = count + 1;
+      }
+      entry = entry + 1;
+    }
+    return count;
+  }
+
+  /*
+   * method that closes the book file
+   * @throws IOException if it cannot be closed
+   */
+  public void close() throws IOException{
+    channel.close();
+  }
+}
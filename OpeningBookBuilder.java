@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * class that makes an opening book file (see OpeningBook) from the first moves of many games
+ * every move in the first maxPly moves of a game adds to the weight of that move in that position: 2 if the player who made it won,
+ * 1 if the game has no result, and nothing if they lost; the positions are stored by their canonical hash, so games that start
+ * the same way up to a mirror image or a rotation add to the same entries
+ * the entries are kept in an open-addressing table of plain arrays while the games are added
+ * @author Esther Shin
+ */
+
+public class OpeningBookBuilder{
+  /*
+   * fields for the board size and how many moves of every game are used
+   */
+  private final int rows;
+  private final int columns;
+  private final int maxPly;
+
+  /*
+   * field board  stores the board the games are replayed on
+   */
+  private final BoardModel board;
+
+  /*
+   * fields for the table of entries: slot i holds hashes[i], moves[i] and weights[i], and moves[i] is -1 if the slot is empty
+   */
+  private long[] hashes;
+  private int[] moves;
+  private int[] weights;
+  private int entryCount;
+
+  /*
+   * constructor for the OpeningBookBuilder class
+   * @param rows  the number of rows on the board of the book
+   * @param columns  the number of columns on the board of the book
+   * @param maxPly  how many moves from the start of every game go in the book
+   */
+  public OpeningBookBuilder(int rows, int columns, int maxPly){
+    this.rows = rows;
+    this.columns = columns;
+    this.maxPly = maxPly;
+    board = new BoardModel(rows, columns);
+    allocate(1 << 12);
+  }
+
+  /*
+   * method that makes an empty table
+   * @param capacity  the number of slots (a power of 2)
+   */
+  private void allocate(int capacity){
+    hashes = new long[capacity];
+    moves = new int[capacity];
+    weights = new int[capacity];
+    Arrays.fill(moves, -1);
+    entryCount = 0;
+  }
+
+  /*
+   * method that gets the number of different position and move pairs added so far
+   */
+  public int size(){
+    return entryCount;
+  }
+
+  /*
+   * method that adds the first moves of a game
+   * @param model  a board with the moves of the game on it in order (it must be the book's size)
+   * @param result  GameRecordWriter.UNFINISHED, GameRecordWriter.DRAW, or BoardModel.BLACK or BoardModel.WHITE for the winner; the
+   * winner's moves count twice and the loser's not at all, and every move of a draw or an unfinished game counts once
+   */
+  public void addGame(BoardModel model, int result){
+    if(model.getRows() != rows || model.getColumns() != columns){
+      throw new IllegalArgumentException("The game is not on a " + rows + "x" + columns + " board");
+    }
+    board.clear();
+    int plies = Math.min(maxPly, model.getMoveCount());
+    for(int i = 0; i < plies; i = i + 1){
+      int move = model.getMove(i);
+      int color = model.colorAt(move / columns, move % columns);
+      int weight = result != BoardModel.BLACK && result != BoardModel.WHITE ? 1 : result == color ? 2 : 0;
+      if(weight > 0){
+        add(BoardSymmetry.canonicalHash(board, color), BoardSymmetry.canonicalMove(board, color, move), weight);
+      }
+      board.place(move / columns, move % columns, color);
+    }
+  }
+
+  /*
+   * method that adds to the weight of a move in a position
+   */
+  private void add(long hash, int move, int weight){
+    if((entryCount + 1) * 4 > hashes.length * 3){
+      grow();
+    }
+    int mask = hashes.length - 1;
+    int slot = (int) ((hash ^ (hash >>> 32)) + move * 0x9E3779B1) & mask;
+    while(moves[slot] != -1 && (hashes[slot] != hash || moves[slot] != move)){
+      slot = (slot + 1) & mask;
+    }
+    if(moves[slot] == -1){
+      hashes[slot] = hash;
+      moves[slot] = move;
+      entryCount = entryCount + 1;
+    }
+    weights[slot] = weights[slot] + weight;
+  }
+
+  /*
+   * method that doubles the size of the table
+   */
+  private void grow(){
+    long[] oldHashes = hashes;
+    int[] oldMoves = moves;
+    int[] oldWeights = weights;
+    allocate(oldHashes.length * 2);
+    for(int i = 0; i < oldHashes.length; i = i + 1){
+      if(oldMoves[i] != -1){
+        add(oldHashes[i], oldMoves[i], oldWeights[i]);
+      }
+    }
+  }
+
+  /*
+   * method that writes the book file: the entries with at least minWeight, sorted by hash and then by weight
+   * @param path  the file to write (it is replaced if it is there)
+   * @param minWeight  the smallest weight a move needs to go in the book
+   * @return how many entries were written
+   * @throws IOException if the file cannot be written
+   */
+  public int write(Path path, int minWeight) throws IOException{
+    /*
+     * moves the entries that are kept to the front of the arrays, then sorts them there
+     */
+    int count = 0;
+    for(int i = 0; i < hashes.length; i = i + 1){
+      if(moves[i] != -1 && weights[i] >= minWeight){
+        hashes[count] = hashes[i];
+        moves[count] = moves[i];
+        weights[count] = weights[i];
+        count = count + 1;
+      }
+    }
+    sort(0, count - 1);
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING)){
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+      buffer.putInt(OpeningBook.MAGIC).put((byte) OpeningBook.VERSION).put((byte) 0).put((byte) 0).put((byte) 0);
+      buffer.putShort((short) rows).putShort((short) columns).putInt(count);
+      for(int i = 0; i < count; i = i + 1){
+        if(buffer.remaining() < OpeningBook.ENTRY_SIZE){
+          drain(channel, buffer);
+        }
+        buffer.putLong(hashes[i]).putInt(moves[i]).putInt(weights[i]);
+      }
+      drain(channel, buffer);
+    }
+    /*
+     * the table was taken apart to sort it, so it starts again empty
+     */
+    allocate(1 << 12);
+    return count;
+  }
+
+  /*
+   * method that writes out what is in a buffer and empties it
+   */
+  private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException{
+    buffer.flip();
+    while(buffer.hasRemaining()){
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /*
+   * method that sorts entries low to high (a quicksort of the three arrays together) by hash, and then by weight highest first
+   */
+  private void sort(int low, int high){
+    while(low < high){
+      int middle = (low + high) >>> 1;
+      long pivotHash = hashes[middle];
+      int pivotWeight = weights[middle];
+      int i = low;
+      int j = high;
+      while(i <= j){
+        while(before(i, pivotHash, pivotWeight)){
+          i = i + 1;
+        }
+        while(after(j, pivotHash, pivotWeight)){
+          j = j - 1;
+        }
+        if(i <= j){
+          swap(i, j);
+          i = i + 1;
+          j = j - 1;
+        }
+      }
+      /*
+       * sorts the smaller side by calling itself and the bigger side by looping, so the calls never go deep
+       */
+      if(j - low < high - i){
+        sort(low, j);
+        low = i;
+      }
+      else{
+        sort(i, high);
+        high = j;
+      }
+    }
+  }
+
+  private boolean before(int entry, long hash, int weight){
+    return hashes[entry] < hash || (hashes[entry] == hash && weights[entry] > weight);
+  }
+
+  private boolean after(int entry, long hash, int weight){
+    return hashes[entry] > hash || (hashes[entry] == hash && weights[entry] < weight);
+  }
+
+  private void swap(int i, int j){
+    long hash = hashes[i];
+    hashes[i] = hashes[j];
+    hashes[j] = hash;
+    int move = moves[i];
+    moves[i] = moves[j];
+    moves[j] = move;
+    int weight = weights[i];
+    weights[i] = weights[j];
+    weights[j] = weight;
+  }
+
+  /*
+   * main method: makes a book from a collection of games, either a game-record file (.gmr) or a text collection (SGF, PSQ or RENJU);
+   * games on other board sizes are skipped
+   * run it like: java OpeningBookBuilder games.gmr book.gmb rows=15 columns=15 maxPly=12 minWeight=2
+   * @param args  the collection, the book file, then key=value options
+   */
+  public static void main(String[] args) throws IOException{
+    if(args.length < 2){
+      System.out.println("Error: give the collection to read and the book file to write");
+      return;
+    }
+    int rows = 15;
+    int columns = -1;
+    int maxPly = 12;
+    int minWeight = 2;
+    for(int i = 2; i < args.length; i = i + 1){
+      int equals = args[i].indexOf('=');
+      String key = equals == -1 ? args[i] : args[i].substring(0, equals);
+      int value = equals == -1 ? 0 : Integer.parseInt(args[i].substring(equals + 1));
+      if(key.equals("rows")){
+        rows = value;
+      }
+      else if(key.equals("columns")){
+        columns = value;
+      }
+      else if(key.equals("maxPly")){
+        maxPly = value;
+      }
+      else if(key.equals("minWeight")){
+        minWeight = value;
+      }
+      else{
+        System.out.println("Error: unknown option " + args[i]);
+        return;
+      }
+    }
+    columns = columns == -1 ? rows : columns;
+    OpeningBookBuilder builder = new OpeningBookBuilder(rows, columns, maxPly);
+    BoardModel model = new BoardModel(rows, columns);
+    long games = 0;
+    long start = System.nanoTime();
+    if(args[0].toLowerCase().endsWith(".gmr")){
+      try(GameRecordReader reader = new GameRecordReader(Paths.get(args[0]))){
+        while(reader.next()){
+          if(reader.getRows() == rows && reader.getColumns() == columns){
+            model.clear();
+            reader.replayOnto(model);
+            builder.addGame(model, reader.getResult());
+            games = games + 1;
+          }
+        }
+      }
+    }
+    else{
+      try(Reader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)){
+        GameNotationReader reader = new GameNotationReader(in, GameNotationReader.formatOf(args[0]), rows, columns);
+        while(reader.next()){
+          if(reader.getModel().getRows() == rows && reader.getModel().getColumns() == columns){
+            builder.addGame(reader.getModel(), reader.getResult());
+            games = games + 1;
+          }
+        }
+      }
+    }
+    int total = builder.size();
+    int written = builder.write(Paths.get(args[1]), minWeight);
+    System.out.println(games + " games, " + total + " positions and moves, " + written + " kept in "
+                         + (System.nanoTime() - start) / 1000000 + " ms");
+  }
+}
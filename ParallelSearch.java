@@ -0,0 +1,219 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * class that searches for a move with several threads at once (Lazy SMP): every thread runs its own alpha-beta search of the same position
+ * on its own copy of the board, and they help each other only through one shared transposition table
+ * each helper keeps its board from move to move and is brought up to the position by taking back and placing only the moves that
+ * differ, so its candidate moves, pattern evaluator and search arrays (which follow its board) are made once, not at every move
+ * the first thread's answer is played; the other threads start their iterative deepening one depth further so they fill the table
+ * with results the first thread will need next
+ * how many positions were searched and how fast is kept by MoveMetrics (and shown through JMX) as well as by getNodes
+ * @author Esther Shin
+ */
+
+public class ParallelSearch implements Player{
+  /*
+   * field players  stores one alpha-beta player per thread, all sharing the same transposition table
+   */
+  private final AlphaBetaPlayer[] players;
+
+  /*
+   * field helperModels  stores the board of every helper thread (the first is not used: the main thread searches the real board)
+   */
+  private final BoardModel[] helperModels;
+
+  /*
+   * field table  stores the transposition table shared by every thread
+   */
+  private final TranspositionTable table;
+
+  /*
+   * field executor  stores the threads that run the helper searches
+   */
+  private final ExecutorService executor;
+
+  /*
+   * field nodes  stores how many positions all the threads searched together for the last move
+   */
+  private long nodes;
+
+  /*
+   * field elapsedNanos  stores how long the last move took to choose, in nanoseconds
+   */
+  private long elapsedNanos;
+
+  /*
+   * constructor for the ParallelSearch class
+   * @param rules  the rules the players must follow
+   * @param threads  how many threads search at once
+   * @param maxDepth  the deepest number of moves ahead to search
+   * @param timeBudgetMillis  how many milliseconds to think about one move (0 or less means no limit)
+   * @param tableSizeBits  the shared table has 2 to the power of tableSizeBits slots
+   */
+  public ParallelSearch(GomokuRules rules, int threads, int maxDepth, long timeBudgetMillis, int tableSizeBits){
+    if(threads < 1){
+      throw new IllegalArgumentException("threads must be at least 1");
+    }
+    table = new TranspositionTable(tableSizeBits);
+    players = new AlphaBetaPlayer[threads];
+    helperModels = new BoardModel[threads];
+    for(int i = 0; i < threads; i = i + 1){
+      players[i] = new AlphaBetaPlayer(rules, maxDepth, timeBudgetMillis, 16, table);
+    }
+    executor = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+      Thread thread = new Thread(runnable, "gomoku-search-helper");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+  }
+
+  /*
+   * method that gets how many threads search at once
+   */
+  public int getThreads(){
+    return players.length;
+  }
+
+  /*
+   * method that gets the transposition table shared by the threads
+   */
+  public TranspositionTable getTable(){
+    return table;
+  }
+
+  /*
+   * method that gets how many positions all the threads searched together for the last move
+   */
+  public long getNodes(){
+    return nodes;
+  }
+
+  /*
+   * method that gets how many positions per second all the threads searched together for the last move
+   */
+  public long getNodesPerSecond(){
+    return elapsedNanos == 0 ? 0 : nodes * 1000000000L / elapsedNanos;
+  }
+
+  /*
+   * method that gets the deepest search the main thread finished for the last move
+   */
+  public int getCompletedDepth(){
+    return players[0].getCompletedDepth();
+  }
+
+  /*
+   * method that picks a move for a player using every thread; the board is not changed
+   * @param model  the board being played on
+   * @param color  the color of the player to move (BoardModel.BLACK or BoardModel.WHITE)
+   * @return the index (row * columns + column) of the chosen square, or -1 if there is no legal move
+   */
+  public int chooseMove(BoardModel model, int color){
+    long start = System.nanoTime();
+    AtomicBoolean stop = new AtomicBoolean(false);
+    List<Future<?>> helpers = new ArrayList<Future<?>>();
+    /*
+     * starts each helper on its own board, brought up to the position; odd helpers start one depth deeper than even ones
+     * (the main thread searches the board itself, which it leaves as it found it)
+     */
+    for(int i = 1; i < players.length; i = i + 1){
+      AlphaBetaPlayer helper = players[i];
+      helperModels[i] = follow(helperModels[i], model);
+      BoardModel helperModel = helperModels[i];
+      int firstDepth = 1 + (i & 1);
+      helper.setStopSignal(stop);
+      helpers.add(executor.submit(() -> helper.chooseMove(helperModel, color, firstDepth)));
+    }
+    int move;
+    try{
+      move = players[0].chooseMove(model, color);
+    }
+    finally{
+      stop.set(true);
+      waitFor(helpers);
+    }
+    nodes = 0;
+    for(AlphaBetaPlayer player : players){
+      nodes = nodes + player.getNodes();
+    }
+    elapsedNanos = System.nanoTime() - start;
+    MoveMetrics.searched(nodes, elapsedNanos);
+    return move;
+  }
+
+  /*
+   * method that makes a helper's board the same as the real board: the moves after the last one they have in common are taken back
+   * and the real board's moves from there are placed, so between two moves of a game only one or two pieces change
+   * @param board  the helper's board, or null if it has none yet
+   * @param model  the real board
+   * @return the helper's board (a new copy if it had none, or the board size changed)
+   */
+  static BoardModel follow(BoardModel board, BoardModel model){
+    if(board == null || board.getRows() != model.getRows() || board.getColumns() != model.getColumns()){
+      return model.copy();
+    }
+    int columns = model.getColumns();
+    int same = 0;
+    while(same < board.getMoveCount() && same < model.getMoveCount() && board.getMove(same) == model.getMove(same)
+            && board.colorAt(board.getMove(same) / columns, board.getMove(same) % columns)
+               == model.colorAt(model.getMove(same) / columns, model.getMove(same) % columns)){
+      same = same + 1;
+    }
+    while(board.getMoveCount() > same){
+      board.undo();
+    }
+    for(int i = same; i < model.getMoveCount(); i = i + 1){
+      int move = model.getMove(i);
+      board.place(move / columns, move % columns, model.colorAt(move / columns, move % columns));
+    }
+    return board;
+  }
+
+  /*
+   * method that waits until every helper search has stopped
+   * @param helpers  the helper searches
+   */
+  private static void waitFor(List<Future<?>> helpers){
+    boolean interrupted = false;
+    for(Future<?> helper : helpers){
+      while(true){
+        try{
+          helper.get();
+          break;
+        }
+        catch(InterruptedException e){
+          interrupted = true;
+        }
+        catch(ExecutionException e){
+          throw new IllegalStateException("A helper search failed", e.getCause());
+        }
+      }
+    }
+    if(interrupted){
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /*
+   * method that sets a flag another thread can set to make the search stop; the main thread looks at it, and the helpers stop
+   * when the main thread does
+   */
+  public void setStopSignal(AtomicBoolean stopSignal){
+    players[0].setStopSignal(stopSignal);
+  }
+
+  /*
+   * method that stops the helper threads; the search cannot be used after this
+   */
+  public void shutdown(){
+    if(executor != null){
+      executor.shutdownNow();
+    }
+  }
+}
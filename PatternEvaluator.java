@@ -0,0 +1,455 @@
+import java.util.Arrays;
+
+/*
+ * class that scores positions with tables of line patterns, kept up to date as pieces are placed and taken back
+ * for every square, every axis and each color, the squares within winNumber of it along the axis are kept as a base-3 number
+ * (0 empty, 1 a piece of that color, 2 the other color or off the board); that number is the index into two tables made once per
+ * winNumber: what playing the square would make on that line (a five, a four with two winning squares, a four, an open three, a three)
+ * and a score for it
+ * (winNumber and not winNumber - 1, so that a piece just past a run of winNumber is seen and an overline is not taken for a five)
+ * a piece only changes the numbers of the squares in line with it, so a move updates at most 8 * winNumber squares,
+ * each with one addition and a couple of table reads, and the position's score is a running total
+ * @author Esther Shin
+ */
+
+public class PatternEvaluator implements BoardListener{
+  /*
+   * constants for what playing a square makes on one line, from weakest to strongest
+   */
+  public static final int NONE = 0;
+  public static final int THREE = 1;
+  public static final int OPEN_THREE = 2;
+  public static final int FOUR = 3;
+  public static final int OPEN_FOUR = 4;
+  public static final int FIVE = 5;
+
+  /*
+   * constant MAX_WIN_NUMBER  the biggest winNumber tables are made for (the tables have 3 to the power of 2 * winNumber entries)
+   */
+  public static final int MAX_WIN_NUMBER = 6;
+
+  /*
+   * constant TYPE_SCORES  the score of each kind of line, added to the score of the windows the line could still win in
+   */
+  private static final int[] TYPE_SCORES = {0, 200, 1200, 1500, 10000, 50000};
+
+  /*
+   * constant LOSS_SCORE  the score of a position the player to move cannot save (the other player has two squares that win)
+   */
+  static final int LOSS_SCORE = 90000;
+
+  /*
+   * constant WIN_SOON_SCORE  the score of a position where the player to move makes a four with two winning squares, which cannot be stopped
+   */
+  static final int WIN_SOON_SCORE = 80000;
+
+  /*
+   * class that holds the tables for one winNumber
+   */
+  private static class Tables{
+    /*
+     * field half  stores how many squares on each side of a square are in its pattern
+     */
+    final int half;
+
+    /*
+     * field powers  stores 3 to the power of each position in a pattern
+     */
+    final int[] powers;
+
+    /*
+     * field types  stores what playing the middle square of each pattern makes (NONE to FIVE)
+     */
+    final byte[] types;
+
+    /*
+     * field scores  stores the score of playing the middle square of each pattern
+     */
+    final int[] scores;
+
+    Tables(int winNumber){
+      half = winNumber;
+      powers = new int[2 * half + 1];
+      powers[0] = 1;
+      for(int i = 1; i < powers.length; i = i + 1){
+        powers[i] = powers[i - 1] * 3;
+      }
+      int size = powers[2 * half];
+      types = new byte[size];
+      scores = new int[size];
+      int[] line = new int[2 * half + 1];
+      for(int pattern = 0; pattern < size; pattern = pattern + 1){
+        int rest = pattern;
+        for(int position = 0; position < 2 * half; position = position + 1){
+          line[position < half ? position : position + 1] = rest % 3;
+          rest = rest / 3;
+        }
+        line[half] = 1;
+        int type = lineType(line, winNumber);
+        types[pattern] = (byte) type;
+        scores[pattern] = TYPE_SCORES[type] + windowScore(line, winNumber);
+      }
+    }
+  }
+
+  /*
+   * field tableCache  stores the tables already made, by winNumber
+   */
+  private static final Tables[] tableCache = new Tables[MAX_WIN_NUMBER + 1];
+
+  /*
+   * method that gets the tables for a winNumber, making them the first time
+   */
+  private static synchronized Tables tablesFor(int winNumber){
+    if(tableCache[winNumber] == null){
+      tableCache[winNumber] = new Tables(winNumber);
+    }
+    return tableCache[winNumber];
+  }
+
+  /*
+   * method that determines whether a winNumber has tables
+   */
+  public static boolean supports(int winNumber){
+    return winNumber >= 1 && winNumber <= MAX_WIN_NUMBER;
+  }
+
+  /*
+   * method that gets the length of the line of pieces (1 in line) through a square
+   */
+  private static int runThrough(int[] line, int square){
+    int length = 1;
+    for(int i = square - 1; i >= 0 && line[i] == 1; i = i - 1){
+      length = length + 1;
+    }
+    for(int i = square + 1; i < line.length && line[i] == 1; i = i + 1){
+      length = length + 1;
+    }
+    return length;
+  }
+
+  /*
+   * method that counts the empty squares of a line that would make exactly winNumber in a row through the middle square
+   */
+  private static int winningSquares(int[] line, int winNumber){
+    int middle = line.length / 2;
+    int count = 0;
+    for(int i = 0; i < line.length; i = i + 1){
+      if(line[i] == 0){
+        line[i] = 1;
+        boolean joined = true;
+        for(int between = Math.min(i, middle) + 1; between < Math.max(i, middle); between = between + 1){
+          joined = joined && line[between] == 1;
+        }
+        if(joined && runThrough(line, middle) == winNumber){
+          count = count + 1;
+        }
+        line[i] = 0;
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that works out what a line with a piece just played in the middle makes
+   * @param line  the line, 0 empty, 1 a piece of the player, 2 blocked
+   * @return NONE, THREE, OPEN_THREE, FOUR, OPEN_FOUR or FIVE
+   */
+  static int lineType(int[] line, int winNumber){
+    if(runThrough(line, line.length / 2) == winNumber){
+      return FIVE;
+    }
+    int wins = winningSquares(line, winNumber);
+    if(wins >= 2){
+      return OPEN_FOUR;
+    }
+    if(wins == 1){
+      return FOUR;
+    }
+    /*
+     * a three is a line one more piece turns into a four, and an open three is one that can become a four with two winning squares
+     */
+    int type = NONE;
+    for(int i = 0; i < line.length && type != OPEN_THREE; i = i + 1){
+      if(line[i] == 0){
+        line[i] = 1;
+        int next = winningSquares(line, winNumber);
+        line[i] = 0;
+        if(next >= 2){
+          type = OPEN_THREE;
+        }
+        else if(next == 1){
+          type = THREE;
+        }
+      }
+    }
+    return type;
+  }
+
+  /*
+   * method that scores the room a line has: every stretch of winNumber squares through the middle with nothing blocking it
+   * is worth the cube of how many pieces are in it
+   */
+  private static int windowScore(int[] line, int winNumber){
+    int middle = line.length / 2;
+    int score = 0;
+    for(int start = Math.max(0, middle - winNumber + 1); start <= middle && start + winNumber <= line.length; start = start + 1){
+      int pieces = 0;
+      boolean blocked = false;
+      for(int i = start; i < start + winNumber; i = i + 1){
+        blocked = blocked || line[i] == 2;
+        pieces = pieces + (line[i] == 1 ? 1 : 0);
+      }
+      if(!blocked){
+        score = score + pieces * pieces * pieces;
+      }
+    }
+    return score;
+  }
+
+  /*
+   * field model  stores the board being scored
+   */
+  private final BoardModel model;
+
+  /*
+   * field tables  stores the tables for the board's winNumber
+   */
+  private final Tables tables;
+
+  /*
+   * field patterns  stores patterns[(color - 1) * 4 + axis][square], the pattern along the axis through the square as the color sees it
+   */
+  private final int[][] patterns;
+
+  /*
+   * field cellScores  stores cellScores[color - 1][square], the score of playing the square for the color (all four axes added up)
+   */
+  private final int[][] cellScores;
+
+  /*
+   * field cellTypes  stores cellTypes[color - 1][square], the strongest thing playing the square makes for the color on any axis
+   */
+  private final byte[][] cellTypes;
+
+  /*
+   * field totals  stores the sum of cellScores over the empty squares, for each color
+   */
+  private final long[] totals = new long[2];
+
+  /*
+   * field typeCounts  stores typeCounts[color - 1][type], how many empty squares have that as their cellType
+   */
+  private final int[][] typeCounts = new int[2][FIVE + 1];
+
+  /*
+   * constructor for the PatternEvaluator class; it reads the pieces already on the board, but must be added to the board as a
+   * listener (BoardModel.addListener) to follow the moves after that
+   * @param model  the board to score
+   * @param winNumber  the number of pieces in a row needed to win (at most MAX_WIN_NUMBER)
+   */
+  public PatternEvaluator(BoardModel model, int winNumber){
+    if(!supports(winNumber)){
+      throw new IllegalArgumentException("No pattern tables for winNumber " + winNumber);
+    }
+    this.model = model;
+    this.tables = tablesFor(winNumber);
+    int cells = model.getRows() * model.getColumns();
+    patterns = new int[8][cells];
+    cellScores = new int[2][cells];
+    cellTypes = new byte[2][cells];
+    rebuild();
+  }
+
+  /*
+   * method that gets the position in a pattern of the square offset squares along the axis from the middle
+   */
+  private int positionOf(int offset){
+    return offset < 0 ? offset + tables.half : offset + tables.half - 1;
+  }
+
+  public void boardCleared(){
+    rebuild();
+  }
+
+  /*
+   * method that works out every pattern, score and count from the pieces on the board
+   */
+  private void rebuild(){
+    int rows = model.getRows();
+    int columns = model.getColumns();
+    for(int[] axisPatterns : patterns){
+      Arrays.fill(axisPatterns, 0);
+    }
+    for(int row = 0; row < rows; row = row + 1){
+      for(int column = 0; column < columns; column = column + 1){
+        int square = row * columns + column;
+        for(int axis = 0; axis < 4; axis = axis + 1){
+          int pattern = 0;
+          for(int offset = -tables.half; offset <= tables.half; offset = offset + 1){
+            if(offset != 0 && !model.isOnBoard(row + offset * LineRuns.ROW_STEP[axis], column + offset * LineRuns.COLUMN_STEP[axis])){
+              pattern = pattern + 2 * tables.powers[positionOf(offset)];
+            }
+          }
+          patterns[axis][square] = pattern;
+          patterns[4 + axis][square] = pattern;
+        }
+      }
+    }
+    /*
+     * adds each piece to the patterns of the squares in line with it
+     */
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int index = model.getMove(i);
+      int row = index / columns;
+      int column = index % columns;
+      int color = model.colorAt(row, column);
+      for(int axis = 0; axis < 4; axis = axis + 1){
+        for(int offset = -tables.half; offset <= tables.half; offset = offset + 1){
+          int otherRow = row + offset * LineRuns.ROW_STEP[axis];
+          int otherColumn = column + offset * LineRuns.COLUMN_STEP[axis];
+          if(offset != 0 && model.isOnBoard(otherRow, otherColumn)){
+            int other = otherRow * columns + otherColumn;
+            int weight = tables.powers[positionOf(-offset)];
+            patterns[(color - 1) * 4 + axis][other] = patterns[(color - 1) * 4 + axis][other] + weight;
+            patterns[(2 - color) * 4 + axis][other] = patterns[(2 - color) * 4 + axis][other] + 2 * weight;
+          }
+        }
+      }
+    }
+    totals[0] = 0;
+    totals[1] = 0;
+    for(int[] counts : typeCounts){
+      Arrays.fill(counts, 0);
+    }
+    for(int color = 0; color < 2; color = color + 1){
+      for(int square = 0; square < rows * columns; square = square + 1){
+        refreshCell(color, square);
+        if(model.isEmpty(square / columns, square % columns)){
+          totals[color] = totals[color] + cellScores[color][square];
+          typeCounts[color][cellTypes[color][square]] = typeCounts[color][cellTypes[color][square]] + 1;
+        }
+      }
+    }
+  }
+
+  /*
+   * method that works out the score and type of a square for a color from its four patterns
+   */
+  private void refreshCell(int color, int square){
+    int score = 0;
+    int type = NONE;
+    for(int axis = 0; axis < 4; axis = axis + 1){
+      int pattern = patterns[color * 4 + axis][square];
+      score = score + tables.scores[pattern];
+      type = Math.max(type, tables.types[pattern]);
+    }
+    cellScores[color][square] = score;
+    cellTypes[color][square] = (byte) type;
+  }
+
+  public void piecePlaced(int row, int column, int color){
+    int square = row * model.getColumns() + column;
+    for(int c = 0; c < 2; c = c + 1){
+      totals[c] = totals[c] - cellScores[c][square];
+      typeCounts[c][cellTypes[c][square]] = typeCounts[c][cellTypes[c][square]] - 1;
+    }
+    update(row, column, color, 1);
+  }
+
+  public void pieceRemoved(int row, int column, int color){
+    int square = row * model.getColumns() + column;
+    update(row, column, color, -1);
+    for(int c = 0; c < 2; c = c + 1){
+      totals[c] = totals[c] + cellScores[c][square];
+      typeCounts[c][cellTypes[c][square]] = typeCounts[c][cellTypes[c][square]] + 1;
+    }
+  }
+
+  /*
+   * method that changes the patterns of the squares in line with a piece that was placed (sign 1) or taken back (sign -1)
+   */
+  private void update(int row, int column, int color, int sign){
+    int columns = model.getColumns();
+    for(int axis = 0; axis < 4; axis = axis + 1){
+      for(int offset = -tables.half; offset <= tables.half; offset = offset + 1){
+        int otherRow = row + offset * LineRuns.ROW_STEP[axis];
+        int otherColumn = column + offset * LineRuns.COLUMN_STEP[axis];
+        if(offset == 0 || !model.isOnBoard(otherRow, otherColumn)){
+          continue;
+        }
+        int other = otherRow * columns + otherColumn;
+        /*
+         * the piece is -offset squares along the axis from the other square; it is a 1 in the pattern of its own color and a 2 in the other's
+         */
+        int weight = sign * tables.powers[positionOf(-offset)];
+        boolean empty = model.isEmpty(otherRow, otherColumn);
+        for(int c = 0; c < 2; c = c + 1){
+          int oldScore = cellScores[c][other];
+          int oldType = cellTypes[c][other];
+          int oldPattern = patterns[c * 4 + axis][other];
+          int pattern = oldPattern + (c == color - 1 ? weight : 2 * weight);
+          patterns[c * 4 + axis][other] = pattern;
+          /*
+           * only this axis changed, so the score changes by the difference of its table entries; the type needs the other axes too
+           */
+          int newScore = oldScore - tables.scores[oldPattern] + tables.scores[pattern];
+          cellScores[c][other] = newScore;
+          int newType = NONE;
+          for(int a = 0; a < 4; a = a + 1){
+            newType = Math.max(newType, tables.types[patterns[c * 4 + a][other]]);
+          }
+          cellTypes[c][other] = (byte) newType;
+          if(empty){
+            totals[c] = totals[c] + newScore - oldScore;
+            typeCounts[c][oldType] = typeCounts[c][oldType] - 1;
+            typeCounts[c][newType] = typeCounts[c][newType] + 1;
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   * method that gets the score of playing a square for a color
+   * @param square  the square, as row * columns + column
+   * @param color  BoardModel.BLACK or BoardModel.WHITE
+   */
+  public int cellScore(int square, int color){
+    return cellScores[color - 1][square];
+  }
+
+  /*
+   * method that gets the strongest thing playing a square makes for a color on any axis
+   * @return NONE, THREE, OPEN_THREE, FOUR, OPEN_FOUR or FIVE
+   */
+  public int cellType(int square, int color){
+    return cellTypes[color - 1][square];
+  }
+
+  /*
+   * method that gets how many empty squares would make a type of line for a color
+   */
+  public int countOf(int type, int color){
+    return typeCounts[color - 1][type];
+  }
+
+  /*
+   * method that scores the position for the player to move; it assumes the player to move cannot win with this move
+   * (the search checks that first)
+   * @param color  the color of the player to move
+   * @return the score of the position for the player to move
+   */
+  public int evaluate(int color){
+    int other = 3 - color;
+    if(countOf(FIVE, other) >= 2){
+      return -LOSS_SCORE;
+    }
+    if(countOf(FIVE, other) == 0 && countOf(OPEN_FOUR, color) > 0){
+      return WIN_SOON_SCORE;
+    }
+    long own = totals[color - 1];
+    long theirs = totals[other - 1];
+    return (int) Math.max(-WIN_SOON_SCORE + 1, Math.min(WIN_SOON_SCORE - 1, own - theirs + own / 8));
+  }
+}
@@ -0,0 +1,179 @@
+import java.util.SplittableRandom;
+
+/*
+ * class that checks PatternEvaluator without a window: after random place/undo/clear sequences the evaluator that followed the moves
+ * must agree with one built fresh from the board, and a square must be a FIVE exactly when GomokuRules says playing it wins
+ * run it with key=value arguments, for example:
+ *   java PatternEvaluatorCheck games=300 seed=9
+ * it prints a line for each winNumber and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class PatternEvaluatorCheck{
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that compares an evaluator kept up to date move by move with one built fresh from the same board
+   */
+  private static void compare(BoardModel model, PatternEvaluator followed, int winNumber, String where){
+    PatternEvaluator fresh = new PatternEvaluator(model, winNumber);
+    int squares = model.getRows() * model.getColumns();
+    for(int color = BoardModel.BLACK; color <= BoardModel.WHITE; color = color + 1){
+      for(int square = 0; square < squares; square = square + 1){
+        if(fresh.cellScore(square, color) != followed.cellScore(square, color) || fresh.cellType(square, color) != followed.cellType(square, color)){
+          fail(where + ": square " + square + " color " + color + " differs from a rebuild");
+          return;
+        }
+      }
+      for(int type = PatternEvaluator.NONE; type <= PatternEvaluator.FIVE; type = type + 1){
+        if(fresh.countOf(type, color) != followed.countOf(type, color)){
+          fail(where + ": count of type " + type + " for color " + color + " differs from a rebuild");
+        }
+      }
+      if(fresh.evaluate(color) != followed.evaluate(color)){
+        fail(where + ": evaluate(" + color + ") differs from a rebuild");
+      }
+    }
+  }
+
+  /*
+   * method that checks that every empty square is a FIVE exactly when placing a piece there wins by GomokuRules
+   */
+  private static void compareWins(BoardModel model, PatternEvaluator evaluator, GomokuRules rules, String where){
+    int columns = model.getColumns();
+    for(int square = 0; square < model.getRows() * columns; square = square + 1){
+      int row = square / columns;
+      int column = square % columns;
+      if(!model.isEmpty(row, column)){
+        continue;
+      }
+      for(int color = BoardModel.BLACK; color <= BoardModel.WHITE; color = color + 1){
+        boolean five = evaluator.cellType(square, color) == PatternEvaluator.FIVE;
+        model.place(row, column, color);
+        boolean win = rules.isWin(model, row, column, color);
+        model.undo();
+        if(five != win){
+          fail(where + ": square " + square + " color " + color + " is " + (five ? "" : "not ") + "a FIVE but isWin says " + win);
+        }
+      }
+    }
+  }
+
+  /*
+   * method that checks the lines that decide between a five, a four and an overline at the edge of a pattern
+   */
+  private static void checkOverlines(){
+    BoardModel model = new BoardModel(15, 15);
+    PatternEvaluator evaluator = new PatternEvaluator(model, 5);
+    model.addListener(evaluator);
+    /*
+     * four in a row with a piece two squares past the end: the square between makes six, so it is neither a five nor a four
+     */
+    for(int column = 2; column <= 5; column = column + 1){
+      model.place(7, column, BoardModel.BLACK);
+    }
+    model.place(7, 7, BoardModel.BLACK);
+    if(evaluator.cellType(7 * 15 + 6, BoardModel.BLACK) >= PatternEvaluator.FOUR){
+      fail("overline: a square making six in a row is a four or a FIVE");
+    }
+    if(evaluator.cellType(7 * 15 + 1, BoardModel.BLACK) != PatternEvaluator.FIVE){
+      fail("overline: the other end of the four is not a FIVE");
+    }
+    model.clear();
+    /*
+     * the same with white just past both ends: the square between makes exactly five
+     */
+    model.place(7, 3, BoardModel.BLACK);
+    model.place(7, 4, BoardModel.BLACK);
+    model.place(7, 5, BoardModel.BLACK);
+    model.place(7, 7, BoardModel.BLACK);
+    model.place(7, 8, BoardModel.WHITE);
+    model.place(7, 2, BoardModel.WHITE);
+    if(evaluator.cellType(7 * 15 + 6, BoardModel.BLACK) != PatternEvaluator.FIVE){
+      fail("overline: exactly five in a row is not a FIVE");
+    }
+    model.clear();
+    model.place(7, 3, BoardModel.BLACK);
+    model.place(7, 4, BoardModel.BLACK);
+    model.place(7, 6, BoardModel.BLACK);
+    model.place(7, 7, BoardModel.BLACK);
+    model.place(7, 8, BoardModel.BLACK);
+    if(evaluator.cellType(7 * 15 + 5, BoardModel.BLACK) == PatternEvaluator.FIVE){
+      fail("overline: filling the gap of two and three makes six but is a FIVE");
+    }
+  }
+
+  public static void main(String[] args){
+    int games = 300;
+    long seed = 9;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("games")){
+          games = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    for(int winNumber = 3; winNumber <= PatternEvaluator.MAX_WIN_NUMBER; winNumber = winNumber + 1){
+      GomokuRules rules = new GomokuRules(winNumber);
+      int before = failures;
+      for(int game = 0; game < games; game = game + 1){
+        int rows = 5 + random.nextInt(12);
+        int columns = 5 + random.nextInt(12);
+        BoardModel model = new BoardModel(rows, columns);
+        PatternEvaluator evaluator = new PatternEvaluator(model, winNumber);
+        model.addListener(evaluator);
+        if(game % 50 == 0){
+          model.place(random.nextInt(rows), random.nextInt(columns), BoardModel.BLACK);
+          model.clear();
+        }
+        int steps = random.nextInt(rows * columns);
+        for(int step = 0; step < steps; step = step + 1){
+          if(model.getMoveCount() > 0 && random.nextInt(4) == 0){
+            model.undo();
+          }
+          else{
+            int square;
+            do{
+              square = random.nextInt(rows * columns);
+            }
+            while(!model.isEmpty(square / columns, square % columns));
+            model.place(square / columns, square % columns, 1 + random.nextInt(2));
+          }
+        }
+        String where = "winNumber " + winNumber + " game " + game;
+        compare(model, evaluator, winNumber, where);
+        compareWins(model, evaluator, rules, where);
+      }
+      System.out.println("winNumber " + winNumber + ": " + games + " games, " + (failures == before ? "ok" : (failures - before) + " failures"));
+    }
+    checkOverlines();
+    System.out.println(failures == 0 ? "ok" : "FAIL: " + failures + " failures");
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * interface for anything that can choose moves in a game of Gomoku (a computer player, a search that uses several threads, and so on)
+ * @author Esther Shin
+ */
+
+public interface Player{
+  /*
+   * method that picks a move for a player; when it returns, the board must have the same pieces on it as before
+   * @param model  the board being played on
+   * @param color  the color of the player to move (BoardModel.BLACK or BoardModel.WHITE)
+   * @return the index (row * columns + column) of the chosen square, or -1 if there is no legal move
+   */
+  int chooseMove(BoardModel model, int color);
+
+  /*
+   * method that sets a flag another thread can set to make the player stop thinking and answer as soon as it can (with the best move
+   * it has so far); players that always answer quickly do not need to look at it
+   * @param stopSignal  the flag, or null for none
+   */
+  default void setStopSignal(AtomicBoolean stopSignal){
+  }
+
+  /*
+   * method that stops the threads the player thinks with, if it has any of its own; the player cannot be used after this
+   */
+  default void shutdown(){
+  }
+}
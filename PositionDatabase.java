@@ -0,0 +1,705 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * class that keeps win, draw and loss counts for every position and move of a collection of games, for opening research on
+ * millions of games: games are added to a log file, and index() sorts what was added into an index file that is memory-mapped, so
+ * a lookup is a binary search of the file and takes no memory on the heap however big the collection is
+ * positions are stored by their canonical hash (see BoardSymmetry), so a position and its mirror images and rotations share their
+ * counts, and moves are stored on the canonical form like in OpeningBook
+ * the log (the file given) starts with a 16 byte header: the letters GMKP, a version byte (1), 3 unused bytes, rows (2 bytes),
+ * columns (2 bytes) and 4 unused bytes; then every move of every game added is 16 bytes, all numbers big-endian:
+ *   canonical hash of the position before the move (8 bytes), move on the canonical form (4 bytes), result (4 bytes: 2 if the
+ *   player who made the move won, 1 if the game was a draw, 0 if they lost)
+ * unfinished games (a game record or SGF game with no result) are not added, since they are neither a win, a draw nor a loss
+ * the log is only ever added to, one game at a time with a single write, so a game that was being added when the program stopped
+ * is the only thing that can be cut short; the records after the last whole one are ignored
+ * the index (the file given with .idx after it) starts with a 32 byte header: the letters GMKI, a version byte (1), 3 unused bytes,
+ * rows (2 bytes), columns (2 bytes), 4 unused bytes, the number of entries (8 bytes) and how many bytes of the log are in it
+ * (8 bytes); then every entry is 24 bytes:
+ *   canonical hash (8 bytes), move on the canonical form (4 bytes), wins (4 bytes), draws (4 bytes), losses (4 bytes)
+ * the entries are sorted by hash and then by move, so the moves of a position are next to each other and can be read with one
+ * search (a prefix scan), and a single position and move is one search (a point lookup)
+ * the log records that are not in the index yet are not seen by the lookups until index() is called
+ * a database is used by one thread at a time
+ * @author Esther Shin
+ */
+
+public class PositionDatabase implements Closeable{
+  /*
+   * constants for the file layouts
+   */
+  static final int LOG_MAGIC = 0x474D4B50;
+  static final int INDEX_MAGIC = 0x474D4B49;
+  static final int VERSION = 1;
+  static final int LOG_HEADER_SIZE = 16;
+  static final int RECORD_SIZE = 16;
+  static final int INDEX_HEADER_SIZE = 32;
+  static final int ENTRY_SIZE = 24;
+
+  /*
+   * constants for the results stored with a move, for the player who made it
+   */
+  public static final int LOSS = 0;
+  public static final int DRAW = 1;
+  public static final int WIN = 2;
+
+  /*
+   * constant SEGMENT_ENTRIES  how many index entries each mapped part of the index holds; a mapping cannot be bigger than 2 GB, so
+   * an index with more entries than that is mapped in parts
+   */
+  private static final int SEGMENT_ENTRIES = 1 << 25;
+
+  /*
+   * constant SORT_RECORDS  how many log records index() sorts in memory at a time (64 MB of arrays); a bigger log is sorted in runs
+   * of that many records that are written to temporary files and then merged
+   */
+  private static final int SORT_RECORDS = 1 << 22;
+
+  /*
+   * field sortRecords  stores how many log records index() sorts at a time: SORT_RECORDS, unless a check makes it smaller so that a
+   * few games are sorted in many runs
+   */
+  int sortRecords = SORT_RECORDS;
+
+  /*
+   * fields for the files
+   */
+  private final Path logPath;
+  private final Path indexPath;
+  private final FileChannel log;
+
+  /*
+   * fields for the board size the database is for
+   */
+  private final int rows;
+  private final int columns;
+
+  /*
+   * field logSize  stores the length of the log in whole records, which is where the next game goes
+   */
+  private long logSize;
+
+  /*
+   * field segments  stores the mapped parts of the index (none if there is no index yet)
+   */
+  private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+  /*
+   * field entryCount  stores how many entries the index has
+   */
+  private long entryCount = 0;
+
+  /*
+   * field indexedLog  stores how many bytes of the log are in the index
+   */
+  private long indexedLog = LOG_HEADER_SIZE;
+
+  /*
+   * fields used while adding a game: a board that has the keys, the hash of every image of the position (without whose turn it is)
+   * and the bytes of the game's records
+   */
+  private final BoardModel keys;
+  private final long[] imageHashes;
+  private ByteBuffer gameBuffer = ByteBuffer.allocateDirect(64 * RECORD_SIZE);
+
+  /*
+   * constructor for the PositionDatabase class; a new log gets a header, an existing one (and its index, if there is one) is opened
+   * @param path  the log file (the index is the same path with .idx after it)
+   * @param rows  the number of rows of the boards in the database
+   * @param columns  the number of columns of the boards in the database
+   * @throws IOException if the files cannot be opened, or they are not a position database for that board size
+   */
+  public PositionDatabase(Path path, int rows, int columns) throws IOException{
+    this.rows = rows;
+    this.columns = columns;
+    logPath = path;
+    indexPath = Paths.get(path + ".idx");
+    keys = new BoardModel(rows, columns);
+    imageHashes = new long[BoardSymmetry.count(rows, columns)];
+    log = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    try{
+      if(log.size() == 0){
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putInt(LOG_MAGIC).put((byte) VERSION).put((byte) 0).put((byte) 0).put((byte) 0);
+        header.putShort((short) rows).putShort((short) columns).putInt(0).flip();
+        while(header.hasRemaining()){
+          log.write(header, header.position());
+        }
+      }
+      else{
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        log.read(header, 0);
+        header.flip();
+        if(header.remaining() < LOG_HEADER_SIZE || header.getInt() != LOG_MAGIC || header.get() != VERSION
+             || header.getShort(8) != (short) rows || header.getShort(10) != (short) columns){
+          throw new IOException(path + " is not a position database for a " + rows + "x" + columns + " board");
+        }
+      }
+      logSize = LOG_HEADER_SIZE + (log.size() - LOG_HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+      if(Files.exists(indexPath)){
+        mapIndex();
+      }
+    }
+    catch(IOException e){
+      log.close();
+      throw e;
+    }
+  }
+
+  public int getRows(){
+    return rows;
+  }
+
+  public int getColumns(){
+    return columns;
+  }
+
+  /*
+   * method that gets how many entries (position and move pairs) the index has
+   */
+  public long size(){
+    return entryCount;
+  }
+
+  /*
+   * method that gets how many moves have been added to the log and are not in the index yet
+   */
+  public long unindexedRecords(){
+    return (logSize - indexedLog) / RECORD_SIZE;
+  }
+
+  /*
+   * method that maps the index file
+   * @throws IOException if it cannot be read, or it is not the index of this log
+   */
+  private void mapIndex() throws IOException{
+    try(FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)){
+      ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+      channel.read(header, 0);
+      header.flip();
+      long fileSize = channel.size();
+      if(header.remaining() < INDEX_HEADER_SIZE || header.getInt(0) != INDEX_MAGIC || header.get(4) != VERSION
+           || header.getShort(8) != (short) rows || header.getShort(10) != (short) columns
+           || INDEX_HEADER_SIZE + header.getLong(16) * ENTRY_SIZE != fileSize || header.getLong(24) > logSize){
+        throw new IOException(indexPath + " is not the index of " + logPath);
+      }
+      entryCount = header.getLong(16);
+      indexedLog = header.getLong(24);
+      MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((entryCount + SEGMENT_ENTRIES - 1) / SEGMENT_ENTRIES)];
+      for(int i = 0; i < mapped.length; i = i + 1){
+        long first = (long) i * SEGMENT_ENTRIES;
+        long length = Math.min(SEGMENT_ENTRIES, entryCount - first) * ENTRY_SIZE;
+        mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, INDEX_HEADER_SIZE + first * ENTRY_SIZE, length);
+      }
+      segments = mapped;
+    }
+  }
+
+  /*
+   * methods that read the fields of an index entry
+   */
+  private long hashAt(long entry){
+    return segments[(int) (entry / SEGMENT_ENTRIES)].getLong((int) (entry % SEGMENT_ENTRIES) * ENTRY_SIZE);
+  }
+
+  private int intAt(long entry, int offset){
+    return segments[(int) (entry / SEGMENT_ENTRIES)].getInt((int) (entry % SEGMENT_ENTRIES) * ENTRY_SIZE + offset);
+  }
+
+  /*
+   * method that finds the first entry at or after a hash and move with a binary search
+   * @return the number of the entry, or entryCount if every entry is before it
+   */
+  private long find(long hash, int move){
+    long low = 0;
+    long high = entryCount;
+    while(low < high){
+      long middle = (low + high) >>> 1;
+      long middleHash = hashAt(middle);
+      if(middleHash < hash || (middleHash == hash && intAt(middle, 8) < move)){
+        low = middle + 1;
+      }
+      else{
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /*
+   * method that adds a game to the log: every one of its first maxPly moves, with the result for the player who made it
+   * the canonical hash of every position is kept up to date move by move (the hash of every image changes by one key when a
+   * piece is placed), instead of being worked out again from all the pieces like BoardSymmetry.canonicalHash does
+   * @param model  a board with the moves of the game on it in order (it must be the database's size)
+   * @param result  GameRecordWriter.UNFINISHED, GameRecordWriter.DRAW, or BoardModel.BLACK or BoardModel.WHITE for the winner
+   * @param maxPly  how many moves from the start of the game go in
+   * @return true if the game was added, false if it is unfinished and was left out
+   * @throws IOException if the log cannot be written
+   */
+  public boolean addGame(BoardModel model, int result, int maxPly) throws IOException{
+    if(model.getRows() != rows || model.getColumns() != columns){
+      throw new IllegalArgumentException("The game is not on a " + rows + "x" + columns + " board");
+    }
+    if(result == GameRecordWriter.UNFINISHED){
+      return false;
+    }
+    int plies = Math.min(maxPly, model.getMoveCount());
+    if(gameBuffer.capacity() < plies * RECORD_SIZE){
+      gameBuffer = ByteBuffer.allocateDirect(plies * RECORD_SIZE);
+    }
+    gameBuffer.clear();
+    for(int symmetry = 0; symmetry < imageHashes.length; symmetry = symmetry + 1){
+      imageHashes[symmetry] = 0L;
+    }
+    for(int i = 0; i < plies; i = i + 1){
+      int move = model.getMove(i);
+      int color = model.colorAt(move / columns, move % columns);
+      long turnKey = color == BoardModel.WHITE ? BoardModel.WHITE_TO_MOVE_KEY : 0L;
+      /*
+       * picks the image with the smallest hash, and of the images that have it the smallest square for the move, the same as
+       * BoardSymmetry.canonicalHash and canonicalMove
+       */
+      long bestHash = imageHashes[0] ^ turnKey;
+      int bestMove = move;
+      for(int symmetry = 1; symmetry < imageHashes.length; symmetry = symmetry + 1){
+        long hash = imageHashes[symmetry] ^ turnKey;
+        int moved = BoardSymmetry.transform(symmetry, rows, columns, move);
+        if(hash < bestHash || (hash == bestHash && moved < bestMove)){
+          bestHash = hash;
+          bestMove = moved;
+        }
+      }
+      int outcome = result == GameRecordWriter.DRAW ? DRAW : result == color ? WIN : LOSS;
+      gameBuffer.putLong(bestHash).putInt(bestMove).putInt(outcome);
+      for(int symmetry = 0; symmetry < imageHashes.length; symmetry = symmetry + 1){
+        imageHashes[symmetry] = imageHashes[symmetry] ^ keys.zobristKey(BoardSymmetry.transform(symmetry, rows, columns, move), color);
+      }
+    }
+    gameBuffer.flip();
+    long position = logSize;
+    while(gameBuffer.hasRemaining()){
+      position = position + log.write(gameBuffer, position);
+    }
+    logSize = position;
+    return true;
+  }
+
+  /*
+   * method that puts the games added since the last call into the index
+   * the new log records are read sortRecords at a time, sorted and added up, and every run of them is written to a temporary
+   * file; then the old index and the runs are merged into a new index file, which takes the place of the old one in a single
+   * rename, so a reader (or a crash) sees either the old index or the new one
+   * @return how many log records were put in
+   * @throws IOException if a file cannot be read or written
+   */
+  public long index() throws IOException{
+    long records = unindexedRecords();
+    if(records == 0){
+      return 0;
+    }
+    log.force(false);
+    int chunks = (int) ((records + sortRecords - 1) / sortRecords);
+    Path[] runs = new Path[chunks];
+    Path newIndex = Paths.get(indexPath + ".tmp");
+    try{
+      long[] hashes = new long[(int) Math.min(records, sortRecords)];
+      int[] values = new int[hashes.length];
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+      buffer.flip();
+      long position = indexedLog;
+      for(int chunk = 0; chunk < chunks; chunk = chunk + 1){
+        int count = (int) Math.min(sortRecords, records - (long) chunk * sortRecords);
+        for(int i = 0; i < count; i = i + 1){
+          if(buffer.remaining() < RECORD_SIZE){
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), logSize - position));
+            while(buffer.hasRemaining()){
+              position = position + log.read(buffer, position);
+            }
+            buffer.flip();
+          }
+          hashes[i] = buffer.getLong();
+          int move = buffer.getInt();
+          values[i] = move << 2 | buffer.getInt();
+        }
+        sort(hashes, values, 0, count - 1);
+        runs[chunk] = Files.createTempFile(indexPath.toAbsolutePath().getParent(), "run", ".tmp");
+        writeRun(runs[chunk], hashes, values, count);
+      }
+      merge(runs, newIndex, logSize);
+      Files.move(newIndex, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally{
+      for(int i = 0; i < runs.length; i = i + 1){
+        if(runs[i] != null){
+          Files.deleteIfExists(runs[i]);
+        }
+      }
+      Files.deleteIfExists(newIndex);
+    }
+    segments = new MappedByteBuffer[0];
+    mapIndex();
+    return records;
+  }
+
+  /*
+   * method that writes a run: sorted records, added up so every hash and move is one entry, with no header
+   */
+  private static void writeRun(Path path, long[] hashes, int[] values, int count) throws IOException{
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+      int[] outcomes = new int[3];
+      int i = 0;
+      while(i < count){
+        int move = values[i] >>> 2;
+        Arrays.fill(outcomes, 0);
+        int j = i;
+        while(j < count && hashes[j] == hashes[i] && values[j] >>> 2 == move){
+          outcomes[values[j] & 3] = outcomes[values[j] & 3] + 1;
+          j = j + 1;
+        }
+        if(buffer.remaining() < ENTRY_SIZE){
+          drain(channel, buffer);
+        }
+        buffer.putLong(hashes[i]).putInt(move).putInt(outcomes[WIN]).putInt(outcomes[DRAW]).putInt(outcomes[LOSS]);
+        i = j;
+      }
+      drain(channel, buffer);
+    }
+  }
+
+  /*
+   * method that merges the old index and the runs into a new index file, adding up the entries with the same hash and move
+   * there are only as many runs as sortRecords goes into the new records, so the next entry is found by looking at every run
+   * @param runs  the run files
+   * @param path  the new index file
+   * @param logLength  how many bytes of the log the new index has in it
+   */
+  private void merge(Path[] runs, Path path, long logLength) throws IOException{
+    Run[] inputs = new Run[runs.length + 1];
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING)){
+      if(Files.exists(indexPath)){
+        inputs[runs.length] = new Run(indexPath, INDEX_HEADER_SIZE);
+      }
+      for(int i = 0; i < runs.length; i = i + 1){
+        inputs[i] = new Run(runs[i], 0);
+      }
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+      buffer.position(INDEX_HEADER_SIZE);
+      long count = 0;
+      while(true){
+        Run first = null;
+        for(Run run : inputs){
+          if(run != null && run.hasEntry && (first == null || run.before(first))){
+            first = run;
+          }
+        }
+        if(first == null){
+          break;
+        }
+        long hash = first.hash;
+        int move = first.move;
+        long wins = 0;
+        long draws = 0;
+        long losses = 0;
+        for(Run run : inputs){
+          while(run != null && run.hasEntry && run.hash == hash && run.move == move){
+            wins = wins + run.wins;
+            draws = draws + run.draws;
+            losses = losses + run.losses;
+            run.advance();
+          }
+        }
+        if(buffer.remaining() < ENTRY_SIZE){
+          drain(channel, buffer);
+        }
+        buffer.putLong(hash).putInt(move).putInt(saturate(wins)).putInt(saturate(draws)).putInt(saturate(losses));
+        count = count + 1;
+      }
+      drain(channel, buffer);
+      buffer.putInt(INDEX_MAGIC).put((byte) VERSION).put((byte) 0).put((byte) 0).put((byte) 0);
+      buffer.putShort((short) rows).putShort((short) columns).putInt(0).putLong(count).putLong(logLength).flip();
+      long position = 0;
+      while(buffer.hasRemaining()){
+        position = position + channel.write(buffer, position);
+      }
+      channel.force(true);
+    }
+    finally{
+      for(Run run : inputs){
+        if(run != null){
+          run.in.close();
+        }
+      }
+    }
+  }
+
+  /*
+   * method that keeps a count inside an int, so a move played more than 2 billion times does not wrap around
+   */
+  private static int saturate(long count){
+    return (int) Math.min(count, Integer.MAX_VALUE);
+  }
+
+  /*
+   * method that writes out what is in a buffer and empties it
+   */
+  private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException{
+    buffer.flip();
+    while(buffer.hasRemaining()){
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /*
+   * method that sorts records low to high by hash and then by move and result (a quicksort of the two arrays together)
+   */
+  private static void sort(long[] hashes, int[] values, int low, int high){
+    while(low < high){
+      int middle = (low + high) >>> 1;
+      long pivotHash = hashes[middle];
+      int pivotValue = values[middle];
+      int i = low;
+      int j = high;
+      while(i <= j){
+        while(hashes[i] < pivotHash || (hashes[i] == pivotHash && values[i] < pivotValue)){
+          i = i + 1;
+        }
+        while(hashes[j] > pivotHash || (hashes[j] == pivotHash && values[j] > pivotValue)){
+          j = j - 1;
+        }
+        if(i <= j){
+          long hash = hashes[i];
+          hashes[i] = hashes[j];
+          hashes[j] = hash;
+          int value = values[i];
+          values[i] = values[j];
+          values[j] = value;
+          i = i + 1;
+          j = j - 1;
+        }
+      }
+      /*
+       * sorts the smaller side by calling itself and the bigger side by looping, so the calls never go deep
+       */
+      if(j - low < high - i){
+        sort(hashes, values, low, j);
+        low = i;
+      }
+      else{
+        sort(hashes, values, i, high);
+        high = j;
+      }
+    }
+  }
+
+  /*
+   * method that gets the counts of every move in a position that is in the index (a prefix scan of the entries of its hash)
+   * @param model  the board
+   * @param color  the color of the player to move
+   * @param moves  gets the moves, as row * columns + column on the real board
+   * @param counts  gets the wins, draws and losses of each move for the player who makes it, three numbers per move (so it needs
+   * room for 3 * moves.length numbers)
+   * @return how many moves were put in moves (0 if the position is not in the index or the board is not the database's size)
+   */
+  public int lookup(BoardModel model, int color, int[] moves, int[] counts){
+    if(model.getRows() != rows || model.getColumns() != columns || entryCount == 0){
+      return 0;
+    }
+    int symmetry = BoardSymmetry.canonicalSymmetry(model, color);
+    long hash = BoardSymmetry.hashUnder(model, color, symmetry);
+    int count = 0;
+    for(long entry = find(hash, 0); entry < entryCount && count < moves.length && hashAt(entry) == hash; entry = entry + 1){
+      int move = BoardSymmetry.inverse(symmetry, rows, columns, intAt(entry, 8));
+      if(move >= 0 && move < rows * columns && model.isEmpty(move / columns, move % columns)){
+        moves[count] = move;
+        counts[3 * count] = intAt(entry, 12);
+        counts[3 * count + 1] = intAt(entry, 16);
+        counts[3 * count + 2] = intAt(entry, 20);
+        count = count + 1;
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that gets the counts of one move in a position that is in the index (a point lookup)
+   * @param model  the board, before the move
+   * @param color  the color of the player to move
+   * @param move  the move, as row * columns + column
+   * @param counts  gets the wins, draws and losses of the move for the player who makes it
+   * @return true if the move is in the index, false if it is not (and counts is left alone)
+   */
+  public boolean lookupMove(BoardModel model, int color, int move, int[] counts){
+    if(model.getRows() != rows || model.getColumns() != columns || entryCount == 0){
+      return false;
+    }
+    long hash = BoardSymmetry.canonicalHash(model, color);
+    int canonical = BoardSymmetry.canonicalMove(model, color, move);
+    long entry = find(hash, canonical);
+    if(entry == entryCount || hashAt(entry) != hash || intAt(entry, 8) != canonical){
+      return false;
+    }
+    counts[0] = intAt(entry, 12);
+    counts[1] = intAt(entry, 16);
+    counts[2] = intAt(entry, 20);
+    return true;
+  }
+
+  /*
+   * method that makes sure the games added so far are on the disk, and closes the files
+   * @throws IOException if they cannot be closed
+   */
+  public void close() throws IOException{
+    segments = new MappedByteBuffer[0];
+    entryCount = 0;
+    log.force(false);
+    log.close();
+  }
+
+  /*
+   * class that reads the entries of a run or an index file in order, for merge
+   */
+  private static class Run{
+    /*
+     * fields for the file and the entry that was read last
+     */
+    private final DataInputStream in;
+    private long remaining;
+    private boolean hasEntry;
+    private long hash;
+    private int move;
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /*
+     * constructor for the Run class; it reads the first entry
+     * @param path  the file
+     * @param skip  how many bytes of header the file has before the entries
+     */
+    private Run(Path path, int skip) throws IOException{
+      in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+      remaining = (Files.size(path) - skip) / ENTRY_SIZE;
+      in.skipNBytes(skip);
+      advance();
+    }
+
+    /*
+     * method that reads the next entry, or sets hasEntry to false if there are no more
+     */
+    private void advance() throws IOException{
+      hasEntry = remaining > 0;
+      if(hasEntry){
+        hash = in.readLong();
+        move = in.readInt();
+        wins = in.readInt();
+        draws = in.readInt();
+        losses = in.readInt();
+        remaining = remaining - 1;
+      }
+    }
+
+    /*
+     * method that determines whether this run's entry comes before another run's
+     */
+    private boolean before(Run other){
+      return hash < other.hash || (hash == other.hash && move < other.move);
+    }
+  }
+
+  /*
+   * main method: adds a collection of games to a database, either a game-record file (.gmr) or a text collection (SGF, PSQ or
+   * RENJU), and indexes them; games on other board sizes are skipped
+   * run it like: java PositionDatabase games.gmr positions.gpd rows=15 columns=15 maxPly=40
+   * @param args  the collection, the database log file, then key=value options
+   */
+  public static void main(String[] args) throws IOException{
+    if(args.length < 2){
+      System.out.println("Error: give the collection to read and the database file to add it to");
+      return;
+    }
+    int rows = 15;
+    int columns = -1;
+    int maxPly = 40;
+    for(int i = 2; i < args.length; i = i + 1){
+      int equals = args[i].indexOf('=');
+      String key = equals == -1 ? args[i] : args[i].substring(0, equals);
+      int value = equals == -1 ? 0 : Integer.parseInt(args[i].substring(equals + 1));
+      if(key.equals("rows")){
+        rows = value;
+      }
+      else if(key.equals("columns")){
+        columns = value;
+      }
+      else if(key.equals("maxPly")){
+        maxPly = value;
+      }
+      else{
+        System.out.println("Error: unknown option " + args[i]);
+        return;
+      }
+    }
+    columns = columns == -1 ? rows : columns;
+    long games = 0;
+    long unfinished = 0;
+    long start = System.nanoTime();
+    try(PositionDatabase database = new PositionDatabase(Paths.get(args[1]), rows, columns)){
+      BoardModel model = new BoardModel(rows, columns);
+      if(args[0].toLowerCase().endsWith(".gmr")){
+        try(GameRecordReader reader = new GameRecordReader(Paths.get(args[0]))){
+          while(reader.next()){
+            if(reader.getRows() == rows && reader.getColumns() == columns){
+              model.clear();
+              reader.replayOnto(model);
+              if(database.addGame(model, reader.getResult(), maxPly)){
+                games = games + 1;
+              }
+              else{
+                unfinished = unfinished + 1;
+              }
+            }
+          }
+        }
+      }
+      else{
+        try(Reader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)){
+          GameNotationReader reader = new GameNotationReader(in, GameNotationReader.formatOf(args[0]), rows, columns);
+          while(reader.next()){
+            if(reader.getModel().getRows() == rows && reader.getModel().getColumns() == columns){
+              if(database.addGame(reader.getModel(), reader.getResult(), maxPly)){
+                games = games + 1;
+              }
+              else{
+                unfinished = unfinished + 1;
+              }
+            }
+          }
+        }
+      }
+      long added = System.nanoTime();
+      long records = database.index();
+      System.out.println(games + " games (" + records + " moves) added in " + (added - start) / 1000000 + " ms, indexed in "
+                           + (System.nanoTime() - added) / 1000000 + " ms; " + database.size() + " positions and moves in the index");
+      if(unfinished > 0){
+        System.out.println(unfinished + " unfinished games left out");
+      }
+    }
+  }
+}
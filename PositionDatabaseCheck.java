@@ -0,0 +1,257 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/*
+ * class that checks PositionDatabase without a window: random games (with a few openings, so positions come up again in different
+ * mirror images and rotations) are added and indexed a few at a time, with index() sorting so few records at a time that it merges
+ * many runs and the old index every time, and the counts are compared with counts kept in memory
+ * every position and move of the games must have the same wins, draws and losses by a point lookup and by a prefix lookup, in every
+ * image of the position; unfinished games must be left out, records not indexed yet must not be seen, and a database opened again
+ * (with half a record cut off the end of its log) must give the same answers
+ * run it with key=value arguments, for example:
+ *   java PositionDatabaseCheck games=2000 seed=24
+ * it prints a line for each part and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class PositionDatabaseCheck{
+  /*
+   * constants for the board of the games, and how many moves of each game go in
+   */
+  private static final int SIZE = 9;
+  private static final int MAX_PLY = 10;
+
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that plays a random game, its first moves near the middle so that games share openings
+   */
+  private static BoardModel randomGame(SplittableRandom random){
+    BoardModel model = new BoardModel(SIZE, SIZE);
+    int length = 1 + random.nextInt(MAX_PLY + 3);
+    for(int i = 0; i < length; i = i + 1){
+      int square;
+      do{
+        square = i < 4 ? 3 * SIZE + 3 + random.nextInt(3) * SIZE + random.nextInt(3) : random.nextInt(SIZE * SIZE);
+      }
+      while(!model.isEmpty(square / SIZE, square % SIZE));
+      model.place(square / SIZE, square % SIZE, i % 2 + 1);
+    }
+    return model;
+  }
+
+  /*
+   * method that gets the key of a position and move in the counts kept in memory
+   */
+  private static String key(BoardModel model, int color, int move){
+    return BoardSymmetry.canonicalHash(model, color) + ":" + BoardSymmetry.canonicalMove(model, color, move);
+  }
+
+  /*
+   * method that adds the moves of a game to the counts kept in memory, as PositionDatabase.WIN, DRAW or LOSS for the player who made
+   * each move, and counts the moves of every position
+   */
+  private static void count(BoardModel game, int result, Map<String, int[]> counts, Map<Long, Integer> movesOf){
+    BoardModel model = new BoardModel(SIZE, SIZE);
+    for(int ply = 0; ply < Math.min(MAX_PLY, game.getMoveCount()); ply = ply + 1){
+      int move = game.getMove(ply);
+      int color = ply % 2 + 1;
+      String key = key(model, color, move);
+      int[] moveCounts = counts.get(key);
+      if(moveCounts == null){
+        moveCounts = new int[3];
+        counts.put(key, moveCounts);
+        long hash = BoardSymmetry.canonicalHash(model, color);
+        movesOf.put(hash, movesOf.getOrDefault(hash, 0) + 1);
+      }
+      int outcome = result == GameRecordWriter.DRAW ? PositionDatabase.DRAW : result == color ? PositionDatabase.WIN : PositionDatabase.LOSS;
+      /*
+       * the lookups give wins, draws and losses in that order
+       */
+      moveCounts[2 - outcome] = moveCounts[2 - outcome] + 1;
+      model.place(move / SIZE, move % SIZE, color);
+    }
+  }
+
+  /*
+   * method that gets the image of a board under a symmetry
+   */
+  private static BoardModel image(BoardModel model, int symmetry){
+    BoardModel image = new BoardModel(SIZE, SIZE);
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int index = model.getMove(i);
+      int moved = BoardSymmetry.transform(symmetry, SIZE, SIZE, index);
+      image.place(moved / SIZE, moved % SIZE, model.colorAt(index / SIZE, index % SIZE));
+    }
+    return image;
+  }
+
+  /*
+   * method that compares the database with the counts kept in memory along every game added
+   * @return how many positions were compared
+   */
+  private static long compare(PositionDatabase database, BoardModel[] games, int gameCount, Map<String, int[]> counts,
+                              Map<Long, Integer> movesOf, String where){
+    if(database.size() != counts.size()){
+      fail(where + ": " + database.size() + " entries in the index, " + counts.size() + " positions and moves added");
+    }
+    long compared = 0;
+    int[] moves = new int[SIZE * SIZE];
+    int[] moveCounts = new int[3 * SIZE * SIZE];
+    int[] one = new int[3];
+    for(int game = 0; game < gameCount; game = game + 1){
+      if(games[game] == null){
+        continue;
+      }
+      BoardModel model = new BoardModel(SIZE, SIZE);
+      for(int ply = 0; ply < Math.min(MAX_PLY, games[game].getMoveCount()); ply = ply + 1){
+        int move = games[game].getMove(ply);
+        int color = ply % 2 + 1;
+        int symmetry = (game + ply) % BoardSymmetry.count(SIZE, SIZE);
+        BoardModel image = image(model, symmetry);
+        int imageMove = BoardSymmetry.transform(symmetry, SIZE, SIZE, move);
+        int[] expected = counts.get(key(model, color, move));
+        if(!database.lookupMove(image, color, imageMove, one) || one[0] != expected[0] || one[1] != expected[1] || one[2] != expected[2]){
+          fail(where + ": game " + game + " ply " + ply + " point lookup in image " + symmetry + " does not have the counts added");
+        }
+        int found = database.lookup(image, color, moves, moveCounts);
+        if(found != movesOf.get(BoardSymmetry.canonicalHash(model, color))){
+          fail(where + ": game " + game + " ply " + ply + " prefix lookup found " + found + " moves, not "
+               + movesOf.get(BoardSymmetry.canonicalHash(model, color)));
+        }
+        for(int i = 0; i < found; i = i + 1){
+          int[] counted = counts.get(key(image, color, moves[i]));
+          if(counted == null || counted[0] != moveCounts[3 * i] || counted[1] != moveCounts[3 * i + 1] || counted[2] != moveCounts[3 * i + 2]){
+            fail(where + ": game " + game + " ply " + ply + " prefix lookup has the wrong counts for " + moves[i]);
+          }
+        }
+        compared = compared + 1;
+        model.place(move / SIZE, move % SIZE, color);
+      }
+    }
+    return compared;
+  }
+
+  public static void main(String[] args) throws IOException{
+    int games = 2000;
+    long seed = 24;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("games")){
+          games = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    Path directory = Files.createTempDirectory("positions");
+    Path path = directory.resolve("check.gpd");
+    Map<String, int[]> counts = new HashMap<>();
+    Map<Long, Integer> movesOf = new HashMap<>();
+    BoardModel[] played = new BoardModel[games];
+    int[] results = {GameRecordWriter.UNFINISHED, BoardModel.BLACK, BoardModel.WHITE, GameRecordWriter.DRAW};
+    try{
+      PositionDatabase database = new PositionDatabase(path, SIZE, SIZE);
+      database.sortRecords = 100;
+      long compared = 0;
+      int left = 0;
+      for(int game = 0; game < games; game = game + 1){
+        BoardModel model = randomGame(random);
+        int result = results[random.nextInt(results.length)];
+        if(database.addGame(model, result, MAX_PLY) != (result != GameRecordWriter.UNFINISHED)){
+          fail("game " + game + ": addGame did not " + (result == GameRecordWriter.UNFINISHED ? "leave out an unfinished game" : "add a game"));
+        }
+        if(result == GameRecordWriter.UNFINISHED){
+          left = left + 1;
+        }
+        else{
+          played[game] = model;
+          count(model, result, counts, movesOf);
+        }
+        if(game % 250 == 249){
+          database.index();
+          if(database.unindexedRecords() != 0){
+            fail("game " + game + ": records are left out of the index");
+          }
+          compared = compared + compare(database, played, game + 1, counts, movesOf, "index after game " + game);
+        }
+      }
+      database.index();
+      compared = compared + compare(database, played, games, counts, movesOf, "last index");
+      System.out.println(games + " games (" + left + " unfinished, left out), " + counts.size() + " positions and moves, " + compared
+                         + " positions looked up: " + (failures == 0 ? "ok" : failures + " failures"));
+      int before = failures;
+      /*
+       * a game added after the last index() is not seen until the next one
+       */
+      BoardModel extra = randomGame(random);
+      database.addGame(extra, GameRecordWriter.DRAW, MAX_PLY);
+      if(database.unindexedRecords() != Math.min(MAX_PLY, extra.getMoveCount())){
+        fail("unindexedRecords is " + database.unindexedRecords() + " after adding a game of " + extra.getMoveCount() + " moves");
+      }
+      compare(database, played, games, counts, movesOf, "before indexing the extra game");
+      database.close();
+      /*
+       * half a record at the end of the log, as if the program stopped while adding a game, is ignored when it is opened again
+       */
+      try(FileChannel log = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)){
+        log.write(ByteBuffer.wrap(new byte[PositionDatabase.RECORD_SIZE / 2]));
+      }
+      database = new PositionDatabase(path, SIZE, SIZE);
+      if(database.unindexedRecords() != Math.min(MAX_PLY, extra.getMoveCount())){
+        fail("the database opened again has " + database.unindexedRecords() + " records not indexed");
+      }
+      compare(database, played, games, counts, movesOf, "opened again");
+      database.index();
+      count(extra, GameRecordWriter.DRAW, counts, movesOf);
+      BoardModel[] withExtra = new BoardModel[games + 1];
+      System.arraycopy(played, 0, withExtra, 0, games);
+      withExtra[games] = extra;
+      compare(database, withExtra, games + 1, counts, movesOf, "extra game indexed");
+      database.close();
+      System.out.println("records not indexed, opening again and a cut-off record: " + (failures == before ? "ok" : (failures - before) + " failures"));
+    }
+    finally{
+      try(Stream<Path> files = Files.list(directory)){
+        for(Path file : (Iterable<Path>) files::iterator){
+          Files.deleteIfExists(file);
+        }
+      }
+      Files.deleteIfExists(directory);
+    }
+    System.out.println(failures == 0 ? "ok" : "FAIL: " + failures + " failures");
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+import java.util.SplittableRandom;
+
+/*
+ * class that represents a computer player that plays a random legal move, used for self-play and testing
+ * @author Esther Shin
+ */
+
+public class RandomPlayer implements Player{
+  /*
+   * field rules  stores the rules the player must follow
+   */
+  private final GomokuRules rules;
+
+  /*
+   * field random  stores the random number generator the moves are picked with
+   */
+  private final SplittableRandom random;
+
+  /*
+   * constructor for the RandomPlayer class
+   * @param rules  the rules the player must follow
+   * @param seed  the seed for the random number generator
+   */
+  public RandomPlayer(GomokuRules rules, long seed){
+    this.rules = rules;
+    this.random = new SplittableRandom(seed);
+  }
+
+  /*
+   * method that picks a random legal move; a few random squares are tried first, and if none of them is legal every square is checked
+   * @param model  the board being played on
+   * @param color  the color of the player to move
+   * @return the index (row * columns + column) of the chosen square, or -1 if there is no legal move
+   */
+  public int chooseMove(BoardModel model, int color){
+    int rows = model.getRows();
+    int columns = model.getColumns();
+    int cells = rows * columns;
+    for(int attempt = 0; attempt < 16; attempt = attempt + 1){
+      int index = random.nextInt(cells);
+      if(rules.isLegal(model, index / columns, index % columns, color)){
+        return index;
+      }
+    }
+    /*
+     * starts at a random square and takes the first legal one after it, wrapping around the board
+     */
+    int start = random.nextInt(cells);
+    for(int i = 0; i < cells; i = i + 1){
+      int index = (start + i) % cells;
+      if(rules.isLegal(model, index / columns, index % columns, color)){
+        return index;
+      }
+    }
+    return -1;
+  }
+}
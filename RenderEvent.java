@@ -0,0 +1,19 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * class that is the JFR event for one drawing of the board; its duration is the time the drawing took
+ * @author Esther Shin
+ */
+
+@Name("gomoku.Render")
+@Label("Gomoku Render")
+@Category("Gomoku")
+@Description("The board being drawn")
+public class RenderEvent extends Event{
+  @Label("Squares Drawn")
+  int squares;
+}
@@ -0,0 +1,392 @@
+/*
+ * class that holds the rules of Renju, the Gomoku rules used in tournaments, in place of GomokuRules
+ * white has no restrictions and wins with winNumber or more in a row; black wins only with exactly winNumber in a row, and may not
+ * make a line longer than winNumber (an overline), two fours at once (double four) or two open threes at once (double three),
+ * unless the same move makes exactly winNumber in a row
+ * fours and threes may have a gap in them (X.XXX is a four, X.XX with both ends empty is a three), two fours can be on the same line
+ * (X.XXX.X), and a three only counts if the square that would make it a straight four is not itself forbidden, which is checked
+ * again for that square with the first piece in place
+ * what one line can make is read from a table made once per winNumber: for every square and axis, the squares within winNumber of it
+ * are a base-3 number (0 empty, 1 black, 2 white or off the board) that is the index into the table, so checking a square is
+ * 4 * 2 * winNumber square reads and a few table reads, and every square of the board can be checked after every move
+ * @author Esther Shin
+ */
+
+public class RenjuRules extends GomokuRules{
+  /*
+   * constants for why a square is or is not forbidden for black
+   */
+  public static final int ALLOWED = 0;
+  public static final int FIVE = 1;
+  public static final int OVERLINE = 2;
+  public static final int DOUBLE_FOUR = 3;
+  public static final int DOUBLE_THREE = 4;
+
+  /*
+   * constant MAX_WIN_NUMBER  the biggest winNumber tables are made for (the tables have 3 to the power of 2 * winNumber entries)
+   */
+  public static final int MAX_WIN_NUMBER = 6;
+
+  /*
+   * constant MAX_DEPTH  how many squares deep a three's straight-four square is checked for being forbidden
+   * (past it the square is taken to be allowed, which is what it is in nearly every real game)
+   */
+  static final int MAX_DEPTH = 3;
+
+  /*
+   * constants for the bits of a table entry: bit 0 for exactly winNumber in a row, bit 1 for an overline, bits 2 and 3 for the number
+   * of fours, and from bit 4 on one bit for each square of the line that would make a straight four (so the line is a three)
+   */
+  private static final int FIVE_BIT = 1;
+  private static final int OVERLINE_BIT = 2;
+  private static final int FOUR_SHIFT = 2;
+  private static final int THREE_SHIFT = 4;
+
+  /*
+   * class that holds the table for one winNumber
+   */
+  private static class Table{
+    /*
+     * field half  stores how many squares on each side of a square are in its pattern
+     */
+    final int half;
+
+    /*
+     * field powers  stores 3 to the power of each position in a pattern
+     */
+    final int[] powers;
+
+    /*
+     * field entries  stores what playing the middle square of each pattern makes for black, as the bits above
+     */
+    final int[] entries;
+
+    Table(int winNumber){
+      half = winNumber;
+      powers = new int[2 * half + 1];
+      powers[0] = 1;
+      for(int i = 1; i < powers.length; i = i + 1){
+        powers[i] = powers[i - 1] * 3;
+      }
+      int size = powers[2 * half];
+      entries = new int[size];
+      int[] line = new int[2 * half + 1];
+      for(int pattern = 0; pattern < size; pattern = pattern + 1){
+        int rest = pattern;
+        for(int position = 0; position < 2 * half; position = position + 1){
+          line[position < half ? position : position + 1] = rest % 3;
+          rest = rest / 3;
+        }
+        line[half] = 1;
+        entries[pattern] = lineEntry(line, half, winNumber);
+      }
+    }
+  }
+
+  /*
+   * field tableCache  stores the tables already made, by winNumber
+   */
+  private static final Table[] tableCache = new Table[MAX_WIN_NUMBER + 1];
+
+  /*
+   * method that gets the table for a winNumber, making it the first time
+   */
+  private static synchronized Table tableFor(int winNumber){
+    if(tableCache[winNumber] == null){
+      tableCache[winNumber] = new Table(winNumber);
+    }
+    return tableCache[winNumber];
+  }
+
+  /*
+   * method that determines whether a winNumber has a table (a three needs winNumber to be at least 3)
+   */
+  public static boolean supports(int winNumber){
+    return winNumber >= 3 && winNumber <= MAX_WIN_NUMBER;
+  }
+
+  /*
+   * method that gets the first square of the line of black pieces (1 in line) through a square
+   */
+  private static int runStart(int[] line, int square){
+    while(square > 0 && line[square - 1] == 1){
+      square = square - 1;
+    }
+    return square;
+  }
+
+  /*
+   * method that gets the last square of the line of black pieces (1 in line) through a square
+   */
+  private static int runEnd(int[] line, int square){
+    while(square < line.length - 1 && line[square + 1] == 1){
+      square = square + 1;
+    }
+    return square;
+  }
+
+  /*
+   * method that works out the table entry of one line, with black just played on its middle square
+   * a four is a set of black pieces that one more piece makes exactly winNumber in a row; the fours through the middle square are
+   * counted by their pieces, so a straight four (.XXXX.) is one four and X.XXX.X is two
+   * a three is a line with no four that one more piece makes into a straight four (winNumber - 1 in a row through the middle square
+   * with both ends making exactly winNumber); its entry has a bit for each square that does that
+   * @param line  the line, 0 for empty, 1 for black and 2 for white or off the board
+   * @param middle  the position of the square just played
+   * @param winNumber  the number of pieces in a row needed to win
+   */
+  static int lineEntry(int[] line, int middle, int winNumber){
+    int length = runEnd(line, middle) - runStart(line, middle) + 1;
+    if(length == winNumber){
+      return FIVE_BIT;
+    }
+    if(length > winNumber){
+      return OVERLINE_BIT;
+    }
+    int fours = 0;
+    int firstFour = 0;
+    for(int i = 0; i < line.length; i = i + 1){
+      if(line[i] == 0){
+        line[i] = 1;
+        int start = runStart(line, i);
+        int end = runEnd(line, i);
+        line[i] = 0;
+        if(end - start + 1 == winNumber && start <= middle && middle <= end){
+          int pieces = ((1 << (end + 1)) - (1 << start)) & ~(1 << i);
+          if(fours == 0 || pieces != firstFour){
+            firstFour = fours == 0 ? pieces : firstFour;
+            fours = Math.min(fours + 1, 3);
+          }
+        }
+      }
+    }
+    if(fours > 0){
+      return fours << FOUR_SHIFT;
+    }
+    int threeSquares = 0;
+    for(int i = 0; i < line.length; i = i + 1){
+      if(line[i] == 0){
+        line[i] = 1;
+        int start = runStart(line, middle);
+        int end = runEnd(line, middle);
+        line[i] = 0;
+        if(end - start + 1 == winNumber - 1 && start <= i && i <= end
+             && start >= 1 && line[start - 1] == 0 && (start < 2 || line[start - 2] != 1)
+             && end <= line.length - 2 && line[end + 1] == 0 && (end > line.length - 3 || line[end + 2] != 1)){
+          threeSquares = threeSquares | (1 << i);
+        }
+      }
+    }
+    return threeSquares << THREE_SHIFT;
+  }
+
+  /*
+   * field table  stores the table for winNumber
+   */
+  private final Table table;
+
+  /*
+   * constructor for the RenjuRules class
+   * @param winNumber  the number of pieces in a row needed to win (see supports)
+   */
+  public RenjuRules(int winNumber){
+    super(winNumber);
+    if(!supports(winNumber)){
+      throw new IllegalArgumentException("Renju rules need a winNumber from 3 to " + MAX_WIN_NUMBER + ", not " + winNumber);
+    }
+    this.table = tableFor(winNumber);
+  }
+
+  /*
+   * method that determines whether placing a piece wins: exactly winNumber in a row for black, winNumber or more for white
+   */
+  @Override
+  public boolean isWin(BoardModel model, int row, int column, int color){
+    if(color == BoardModel.BLACK){
+      return super.isWin(model, row, column, color);
+    }
+    LineRuns lineRuns = model.getLineRuns();
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      if(lineRuns.lineLength(row, column, axis, color) >= getWinNumber()){
+        MoveMetrics.scanned(model, 2 * (axis + 1));
+        return true;
+      }
+    }
+    MoveMetrics.scanned(model, 8);
+    return false;
+  }
+
+  /*
+   * method that determines whether placing a piece would follow the three-three rule (only black can break it)
+   */
+  @Override
+  public boolean threeThreeRuleFollowed(BoardModel model, int row, int column, int color){
+    return color != BoardModel.BLACK || forbiddenKind(model, row, column) != DOUBLE_THREE;
+  }
+
+  /*
+   * method that determines whether placing a piece would follow the four-four rule (only black can break it)
+   */
+  @Override
+  public boolean fourFourRuleFollowed(BoardModel model, int row, int column, int color){
+    return color != BoardModel.BLACK || forbiddenKind(model, row, column) != DOUBLE_FOUR;
+  }
+
+  /*
+   * method that determines whether placing a piece would follow the overline rule (only black can break it)
+   */
+  @Override
+  public boolean overlineRuleFollowed(BoardModel model, int row, int column, int color){
+    return color != BoardModel.BLACK || forbiddenKind(model, row, column) != OVERLINE;
+  }
+
+  /*
+   * method that determines whether a piece may be placed on a square (the square is empty and, for black, not forbidden)
+   */
+  @Override
+  public boolean isLegal(BoardModel model, int row, int column, int color){
+    return model.isEmpty(row, column) && (color != BoardModel.BLACK || forbiddenKind(model, row, column) <= FIVE);
+  }
+
+  /*
+   * method that determines whether an empty square is forbidden for black
+   */
+  public boolean isForbidden(BoardModel model, int row, int column){
+    return forbiddenKind(model, row, column) > FIVE;
+  }
+
+  /*
+   * method that works out what black playing an empty square would make
+   * when a move breaks more than one rule, an overline is given before a double four and a double four before a double three
+   * @param model  the board being played on
+   * @param row  the row of the square
+   * @param column  the column of the square
+   * @return FIVE if the move makes exactly winNumber in a row (which is always allowed), OVERLINE, DOUBLE_FOUR or DOUBLE_THREE if it
+   * is forbidden, or ALLOWED
+   */
+  public int forbiddenKind(BoardModel model, int row, int column){
+    return forbiddenKind(model, row, column, 0L, 0);
+  }
+
+  /*
+   * method that finds every empty square that is forbidden for black
+   * @param model  the board being played on
+   * @param squares  the array the squares are put in, as row * columns + column (it must have room for every square of the board)
+   * @return the number of forbidden squares
+   */
+  public int forbiddenSquares(BoardModel model, int[] squares){
+    int count = 0;
+    for(int row = 0; row < model.getRows(); row = row + 1){
+      for(int column = 0; column < model.getColumns(); column = column + 1){
+        if(model.isEmpty(row, column) && forbiddenKind(model, row, column, 0L, 0) > FIVE){
+          squares[count] = row * model.getColumns() + column;
+          count = count + 1;
+        }
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that works out what black playing an empty square would make, with some other empty squares taken to have black pieces on
+   * them (the squares played so far while checking threes, each kept as square + 1 in 21 bits of virtual)
+   * @param depth  how many squares are in virtual
+   */
+  private int forbiddenKind(BoardModel model, int row, int column, long virtual, int depth){
+    int fours = 0;
+    boolean overline = false;
+    int threeAxes = 0;
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      int entry = table.entries[patternAt(model, row, column, axis, virtual)];
+      if((entry & FIVE_BIT) != 0){
+        return FIVE;
+      }
+      overline = overline || (entry & OVERLINE_BIT) != 0;
+      fours = fours + ((entry >>> FOUR_SHIFT) & 3);
+      if((entry >>> THREE_SHIFT) != 0){
+        threeAxes = threeAxes | (1 << axis);
+      }
+    }
+    if(overline){
+      return OVERLINE;
+    }
+    if(fours > 1){
+      return DOUBLE_FOUR;
+    }
+    if(Integer.bitCount(threeAxes) < 2){
+      return ALLOWED;
+    }
+    if(depth == MAX_DEPTH){
+      return DOUBLE_THREE;
+    }
+    /*
+     * a three only counts if one of its straight-four squares is not forbidden with this piece on the board
+     */
+    long placed = virtual | ((long) (row * model.getColumns() + column + 1) << (21 * depth));
+    int threes = 0;
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      if((threeAxes & (1 << axis)) == 0){
+        continue;
+      }
+      int squares = table.entries[patternAt(model, row, column, axis, virtual)] >>> THREE_SHIFT;
+      while(squares != 0){
+        int offset = Integer.numberOfTrailingZeros(squares) - table.half;
+        squares = squares & (squares - 1);
+        if(forbiddenKind(model, row + LineRuns.ROW_STEP[axis] * offset, column + LineRuns.COLUMN_STEP[axis] * offset,
+                         placed, depth + 1) <= FIVE){
+          threes = threes + 1;
+          break;
+        }
+      }
+      threeAxes = threeAxes & ~(1 << axis);
+      if(threes > 1){
+        return DOUBLE_THREE;
+      }
+      if(threes + Integer.bitCount(threeAxes) < 2){
+        return ALLOWED;
+      }
+    }
+    return ALLOWED;
+  }
+
+  /*
+   * method that reads the pattern of a square along an axis (see the class comment), with the squares in virtual read as black
+   */
+  private int patternAt(BoardModel model, int row, int column, int axis, long virtual){
+    MoveMetrics.scanned(model, 2 * table.half);
+    int pattern = 0;
+    int position = 0;
+    for(int offset = -table.half; offset <= table.half; offset = offset + 1){
+      if(offset == 0){
+        continue;
+      }
+      int r = row + LineRuns.ROW_STEP[axis] * offset;
+      int c = column + LineRuns.COLUMN_STEP[axis] * offset;
+      int digit = 2;
+      if(model.isOnBoard(r, c)){
+        int color = model.colorAt(r, c);
+        if(color == BoardModel.BLACK || (color == BoardModel.EMPTY && isVirtual(virtual, r * model.getColumns() + c))){
+          digit = 1;
+        }
+        else if(color == BoardModel.EMPTY){
+          digit = 0;
+        }
+      }
+      pattern = pattern + digit * table.powers[position];
+      position = position + 1;
+    }
+    return pattern;
+  }
+
+  /*
+   * method that determines whether a square is one of the squares kept in virtual
+   */
+  private static boolean isVirtual(long virtual, int square){
+    for(long rest = virtual; rest != 0; rest = rest >>> 21){
+      if((rest & 0x1FFFFF) == square + 1){
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,384 @@
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/*
+ * class that checks RenjuRules without a window, in two ways:
+ * drawn positions with a known answer (double threes, fours and threes with gaps, double fours on one line or two, overlines, and
+ * a five that is allowed whatever else it makes), and random positions compared square by square with a slow, plain reading of the
+ * rules that looks at the board directly instead of through the tables
+ * run it with key=value arguments, for example:
+ *   java RenjuRulesCheck positions=2000 seed=1
+ * it prints a line for each part and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class RenjuRulesCheck{
+  /*
+   * constant SIZE  the number of rows and columns of the boards the positions are on
+   */
+  private static final int SIZE = 15;
+
+  /*
+   * constant WIN_NUMBER  the number of pieces in a row needed to win
+   */
+  private static final int WIN_NUMBER = 5;
+
+  /*
+   * constant MAX_DEPTH  how deep the plain reading checks the squares that would complete a three, as RenjuRules does
+   */
+  private static final int MAX_DEPTH = 3;
+
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that gets the name of a forbiddenKind result
+   */
+  private static String kindName(int kind){
+    String[] names = {"ALLOWED", "FIVE", "OVERLINE", "DOUBLE_FOUR", "DOUBLE_THREE"};
+    return kind >= 0 && kind < names.length ? names[kind] : "kind " + kind;
+  }
+
+  /*
+   * method that puts a drawn position on a board, its top left corner at (3, 3): X is black, O is white, * is the square to check
+   * (it is left empty) and anything else is empty
+   * @return the row and column of the *
+   */
+  private static int[] draw(BoardModel model, String[] picture){
+    int[] square = null;
+    for(int row = 0; row < picture.length; row = row + 1){
+      for(int column = 0; column < picture[row].length(); column = column + 1){
+        char c = picture[row].charAt(column);
+        if(c == 'X'){
+          model.place(3 + row, 3 + column, BoardModel.BLACK);
+        }
+        else if(c == 'O'){
+          model.place(3 + row, 3 + column, BoardModel.WHITE);
+        }
+        else if(c == '*'){
+          square = new int[]{3 + row, 3 + column};
+        }
+      }
+    }
+    return square;
+  }
+
+  /*
+   * method that checks what black playing the * of a drawn position makes
+   */
+  private static void checkDrawn(RenjuRules rules, String name, int expected, String... picture){
+    BoardModel model = new BoardModel(SIZE, SIZE);
+    int[] square = draw(model, picture);
+    int kind = rules.forbiddenKind(model, square[0], square[1]);
+    if(kind != expected){
+      fail(name + ": " + kindName(kind) + ", not " + kindName(expected));
+    }
+    if(rules.isLegal(model, square[0], square[1], BoardModel.BLACK) != (expected <= RenjuRules.FIVE)){
+      fail(name + ": isLegal does not match " + kindName(expected));
+    }
+    if(!rules.isLegal(model, square[0], square[1], BoardModel.WHITE)){
+      fail(name + ": white may not play the square");
+    }
+  }
+
+  /*
+   * method that checks the drawn positions
+   */
+  private static void checkPositions(RenjuRules rules){
+    checkDrawn(rules, "double three", RenjuRules.DOUBLE_THREE,
+               ".......",
+               "...X...",
+               "...X...",
+               ".XX*...",
+               ".......");
+    checkDrawn(rules, "double three with a gap", RenjuRules.DOUBLE_THREE,
+               ".......",
+               "...X...",
+               "...X...",
+               ".X.*X..",
+               ".......");
+    checkDrawn(rules, "three blocked at one end", RenjuRules.ALLOWED,
+               ".......",
+               "...X...",
+               "...X...",
+               "OXX*...",
+               ".......");
+    checkDrawn(rules, "three with no room for a straight four", RenjuRules.ALLOWED,
+               "...O...",
+               ".......",
+               "...X...",
+               "...X...",
+               ".XX*...",
+               ".......",
+               "...O...");
+    checkDrawn(rules, "four and three", RenjuRules.ALLOWED,
+               ".......",
+               "...X...",
+               "...X...",
+               "XXX*...",
+               ".......");
+    checkDrawn(rules, "double four", RenjuRules.DOUBLE_FOUR,
+               "...X...",
+               "...X...",
+               "...X...",
+               "XXX*...",
+               ".......");
+    checkDrawn(rules, "double four on one line", RenjuRules.DOUBLE_FOUR,
+               "XXX.*.XXX");
+    checkDrawn(rules, "double four with gaps on one line", RenjuRules.DOUBLE_FOUR,
+               "X.X*X.X");
+    checkDrawn(rules, "overline", RenjuRules.OVERLINE,
+               "XXX*XX");
+    checkDrawn(rules, "overline and a four", RenjuRules.OVERLINE,
+               "...X...",
+               "...X...",
+               ".XX*XXX",
+               "...X...");
+    checkDrawn(rules, "five", RenjuRules.FIVE,
+               ".XXXX*.");
+    checkDrawn(rules, "five with an overline on another line", RenjuRules.FIVE,
+               "...X...",
+               "...X...",
+               "...X...",
+               "XXXX*..",
+               "...X...",
+               "...X...");
+    BoardModel model = new BoardModel(SIZE, SIZE);
+    int[] square = draw(model, new String[]{"OOO*OO"});
+    model.place(square[0], square[1], BoardModel.WHITE);
+    if(!rules.isWin(model, square[0], square[1], BoardModel.WHITE)){
+      fail("six in a row does not win for white");
+    }
+    model.clear();
+    square = draw(model, new String[]{"XXX*XX"});
+    model.place(square[0], square[1], BoardModel.BLACK);
+    if(rules.isWin(model, square[0], square[1], BoardModel.BLACK)){
+      fail("six in a row wins for black");
+    }
+  }
+
+  /*
+   * method that determines whether a square is on the board
+   */
+  private static boolean onBoard(int row, int column){
+    return row >= 0 && row < SIZE && column >= 0 && column < SIZE;
+  }
+
+  /*
+   * method that determines whether a square is on the board and has a black piece on it
+   */
+  private static boolean isBlack(int[][] grid, int row, int column){
+    return onBoard(row, column) && grid[row][column] == BoardModel.BLACK;
+  }
+
+  /*
+   * method that determines whether a square is on the board and empty
+   */
+  private static boolean isFree(int[][] grid, int row, int column){
+    return onBoard(row, column) && grid[row][column] == BoardModel.EMPTY;
+  }
+
+  /*
+   * method that finds the black run through a square along an axis
+   * @return the offsets of its first and last square from the square
+   */
+  private static int[] run(int[][] grid, int row, int column, int axis){
+    int first = 0;
+    while(isBlack(grid, row + LineRuns.ROW_STEP[axis] * (first - 1), column + LineRuns.COLUMN_STEP[axis] * (first - 1))){
+      first = first - 1;
+    }
+    int last = 0;
+    while(isBlack(grid, row + LineRuns.ROW_STEP[axis] * (last + 1), column + LineRuns.COLUMN_STEP[axis] * (last + 1))){
+      last = last + 1;
+    }
+    return new int[]{first, last};
+  }
+
+  /*
+   * method that works out what black playing an empty square makes by reading the rules straight off the board
+   * a four is a set of black pieces that one more piece makes exactly WIN_NUMBER in a row with the square (fours with the same pieces
+   * are the same four), and a three is a line one more piece makes an open four of exactly WIN_NUMBER - 1 with the square, where that
+   * piece's square is not itself forbidden
+   */
+  private static int plainKind(int[][] grid, int row, int column, int depth){
+    grid[row][column] = BoardModel.BLACK;
+    try{
+      boolean overline = false;
+      for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+        int[] line = run(grid, row, column, axis);
+        int length = line[1] - line[0] + 1;
+        if(length == WIN_NUMBER){
+          return RenjuRules.FIVE;
+        }
+        overline = overline || length > WIN_NUMBER;
+      }
+      if(overline){
+        return RenjuRules.OVERLINE;
+      }
+      int fours = 0;
+      boolean[] fourOnAxis = new boolean[4];
+      for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+        Set<String> pieceSets = new HashSet<>();
+        for(int offset = -WIN_NUMBER; offset <= WIN_NUMBER; offset = offset + 1){
+          int r = row + LineRuns.ROW_STEP[axis] * offset;
+          int c = column + LineRuns.COLUMN_STEP[axis] * offset;
+          if(offset == 0 || !isFree(grid, r, c)){
+            continue;
+          }
+          grid[r][c] = BoardModel.BLACK;
+          int[] line = run(grid, r, c, axis);
+          grid[r][c] = BoardModel.EMPTY;
+          int first = offset + line[0];
+          int last = offset + line[1];
+          if(last - first + 1 == WIN_NUMBER && first <= 0 && last >= 0){
+            StringBuilder pieces = new StringBuilder();
+            for(int i = first; i <= last; i = i + 1){
+              if(i != offset){
+                pieces.append(i).append(' ');
+              }
+            }
+            pieceSets.add(pieces.toString());
+          }
+        }
+        fours = fours + pieceSets.size();
+        fourOnAxis[axis] = !pieceSets.isEmpty();
+      }
+      if(fours > 1){
+        return RenjuRules.DOUBLE_FOUR;
+      }
+      int threes = 0;
+      for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+        boolean three = false;
+        for(int offset = -WIN_NUMBER; offset <= WIN_NUMBER && !three && !fourOnAxis[axis]; offset = offset + 1){
+          int r = row + LineRuns.ROW_STEP[axis] * offset;
+          int c = column + LineRuns.COLUMN_STEP[axis] * offset;
+          if(offset == 0 || !isFree(grid, r, c)){
+            continue;
+          }
+          grid[r][c] = BoardModel.BLACK;
+          int[] line = run(grid, row, column, axis);
+          grid[r][c] = BoardModel.EMPTY;
+          int first = line[0];
+          int last = line[1];
+          if(last - first + 1 != WIN_NUMBER - 1 || offset < first || offset > last){
+            continue;
+          }
+          /*
+           * the four must have empty squares at both ends, and filling either must not join a piece past it into an overline
+           */
+          boolean open = isFree(grid, row + LineRuns.ROW_STEP[axis] * (first - 1), column + LineRuns.COLUMN_STEP[axis] * (first - 1))
+                         && isFree(grid, row + LineRuns.ROW_STEP[axis] * (last + 1), column + LineRuns.COLUMN_STEP[axis] * (last + 1))
+                         && !isBlack(grid, row + LineRuns.ROW_STEP[axis] * (first - 2), column + LineRuns.COLUMN_STEP[axis] * (first - 2))
+                         && !isBlack(grid, row + LineRuns.ROW_STEP[axis] * (last + 2), column + LineRuns.COLUMN_STEP[axis] * (last + 2));
+          if(open && (depth == MAX_DEPTH || plainKind(grid, r, c, depth + 1) <= RenjuRules.FIVE)){
+            three = true;
+          }
+        }
+        if(three){
+          threes = threes + 1;
+        }
+      }
+      return threes > 1 ? RenjuRules.DOUBLE_THREE : RenjuRules.ALLOWED;
+    }
+    finally{
+      grid[row][column] = BoardModel.EMPTY;
+    }
+  }
+
+  /*
+   * method that compares RenjuRules with the plain reading on every empty square of random positions
+   * @return how many squares were compared
+   */
+  private static long compareRandom(RenjuRules rules, SplittableRandom random, int positions, int[] kinds){
+    long checks = 0;
+    int[] squares = new int[SIZE * SIZE];
+    for(int position = 0; position < positions; position = position + 1){
+      BoardModel model = new BoardModel(SIZE, SIZE);
+      int[][] grid = new int[SIZE][SIZE];
+      /*
+       * the pieces are bunched up around the middle, mostly black, so that threes and fours come up often
+       */
+      int pieces = 10 + random.nextInt(60);
+      for(int i = 0; i < pieces; i = i + 1){
+        int row = 4 + random.nextInt(7) + (random.nextInt(3) - 1) * random.nextInt(4);
+        int column = 4 + random.nextInt(7) + (random.nextInt(3) - 1) * random.nextInt(4);
+        if(model.isEmpty(row, column)){
+          int color = random.nextInt(10) < 6 ? BoardModel.BLACK : BoardModel.WHITE;
+          model.place(row, column, color);
+          grid[row][column] = color;
+        }
+      }
+      int forbidden = 0;
+      for(int row = 0; row < SIZE; row = row + 1){
+        for(int column = 0; column < SIZE; column = column + 1){
+          if(grid[row][column] != BoardModel.EMPTY){
+            continue;
+          }
+          checks = checks + 1;
+          int kind = rules.forbiddenKind(model, row, column);
+          int plain = plainKind(grid, row, column, 0);
+          kinds[kind] = kinds[kind] + 1;
+          forbidden = forbidden + (kind > RenjuRules.FIVE ? 1 : 0);
+          if(kind != plain){
+            fail("position " + position + ": (" + row + ", " + column + ") is " + kindName(kind) + " but the plain reading says "
+                 + kindName(plain));
+          }
+        }
+      }
+      if(rules.forbiddenSquares(model, squares) != forbidden){
+        fail("position " + position + ": forbiddenSquares does not count the forbidden squares");
+      }
+    }
+    return checks;
+  }
+
+  public static void main(String[] args){
+    int positions = 2000;
+    long seed = 1;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("positions")){
+          positions = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    RenjuRules rules = new RenjuRules(WIN_NUMBER);
+    checkPositions(rules);
+    System.out.println("drawn positions: " + (failures == 0 ? "ok" : failures + " failures"));
+    int before = failures;
+    int[] kinds = new int[RenjuRules.DOUBLE_THREE + 1];
+    long checks = compareRandom(rules, new SplittableRandom(seed), positions, kinds);
+    StringBuilder counts = new StringBuilder();
+    for(int kind = 0; kind < kinds.length; kind = kind + 1){
+      counts.append(kind == 0 ? "" : ", ").append(kindName(kind)).append(' ').append(kinds[kind]);
+    }
+    System.out.println("random positions: " + checks + " squares (" + counts + "), " + (failures == before ? "ok" : (failures - before) + " failures"));
+    System.out.println(failures == 0 ? "ok" : "FAIL: " + failures + " failures");
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,405 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+ * class that plays many games of Gomoku between computer players without a window, spread over several threads,
+ * and reports how fast it went (games per second, moves per second and how long single moves took)
+ * run it with key=value arguments, for example:
+ *   java SelfPlay games=100000 threads=8 rows=15 columns=15 winNumber=5 black=random white=alphabeta depth=4 thinkMillis=20 print=false record=games.gmr
+ * with searchThreads=n every alpha-beta player searches with n threads (ParallelSearch); the report then also has how many positions
+ * the searches looked at per second, counted over the time spent choosing their moves, which should grow with n
+ * only one player of a game thinks at a time, so threads times searchThreads threads are busy; threads is lowered to keep that
+ * within the number of processors, and to see how the search scales run for example
+ *   java SelfPlay games=20 threads=1 black=alphabeta white=alphabeta depth=6 searchThreads=1   (then 2, 4, ...)
+ * @author Esther Shin
+ */
+
+public class SelfPlay{
+  /*
+   * interface for making a new player for a thread; players keep search state, so each thread gets its own
+   */
+  public interface PlayerFactory{
+    /*
+     * method that makes a player
+     * @param rules  the rules of the games
+     * @param seed  a seed that is different for every thread
+     * @return the new player
+     */
+    Player create(GomokuRules rules, long seed);
+  }
+
+  /*
+   * class that holds how one game went
+   */
+  public static class GameResult{
+    private final long gameNumber;
+    private final int winner;
+    private final int[] moves;
+
+    /*
+     * constructor for the GameResult class
+     * @param gameNumber  the number of the game (0 is the first)
+     * @param winner  BoardModel.BLACK or BoardModel.WHITE, or BoardModel.EMPTY for a draw
+     * @param moves  every move of the game in order, as row * columns + column
+     */
+    GameResult(long gameNumber, int winner, int[] moves){
+      this.gameNumber = gameNumber;
+      this.winner = winner;
+      this.moves = moves;
+    }
+
+    public long getGameNumber(){
+      return gameNumber;
+    }
+
+    public int getWinner(){
+      return winner;
+    }
+
+    /*
+     * method that gets the moves of the game (the array is shared, do not change it)
+     */
+    public int[] getMoves(){
+      return moves;
+    }
+  }
+
+  /*
+   * fields that describe the games to play
+   */
+  private final int rows;
+  private final int columns;
+  private final GomokuRules rules;
+  private final PlayerFactory blackFactory;
+  private final PlayerFactory whiteFactory;
+  private final int threads;
+
+  /*
+   * fields that hold the totals of the last run
+   */
+  private final LatencyHistogram moveLatency = new LatencyHistogram();
+  private long gamesPlayed;
+  private long movesPlayed;
+  private long blackWins;
+  private long whiteWins;
+  private long draws;
+  private long elapsedNanos;
+  private long searchNodes;
+  private long searchNanos;
+
+  /*
+   * constructor for the SelfPlay class
+   * @param rows  the number of rows on the board
+   * @param columns  the number of columns on the board
+   * @param winNumber  the number of pieces in a row needed to win
+   * @param blackFactory  makes the black players
+   * @param whiteFactory  makes the white players
+   * @param threads  how many games are played at once
+   */
+  public SelfPlay(int rows, int columns, int winNumber, PlayerFactory blackFactory, PlayerFactory whiteFactory, int threads){
+    if(threads < 1){
+      throw new IllegalArgumentException("threads must be at least 1");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.rules = new GomokuRules(winNumber);
+    this.blackFactory = blackFactory;
+    this.whiteFactory = whiteFactory;
+    this.threads = threads;
+  }
+
+  /*
+   * method that plays the games; each result is given to the listener as soon as its game ends (from the thread that played it)
+   * @param games  how many games to play
+   * @param listener  gets every game's result, or null to not get them
+   */
+  public void run(long games, Consumer<GameResult> listener){
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    AtomicLong nextGame = new AtomicLong();
+    List<Future<long[]>> workers = new ArrayList<Future<long[]>>();
+    List<LatencyHistogram> histograms = new ArrayList<LatencyHistogram>();
+    long start = System.nanoTime();
+    /*
+     * every thread keeps taking the next game number until all games are taken
+     */
+    for(int t = 0; t < threads; t = t + 1){
+      long seed = 0x5DEECE66DL * (t + 1);
+      LatencyHistogram histogram = new LatencyHistogram();
+      histograms.add(histogram);
+      workers.add(executor.submit(() -> {
+        Player black = blackFactory.create(rules, seed);
+        Player white = whiteFactory.create(rules, seed + 1);
+        BoardModel model = new BoardModel(rows, columns);
+        /*
+         * totals holds the number of moves, then black wins, white wins and draws, then the positions searched and the time it took
+         */
+        long[] totals = new long[6];
+        try{
+          for(long game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()){
+            GameResult result = playGame(game, model, black, white, histogram, totals);
+            totals[0] = totals[0] + result.getMoves().length;
+            int slot = result.getWinner() == BoardModel.EMPTY ? 3 : result.getWinner();
+            totals[slot] = totals[slot] + 1;
+            if(listener != null){
+              listener.accept(result);
+            }
+          }
+        }
+        finally{
+          black.shutdown();
+          white.shutdown();
+        }
+        return totals;
+      }));
+    }
+    executor.shutdown();
+    movesPlayed = 0;
+    draws = 0;
+    blackWins = 0;
+    whiteWins = 0;
+    searchNodes = 0;
+    searchNanos = 0;
+    moveLatency.reset();
+    try{
+      for(Future<long[]> worker : workers){
+        long[] totals = worker.get();
+        movesPlayed = movesPlayed + totals[0];
+        blackWins = blackWins + totals[BoardModel.BLACK];
+        whiteWins = whiteWins + totals[BoardModel.WHITE];
+        draws = draws + totals[3];
+        searchNodes = searchNodes + totals[4];
+        searchNanos = searchNanos + totals[5];
+      }
+    }
+    catch(InterruptedException e){
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Self-play was interrupted", e);
+    }
+    catch(ExecutionException e){
+      executor.shutdownNow();
+      throw new IllegalStateException("A self-play game failed", e.getCause());
+    }
+    elapsedNanos = System.nanoTime() - start;
+    gamesPlayed = blackWins + whiteWins + draws;
+    for(LatencyHistogram histogram : histograms){
+      moveLatency.add(histogram);
+    }
+  }
+
+  /*
+   * method that plays one game to the end on a board that is cleared first
+   * @param totals  gets the positions the players searched added to totals[4], and the time their searches took to totals[5]
+   * @return the result of the game
+   */
+  private GameResult playGame(long gameNumber, BoardModel model, Player black, Player white, LatencyHistogram histogram, long[] totals){
+    model.clear();
+    int color = BoardModel.BLACK;
+    int winner = BoardModel.EMPTY;
+    while(model.getMoveCount() < rows * columns){
+      Player player = color == BoardModel.BLACK ? black : white;
+      long moveStart = System.nanoTime();
+      int move = player.chooseMove(model, color);
+      long moveNanos = System.nanoTime() - moveStart;
+      histogram.record(moveNanos);
+      long nodes = nodesOf(player);
+      if(nodes > 0){
+        totals[4] = totals[4] + nodes;
+        totals[5] = totals[5] + moveNanos;
+      }
+      if(move == -1){
+        break;
+      }
+      int row = move / columns;
+      int column = move % columns;
+      if(!rules.isLegal(model, row, column, color)){
+        throw new IllegalStateException("Player chose an illegal move (" + row + ", " + column + ")");
+      }
+      boolean win = rules.isWin(model, row, column, color);
+      model.place(row, column, color);
+      if(win){
+        winner = color;
+        break;
+      }
+      color = 3 - color;
+    }
+    int[] moves = new int[model.getMoveCount()];
+    for(int i = 0; i < moves.length; i = i + 1){
+      moves[i] = model.getMove(i);
+    }
+    return new GameResult(gameNumber, winner, moves);
+  }
+
+  /*
+   * method that gets how many positions a player searched for its last move (0 for a player that does not count them)
+   */
+  static long nodesOf(Player player){
+    if(player instanceof ParallelSearch){
+      return ((ParallelSearch) player).getNodes();
+    }
+    else if(player instanceof AlphaBetaPlayer){
+      return ((AlphaBetaPlayer) player).getNodes();
+    }
+    return 0;
+  }
+
+  /*
+   * method that gets a short report of the last run: totals, speed and move latency percentiles, and the search speed if any
+   * player searched
+   */
+  public String report(){
+    double seconds = elapsedNanos / 1e9;
+    String search = searchNodes == 0 ? "" : String.format("%nsearch nodes=%d nodes/sec=%.0f", searchNodes, getNodesPerSecond());
+    return String.format("games=%d (black %d, white %d, draws %d) moves=%d time=%.2fs%n"
+                           + "games/sec=%.1f moves/sec=%.1f%n"
+                           + "move latency us: mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f",
+                         gamesPlayed, blackWins, whiteWins, draws, movesPlayed, seconds,
+                         gamesPlayed / seconds, movesPlayed / seconds,
+                         moveLatency.getMean() / 1000.0, moveLatency.getPercentile(50) / 1000.0,
+                         moveLatency.getPercentile(90) / 1000.0, moveLatency.getPercentile(99) / 1000.0,
+                         moveLatency.getPercentile(99.9) / 1000.0, moveLatency.getMax() / 1000.0) + search;
+  }
+
+  /*
+   * method that gets how many positions the searching players looked at per second of choosing their moves in the last run
+   */
+  public double getNodesPerSecond(){
+    return searchNanos == 0 ? 0 : searchNodes * 1e9 / searchNanos;
+  }
+
+  public long getGamesPlayed(){
+    return gamesPlayed;
+  }
+
+  public long getMovesPlayed(){
+    return movesPlayed;
+  }
+
+  public LatencyHistogram getMoveLatency(){
+    return moveLatency;
+  }
+
+  /*
+   * method that makes a player factory from its name ("random", "alphabeta" or "mcts")
+   */
+  static PlayerFactory factoryFor(String name, int depth, long thinkMillis){
+    return factoryFor(name, depth, thinkMillis, 1);
+  }
+
+  /*
+   * method that makes a player factory from its name, with the alpha-beta players searching with searchThreads threads
+   */
+  static PlayerFactory factoryFor(String name, int depth, long thinkMillis, int searchThreads){
+    if(name.equals("random")){
+      return (rules, seed) -> new RandomPlayer(rules, seed);
+    }
+    else if(name.equals("alphabeta") && searchThreads > 1){
+      return (rules, seed) -> new ParallelSearch(rules, searchThreads, depth, thinkMillis, 16);
+    }
+    else if(name.equals("alphabeta")){
+      return (rules, seed) -> new AlphaBetaPlayer(rules, depth, thinkMillis, 16, new TranspositionTable(16));
+    }
+    else if(name.equals("mcts")){
+      return (rules, seed) -> new MctsPlayer(rules, 1, thinkMillis, 0, 1 << 16, MctsPlayer.TACTICAL, seed);
+    }
+    throw new IllegalArgumentException("Unknown player: " + name);
+  }
+
+  /*
+   * method that makes a listener that saves every game to a game-record file before passing it on
+   * @param writer  the file to save to
+   * @param next  the listener to pass the games on to, or null
+   */
+  static Consumer<GameResult> recordTo(GameRecordWriter writer, int rows, int columns, int winNumber, Consumer<GameResult> next){
+    return result -> {
+      try{
+        int outcome = result.getWinner() == BoardModel.EMPTY ? GameRecordWriter.DRAW : result.getWinner();
+        writer.writeGame(rows, columns, winNumber, outcome, result.getMoves(), result.getMoves().length);
+      }
+      catch(IOException e){
+        throw new UncheckedIOException(e);
+      }
+      if(next != null){
+        next.accept(result);
+      }
+    };
+  }
+
+  /*
+   * main method: plays the games described by the key=value arguments, prints each result as "game,winner,moves" if print=true,
+   * saves them to a game-record file if record=file is given, then prints the report
+   * @param args  the key=value arguments (games, threads, rows, columns, winNumber, black, white, depth, thinkMillis, searchThreads,
+   * print, record)
+   */
+  public static void main(String[] args){
+    Map<String, String> options = new HashMap<String, String>();
+    for(String arg : args){
+      int equals = arg.indexOf('=');
+      if(equals == -1){
+        System.out.println("Error: arguments must look like key=value, not " + arg);
+        return;
+      }
+      options.put(arg.substring(0, equals), arg.substring(equals + 1));
+    }
+    long games = Long.parseLong(options.getOrDefault("games", "1000"));
+    int processors = Runtime.getRuntime().availableProcessors();
+    int searchThreads = Math.max(1, Integer.parseInt(options.getOrDefault("searchThreads", "1")));
+    int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Math.max(1, processors / searchThreads))));
+    if(threads > 1 && threads * searchThreads > processors){
+      threads = Math.max(1, processors / searchThreads);
+      System.out.println("Error: threads times searchThreads is more than the " + processors + " processors, using threads=" + threads);
+    }
+    int rows = Integer.parseInt(options.getOrDefault("rows", "15"));
+    int columns = Integer.parseInt(options.getOrDefault("columns", String.valueOf(rows)));
+    int winNumber = Integer.parseInt(options.getOrDefault("winNumber", "5"));
+    int depth = Integer.parseInt(options.getOrDefault("depth", "4"));
+    long thinkMillis = Long.parseLong(options.getOrDefault("thinkMillis", "50"));
+    boolean print = Boolean.parseBoolean(options.getOrDefault("print", "false"));
+    PlayerFactory black = factoryFor(options.getOrDefault("black", "random"), depth, thinkMillis, searchThreads);
+    PlayerFactory white = factoryFor(options.getOrDefault("white", "random"), depth, thinkMillis, searchThreads);
+
+    SelfPlay selfPlay = new SelfPlay(rows, columns, winNumber, black, white, threads);
+    Consumer<GameResult> listener = null;
+    if(print){
+      listener = result -> {
+        String winner = result.getWinner() == BoardModel.BLACK ? "black" : result.getWinner() == BoardModel.WHITE ? "white" : "draw";
+        String line = result.getGameNumber() + "," + winner + "," + result.getMoves().length;
+        synchronized(System.out){
+          System.out.println(line);
+        }
+      };
+    }
+    GameRecordWriter writer = null;
+    if(options.containsKey("record")){
+      try{
+        writer = new GameRecordWriter(Paths.get(options.get("record")));
+      }
+      catch(IOException e){
+        System.out.println("Error: cannot record games to " + options.get("record") + ": " + e.getMessage());
+        return;
+      }
+      listener = recordTo(writer, rows, columns, winNumber, listener);
+    }
+    selfPlay.run(games, listener);
+    System.out.println(selfPlay.report());
+    if(writer != null){
+      try{
+        writer.close();
+      }
+      catch(IOException e){
+        System.out.println("Error: cannot close the record file: " + e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,163 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/*
+ * class that load tests a GameServer: many connections each keep many games going at once and take turns playing a random
+ * move in every one of them, then the moves per second and how long the answers took are reported
+ * run it like: java ServerLoad host=localhost port=9595 connections=100 games=100 moves=50 size=15
+ * (100 connections with 100 games each keeps 10000 games going at once); with server=true it starts its own server first, which
+ * keeps its games in a GameJournal if journal=directory is given too (with commitMillis=2 and snapshotRecords=100000 like GameServer)
+ * @author Esther Shin
+ */
+
+public class ServerLoad{
+  /*
+   * main method: runs the load test described by the key=value arguments
+   */
+  public static void main(String[] args) throws Exception{
+    Map<String, String> options = new HashMap<String, String>();
+    for(String arg : args){
+      int equals = arg.indexOf('=');
+      if(equals == -1){
+        System.out.println("Error: arguments must look like key=value, not " + arg);
+        return;
+      }
+      options.put(arg.substring(0, equals), arg.substring(equals + 1));
+    }
+    String host = options.getOrDefault("host", "localhost");
+    int port = Integer.parseInt(options.getOrDefault("port", "9595"));
+    int connectionCount = Integer.parseInt(options.getOrDefault("connections", "100"));
+    int games = Integer.parseInt(options.getOrDefault("games", "100"));
+    int moves = Integer.parseInt(options.getOrDefault("moves", "50"));
+    int size = Integer.parseInt(options.getOrDefault("size", "15"));
+    GameServer server = null;
+    GameJournal journal = null;
+    if(Boolean.parseBoolean(options.getOrDefault("server", "false"))){
+      if(options.containsKey("journal")){
+        journal = new GameJournal(Paths.get(options.get("journal")), Long.parseLong(options.getOrDefault("commitMillis", "2")),
+                                  Long.parseLong(options.getOrDefault("snapshotRecords", "100000")));
+      }
+      server = new GameServer(port, connectionCount * games, Math.max(size, 100), journal);
+      GameServer running = server;
+      Thread serverThread = new Thread(running::serve, "gomoku-server");
+      serverThread.setDaemon(true);
+      serverThread.start();
+    }
+
+    ExecutorService clients = GameServer.newConnectionExecutor();
+    List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+    List<LatencyHistogram> histograms = new ArrayList<LatencyHistogram>();
+    long start = System.nanoTime();
+    for(int c = 0; c < connectionCount; c = c + 1){
+      LatencyHistogram histogram = new LatencyHistogram();
+      histograms.add(histogram);
+      long seed = c + 1;
+      results.add(clients.submit(() -> playGames(host, port, games, moves, size, seed, histogram)));
+    }
+    long played = 0;
+    long refused = 0;
+    try{
+      for(Future<long[]> result : results){
+        long[] totals = result.get();
+        played = played + totals[0];
+        refused = refused + totals[1];
+      }
+    }
+    catch(ExecutionException e){
+      System.out.println("Error: a connection failed: " + e.getCause());
+      clients.shutdownNow();
+      return;
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    clients.shutdown();
+    LatencyHistogram latency = new LatencyHistogram();
+    for(LatencyHistogram histogram : histograms){
+      latency.add(histogram);
+    }
+    System.out.println(String.format("games=%d moves=%d (refused %d) time=%.2fs moves/sec=%.0f%n"
+                                       + "answer latency us: mean=%.1f p50=%.1f p99=%.1f p99.9=%.1f max=%.1f",
+                                     (long) connectionCount * games, played, refused, seconds, (played + refused) / seconds,
+                                     latency.getMean() / 1000.0, latency.getPercentile(50) / 1000.0,
+                                     latency.getPercentile(99) / 1000.0, latency.getPercentile(99.9) / 1000.0,
+                                     latency.getMax() / 1000.0));
+    if(journal != null){
+      System.out.println("journal fsyncs=" + journal.getCommitCount() + " records=" + (journal.getLastLsn() + 1));
+    }
+    if(server != null){
+      server.close();
+    }
+  }
+
+  /*
+   * method that plays one connection's games: makes them all, then plays a round of one random move in each game until every game
+   * has had its moves (or is over)
+   * @return the number of moves the server played, then the number it refused
+   */
+  private static long[] playGames(String host, int port, int games, int moves, int size, long seed, LatencyHistogram histogram)
+    throws IOException{
+    SplittableRandom random = new SplittableRandom(seed);
+    long[] totals = new long[2];
+    try(Socket socket = new Socket(host, port);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))){
+      socket.setTcpNoDelay(true);
+      long[] ids = new long[games];
+      boolean[] over = new boolean[games];
+      for(int g = 0; g < games; g = g + 1){
+        String answer = ask(in, out, "NEW 5 " + size + " " + size, histogram);
+        if(!answer.startsWith("OK ")){
+          throw new IOException("NEW was refused: " + answer);
+        }
+        ids[g] = Long.parseLong(answer.substring(3, answer.indexOf(' ', 3)));
+      }
+      for(int round = 0; round < moves; round = round + 1){
+        for(int g = 0; g < games; g = g + 1){
+          if(over[g]){
+            continue;
+          }
+          String answer = ask(in, out, "MOVE " + ids[g] + " " + random.nextInt(size) + " " + random.nextInt(size), histogram);
+          if(answer.startsWith("OK")){
+            totals[0] = totals[0] + 1;
+            over[g] = answer.equals("OK WON");
+          }
+          else{
+            totals[1] = totals[1] + 1;
+            over[g] = answer.equals("ERR The game is over");
+          }
+        }
+      }
+      ask(in, out, "QUIT", histogram);
+    }
+    return totals;
+  }
+
+  /*
+   * method that sends one command and waits for its answer, timing the round trip
+   */
+  private static String ask(BufferedReader in, BufferedWriter out, String command, LatencyHistogram histogram) throws IOException{
+    long start = System.nanoTime();
+    out.write(command);
+    out.write('\n');
+    out.flush();
+    String answer = in.readLine();
+    histogram.record(System.nanoTime() - start);
+    if(answer == null){
+      throw new IOException("The server closed the connection");
+    }
+    return answer;
+  }
+}
@@ -0,0 +1,322 @@
+import java.util.Arrays;
+
+/*
+ * class that represents a board that only keeps the parts that have pieces on them, so it can be huge or have no edges at all
+ * the board is cut into tiles of TILE_SIZE x TILE_SIZE squares, and a tile is only made the first time a piece is placed on it;
+ * the tiles are kept in a hash table by their tile row and tile column, so the memory used grows with the pieces played and not
+ * with the size of the board
+ * the rules are checked by copying the squares within a few times winNumber of a move into a small BoardModel and asking
+ * GomokuRules (or RenjuRules) about it there, so a win is still exactly what it is on a normal board
+ * @author Esther Shin
+ */
+
+public class SparseBoard{
+  /*
+   * constants for the size of a tile: TILE_SIZE squares on a side, TILE_BITS being its log base 2
+   */
+  public static final int TILE_BITS = 4;
+  public static final int TILE_SIZE = 1 << TILE_BITS;
+
+  /*
+   * fields rows and columns  store the size of the board, or 0 if it has no edge that way (then rows or columns go from
+   * Integer.MIN_VALUE to Integer.MAX_VALUE)
+   */
+  private final int rows;
+  private final int columns;
+
+  /*
+   * fields for the table of tiles: slot i holds the tile tiles[i] with the key keys[i] (see tileKey), and tiles[i] is null if the
+   * slot is empty; each tile has the color of each of its squares, row by row
+   */
+  private long[] keys = new long[64];
+  private byte[][] tiles = new byte[64][];
+  private int tileCount = 0;
+
+  /*
+   * fields moveRows and moveColumns  store the square of every piece placed, in the order they were placed
+   */
+  private int[] moveRows = new int[64];
+  private int[] moveColumns = new int[64];
+
+  /*
+   * field moveCount  stores how many pieces are on the board
+   */
+  private int moveCount = 0;
+
+  /*
+   * field scratch  stores the BoardModel the squares around a move are copied into to check the rules, kept from one check to
+   * the next (so a SparseBoard must not be checked from more than one thread at a time)
+   */
+  private BoardModel scratch;
+
+  /*
+   * constructor for the SparseBoard class
+   * @param rows  the number of rows, or 0 for a board with no top or bottom edge
+   * @param columns  the number of columns, or 0 for a board with no left or right edge
+   */
+  public SparseBoard(int rows, int columns){
+    if(rows < 0 || columns < 0){
+      throw new IllegalArgumentException("rows and columns must not be negative");
+    }
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+  public int getRows(){
+    return rows;
+  }
+
+  public int getColumns(){
+    return columns;
+  }
+
+  public int getMoveCount(){
+    return moveCount;
+  }
+
+  public int getMoveRow(int number){
+    return moveRows[number];
+  }
+
+  public int getMoveColumn(int number){
+    return moveColumns[number];
+  }
+
+  /*
+   * method that gets how many tiles have been made
+   */
+  public int getTileCount(){
+    return tileCount;
+  }
+
+  /*
+   * method that determines whether a square is on the board
+   */
+  public boolean isOnBoard(int row, int column){
+    return (rows == 0 || (row >= 0 && row < rows)) && (columns == 0 || (column >= 0 && column < columns));
+  }
+
+  /*
+   * method that gets the color of the piece on a square
+   * @return BoardModel.EMPTY, BoardModel.BLACK or BoardModel.WHITE (EMPTY for a square off the board)
+   */
+  public int colorAt(int row, int column){
+    byte[] tile = tile(row >> TILE_BITS, column >> TILE_BITS);
+    if(tile == null || !isOnBoard(row, column)){
+      return BoardModel.EMPTY;
+    }
+    return tile[((row & (TILE_SIZE - 1)) << TILE_BITS) + (column & (TILE_SIZE - 1))];
+  }
+
+  public boolean isEmpty(int row, int column){
+    return colorAt(row, column) == BoardModel.EMPTY;
+  }
+
+  /*
+   * method that gets the key a tile is kept under: its tile row in the high 32 bits and its tile column in the low 32 bits
+   */
+  private static long tileKey(int tileRow, int tileColumn){
+    return ((long) tileRow << 32) | (tileColumn & 0xFFFFFFFFL);
+  }
+
+  /*
+   * method that gets the slot of the table where a key is, or the empty slot where it would go
+   */
+  private int slotOf(long key){
+    int mask = keys.length - 1;
+    long mixed = key * 0x9E3779B97F4A7C15L;
+    int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+    while(tiles[slot] != null && keys[slot] != key){
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /*
+   * method that gets a tile
+   * @param tileRow  the row of the tile (the row of its first square divided by TILE_SIZE, rounded down)
+   * @param tileColumn  the column of the tile
+   * @return the colors of its squares, row by row, or null if no piece was ever placed on it (the array must not be changed)
+   */
+  public byte[] tile(int tileRow, int tileColumn){
+    return tiles[slotOf(tileKey(tileRow, tileColumn))];
+  }
+
+  /*
+   * method that places a piece on an empty square, making its tile if it does not have one yet
+   * @param row  the row of the square
+   * @param column  the column of the square
+   * @param color  the color of the piece (BoardModel.BLACK or BoardModel.WHITE)
+   */
+  public void place(int row, int column, int color){
+    if(!isOnBoard(row, column)){
+      throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is not on the board");
+    }
+    if(color != BoardModel.BLACK && color != BoardModel.WHITE){
+      throw new IllegalArgumentException("Invalid color: " + color);
+    }
+    long key = tileKey(row >> TILE_BITS, column >> TILE_BITS);
+    int slot = slotOf(key);
+    if(tiles[slot] == null){
+      if((tileCount + 1) * 4 > keys.length * 3){
+        grow();
+        slot = slotOf(key);
+      }
+      keys[slot] = key;
+      tiles[slot] = new byte[TILE_SIZE * TILE_SIZE];
+      tileCount = tileCount + 1;
+    }
+    int square = ((row & (TILE_SIZE - 1)) << TILE_BITS) + (column & (TILE_SIZE - 1));
+    if(tiles[slot][square] != BoardModel.EMPTY){
+      throw new IllegalStateException("(" + row + ", " + column + ") already has a piece on it");
+    }
+    tiles[slot][square] = (byte) color;
+    if(moveCount == moveRows.length){
+      moveRows = Arrays.copyOf(moveRows, moveCount * 2);
+      moveColumns = Arrays.copyOf(moveColumns, moveCount * 2);
+    }
+    moveRows[moveCount] = row;
+    moveColumns[moveCount] = column;
+    moveCount = moveCount + 1;
+  }
+
+  /*
+   * method that takes back the most recently placed piece (its tile is kept, since a piece is likely to be played there again)
+   * @return the color of the piece taken back, or BoardModel.EMPTY if the board is empty
+   */
+  public int undo(){
+    if(moveCount == 0){
+      return BoardModel.EMPTY;
+    }
+    moveCount = moveCount - 1;
+    int row = moveRows[moveCount];
+    int column = moveColumns[moveCount];
+    byte[] tile = tile(row >> TILE_BITS, column >> TILE_BITS);
+    int square = ((row & (TILE_SIZE - 1)) << TILE_BITS) + (column & (TILE_SIZE - 1));
+    int color = tile[square];
+    tile[square] = BoardModel.EMPTY;
+    return color;
+  }
+
+  /*
+   * method that makes the table of tiles twice as big
+   */
+  private void grow(){
+    long[] oldKeys = keys;
+    byte[][] oldTiles = tiles;
+    keys = new long[oldKeys.length * 2];
+    tiles = new byte[oldTiles.length * 2][];
+    for(int i = 0; i < oldTiles.length; i = i + 1){
+      if(oldTiles[i] != null){
+        int slot = slotOf(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        tiles[slot] = oldTiles[i];
+      }
+    }
+  }
+
+  /*
+   * method that determines whether a piece may be placed on a square under some rules
+   * @param rules  the rules of the game
+   * @param row  the row the piece would be placed on
+   * @param column  the column the piece would be placed on
+   * @param color  the color of the piece
+   * @return true if the square is on the board, empty and the move is allowed
+   */
+  public boolean isLegal(GomokuRules rules, int row, int column, int color){
+    if(!isOnBoard(row, column) || !isEmpty(row, column)){
+      return false;
+    }
+    int radius = windowRadius(rules);
+    BoardModel window = window(row, column, radius);
+    return rules.isLegal(window, row - windowTop(row, radius), column - windowLeft(column, radius), color);
+  }
+
+  /*
+   * method that determines whether placing a piece on an empty square wins under some rules
+   */
+  public boolean isWin(GomokuRules rules, int row, int column, int color){
+    int radius = windowRadius(rules);
+    BoardModel window = window(row, column, radius);
+    return rules.isWin(window, row - windowTop(row, radius), column - windowLeft(column, radius), color);
+  }
+
+  /*
+   * method that gets how many squares on each side of a move are copied to check it: a line that wins or breaks a rule is within
+   * winNumber of the move, and the Renju rules look winNumber further from each square that would complete a three, down to
+   * RenjuRules.MAX_DEPTH squares deep, so the edge of the copy is never read as the edge of the board
+   */
+  private static int windowRadius(GomokuRules rules){
+    if(rules instanceof RenjuRules){
+      return (RenjuRules.MAX_DEPTH + 1) * rules.getWinNumber();
+    }
+    return 2 * rules.getWinNumber();
+  }
+
+  /*
+   * methods that get the first row and the first column of the window around a square, kept on the board
+   * (the sums are done in long so a square near Integer.MIN_VALUE or Integer.MAX_VALUE does not wrap around)
+   */
+  private int windowTop(int row, int radius){
+    return (int) Math.max((long) row - radius, rows == 0 ? Integer.MIN_VALUE : 0);
+  }
+
+  private int windowLeft(int column, int radius){
+    return (int) Math.max((long) column - radius, columns == 0 ? Integer.MIN_VALUE : 0);
+  }
+
+  private int windowBottom(int row, int radius){
+    return (int) Math.min((long) row + radius, rows == 0 ? Integer.MAX_VALUE : rows - 1);
+  }
+
+  private int windowRight(int column, int radius){
+    return (int) Math.min((long) column + radius, columns == 0 ? Integer.MAX_VALUE : columns - 1);
+  }
+
+  /*
+   * method that copies the squares within radius of a square (and on the board) into the scratch BoardModel; the square (row, column)
+   * is (row - windowTop, column - windowLeft) in it
+   * the scratch board is only made again when the window is a different size (near an edge of the board), otherwise the pieces of
+   * the last check are taken back, and only the tiles the window covers are read
+   */
+  private BoardModel window(int row, int column, int radius){
+    int top = windowTop(row, radius);
+    int left = windowLeft(column, radius);
+    int bottom = windowBottom(row, radius);
+    int right = windowRight(column, radius);
+    int height = bottom - top + 1;
+    int width = right - left + 1;
+    if(scratch == null || scratch.getRows() != height || scratch.getColumns() != width){
+      scratch = new BoardModel(height, width);
+    }
+    else{
+      while(scratch.getMoveCount() > 0){
+        scratch.undo();
+      }
+    }
+    for(long tileRow = top >> TILE_BITS; tileRow <= bottom >> TILE_BITS; tileRow = tileRow + 1){
+      for(long tileColumn = left >> TILE_BITS; tileColumn <= right >> TILE_BITS; tileColumn = tileColumn + 1){
+        byte[] tile = tile((int) tileRow, (int) tileColumn);
+        if(tile == null){
+          continue;
+        }
+        /*
+         * the part of the tile inside the window, in board squares (done in long like windowTop, for tiles at the far edges)
+         */
+        long firstRow = Math.max(tileRow << TILE_BITS, top);
+        long lastRow = Math.min((tileRow << TILE_BITS) + TILE_SIZE - 1, bottom);
+        long firstColumn = Math.max(tileColumn << TILE_BITS, left);
+        long lastColumn = Math.min((tileColumn << TILE_BITS) + TILE_SIZE - 1, right);
+        for(long r = firstRow; r <= lastRow; r = r + 1){
+          for(long c = firstColumn; c <= lastColumn; c = c + 1){
+            int color = tile[(int) (((r & (TILE_SIZE - 1)) << TILE_BITS) + (c & (TILE_SIZE - 1)))];
+            if(color != BoardModel.EMPTY){
+              scratch.place((int) (r - top), (int) (c - left), color);
+            }
+          }
+        }
+      }
+    }
+    return scratch;
+  }
+}
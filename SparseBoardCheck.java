@@ -0,0 +1,154 @@
+import java.util.SplittableRandom;
+
+/*
+ * class that checks SparseBoard without a window: random games are played on a SparseBoard and on a BoardModel side by side, and
+ * every move's legality and win under GomokuRules and RenjuRules must be the same on both
+ * the games on a board without edges are played far from (0, 0) and compared with a BoardModel big enough that its edges are out of
+ * reach of every rule check, so the window a SparseBoard copies must be big enough too
+ * run it with key=value arguments, for example:
+ *   java SparseBoardCheck games=200 seed=4
+ * it prints a line for each kind of board and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class SparseBoardCheck{
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that plays a random game on a BoardModel and a SparseBoard at once and compares every verdict on the way
+   * @param size  the size of the BoardModel
+   * @param low  the first row and column moves are played on
+   * @param high  the last row and column moves are played on
+   * @param shift  what is added to a row or column of the BoardModel to get the same square of the SparseBoard
+   * @return how many verdicts were compared
+   */
+  private static long play(SplittableRandom random, GomokuRules[] rules, int size, int low, int high, SparseBoard sparse, int shift,
+                           String where){
+    BoardModel model = new BoardModel(size, size);
+    long checks = 0;
+    int moves = (high - low + 1) * (high - low + 1) * 2 / 3;
+    for(int move = 0; move < moves; move = move + 1){
+      int row = low + random.nextInt(high - low + 1);
+      int column = low + random.nextInt(high - low + 1);
+      int color = move % 2 + 1;
+      if(!model.isEmpty(row, column)){
+        if(model.getMoveCount() > 0 && random.nextInt(4) == 0){
+          model.undo();
+          sparse.undo();
+        }
+        continue;
+      }
+      for(GomokuRules rule : rules){
+        for(int player = BoardModel.BLACK; player <= BoardModel.WHITE; player = player + 1){
+          checks = checks + 1;
+          if(rule.isLegal(model, row, column, player) != sparse.isLegal(rule, row + shift, column + shift, player)){
+            fail(where + ": isLegal differs at (" + row + ", " + column + ") for color " + player + " with " + rule.getClass().getName());
+          }
+          if(rule.isWin(model, row, column, player) != sparse.isWin(rule, row + shift, column + shift, player)){
+            fail(where + ": isWin differs at (" + row + ", " + column + ") for color " + player + " with " + rule.getClass().getName());
+          }
+        }
+      }
+      model.place(row, column, color);
+      sparse.place(row + shift, column + shift, color);
+    }
+    for(int row = 0; row < size; row = row + 1){
+      for(int column = 0; column < size; column = column + 1){
+        if(model.colorAt(row, column) != sparse.colorAt(row + shift, column + shift)){
+          fail(where + ": (" + row + ", " + column + ") has a different piece");
+        }
+      }
+    }
+    if(model.getMoveCount() != sparse.getMoveCount()){
+      fail(where + ": " + sparse.getMoveCount() + " moves on the SparseBoard, " + model.getMoveCount() + " on the BoardModel");
+    }
+    return checks;
+  }
+
+  /*
+   * method that checks a position (found by a random search) where whether black may play (0, 0) depends on a square more than
+   * 2 * winNumber away from it, read while the squares that would complete its threes are checked in turn; a window of 2 * winNumber
+   * squares takes (0, 9) for the edge of the board and gets it wrong
+   */
+  private static void checkDeepThree(){
+    int[][] pieces = {{-3, -3}, {0, 5}, {0, 8}, {1, -1}, {1, 1}, {1, 3}, {1, 5}, {1, 6}, {3, 2}, {5, -1}};
+    RenjuRules rules = new RenjuRules(4);
+    int middle = (RenjuRules.MAX_DEPTH + 1) * 4;
+    BoardModel model = new BoardModel(2 * middle + 1, 2 * middle + 1);
+    SparseBoard sparse = new SparseBoard(0, 0);
+    for(int[] piece : pieces){
+      model.place(middle + piece[0], middle + piece[1], BoardModel.BLACK);
+      sparse.place(piece[0], piece[1], BoardModel.BLACK);
+    }
+    if(rules.isLegal(model, middle, middle, BoardModel.BLACK) != sparse.isLegal(rules, 0, 0, BoardModel.BLACK)){
+      fail("deep three: isLegal differs at (0, 0)");
+    }
+  }
+
+  public static void main(String[] args){
+    int games = 200;
+    long seed = 4;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("games")){
+          games = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    for(int winNumber = 4; winNumber <= 5; winNumber = winNumber + 1){
+      GomokuRules[] rules = {new GomokuRules(winNumber), new RenjuRules(winNumber)};
+      int before = failures;
+      long checks = 0;
+      for(int game = 0; game < games; game = game + 1){
+        int size = 10 + random.nextInt(15);
+        checks = checks + play(random, rules, size, 0, size - 1, new SparseBoard(size, size), 0, "winNumber " + winNumber + " game " + game);
+      }
+      System.out.println("winNumber " + winNumber + ", board with edges: " + checks + " verdicts, "
+                         + (failures == before ? "ok" : (failures - before) + " failures"));
+      before = failures;
+      checks = 0;
+      /*
+       * the BoardModel's edges are (RenjuRules.MAX_DEPTH + 1) * winNumber squares from where the moves are played, further than any
+       * rule check reads
+       */
+      int margin = (RenjuRules.MAX_DEPTH + 1) * winNumber;
+      for(int game = 0; game < games / 4; game = game + 1){
+        int area = 12 + random.nextInt(12);
+        int shift = random.nextInt(2) == 0 ? Integer.MAX_VALUE - 2 * margin - area : random.nextInt() / 2;
+        checks = checks + play(random, rules, area + 2 * margin, margin, margin + area - 1, new SparseBoard(0, 0), shift,
+                               "winNumber " + winNumber + " game " + game + " without edges");
+      }
+      System.out.println("winNumber " + winNumber + ", board without edges: " + checks + " verdicts, "
+                         + (failures == before ? "ok" : (failures - before) + " failures"));
+    }
+    checkDeepThree();
+    System.out.println(failures == 0 ? "ok" : "FAIL: " + failures + " failures");
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
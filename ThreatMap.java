@@ -0,0 +1,336 @@
+import java.util.Arrays;
+
+/*
+ * class that works out, for every empty square of a board at once, what playing it would make for each color (a five, an open
+ * four, a four or an open three) and whether the rules forbid it, for hints on the board and for evaluation
+ * it does not look at the squares one at a time: the board is kept as bits, one per square in 64-square words like BoardModel, and
+ * for each of the eight directions the squares with a run of at least j pieces next to them are found for every j by shifting
+ * the whole board one step and and-ing (a square has a run of j if the square next to it has a run of j - 1), so the work is a few
+ * word operations per direction and run length instead of walking the lines from every square
+ * the lines are counted like GomokuRules counts them (pieces in a row with no gap, and an end is open if the square after it is on
+ * the board and empty), so a square is forbidden here exactly when GomokuRules.fourFourRuleFollowed or threeThreeRuleFollowed is
+ * false; with RenjuRules the forbidden squares are RenjuRules.forbiddenSquares, and white's five may be longer than winNumber
+ * @author Esther Shin
+ */
+
+public class ThreatMap{
+  /*
+   * constants for the threats, the same numbers as in PatternEvaluator: a line of exactly winNumber, a line of winNumber - 1 with
+   * both ends open, a line of winNumber - 1 with one end open, and a line of winNumber - 2 with both ends open
+   */
+  public static final int OPEN_THREE = PatternEvaluator.OPEN_THREE;
+  public static final int FOUR = PatternEvaluator.FOUR;
+  public static final int OPEN_FOUR = PatternEvaluator.OPEN_FOUR;
+  public static final int FIVE = PatternEvaluator.FIVE;
+
+  /*
+   * fields that store the size of the board
+   */
+  private final int rows;
+  private final int columns;
+
+  /*
+   * field words  stores how many 64-square words a bitboard of the board takes
+   */
+  private final int words;
+
+  /*
+   * field onBoard  stores, for each direction, the squares whose neighbor in that direction is on the board
+   */
+  private final long[][] onBoard = new long[8][];
+
+  /*
+   * fields for the board being looked at: the pieces of the color being worked on and the empty squares
+   */
+  private final long[] stones;
+  private final long[] empty;
+
+  /*
+   * field runs  stores runs[direction][j]: the squares with at least j pieces of the color in a row next to them in the direction
+   * (runs[direction][0] is every square)
+   */
+  private long[][][] runs;
+
+  /*
+   * field openAt  stores openAt[direction][j]: the squares where the square j steps away in the direction is on the board and empty
+   */
+  private long[][][] openAt;
+
+  /*
+   * field threats  stores threats[color][type]: the empty squares where the color would make that threat
+   */
+  private final long[][][] threats;
+
+  /*
+   * field forbidden  stores forbidden[color]: the empty squares the rules do not let the color play
+   */
+  private final long[][] forbidden;
+
+  /*
+   * field winNumber  stores the winNumber the run arrays were made for
+   */
+  private int winNumber = 0;
+
+  /*
+   * field squareBuffer  stores the squares RenjuRules.forbiddenSquares finds
+   */
+  private final int[] squareBuffer;
+
+  /*
+   * constructor for the ThreatMap class
+   * @param rows  the number of rows of the boards it will look at
+   * @param columns  the number of columns of the boards it will look at
+   */
+  public ThreatMap(int rows, int columns){
+    this.rows = rows;
+    this.columns = columns;
+    words = (rows * columns + 63) >>> 6;
+    stones = new long[words];
+    empty = new long[words];
+    threats = new long[3][FIVE + 1][words];
+    forbidden = new long[3][words];
+    squareBuffer = new int[rows * columns];
+    for(int direction = 0; direction < 8; direction = direction + 1){
+      onBoard[direction] = new long[words];
+      for(int row = 0; row < rows; row = row + 1){
+        for(int column = 0; column < columns; column = column + 1){
+          int nextRow = row + LineRuns.ROW_STEP[direction];
+          int nextColumn = column + LineRuns.COLUMN_STEP[direction];
+          if(nextRow > -1 && nextRow < rows && nextColumn > -1 && nextColumn < columns){
+            int square = row * columns + column;
+            onBoard[direction][square >>> 6] |= 1L << square;
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   * method that works out the threats and forbidden squares of a board
+   * @param model  the board (it must be the size given to the constructor)
+   * @param rules  the rules of the game
+   */
+  public void compute(BoardModel model, GomokuRules rules){
+    if(model.getRows() != rows || model.getColumns() != columns){
+      throw new IllegalArgumentException("the board must be " + rows + " x " + columns);
+    }
+    int w = rules.getWinNumber();
+    if(w != winNumber){
+      runs = new long[8][w + 1][words];
+      openAt = new long[8][w + 1][words];
+      winNumber = w;
+    }
+    boolean renju = rules instanceof RenjuRules;
+
+    /*
+     * the empty squares, and for each direction the squares with an empty square 1 to winNumber steps away
+     */
+    model.copyBits(BoardModel.BLACK, stones);
+    model.copyBits(BoardModel.WHITE, empty);
+    int lastBits = rows * columns - ((words - 1) << 6);
+    for(int i = 0; i < words; i = i + 1){
+      empty[i] = ~(stones[i] | empty[i]);
+    }
+    empty[words - 1] = empty[words - 1] & (lastBits == 64 ? -1L : (1L << lastBits) - 1);
+    for(int direction = 0; direction < 8; direction = direction + 1){
+      System.arraycopy(empty, 0, openAt[direction][0], 0, words);
+      for(int j = 1; j <= w; j = j + 1){
+        shift(openAt[direction][j - 1], direction, openAt[direction][j]);
+      }
+    }
+
+    for(int color = BoardModel.BLACK; color <= BoardModel.WHITE; color = color + 1){
+      model.copyBits(color, stones);
+      for(int direction = 0; direction < 8; direction = direction + 1){
+        long[][] directionRuns = runs[direction];
+        Arrays.fill(directionRuns[0], -1L);
+        shift(stones, direction, directionRuns[1]);
+        for(int j = 2; j <= w; j = j + 1){
+          shift(directionRuns[j - 1], direction, directionRuns[j]);
+          for(int i = 0; i < words; i = i + 1){
+            directionRuns[j][i] = directionRuns[j][i] & directionRuns[1][i];
+          }
+        }
+      }
+      findThreats(color, w, renju && color == BoardModel.WHITE);
+    }
+
+    if(renju){
+      Arrays.fill(forbidden[BoardModel.BLACK], 0L);
+      Arrays.fill(forbidden[BoardModel.WHITE], 0L);
+      int count = ((RenjuRules) rules).forbiddenSquares(model, squareBuffer);
+      for(int i = 0; i < count; i = i + 1){
+        forbidden[BoardModel.BLACK][squareBuffer[i] >>> 6] |= 1L << squareBuffer[i];
+      }
+    }
+  }
+
+  /*
+   * method that finds the threats of a color from the runs next to every square, one word of squares at a time, and (for
+   * GomokuRules) the squares that make fours or open threes on two axes or more
+   * @param color  the color
+   * @param w  the winNumber
+   * @param longFive  whether a line longer than w also wins
+   */
+  private void findThreats(int color, int w, boolean longFive){
+    long[][] found = threats[color];
+    for(int i = 0; i < words; i = i + 1){
+      long five = 0L;
+      long openFour = 0L;
+      long four = 0L;
+      long openThree = 0L;
+      long fourAxes = 0L;
+      long twoFourAxes = 0L;
+      long threeAxes = 0L;
+      long twoThreeAxes = 0L;
+      for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+        long[][] ahead = runs[axis];
+        long[][] behind = runs[axis + 4];
+        long axisFour = 0L;
+        long axisThree = 0L;
+        /*
+         * a line through the square is a pieces ahead of it and b behind it; exactly a means at least a and not at least a + 1
+         */
+        for(int a = 0; a < w; a = a + 1){
+          long exactlyAhead = ahead[a][i] & ~ahead[a + 1][i];
+          long openAhead = openAt[axis][a + 1][i];
+          int b = w - 1 - a;
+          if(longFive){
+            five = five | (ahead[a][i] & behind[b][i]);
+          }
+          else{
+            five = five | (exactlyAhead & behind[b][i] & ~behind[b + 1][i]);
+          }
+          b = w - 2 - a;
+          if(b >= 0){
+            long line = exactlyAhead & behind[b][i] & ~behind[b + 1][i];
+            long openBehind = openAt[axis + 4][b + 1][i];
+            axisFour = axisFour | line;
+            openFour = openFour | (line & openAhead & openBehind);
+            four = four | (line & (openAhead ^ openBehind));
+          }
+          b = w - 3 - a;
+          if(b >= 0){
+            long line = exactlyAhead & behind[b][i] & ~behind[b + 1][i];
+            axisThree = axisThree | (line & openAhead & openAt[axis + 4][b + 1][i]);
+          }
+        }
+        twoFourAxes = twoFourAxes | (fourAxes & axisFour);
+        fourAxes = fourAxes | axisFour;
+        twoThreeAxes = twoThreeAxes | (threeAxes & axisThree);
+        threeAxes = threeAxes | axisThree;
+        openThree = openThree | axisThree;
+      }
+      long open = empty[i];
+      found[FIVE][i] = five & open;
+      found[OPEN_FOUR][i] = openFour & open;
+      found[FOUR][i] = four & open;
+      found[OPEN_THREE][i] = openThree & open;
+      forbidden[color][i] = (twoFourAxes | twoThreeAxes) & open;
+    }
+  }
+
+  /*
+   * method that moves every bit of a bitboard one step against a direction: a square gets the bit of its neighbor in the direction,
+   * or 0 if that neighbor is off the board
+   * @param from  the bitboard to shift
+   * @param direction  the direction (NORTH to NORTHWEST)
+   * @param to  the bitboard to put the result in
+   */
+  private void shift(long[] from, int direction, long[] to){
+    int offset = LineRuns.ROW_STEP[direction] * columns + LineRuns.COLUMN_STEP[direction];
+    long[] mask = onBoard[direction];
+    if(offset > 0){
+      int wordShift = offset >>> 6;
+      int bitShift = offset & 63;
+      for(int i = 0; i < words; i = i + 1){
+        int j = i + wordShift;
+        long low = j < words ? from[j] : 0L;
+        long high = j + 1 < words ? from[j + 1] : 0L;
+        to[i] = (bitShift == 0 ? low : (low >>> bitShift) | (high << (64 - bitShift))) & mask[i];
+      }
+    }
+    else{
+      int wordShift = (-offset) >>> 6;
+      int bitShift = (-offset) & 63;
+      for(int i = words - 1; i >= 0; i = i - 1){
+        int j = i - wordShift;
+        long high = j >= 0 ? from[j] : 0L;
+        long low = j - 1 >= 0 ? from[j - 1] : 0L;
+        to[i] = (bitShift == 0 ? high : (high << bitShift) | (low >>> (64 - bitShift))) & mask[i];
+      }
+    }
+  }
+
+  /*
+   * method that determines whether playing a square would make a threat for a color
+   * @param type  FIVE, OPEN_FOUR, FOUR or OPEN_THREE
+   * @param color  BoardModel.BLACK or BoardModel.WHITE
+   * @param square  the square, as row * columns + column
+   */
+  public boolean has(int type, int color, int square){
+    return (threats[color][type][square >>> 6] & (1L << square)) != 0;
+  }
+
+  /*
+   * method that gets the biggest threat playing a square would make for a color
+   * @return FIVE, OPEN_FOUR, FOUR, OPEN_THREE or PatternEvaluator.NONE
+   */
+  public int threatAt(int square, int color){
+    for(int type = FIVE; type >= OPEN_THREE; type = type - 1){
+      if(has(type, color, square)){
+        return type;
+      }
+    }
+    return PatternEvaluator.NONE;
+  }
+
+  /*
+   * method that determines whether the rules forbid a color to play a square
+   */
+  public boolean isForbidden(int color, int square){
+    return (forbidden[color][square >>> 6] & (1L << square)) != 0;
+  }
+
+  /*
+   * method that puts every square where a color would make a threat in an array, in order of their squares
+   * @param out  the array to put them in (it must have room for every square of the board)
+   * @return the number of squares
+   */
+  public int squares(int type, int color, int[] out){
+    return listBits(threats[color][type], out);
+  }
+
+  /*
+   * method that puts every square the rules forbid a color to play in an array, in order of their squares
+   * @param out  the array to put them in (it must have room for every square of the board)
+   * @return the number of squares
+   */
+  public int forbiddenSquares(int color, int[] out){
+    return listBits(forbidden[color], out);
+  }
+
+  /*
+   * method that counts the squares where a color would make a threat
+   */
+  public int count(int type, int color){
+    int count = 0;
+    for(long word : threats[color][type]){
+      count = count + Long.bitCount(word);
+    }
+    return count;
+  }
+
+  private int listBits(long[] bits, int[] out){
+    int count = 0;
+    for(int word = 0; word < words; word = word + 1){
+      long rest = bits[word];
+      while(rest != 0){
+        out[count] = (word << 6) + Long.numberOfTrailingZeros(rest);
+        count = count + 1;
+        rest = rest & (rest - 1);
+      }
+    }
+    return count;
+  }
+}
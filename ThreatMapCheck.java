@@ -0,0 +1,170 @@
+import java.util.SplittableRandom;
+
+/*
+ * class that checks ThreatMap without a window: on random boards of many sizes and winNumbers, with GomokuRules and RenjuRules,
+ * every empty square's threats must be what GomokuRules and LineRuns say about it one square at a time (a win, a line of
+ * winNumber - 1 with both ends or one end open, a line of winNumber - 2 with both ends open) and it must be forbidden exactly when
+ * the rules say so; one ThreatMap of each size is used again for every board and winNumber, as a player would
+ * run it with key=value arguments, for example:
+ *   java ThreatMapCheck boards=30 seed=7
+ * it prints a line for each board size and exits with status 1 if anything disagrees
+ * @author Esther Shin
+ */
+
+public class ThreatMapCheck{
+  /*
+   * field failures  stores how many checks have failed
+   */
+  private static int failures = 0;
+
+  /*
+   * method that reports a failed check
+   */
+  private static void fail(String message){
+    failures = failures + 1;
+    if(failures <= 20){
+      System.out.println("FAIL: " + message);
+    }
+  }
+
+  /*
+   * method that determines, one square at a time, whether the rules forbid a color to play an empty square
+   */
+  private static boolean forbidden(BoardModel model, GomokuRules rules, int row, int column, int color){
+    if(rules instanceof RenjuRules){
+      return color == BoardModel.BLACK && ((RenjuRules) rules).isForbidden(model, row, column);
+    }
+    return !rules.fourFourRuleFollowed(model, row, column, color) || !rules.threeThreeRuleFollowed(model, row, column, color);
+  }
+
+  /*
+   * method that compares a computed ThreatMap with the rules and LineRuns on every empty square of a board
+   * @return how many squares were compared
+   */
+  private static long compare(BoardModel model, GomokuRules rules, ThreatMap map, String where){
+    int rows = model.getRows();
+    int columns = model.getColumns();
+    int w = rules.getWinNumber();
+    LineRuns lineRuns = model.getLineRuns();
+    int[] counts = new int[3 * (ThreatMap.FIVE + 1)];
+    int[] forbiddenCounts = new int[3];
+    long compared = 0;
+    for(int row = 0; row < rows; row = row + 1){
+      for(int column = 0; column < columns; column = column + 1){
+        int square = row * columns + column;
+        for(int color = BoardModel.BLACK; color <= BoardModel.WHITE; color = color + 1){
+          if(!model.isEmpty(row, column)){
+            if(map.threatAt(square, color) != PatternEvaluator.NONE || map.isForbidden(color, square)){
+              fail(where + ": (" + row + ", " + column + ") has a piece on it but has a threat or is forbidden");
+            }
+            continue;
+          }
+          compared = compared + 1;
+          boolean[] expected = new boolean[ThreatMap.FIVE + 1];
+          expected[ThreatMap.FIVE] = rules.isWin(model, row, column, color);
+          for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+            int length = lineRuns.lineLength(row, column, axis, color);
+            boolean open = lineRuns.isOpen(row, column, axis, color);
+            boolean otherOpen = lineRuns.isOpen(row, column, axis + 4, color);
+            expected[ThreatMap.OPEN_FOUR] = expected[ThreatMap.OPEN_FOUR] || (length == w - 1 && open && otherOpen);
+            expected[ThreatMap.FOUR] = expected[ThreatMap.FOUR] || (length == w - 1 && open != otherOpen);
+            expected[ThreatMap.OPEN_THREE] = expected[ThreatMap.OPEN_THREE] || (length == w - 2 && open && otherOpen);
+          }
+          for(int type = ThreatMap.OPEN_THREE; type <= ThreatMap.FIVE; type = type + 1){
+            if(map.has(type, color, square) != expected[type]){
+              fail(where + ": (" + row + ", " + column + ") for color " + color + " threat " + type + " is " + map.has(type, color, square)
+                   + ", not " + expected[type]);
+            }
+            counts[color * (ThreatMap.FIVE + 1) + type] = counts[color * (ThreatMap.FIVE + 1) + type] + (expected[type] ? 1 : 0);
+          }
+          boolean expectedForbidden = forbidden(model, rules, row, column, color);
+          if(map.isForbidden(color, square) != expectedForbidden){
+            fail(where + ": (" + row + ", " + column + ") for color " + color + " is " + (expectedForbidden ? "not " : "") + "forbidden");
+          }
+          forbiddenCounts[color] = forbiddenCounts[color] + (expectedForbidden ? 1 : 0);
+        }
+      }
+    }
+    /*
+     * the lists and counts must agree with the squares one at a time
+     */
+    int[] out = new int[rows * columns];
+    for(int color = BoardModel.BLACK; color <= BoardModel.WHITE; color = color + 1){
+      for(int type = ThreatMap.OPEN_THREE; type <= ThreatMap.FIVE; type = type + 1){
+        int count = map.squares(type, color, out);
+        if(count != counts[color * (ThreatMap.FIVE + 1) + type] || map.count(type, color) != count){
+          fail(where + ": squares or count of threat " + type + " for color " + color + " do not match the squares");
+        }
+        for(int i = 0; i < count; i = i + 1){
+          if(!map.has(type, color, out[i]) || (i > 0 && out[i] <= out[i - 1])){
+            fail(where + ": squares of threat " + type + " for color " + color + " are wrong or out of order");
+          }
+        }
+      }
+      if(map.forbiddenSquares(color, out) != forbiddenCounts[color]){
+        fail(where + ": forbiddenSquares for color " + color + " does not match the squares");
+      }
+    }
+    return compared;
+  }
+
+  public static void main(String[] args){
+    int boards = 30;
+    long seed = 7;
+    for(String arg : args){
+      String[] parts = arg.split("=", 2);
+      try{
+        if(parts[0].equals("boards")){
+          boards = Integer.parseInt(parts[1]);
+        }
+        else if(parts[0].equals("seed")){
+          seed = Long.parseLong(parts[1]);
+        }
+        else{
+          System.out.println("Error: unknown argument " + arg);
+        }
+      }
+      catch(RuntimeException e){
+        System.out.println("Error: " + arg + " is not a key=number argument");
+      }
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    /*
+     * the sizes include boards whose rows do not line up with the 64-square words and boards narrower than winNumber
+     */
+    int[][] sizes = {{15, 15}, {19, 19}, {7, 11}, {13, 5}, {20, 40}, {9, 64}, {3, 70}};
+    for(int[] size : sizes){
+      int before = failures;
+      long compared = 0;
+      ThreatMap map = new ThreatMap(size[0], size[1]);
+      for(int w = 3; w <= 7; w = w + 1){
+        for(int renju = 0; renju < 2; renju = renju + 1){
+          if(renju == 1 && !RenjuRules.supports(w)){
+            continue;
+          }
+          GomokuRules rules = renju == 1 ? new RenjuRules(w) : new GomokuRules(w);
+          for(int board = 0; board < boards; board = board + 1){
+            BoardModel model = new BoardModel(size[0], size[1]);
+            int pieces = random.nextInt(size[0] * size[1] * 2 / 3 + 1);
+            for(int i = 0; i < pieces; i = i + 1){
+              int row = random.nextInt(size[0]);
+              int column = random.nextInt(size[1]);
+              if(model.isEmpty(row, column)){
+                model.place(row, column, 1 + random.nextInt(2));
+              }
+            }
+            map.compute(model, rules);
+            compared = compared + compare(model, rules, map, size[0] + "x" + size[1] + " " + rules.getClass().getName() + " winNumber " + w
+                                                                 + " board " + board);
+          }
+        }
+      }
+      System.out.println(size[0] + "x" + size[1] + ": " + compared + " squares and colors, " + (failures == before ? "ok" : (failures - before)
+                         + " failures"));
+    }
+    System.out.println(failures == 0 ? "ok" : "FAIL: " + failures + " failures");
+    if(failures > 0){
+      System.exit(1);
+    }
+  }
+}
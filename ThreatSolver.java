@@ -0,0 +1,665 @@
+/*
+ * class that finds forced wins by threat-space search: victory by continuous fours (VCF), where every attacking move makes a four,
+ * and victory by continuous threats (VCT), where attacking moves may also make open threes
+ * only threat moves are searched for the attacker and only the moves that answer the threat for the defender, so positions from the
+ * middle of a game resolve quickly; lines are counted with the same rules as the game (exactly winNumber in a row wins, and a three
+ * is only a threat if it can still become a four with both ends open)
+ * @author Esther Shin
+ */
+
+public class ThreatSolver{
+  /*
+   * constants for the outcome of a search
+   */
+  public static final int WIN = 1;
+  public static final int NO_WIN = 0;
+  public static final int UNKNOWN = -1;
+
+  /*
+   * class that holds what a search found
+   */
+  public static class Result{
+    /*
+     * field status  stores WIN if the attacker has a forced win, NO_WIN if it does not within the depth limit,
+     * or UNKNOWN if the node limit ran out first
+     */
+    private final int status;
+
+    /*
+     * field sequence  stores the moves of the win (attacker, defender, attacker, ..., the winning move), as row * columns + column
+     */
+    private final int[] sequence;
+
+    /*
+     * field nodes  stores how many positions were searched
+     */
+    private final long nodes;
+
+    /*
+     * constructor for the Result class
+     */
+    Result(int status, int[] sequence, long nodes){
+      this.status = status;
+      this.sequence = sequence;
+      this.nodes = nodes;
+    }
+
+    public int getStatus(){
+      return status;
+    }
+
+    public boolean isWin(){
+      return status == WIN;
+    }
+
+    /*
+     * method that gets the moves of the win, or an empty array if there is none
+     */
+    public int[] getSequence(){
+      return sequence.clone();
+    }
+
+    public long getNodes(){
+      return nodes;
+    }
+  }
+
+  /*
+   * field rules  stores the rules both players must follow
+   */
+  private final GomokuRules rules;
+
+  /*
+   * fields for the search that is running
+   */
+  private BoardModel model;
+  private int attacker;
+  private boolean threesAllowed;
+  private long nodes;
+  private long maxNodes;
+  private boolean outOfNodes;
+  private int[] path;
+  private int pathLength;
+  private int[] rootWins;
+  private int rootWinCount;
+  private int[][] buffers;
+  private int[] stamps;
+  private int[] lineBuffer;
+  private int stamp;
+  private int[] bestLine;
+  private int bestLength;
+
+  /*
+   * constructor for the ThreatSolver class
+   * @param rules  the rules both players must follow
+   */
+  public ThreatSolver(GomokuRules rules){
+    this.rules = rules;
+  }
+
+  /*
+   * method that searches for a victory by continuous fours
+   * @param model  the board; it is changed while searching but is the same as before when this returns
+   * @param color  the color of the attacker, who is to move
+   * @param maxDepth  the most attacking moves the win may take
+   * @param maxNodes  the most positions to search before giving up with UNKNOWN
+   * @return what the search found
+   */
+  public Result solveVCF(BoardModel model, int color, int maxDepth, long maxNodes){
+    return solve(model, color, maxDepth, maxNodes, false);
+  }
+
+  /*
+   * method that searches for a victory by continuous threats (fours and open threes)
+   * @param model  the board; it is changed while searching but is the same as before when this returns
+   * @param color  the color of the attacker, who is to move
+   * @param maxDepth  the most attacking moves the win may take
+   * @param maxNodes  the most positions to search before giving up with UNKNOWN
+   * @return what the search found
+   */
+  public Result solveVCT(BoardModel model, int color, int maxDepth, long maxNodes){
+    return solve(model, color, maxDepth, maxNodes, true);
+  }
+
+  /*
+   * method that sets up and runs a search
+   */
+  private Result solve(BoardModel model, int color, int maxDepth, long maxNodes, boolean threesAllowed){
+    this.model = model;
+    this.attacker = color;
+    this.threesAllowed = threesAllowed;
+    this.maxNodes = maxNodes;
+    nodes = 0;
+    outOfNodes = false;
+    int cells = model.getRows() * model.getColumns();
+    int plies = maxDepth * 2 + 2;
+    path = new int[plies];
+    pathLength = 0;
+    bestLine = new int[plies];
+    bestLength = 0;
+    buffers = new int[plies * 2][cells];
+    stamps = new int[cells];
+    stamp = 0;
+    lineBuffer = new int[rules.getWinNumber() * 2];
+    /*
+     * the fours already on the board when the search starts, for both colors
+     */
+    rootWins = new int[cells];
+    rootWinCount = 0;
+    for(int index = 0; index < cells; index = index + 1){
+      int row = index / model.getColumns();
+      int column = index % model.getColumns();
+      if(model.isEmpty(row, column) && (rules.isWin(model, row, column, BoardModel.BLACK) || rules.isWin(model, row, column, BoardModel.WHITE))){
+        rootWins[rootWinCount] = index;
+        rootWinCount = rootWinCount + 1;
+      }
+    }
+    /*
+     * searches one attacking move deeper each time, so the shortest win is found first
+     */
+    boolean won = false;
+    for(int depth = 1; depth <= maxDepth && !won && !outOfNodes; depth = depth + 1){
+      won = attack(depth);
+    }
+    if(won){
+      int[] sequence = new int[bestLength];
+      System.arraycopy(bestLine, 0, sequence, 0, bestLength);
+      return new Result(WIN, sequence, nodes);
+    }
+    return new Result(outOfNodes ? UNKNOWN : NO_WIN, new int[0], nodes);
+  }
+
+  /*
+   * method that searches a position where the attacker is to move
+   * @param depth  how many more attacking moves may be made
+   * @return true if the attacker can force a win
+   */
+  private boolean attack(int depth){
+    nodes = nodes + 1;
+    if(nodes > maxNodes){
+      outOfNodes = true;
+      return false;
+    }
+    int defender = 3 - attacker;
+    int[] wins = buffers[pathLength * 2];
+    if(collectWins(attacker, wins) > 0){
+      recordLine(wins[0]);
+      return true;
+    }
+    if(depth == 0){
+      return false;
+    }
+    /*
+     * if the defender already has a four, the attacker has to block it, and may only keep attacking if the block is itself a threat
+     */
+    int[] moves = buffers[pathLength * 2 + 1];
+    int moveCount;
+    int defenderWins = collectWins(defender, wins);
+    if(defenderWins > 1){
+      return false;
+    }
+    else if(defenderWins == 1){
+      moves[0] = wins[0];
+      moveCount = 1;
+    }
+    else{
+      moveCount = threatCandidates(moves);
+    }
+    int columns = model.getColumns();
+    for(int i = 0; i < moveCount && !outOfNodes; i = i + 1){
+      int move = moves[i];
+      int row = move / columns;
+      int column = move % columns;
+      if(!rules.isLegal(model, row, column, attacker)){
+        continue;
+      }
+      model.place(row, column, attacker);
+      path[pathLength] = move;
+      pathLength = pathLength + 1;
+      boolean won = isThreat(move) && defend(depth);
+      pathLength = pathLength - 1;
+      model.undo();
+      if(won){
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+   * method that searches a position where the defender is to move, just after the attacker made a threat
+   * @param depth  how many more attacking moves may be made
+   * @return true if the attacker wins against every defense
+   */
+  private boolean defend(int depth){
+    nodes = nodes + 1;
+    if(nodes > maxNodes){
+      outOfNodes = true;
+      return false;
+    }
+    int defender = 3 - attacker;
+    int[] wins = buffers[pathLength * 2];
+    int[] replies = buffers[pathLength * 2 + 1];
+    if(collectWins(defender, wins) > 0){
+      return false;
+    }
+    int attackerWins = collectWins(attacker, wins);
+    int replyCount;
+    if(attackerWins > 1){
+      /*
+       * an open four or a double four cannot be blocked
+       */
+      recordLine(wins[0]);
+      return true;
+    }
+    else if(attackerWins == 1){
+      replies[0] = wins[0];
+      replyCount = 1;
+    }
+    else{
+      replyCount = threeDefenses(path[pathLength - 1], replies);
+      replyCount = addDefenderFours(replies, replyCount);
+    }
+    int columns = model.getColumns();
+    boolean anyReply = false;
+    for(int i = 0; i < replyCount && !outOfNodes; i = i + 1){
+      int reply = replies[i];
+      int row = reply / columns;
+      int column = reply % columns;
+      if(!rules.isLegal(model, row, column, defender)){
+        continue;
+      }
+      anyReply = true;
+      model.place(row, column, defender);
+      path[pathLength] = reply;
+      pathLength = pathLength + 1;
+      boolean won = attack(depth - 1);
+      pathLength = pathLength - 1;
+      model.undo();
+      if(!won){
+        return false;
+      }
+    }
+    if(!anyReply){
+      /*
+       * if the only block of a four is a move the defender is not allowed to make, the attacker wins; a three with no allowed
+       * defense is not counted, to keep the search on the safe side
+       */
+      if(attackerWins == 1){
+        recordLine(wins[0]);
+        return true;
+      }
+      return false;
+    }
+    /*
+     * every defense lost; the best line now holds the line of the last defense searched
+     */
+    return true;
+  }
+
+  /*
+   * method that determines whether the attacker's last move is a threat: a four, or (when threes are allowed) an open three
+   * @param move  the attacker's last move
+   * @return true if the move is a threat the defender must answer
+   */
+  private boolean isThreat(int move){
+    stamp = stamp + 1;
+    if(winsThrough(move, attacker, buffers[pathLength * 2], 0) > 0){
+      return true;
+    }
+    return threesAllowed && threeDefenses(move, buffers[pathLength * 2 + 1]) > 0;
+  }
+
+  /*
+   * method that finds the empty squares where a color would win right now: the ones already there when the search started,
+   * and the ones on lines through the moves made since
+   * @param color  the color to find wins for
+   * @param out  where to put the squares
+   * @return the number of squares found
+   */
+  private int collectWins(int color, int[] out){
+    stamp = stamp + 1;
+    int count = 0;
+    int columns = model.getColumns();
+    for(int i = 0; i < rootWinCount; i = i + 1){
+      int index = rootWins[i];
+      if(stamps[index] != stamp && model.isEmpty(index / columns, index % columns)
+           && rules.isWin(model, index / columns, index % columns, color)){
+        stamps[index] = stamp;
+        out[count] = index;
+        count = count + 1;
+      }
+    }
+    for(int i = 0; i < pathLength; i = i + 1){
+      count = winsThrough(path[i], color, out, count);
+    }
+    return count;
+  }
+
+  /*
+   * method that finds the empty squares on the four lines through a square where a color would win right now
+   * (squares already marked with the current stamp are skipped, so the same square is not added twice)
+   * @param index  the square the lines go through
+   * @param color  the color to find wins for
+   * @param out  where to put the squares
+   * @param count  how many squares are in out already
+   * @return the new number of squares in out
+   */
+  private int winsThrough(int index, int color, int[] out, int count){
+    int columns = model.getColumns();
+    int row = index / columns;
+    int column = index % columns;
+    int reach = rules.getWinNumber();
+    for(int direction = 0; direction < 8; direction = direction + 1){
+      int r = row;
+      int c = column;
+      for(int step = 1; step <= reach; step = step + 1){
+        r = r + LineRuns.ROW_STEP[direction];
+        c = c + LineRuns.COLUMN_STEP[direction];
+        if(!model.isOnBoard(r, c)){
+          break;
+        }
+        int cell = r * columns + c;
+        if(stamps[cell] != stamp && model.isEmpty(r, c) && rules.isWin(model, r, c, color)){
+          stamps[cell] = stamp;
+          out[count] = cell;
+          count = count + 1;
+        }
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that collects the empty squares the attacker might threaten from: squares within winNumber - 1 of an attacker's
+   * piece along one of the eight directions
+   * @param out  where to put the squares
+   * @return the number of squares found
+   */
+  private int threatCandidates(int[] out){
+    stamp = stamp + 1;
+    int count = 0;
+    int columns = model.getColumns();
+    int reach = rules.getWinNumber() - 1;
+    int needed = threesAllowed ? rules.getWinNumber() - 3 : rules.getWinNumber() - 2;
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int stone = model.getMove(i);
+      int row = stone / columns;
+      int column = stone % columns;
+      if(model.colorAt(row, column) != attacker){
+        continue;
+      }
+      for(int direction = 0; direction < 8; direction = direction + 1){
+        int r = row;
+        int c = column;
+        for(int step = 1; step <= reach; step = step + 1){
+          r = r + LineRuns.ROW_STEP[direction];
+          c = c + LineRuns.COLUMN_STEP[direction];
+          if(!model.isOnBoard(r, c) || model.colorAt(r, c) == 3 - attacker){
+            break;
+          }
+          int cell = r * columns + c;
+          if(stamps[cell] != stamp && model.isEmpty(r, c)){
+            stamps[cell] = stamp;
+            if(bestWindow(r, c, attacker) >= needed){
+              out[count] = cell;
+              count = count + 1;
+            }
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that finds the defenses to an open three made by the attacker's last move: every square that would turn it into an open four,
+   * and every square those fours would win on; none are found if the move did not make an open three
+   * @param move  the attacker's last move
+   * @param out  where to put the squares
+   * @return the number of squares found
+   */
+  private int threeDefenses(int move, int[] out){
+    int columns = model.getColumns();
+    int row = move / columns;
+    int column = move % columns;
+    int reach = rules.getWinNumber() - 1;
+    int count = 0;
+    int[] wins = lineBuffer;
+    for(int direction = 0; direction < 8; direction = direction + 1){
+      /*
+       * only an axis with winNumber - 2 of the attacker's pieces in one open stretch can hold a three
+       */
+      if(windowOnAxis(row, column, direction & 3, attacker) < rules.getWinNumber() - 2){
+        continue;
+      }
+      int r = row;
+      int c = column;
+      for(int step = 1; step <= reach; step = step + 1){
+        r = r + LineRuns.ROW_STEP[direction];
+        c = c + LineRuns.COLUMN_STEP[direction];
+        if(!model.isOnBoard(r, c) || model.colorAt(r, c) == 3 - attacker){
+          break;
+        }
+        if(!model.isEmpty(r, c) || !rules.isLegal(model, r, c, attacker)){
+          continue;
+        }
+        /*
+         * tries the square: if it gives two winning squares on this line, it and both winning squares are defenses
+         */
+        model.place(r, c, attacker);
+        int winCount = lineWins(r, c, direction & 3, wins);
+        model.undo();
+        if(winCount > 1){
+          count = addOnce(out, count, r * columns + c);
+          for(int i = 0; i < winCount; i = i + 1){
+            count = addOnce(out, count, wins[i]);
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that finds the empty squares on one axis through a square where the attacker would win right now
+   * @param row  the row of the square
+   * @param column  the column of the square
+   * @param axis  the axis (NORTH, NORTHEAST, EAST or SOUTHEAST)
+   * @param out  where to put the squares
+   * @return the number of squares found
+   */
+  private int lineWins(int row, int column, int axis, int[] out){
+    int count = 0;
+    int reach = rules.getWinNumber();
+    for(int direction = axis; direction < 8 && count < out.length; direction = direction + 4){
+      int r = row;
+      int c = column;
+      for(int step = 1; step <= reach && count < out.length; step = step + 1){
+        r = r + LineRuns.ROW_STEP[direction];
+        c = c + LineRuns.COLUMN_STEP[direction];
+        if(!model.isOnBoard(r, c)){
+          break;
+        }
+        if(model.isEmpty(r, c) && rules.isWin(model, r, c, attacker)){
+          out[count] = r * model.getColumns() + c;
+          count = count + 1;
+        }
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that adds the defender's own four-making moves to its replies, since a four has to be answered before the attack goes on
+   * @param replies  the replies found so far
+   * @param count  how many replies there are
+   * @return the new number of replies
+   */
+  private int addDefenderFours(int[] replies, int count){
+    int defender = 3 - attacker;
+    int columns = model.getColumns();
+    int reach = rules.getWinNumber() - 1;
+    for(int i = 0; i < model.getMoveCount(); i = i + 1){
+      int stone = model.getMove(i);
+      int row = stone / columns;
+      int column = stone % columns;
+      if(model.colorAt(row, column) != defender){
+        continue;
+      }
+      for(int direction = 0; direction < 8; direction = direction + 1){
+        int r = row;
+        int c = column;
+        for(int step = 1; step <= reach; step = step + 1){
+          r = r + LineRuns.ROW_STEP[direction];
+          c = c + LineRuns.COLUMN_STEP[direction];
+          if(!model.isOnBoard(r, c) || model.colorAt(r, c) == attacker){
+            break;
+          }
+          if(!model.isEmpty(r, c) || bestWindow(r, c, defender) < rules.getWinNumber() - 2
+               || !rules.isLegal(model, r, c, defender)){
+            continue;
+          }
+          int cell = r * columns + c;
+          boolean known = false;
+          for(int j = 0; j < count && !known; j = j + 1){
+            known = replies[j] == cell;
+          }
+          if(known){
+            continue;
+          }
+          model.place(r, c, defender);
+          boolean four = false;
+          for(int axis = 0; axis < 4 && !four; axis = axis + 1){
+            four = defenderLineWin(r, c, axis);
+          }
+          model.undo();
+          if(four){
+            replies[count] = cell;
+            count = count + 1;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  /*
+   * method that determines whether the defender would have a winning square on one axis through a square
+   */
+  private boolean defenderLineWin(int row, int column, int axis){
+    int reach = rules.getWinNumber();
+    for(int direction = axis; direction < 8; direction = direction + 4){
+      int r = row;
+      int c = column;
+      for(int step = 1; step <= reach; step = step + 1){
+        r = r + LineRuns.ROW_STEP[direction];
+        c = c + LineRuns.COLUMN_STEP[direction];
+        if(!model.isOnBoard(r, c)){
+          break;
+        }
+        if(model.isEmpty(r, c) && rules.isWin(model, r, c, 3 - attacker)){
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /*
+   * method that counts the most pieces of a color in any stretch of winNumber squares through an empty square that has none of the
+   * other color in it; a move can only make a four if this is at least winNumber - 2, or a three if it is at least winNumber - 3
+   * @param row  the row of the empty square
+   * @param column  the column of the empty square
+   * @param color  the color to count
+   * @return the largest count found on any of the four axes
+   */
+  private int bestWindow(int row, int column, int color){
+    int best = 0;
+    for(int axis = LineRuns.NORTH; axis <= LineRuns.SOUTHEAST; axis = axis + 1){
+      best = Math.max(best, windowOnAxis(row, column, axis, color));
+    }
+    return best;
+  }
+
+  /*
+   * method that counts the most pieces of a color in any stretch of winNumber squares through a square along one axis that has none of
+   * the other color in it (the square itself is counted if it has that color)
+   * @param row  the row of the square
+   * @param column  the column of the square
+   * @param axis  the axis (NORTH, NORTHEAST, EAST or SOUTHEAST)
+   * @param color  the color to count
+   * @return the largest count found
+   */
+  private int windowOnAxis(int row, int column, int axis, int color){
+    int winNumber = rules.getWinNumber();
+    int rowStep = LineRuns.ROW_STEP[axis];
+    int columnStep = LineRuns.COLUMN_STEP[axis];
+    int best = 0;
+    int count = 0;
+    int blocked = 0;
+    /*
+     * slides a stretch of winNumber squares along the line, from ending at the square to starting at it, keeping count of the
+     * pieces of the color and the blocked squares (off the board or the other color) inside it
+     */
+    for(int step = 1 - winNumber; step < winNumber; step = step + 1){
+      int value = lineValue(row + rowStep * step, column + columnStep * step, color);
+      if(value == 1){
+        count = count + 1;
+      }
+      else if(value == -1){
+        blocked = blocked + 1;
+      }
+      if(step >= 1){
+        int leaving = lineValue(row + rowStep * (step - winNumber), column + columnStep * (step - winNumber), color);
+        if(leaving == 1){
+          count = count - 1;
+        }
+        else if(leaving == -1){
+          blocked = blocked - 1;
+        }
+      }
+      if(step >= 0 && blocked == 0 && count > best){
+        best = count;
+      }
+    }
+    return best;
+  }
+
+  /*
+   * method that classifies a square for windowOnAxis
+   * @return 1 if it has a piece of the color, -1 if it is off the board or has the other color, 0 if it is empty
+   */
+  private int lineValue(int row, int column, int color){
+    if(!model.isOnBoard(row, column)){
+      return -1;
+    }
+    int cellColor = model.colorAt(row, column);
+    if(cellColor == BoardModel.EMPTY){
+      return 0;
+    }
+    return cellColor == color ? 1 : -1;
+  }
+
+  /*
+   * method that adds a square to a list if it is not in it yet
+   */
+  private static int addOnce(int[] out, int count, int cell){
+    for(int i = 0; i < count; i = i + 1){
+      if(out[i] == cell){
+        return count;
+      }
+    }
+    out[count] = cell;
+    return count + 1;
+  }
+
+  /*
+   * method that saves the moves that led to a win (the path so far and the winning move) as the best line
+   */
+  private void recordLine(int winningMove){
+    System.arraycopy(path, 0, bestLine, 0, pathLength);
+    bestLine[pathLength] = winningMove;
+    bestLength = pathLength + 1;
+  }
+}
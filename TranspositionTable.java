@@ -0,0 +1,160 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * class that remembers the results of searching positions, keyed by their Zobrist hash, so a position that is reached again
+ * through a different order of moves does not have to be searched again
+ * the table has a fixed size and never locks: each entry is two longs, the hash xor-ed with the data and the data itself, so an entry
+ * that was half written by another thread simply does not match when it is read
+ * @author Esther Shin
+ */
+
+public class TranspositionTable{
+  /*
+   * constants for what a stored score means: the exact score, a lower bound (the search failed high) or an upper bound (it failed low)
+   */
+  public static final int EXACT = 1;
+  public static final int LOWER_BOUND = 2;
+  public static final int UPPER_BOUND = 3;
+
+  /*
+   * constant BUCKET_SIZE  how many neighboring slots are looked at for each hash before one is replaced
+   */
+  static final int BUCKET_SIZE = 4;
+
+  /*
+   * constant MAX_MOVE  the biggest square a stored best move can be (move + 1 has 22 bits); on a bigger board the best move of a
+   * square past it is stored as no move, so the score is still kept but the move is not mixed up with another square
+   */
+  static final int MAX_MOVE = 0x3FFFFF - 1;
+
+  /*
+   * field entries  stores two longs per slot: hash ^ data, then data
+   */
+  private final AtomicLongArray entries;
+
+  /*
+   * field mask  stores (number of slots - 1), used to turn a hash into a slot number
+   */
+  private final int mask;
+
+  /*
+   * constructor for the TranspositionTable class
+   * @param sizeBits  the table has 2 to the power of sizeBits slots (each slot takes 16 bytes)
+   */
+  public TranspositionTable(int sizeBits){
+    if(sizeBits < 2 || sizeBits > 28){
+      throw new IllegalArgumentException("sizeBits must be between 2 and 28");
+    }
+    entries = new AtomicLongArray(2 << sizeBits);
+    mask = (1 << sizeBits) - 1;
+  }
+
+  /*
+   * method that gets the number of slots in the table
+   */
+  public int capacity(){
+    return mask + 1;
+  }
+
+  /*
+   * method that looks up a position
+   * @param hash  the hash of the position
+   * @return the stored data for the position (read it with scoreOf, depthOf, flagOf and moveOf), or 0 if the position is not in the table
+   */
+  public long probe(long hash){
+    int slot = (int) (hash ^ (hash >>> 32)) & mask;
+    for(int i = 0; i < BUCKET_SIZE; i = i + 1){
+      int at = ((slot + i) & mask) * 2;
+      long data = entries.get(at + 1);
+      if(data != 0 && (entries.get(at) ^ data) == hash){
+        return data;
+      }
+    }
+    return 0;
+  }
+
+  /*
+   * method that stores the result of searching a position; within the bucket, the same position is overwritten unless the old result
+   * came from a deeper search, otherwise the slot with the shallowest search is replaced
+   * @param hash  the hash of the position
+   * @param depth  how many moves ahead the position was searched (0 to 255)
+   * @param flag  EXACT, LOWER_BOUND or UPPER_BOUND
+   * @param score  the score of the position
+   * @param move  the best move found, or -1 if there is none (a move bigger than MAX_MOVE is stored as none)
+   */
+  public void store(long hash, int depth, int flag, int score, int move){
+    long data = pack(depth, flag, score, move);
+    int slot = (int) (hash ^ (hash >>> 32)) & mask;
+    int replace = -1;
+    int shallowest = Integer.MAX_VALUE;
+    /*
+     * loops through the slots of the bucket looking for the same position, otherwise for an empty slot or the slot searched least deeply
+     */
+    for(int i = 0; i < BUCKET_SIZE; i = i + 1){
+      int at = ((slot + i) & mask) * 2;
+      long oldData = entries.get(at + 1);
+      if(oldData != 0 && (entries.get(at) ^ oldData) == hash){
+        if(depthOf(oldData) > depth){
+          return;
+        }
+        replace = at;
+        break;
+      }
+      int oldDepth = oldData == 0 ? -1 : depthOf(oldData);
+      if(oldDepth < shallowest){
+        shallowest = oldDepth;
+        replace = at;
+      }
+    }
+    entries.lazySet(replace, hash ^ data);
+    entries.lazySet(replace + 1, data);
+  }
+
+  /*
+   * method that removes every entry from the table
+   */
+  public void clear(){
+    for(int i = 0; i < entries.length(); i = i + 1){
+      entries.lazySet(i, 0L);
+    }
+  }
+
+  /*
+   * method that packs a result into one long: 32 bits of score, 8 of depth, 2 of flag and 22 of move + 1 (0, for no move, if the
+   * move is bigger than MAX_MOVE)
+   */
+  static long pack(int depth, int flag, int score, int move){
+    if(move > MAX_MOVE){
+      move = -1;
+    }
+    return ((long) score << 32) | ((long) (depth & 0xFF) << 24) | ((long) (flag & 0x3) << 22) | ((move + 1) & 0x3FFFFF);
+  }
+
+  /*
+   * method that gets the score out of stored data
+   */
+  public static int scoreOf(long data){
+    return (int) (data >> 32);
+  }
+
+  /*
+   * method that gets the depth out of stored data
+   */
+  public static int depthOf(long data){
+    return (int) (data >>> 24) & 0xFF;
+  }
+
+  /*
+   * method that gets the flag (EXACT, LOWER_BOUND or UPPER_BOUND) out of stored data
+   */
+  public static int flagOf(long data){
+    return (int) (data >>> 22) & 0x3;
+  }
+
+  /*
+   * method that gets the best move out of stored data, or -1 if there is none
+   */
+  public static int moveOf(long data){
+    return ((int) data & 0x3FFFFF) - 1;
+  }
+}
@@ -0,0 +1,100 @@
+import java.util.SplittableRandom;
+import gomoku.bench.RuleTarget;
+
+/*
+ * class that runs the benchmarked rule checks on the headless engine: numberInLine and isOpen go through the LineRuns.scan and
+ * LineRuns.scanIsOpen kernel that Gomoku's methods call, and the rules through GomokuRules, so no JavaFX window is needed
+ * @author Esther Shin
+ */
+
+public class EngineRuleTarget implements RuleTarget{
+  private BoardModel model;
+  private GomokuRules rules;
+  private int size;
+  private int[] queryRows;
+  private int[] queryColumns;
+
+  public void setUp(int size, String position, int winNumber, int queries){
+    this.size = size;
+    model = new BoardModel(size, size);
+    rules = new GomokuRules(winNumber);
+    queryRows = new int[queries];
+    queryColumns = new int[queries];
+    SplittableRandom random = new SplittableRandom(42);
+    if(position.equals("random")){
+      /*
+       * about a third of the squares get a random color; the queried squares are random empty ones
+       */
+      for(int row = 0; row < size; row = row + 1){
+        for(int column = 0; column < size; column = column + 1){
+          if(random.nextInt(3) == 0){
+            model.place(row, column, 1 + random.nextInt(2));
+          }
+        }
+      }
+      for(int i = 0; i < queries; i = i + 1){
+        int row;
+        int column;
+        do{
+          row = random.nextInt(size);
+          column = random.nextInt(size);
+        } while(!model.isEmpty(row, column));
+        queryRows[i] = row;
+        queryColumns[i] = column;
+      }
+    }
+    else if(position.equals("adversarial")){
+      /*
+       * the queried squares are spread over the rows and columns and left empty; every other square is black
+       */
+      boolean[][] empty = new boolean[size][size];
+      for(int i = 0; i < queries; i = i + 1){
+        queryRows[i] = i % size;
+        queryColumns[i] = (i * 7 + i / size) % size;
+        empty[queryRows[i]][queryColumns[i]] = true;
+      }
+      for(int row = 0; row < size; row = row + 1){
+        for(int column = 0; column < size; column = column + 1){
+          if(!empty[row][column]){
+            model.place(row, column, BoardModel.BLACK);
+          }
+        }
+      }
+    }
+    else{
+      throw new IllegalArgumentException("Unknown position: " + position);
+    }
+  }
+
+  public int numberInLine(int query, int direction){
+    return 1 + LineRuns.scan(model, queryRows[query], queryColumns[query], direction, BoardModel.BLACK, size);
+  }
+
+  public boolean isOpen(int query, int direction){
+    return LineRuns.scanIsOpen(model, queryRows[query], queryColumns[query], direction, BoardModel.BLACK, size);
+  }
+
+  public boolean isAWin(int query){
+    return rules.isWin(model, queryRows[query], queryColumns[query], BoardModel.BLACK);
+  }
+
+  public boolean threeThreeRuleFollowed(int query){
+    return rules.threeThreeRuleFollowed(model, queryRows[query], queryColumns[query], BoardModel.BLACK);
+  }
+
+  public boolean fourFourRuleFollowed(int query){
+    return rules.fourFourRuleFollowed(model, queryRows[query], queryColumns[query], BoardModel.BLACK);
+  }
+
+  public boolean handleMove(int query){
+    int row = queryRows[query];
+    int column = queryColumns[query];
+    if(!rules.isLegal(model, row, column, BoardModel.WHITE)){
+      return false;
+    }
+    boolean win = rules.isWin(model, row, column, BoardModel.WHITE);
+    model.place(row, column, BoardModel.WHITE);
+    model.undo();
+    return win;
+  }
+}
@@ -0,0 +1,100 @@
+package gomoku.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * JMH benchmarks for the rule checks and move handling of the headless engine, on 15x15, 19x19 and 100x100 boards
+ * each benchmark handles every queried square once, so a score of 1 op is QUERIES squares (and 8 directions each for numberInLine and isOpen)
+ * "random" positions are a random mix of black, white and empty squares; "adversarial" positions are almost all black,
+ * so every line from a queried square runs as far as it can
+ * run with "-prof gc" to see the allocation rate next to ops/ms
+ * @author Esther Shin
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark{
+  /*
+   * constant QUERIES  how many empty squares each benchmark call checks
+   */
+  static final int QUERIES = 64;
+
+  @Param({"15", "19", "100"})
+  public int size;
+
+  @Param({"random", "adversarial"})
+  public String position;
+
+  @Param({"5"})
+  public int winNumber;
+
+  private RuleTarget target;
+
+  @Setup
+  public void setUp() throws ReflectiveOperationException{
+    target = (RuleTarget) Class.forName("EngineRuleTarget").getDeclaredConstructor().newInstance();
+    target.setUp(size, position, winNumber, QUERIES);
+  }
+
+  @Benchmark
+  public void numberInLine(Blackhole blackhole){
+    for(int query = 0; query < QUERIES; query = query + 1){
+      for(int direction = 0; direction < 8; direction = direction + 1){
+        blackhole.consume(target.numberInLine(query, direction));
+      }
+    }
+  }
+
+  @Benchmark
+  public void isOpen(Blackhole blackhole){
+    for(int query = 0; query < QUERIES; query = query + 1){
+      for(int direction = 0; direction < 8; direction = direction + 1){
+        blackhole.consume(target.isOpen(query, direction));
+      }
+    }
+  }
+
+  @Benchmark
+  public void isAWin(Blackhole blackhole){
+    for(int query = 0; query < QUERIES; query = query + 1){
+      blackhole.consume(target.isAWin(query));
+    }
+  }
+
+  @Benchmark
+  public void threeThreeRuleFollowed(Blackhole blackhole){
+    for(int query = 0; query < QUERIES; query = query + 1){
+      blackhole.consume(target.threeThreeRuleFollowed(query));
+    }
+  }
+
+  @Benchmark
+  public void fourFourRuleFollowed(Blackhole blackhole){
+    for(int query = 0; query < QUERIES; query = query + 1){
+      blackhole.consume(target.fourFourRuleFollowed(query));
+    }
+  }
+
+  @Benchmark
+  public void handleMove(Blackhole blackhole){
+    for(int query = 0; query < QUERIES; query = query + 1){
+      blackhole.consume(target.handleMove(query));
+    }
+  }
+}
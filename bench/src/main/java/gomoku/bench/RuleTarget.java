@@ -0,0 +1,48 @@
+package gomoku.bench;
+
+/*
+ * interface the benchmarks call the engine through; JMH does not allow benchmarks in the default package and a named package cannot
+ * use default-package classes, so EngineRuleTarget (in the default package, next to the engine) implements it and is loaded by name
+ * @author Esther Shin
+ */
+
+public interface RuleTarget{
+  /*
+   * method that builds the board and picks the empty squares to check
+   * @param size  the number of rows and columns on the board
+   * @param position  "random" or "adversarial"
+   * @param winNumber  the number of pieces in a row needed to win
+   * @param queries  how many empty squares to pick
+   */
+  void setUp(int size, String position, int winNumber, int queries);
+
+  /*
+   * method that counts the pieces in a straight line from a queried square in one direction, like Gomoku.numberInLine
+   */
+  int numberInLine(int query, int direction);
+
+  /*
+   * method that determines whether the line from a queried square in one direction ends on an empty square, like Gomoku.isOpen
+   */
+  boolean isOpen(int query, int direction);
+
+  /*
+   * method that checks a queried square with Gomoku's isAWin rule
+   */
+  boolean isAWin(int query);
+
+  /*
+   * method that checks a queried square with Gomoku's threeThreeRuleFollowed rule
+   */
+  boolean threeThreeRuleFollowed(int query);
+
+  /*
+   * method that checks a queried square with Gomoku's fourFourRuleFollowed rule
+   */
+  boolean fourFourRuleFollowed(int query);
+
+  /*
+   * method that does the work ButtonClick does for one accepted move on a queried square (checks it, places it) and then takes it back
+   */
+  boolean handleMove(int query);
+}